@@ -0,0 +1,109 @@
+package com.mytool.zktool;
+
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.server.embedded.ExitHandler;
+import org.apache.zookeeper.server.embedded.ZooKeeperServerEmbedded;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// 基准测试用的进程内ZooKeeper服务端，以及直接连接它的ZkService（不启动Spring容器、不写审计日志）
+class BenchmarkCluster implements AutoCloseable {
+    private final Path dataDir;
+    private final ZooKeeperServerEmbedded server;
+    private final ZooKeeper zooKeeper;
+    private final ZkSession session;
+    private final ZkService service;
+
+    BenchmarkCluster() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        dataDir = Files.createTempDirectory("zk-bench");
+        Properties properties = new Properties();
+        properties.setProperty("clientPort", String.valueOf(port));
+        properties.setProperty("dataDir", dataDir.toString());
+        properties.setProperty("admin.enableServer", "false");
+        // 测量客户端和工具本身的开销，不测磁盘
+        properties.setProperty("forceSync", "no");
+        server = ZooKeeperServerEmbedded.builder()
+                .baseDir(dataDir)
+                .configuration(properties)
+                .exitHandler(ExitHandler.LOG_ONLY)
+                .build();
+        server.start();
+
+        CountDownLatch connected = new CountDownLatch(1);
+        zooKeeper = new ZooKeeper("127.0.0.1:" + port, 30000, event -> {
+            if (event.getState() == Watcher.Event.KeeperState.SyncConnected) {
+                connected.countDown();
+            }
+        });
+        if (!connected.await(30, TimeUnit.SECONDS)) {
+            throw new IOException("连接嵌入式ZooKeeper超时");
+        }
+        session = new ZkSession("benchmark", zooKeeper);
+
+        AuditService auditService = new AuditService();
+        ReflectionTestUtils.setField(auditService, "enabled", false);
+        service = new ZkService();
+        ReflectionTestUtils.setField(service, "mirrorService", new TreeMirrorService());
+        ReflectionTestUtils.setField(service, "auditService", auditService);
+    }
+
+    ZkSession getSession() {
+        return session;
+    }
+
+    ZkService getService() {
+        return service;
+    }
+
+    // 在root下建立每层fanOut个子节点、共depth层的树，每个节点带dataBytes字节的数据
+    void createTree(String root, int fanOut, int depth, int dataBytes) throws Exception {
+        service.importData(session, tree(root, fanOut, depth, dataBytes));
+    }
+
+    static Map<String, String> tree(String root, int fanOut, int depth, int dataBytes) {
+        char[] chars = new char[dataBytes];
+        Arrays.fill(chars, 'x');
+        String data = new String(chars);
+        Map<String, String> nodes = new LinkedHashMap<>();
+        nodes.put(root, data);
+        addChildren(nodes, root, fanOut, depth, data);
+        return nodes;
+    }
+
+    private static void addChildren(Map<String, String> nodes, String parent, int fanOut, int depth, String data) {
+        if (depth == 0) {
+            return;
+        }
+        for (int i = 0; i < fanOut; i++) {
+            String path = parent + "/n" + i;
+            nodes.put(path, data);
+            addChildren(nodes, path, fanOut, depth - 1, data);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        zooKeeper.close();
+        server.close();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.BatchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// 导出（Map和NDJSON流）与导入的耗时；导入写入已存在的子树，每次都是整树更新
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportImportBenchmark {
+    private static final String EXPORT_ROOT = "/export";
+    private static final String IMPORT_ROOT = "/import";
+
+    @Param({"30"})
+    public int fanOut;
+
+    @Param({"2"})
+    public int depth;
+
+    @Param({"100", "4096"})
+    public int dataBytes;
+
+    private BenchmarkCluster cluster;
+    private Map<String, String> importNodes;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        cluster = new BenchmarkCluster();
+        cluster.createTree(EXPORT_ROOT, fanOut, depth, dataBytes);
+        importNodes = BenchmarkCluster.tree(IMPORT_ROOT, fanOut, depth, dataBytes);
+        cluster.getService().importData(cluster.getSession(), importNodes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        cluster.close();
+    }
+
+    @Benchmark
+    public Map<String, String> exportMap() throws Exception {
+        return cluster.getService().exportData(cluster.getSession(), EXPORT_ROOT);
+    }
+
+    @Benchmark
+    public long exportNdjson() throws Exception {
+        try (NdjsonNodeWriter writer = new NdjsonNodeWriter(OutputStream.nullOutputStream())) {
+            return cluster.getService().exportData(cluster.getSession(), EXPORT_ROOT, writer);
+        }
+    }
+
+    @Benchmark
+    public BatchResult importMap() throws Exception {
+        return cluster.getService().importData(cluster.getSession(), importNodes);
+    }
+}
@@ -0,0 +1,63 @@
+package com.mytool.zktool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// notifyListeners的分发耗时：节点自身和父节点上各注册listeners个监听器，不发出ZooKeeper请求
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListenerDispatchBenchmark {
+    private static final String PARENT = "/bench";
+    private static final String PATH = "/bench/node";
+
+    @Param({"1", "100"})
+    public int listeners;
+
+    private BenchmarkCluster cluster;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) throws Exception {
+        cluster = new BenchmarkCluster();
+        ZkSession session = cluster.getSession();
+        for (String path : new String[]{PARENT, PATH}) {
+            for (int i = 0; i < listeners; i++) {
+                session.getPathListeners().computeIfAbsent(path, k -> ConcurrentHashMap.newKeySet())
+                        .add((eventPath, event) -> blackhole.consume(event));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        cluster.close();
+    }
+
+    @Benchmark
+    public void updated() {
+        cluster.getService().notifyListeners(cluster.getSession(), PATH, NodeEvent.UPDATED);
+    }
+
+    @Benchmark
+    public void deleted() {
+        cluster.getService().notifyListeners(cluster.getSession(), PATH, NodeEvent.DELETED);
+    }
+}
@@ -0,0 +1,84 @@
+package com.mytool.zktool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mytool.zktool.dto.ApiResponse;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.Stat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 节点树的序列化耗时：完整结构的JSON、紧凑结构的JSON和CBOR，ObjectMapper与Spring MVC默认配置一致，
+// 响应外层同控制器一样包一层ApiResponse
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NodeInfoSerializationBenchmark {
+
+    @Param({"100", "10000"})
+    public int nodes;
+
+    @Param({"100"})
+    public int dataBytes;
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper cborMapper;
+    private ApiResponse<NodeInfo> response;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        byte[] data = "x".repeat(dataBytes).getBytes(StandardCharsets.UTF_8);
+        Stat stat = new Stat(1, 2, System.currentTimeMillis(), System.currentTimeMillis(), 3, 0, 0, 0, dataBytes, 0, 2);
+        NodeInfo root = ZkService.toNodeInfo("/bench", data, ZooDefs.Ids.OPEN_ACL_UNSAFE, stat);
+        // 两层：根节点下每个子节点各带若干叶子，总数约为nodes
+        int fanOut = Math.max(1, (int) Math.sqrt(nodes));
+        List<NodeInfo> children = new ArrayList<>(fanOut);
+        for (int i = 0; i < fanOut; i++) {
+            NodeInfo child = ZkService.toNodeInfo("/bench/n" + i, data, ZooDefs.Ids.OPEN_ACL_UNSAFE, stat);
+            List<NodeInfo> leaves = new ArrayList<>(fanOut);
+            for (int j = 0; j < fanOut; j++) {
+                leaves.add(ZkService.toNodeInfo("/bench/n" + i + "/n" + j, data, ZooDefs.Ids.OPEN_ACL_UNSAFE, stat));
+            }
+            child.setChildren(leaves);
+            children.add(child);
+        }
+        root.setChildren(children);
+        response = ApiResponse.success(root);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    // 包含由NodeInfo转换为紧凑结构的耗时
+    @Benchmark
+    public byte[] serializeCompact() throws Exception {
+        return objectMapper.writeValueAsBytes(ApiResponse.success(CompactNode.of(response.getData())));
+    }
+
+    @Benchmark
+    public byte[] serializeCompactCbor() throws Exception {
+        return cborMapper.writeValueAsBytes(ApiResponse.success(CompactNode.of(response.getData())));
+    }
+}
@@ -0,0 +1,72 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.NodeQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// getNode在不同扇出和深度的树上的耗时：完整子树（异步遍历）、首层展开、只取路径和Stat的首层展开
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeFetchBenchmark {
+    private static final String ROOT = "/bench";
+
+    @Param({"10", "30"})
+    public int fanOut;
+
+    @Param({"2", "3"})
+    public int depth;
+
+    @Param({"100"})
+    public int dataBytes;
+
+    private BenchmarkCluster cluster;
+    private NodeQuery firstLevel;
+    private NodeQuery firstLevelStat;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        cluster = new BenchmarkCluster();
+        cluster.createTree(ROOT, fanOut, depth, dataBytes);
+        firstLevel = new NodeQuery();
+        firstLevelStat = new NodeQuery();
+        firstLevelStat.setFields(Set.of(NodeQuery.FIELD_PATH, NodeQuery.FIELD_STAT));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        cluster.close();
+    }
+
+    @Benchmark
+    public NodeInfo fullTree() throws Exception {
+        return cluster.getService().getNode(cluster.getSession(), ROOT);
+    }
+
+    @Benchmark
+    public NodeInfo firstLevel() throws Exception {
+        return cluster.getService().getNode(cluster.getSession(), ROOT, firstLevel);
+    }
+
+    @Benchmark
+    public NodeInfo firstLevelStat() throws Exception {
+        return cluster.getService().getNode(cluster.getSession(), ROOT, firstLevelStat);
+    }
+}
@@ -0,0 +1,95 @@
+package com.mytool.zktool;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 按路径列表流水线读取节点，最多保持maxInFlight个节点的请求在途。
+// 读取期间已被删除的节点不出现在结果中，其他错误在全部请求结束后抛出。
+class AsyncNodeFetcher {
+    private final ZooKeeper zooKeeper;
+    private final int maxInFlight;
+    private final long timeoutMs;
+
+    AsyncNodeFetcher(ZooKeeper zooKeeper, int maxInFlight) {
+        this(zooKeeper, maxInFlight, AsyncPipeline.DEFAULT_TIMEOUT_MS);
+    }
+
+    AsyncNodeFetcher(ZooKeeper zooKeeper, int maxInFlight, long timeoutMs) {
+        this.zooKeeper = zooKeeper;
+        this.maxInFlight = maxInFlight;
+        this.timeoutMs = timeoutMs;
+    }
+
+    // withData和withAcl都为false时只读取Stat
+    Map<String, NodeRecord> fetch(List<String> paths, boolean withData, boolean withAcl)
+            throws KeeperException, InterruptedException {
+        Map<String, NodeRecord> nodes = new ConcurrentHashMap<>();
+        AsyncPipeline pipeline = new AsyncPipeline(maxInFlight, timeoutMs);
+        for (String path : paths) {
+            pipeline.submit();
+            Pending pending = new Pending(withAcl ? 2 : 1);
+            Runnable complete = () -> {
+                if (pending.remaining.decrementAndGet() > 0) {
+                    return;
+                }
+                if (pending.rc == KeeperException.Code.OK.intValue()) {
+                    nodes.put(path, new NodeRecord(path, pending.data, pending.stat, pending.acls));
+                } else if (pending.rc != KeeperException.Code.NONODE.intValue()) {
+                    pipeline.fail(pending.rc, path);
+                }
+                pipeline.complete();
+            };
+            if (withData) {
+                zooKeeper.getData(path, false, (rc, p, ctx, data, stat) -> {
+                    pending.data = data;
+                    pending.stat = stat;
+                    pending.fail(rc);
+                    complete.run();
+                }, null);
+            } else if (!withAcl) {
+                zooKeeper.exists(path, false, (rc, p, ctx, stat) -> {
+                    pending.stat = stat;
+                    pending.fail(rc);
+                    complete.run();
+                }, null);
+            }
+            if (withAcl) {
+                zooKeeper.getACL(path, new Stat(), (rc, p, ctx, acls, stat) -> {
+                    pending.acls = acls;
+                    if (!withData) {
+                        pending.stat = stat;
+                    }
+                    pending.fail(rc);
+                    complete.run();
+                }, null);
+            }
+        }
+        pipeline.await();
+        return nodes;
+    }
+
+    private static class Pending {
+        private final AtomicInteger remaining;
+        private volatile int rc = KeeperException.Code.OK.intValue();
+        private volatile byte[] data;
+        private volatile Stat stat;
+        private volatile List<ACL> acls;
+
+        Pending(int calls) {
+            this.remaining = new AtomicInteger(calls);
+        }
+
+        void fail(int rc) {
+            if (rc != KeeperException.Code.OK.intValue()) {
+                this.rc = rc;
+            }
+        }
+    }
+}
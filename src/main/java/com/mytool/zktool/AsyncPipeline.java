@@ -0,0 +1,52 @@
+package com.mytool.zktool;
+
+import org.apache.zookeeper.KeeperException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// 有界在途数的异步请求流水线：每个单元（一个节点的一个或多个异步请求）发出前调用submit，窗口已满时等待；
+// 单元的请求全部返回后调用complete释放窗口。回调中用fail记录错误，await等待全部单元结束后抛出第一个错误。
+// 超过timeoutMs没有空出窗口或没有全部结束视为超时。
+final class AsyncPipeline {
+    static final long DEFAULT_TIMEOUT_MS = 30000;
+
+    private final int maxInFlight;
+    private final long timeoutMs;
+    private final Semaphore window;
+    private final AtomicReference<KeeperException> failure = new AtomicReference<>();
+
+    AsyncPipeline(int maxInFlight, long timeoutMs) {
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : AsyncTreeWalker.DEFAULT_MAX_IN_FLIGHT;
+        this.timeoutMs = timeoutMs > 0 ? timeoutMs : DEFAULT_TIMEOUT_MS;
+        this.window = new Semaphore(this.maxInFlight);
+    }
+
+    void submit() throws KeeperException, InterruptedException {
+        if (!window.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+            throw new KeeperException.OperationTimeoutException();
+        }
+    }
+
+    void complete() {
+        window.release();
+    }
+
+    // 只保留第一个错误，rc为OK时忽略
+    void fail(int rc, String path) {
+        if (rc != KeeperException.Code.OK.intValue()) {
+            failure.compareAndSet(null, KeeperException.create(KeeperException.Code.get(rc), path));
+        }
+    }
+
+    void await() throws KeeperException, InterruptedException {
+        if (!window.tryAcquire(maxInFlight, timeoutMs, TimeUnit.MILLISECONDS)) {
+            throw new KeeperException.OperationTimeoutException();
+        }
+        window.release(maxInFlight);
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.mytool.zktool;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// 基于ZooKeeper异步回调API的子树遍历引擎，最多保持maxInFlight个节点的请求在途。
+// 回调线程只负责投递结果，访问者始终在调用walk的线程上执行，因此无需额外同步。
+public class AsyncTreeWalker {
+    public static final int DEFAULT_MAX_IN_FLIGHT = 500;
+    private static final long RESULT_TIMEOUT_MS = 30000;
+
+    private final ZooKeeper zooKeeper;
+    private final int maxInFlight;
+    private boolean fetchData = true;
+    private boolean fetchAcl = false;
+
+    public AsyncTreeWalker(ZooKeeper zooKeeper, int maxInFlight) {
+        this.zooKeeper = zooKeeper;
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : DEFAULT_MAX_IN_FLIGHT;
+    }
+
+    public AsyncTreeWalker withData(boolean fetchData) {
+        this.fetchData = fetchData;
+        return this;
+    }
+
+    public AsyncTreeWalker withAcl(boolean fetchAcl) {
+        this.fetchAcl = fetchAcl;
+        return this;
+    }
+
+    // 遍历root及其全部子孙节点并返回访问数，父节点总是先于子节点被访问。
+    // 遍历过程中被删除的节点会被跳过；root不存在时抛出NoNodeException。
+    public int walk(String root, Consumer<Node> visitor) throws KeeperException, InterruptedException {
+        BlockingQueue<Node> completed = new LinkedBlockingQueue<>();
+        // 使用栈做深度优先，待发送路径的数量只与各层扇出之和相关
+        Deque<String> pending = new ArrayDeque<>();
+        pending.push(root);
+        int inFlight = 0;
+        int visited = 0;
+
+        while (!pending.isEmpty() || inFlight > 0) {
+            while (inFlight < maxInFlight && !pending.isEmpty()) {
+                submit(pending.pop(), completed);
+                inFlight++;
+            }
+
+            Node node = completed.poll(RESULT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (node == null) {
+                throw new KeeperException.OperationTimeoutException();
+            }
+            inFlight--;
+
+            KeeperException.Code code = KeeperException.Code.get(node.rc);
+            if (code == KeeperException.Code.NONODE && !node.path.equals(root)) {
+                continue;
+            }
+            if (code != KeeperException.Code.OK) {
+                throw KeeperException.create(code, node.path);
+            }
+
+            visitor.accept(node);
+            visited++;
+            for (String child : node.children) {
+                pending.push(childPath(node.path, child));
+            }
+        }
+        return visited;
+    }
+
+    private void submit(String path, BlockingQueue<Node> completed) {
+        Node node = new Node(path);
+        AtomicInteger remaining = new AtomicInteger(1 + (fetchData ? 1 : 0) + (fetchAcl ? 1 : 0));
+
+        zooKeeper.getChildren(path, false, (rc, p, ctx, children, stat) -> {
+            node.children = children;
+            if (!fetchData) {
+                node.stat = stat;
+            }
+            node.complete(rc, remaining, completed);
+        }, null);
+
+        if (fetchData) {
+            zooKeeper.getData(path, false, (rc, p, ctx, data, stat) -> {
+                node.data = data;
+                node.stat = stat;
+                node.complete(rc, remaining, completed);
+            }, null);
+        }
+
+        if (fetchAcl) {
+            zooKeeper.getACL(path, new Stat(), (rc, p, ctx, acls, stat) -> {
+                node.acls = acls;
+                node.complete(rc, remaining, completed);
+            }, null);
+        }
+    }
+
+    static String childPath(String parent, String child) {
+        return parent.equals("/") ? "/" + child : parent + "/" + child;
+    }
+
+    public static class Node {
+        private final String path;
+        private volatile int rc = KeeperException.Code.OK.intValue();
+        private volatile byte[] data;
+        private volatile Stat stat;
+        private volatile List<ACL> acls;
+        private volatile List<String> children;
+
+        Node(String path) {
+            this.path = path;
+        }
+
+        // 同一节点的多个回调全部返回后才投递，任一失败即记录错误码
+        private void complete(int rc, AtomicInteger remaining, BlockingQueue<Node> completed) {
+            if (rc != KeeperException.Code.OK.intValue()) {
+                this.rc = rc;
+            }
+            if (remaining.decrementAndGet() == 0) {
+                completed.add(this);
+            }
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public Stat getStat() {
+            return stat;
+        }
+
+        public List<ACL> getAcls() {
+            return acls;
+        }
+
+        public List<String> getChildren() {
+            return children;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.entity.AuditLog;
+import com.mytool.zktool.mapper.AuditMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 记录通过本工具执行的全部写操作。调用方只把记录放入有界队列，由后台线程按批在事务中写入SQLite，
+// 审计写入不会增加ZooKeeper调用的耗时。请求线程中的记录在队列满时等待写入线程腾出空间，批量写入因此被限速到
+// 审计的写入速度；只有写入线程停滞超过offer-timeout-ms时才丢弃记录并计数。ZooKeeper回调线程中的记录
+// 不能等待（会阻塞整个会话的事件处理），队列满时直接丢弃并计数，由发送请求的线程先调用awaitCapacity限速。
+// 数据哈希也在后台线程计算（SHA-256的前16字节）。
+@Service
+public class AuditService {
+    private static final Logger logger = LoggerFactory.getLogger(AuditService.class);
+    private static final int HASH_BYTES = 16;
+    private static final int MAX_LIMIT = 1000;
+    private static final String SYSTEM_OPERATOR = "system";
+
+    @Autowired
+    private AuditMapper auditMapper;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${zktool.audit.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${zktool.audit.queue-capacity:100000}")
+    private int queueCapacity = 100000;
+
+    @Value("${zktool.audit.offer-timeout-ms:10000}")
+    private long offerTimeoutMs = 10000;
+
+    @Value("${zktool.audit.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${zktool.audit.flush-interval-ms:1000}")
+    private long flushIntervalMs = 1000;
+
+    private BlockingQueue<Pending> queue;
+    private AuditMapper batchMapper;
+    private Thread writer;
+    private volatile boolean stopping;
+    private final AtomicLong dropped = new AtomicLong();
+    private long lastDropWarnTime;
+    private final Object capacityLock = new Object();
+
+    // 待写入的记录，数据在写入线程中计算哈希后丢弃
+    private static class Pending {
+        final AuditLog log;
+        final byte[] data;
+
+        Pending(AuditLog log, byte[] data) {
+            this.log = log;
+            this.data = data;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        batchMapper = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH).getMapper(AuditMapper.class);
+        writer = new Thread(this::drainLoop, "zk-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // 当前操作者：已认证的用户名，否则为请求的来源地址；不在请求线程中时为system
+    public String currentOperator() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return authentication.getName();
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+            String forwarded = request.getHeader("X-Forwarded-For");
+            return forwarded != null && !forwarded.isEmpty() ? forwarded.split(",")[0].trim() : request.getRemoteAddr();
+        }
+        return SYSTEM_OPERATOR;
+    }
+
+    public void record(ZkSession session, String operation, String path, Integer oldVersion, Integer newVersion,
+                       byte[] data, long latencyMs, String error) {
+        record(currentOperator(), session, operation, path, oldVersion, newVersion, data, latencyMs, error);
+    }
+
+    // operator由调用方预先取得，用于在后台线程中记录
+    public void record(String operator, ZkSession session, String operation, String path, Integer oldVersion,
+                       Integer newVersion, byte[] data, long latencyMs, String error) {
+        if (!enabled) {
+            return;
+        }
+        Pending pending = new Pending(newLog(operator, session, operation, path, oldVersion, newVersion, data,
+                latencyMs, error), data);
+        try {
+            if (!queue.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                dropped.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+        }
+    }
+
+    // 在ZooKeeper回调线程中记录：从不阻塞，队列满时丢弃并计数
+    public void tryRecord(String operator, ZkSession session, String operation, String path, Integer oldVersion,
+                          Integer newVersion, byte[] data, long latencyMs, String error) {
+        if (!enabled) {
+            return;
+        }
+        if (!queue.offer(new Pending(newLog(operator, session, operation, path, oldVersion, newVersion, data,
+                latencyMs, error), data))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    // 等待队列至少有count个空位，最长offer-timeout-ms；在途请求完成时用tryRecord写入的记录因此不会因队列满而丢弃
+    public void awaitCapacity(int count) throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        int needed = Math.min(count, queueCapacity);
+        long deadline = System.currentTimeMillis() + offerTimeoutMs;
+        synchronized (capacityLock) {
+            while (queue.remainingCapacity() < needed) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return;
+                }
+                capacityLock.wait(wait);
+            }
+        }
+    }
+
+    private static AuditLog newLog(String operator, ZkSession session, String operation, String path,
+                                   Integer oldVersion, Integer newVersion, byte[] data, long latencyMs, String error) {
+        AuditLog log = new AuditLog();
+        log.setTime(System.currentTimeMillis());
+        log.setOperator(operator);
+        log.setCluster(session.getAddress());
+        log.setOperation(operation);
+        log.setPath(path);
+        log.setOldVersion(oldVersion);
+        log.setNewVersion(newVersion);
+        log.setDataLength(data != null ? data.length : null);
+        log.setLatencyMs(latencyMs);
+        log.setSuccess(error == null);
+        log.setError(error);
+        return log;
+    }
+
+    // 按路径前缀、集群和时间范围查询，最新的在前；时间格式同历史快照查询
+    public List<AuditLog> find(String prefix, String cluster, String from, String to, int offset, int limit) {
+        String prefixEnd = null;
+        if (prefix != null && !prefix.isEmpty()) {
+            prefixEnd = QueryParams.prefixEnd(prefix);
+        } else {
+            prefix = null;
+        }
+        return auditMapper.find(prefix, prefixEnd, cluster,
+                from != null ? QueryParams.parseTime(from) : null,
+                to != null ? QueryParams.parseTime(to) : null,
+                Math.max(0, offset), Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        MessageDigest digest = newDigest();
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (!stopping || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                synchronized (capacityLock) {
+                    capacityLock.notifyAll();
+                }
+                write(batch, digest);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("写入审计日志失败，丢弃{}条记录", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+            warnDropped();
+        }
+    }
+
+    private void write(List<Pending> batch, MessageDigest digest) {
+        for (Pending pending : batch) {
+            if (pending.data != null) {
+                digest.reset();
+                pending.log.setDataHash(MerkleTree.toHex(Arrays.copyOf(digest.digest(pending.data), HASH_BYTES)));
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Pending pending : batch) {
+                batchMapper.insert(pending.log);
+            }
+        });
+    }
+
+    private void warnDropped() {
+        long now = System.currentTimeMillis();
+        if (dropped.get() > 0 && now - lastDropWarnTime >= 60000) {
+            lastDropWarnTime = now;
+            logger.warn("审计队列持续已满，累计丢弃{}条记录", dropped.get());
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // 写完队列中剩余的记录后退出
+        stopping = true;
+        writer.join(flushIntervalMs + 10000);
+    }
+}
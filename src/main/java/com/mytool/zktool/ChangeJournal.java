@@ -0,0 +1,218 @@
+package com.mytool.zktool;
+
+import org.apache.zookeeper.AddWatchMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 子树的变更日志：通过持久递归Watch记录节点的创建、更新和删除，容量固定，写满后覆盖最旧的记录。
+// Watch事件不带zxid，收到事件后用exists取节点的mzxid（删除时取父节点的pzxid）作为记录的zxid，
+// 它不小于变更实际的zxid；再与上一条记录取严格递增，保证按zxid查询时不会漏掉尚未记录的变更。
+class ChangeJournal implements Watcher {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeJournal.class);
+
+    static final class Change {
+        private final long zxid;
+        private final String path;
+        private final NodeEvent event;
+
+        Change(long zxid, String path, NodeEvent event) {
+            this.zxid = zxid;
+            this.path = path;
+            this.event = event;
+        }
+
+        long getZxid() {
+            return zxid;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        NodeEvent getEvent() {
+            return event;
+        }
+    }
+
+    private final ZkSession session;
+    private final String root;
+    private final int maxInFlight;
+    private final Change[] changes;
+    private int next;
+    private int size;
+    // 不大于floor的变更可能不在日志中：打开前的变更，以及被覆盖的记录
+    private long floor = Long.MAX_VALUE;
+    private long lastZxid;
+    private volatile boolean open;
+    private volatile boolean broken;
+    private volatile long lastAccessTime = System.currentTimeMillis();
+
+    ChangeJournal(ZkSession session, String root, int capacity, int maxInFlight) {
+        this.session = session;
+        this.root = root;
+        this.maxInFlight = maxInFlight;
+        this.changes = new Change[Math.max(1, capacity)];
+    }
+
+    // 先注册Watch再遍历子树：此前的变更都不大于遍历到的最大zxid，此后的变更都会触发Watch
+    void open() throws KeeperException, InterruptedException {
+        ZooKeeper zooKeeper = session.getZooKeeper();
+        zooKeeper.addWatch(root, this, AddWatchMode.PERSISTENT_RECURSIVE);
+        open = true;
+        session.pin();
+        long[] maxZxid = {0};
+        try {
+            new AsyncTreeWalker(zooKeeper, maxInFlight).withData(false).walk(root, visited -> {
+                Stat stat = visited.getStat();
+                maxZxid[0] = Math.max(maxZxid[0], Math.max(stat.getMzxid(), stat.getPzxid()));
+            });
+        } catch (KeeperException | InterruptedException e) {
+            close();
+            throw e;
+        }
+        synchronized (this) {
+            floor = maxZxid[0];
+            lastZxid = Math.max(lastZxid, floor);
+        }
+    }
+
+    @Override
+    public void process(WatchedEvent event) {
+        if (event.getType() == Event.EventType.None) {
+            // 断线期间的变更不会补发事件，日志不再完整
+            if (event.getState() == Event.KeeperState.Disconnected || event.getState() == Event.KeeperState.Expired) {
+                logger.warn("变更日志连接中断，需要重建: {} {}", session.getKey(), root);
+                broken = true;
+            }
+            return;
+        }
+        String path = event.getPath();
+        NodeEvent type = NodeEvent.of(event.getType());
+        if (path == null || type == NodeEvent.UNKNOWN || type == NodeEvent.CHILDREN_CHANGED) {
+            return;
+        }
+        ZooKeeper zooKeeper = session.getZooKeeper();
+        if (type == NodeEvent.DELETED) {
+            int lastSlash = path.lastIndexOf('/');
+            String parent = lastSlash == 0 ? "/" : path.substring(0, lastSlash);
+            zooKeeper.exists(parent, false, (rc, p, ctx, stat) -> {
+                if (rc == KeeperException.Code.OK.intValue()) {
+                    append(path, type, stat.getPzxid());
+                } else if (rc == KeeperException.Code.NONODE.intValue()) {
+                    // 父节点也已删除，其删除事件随后到达
+                    append(path, type, 0);
+                } else {
+                    fail(path, rc);
+                }
+            }, null);
+        } else {
+            zooKeeper.exists(path, false, (rc, p, ctx, stat) -> {
+                if (rc == KeeperException.Code.OK.intValue()) {
+                    append(path, type, stat.getMzxid());
+                } else if (rc != KeeperException.Code.NONODE.intValue()) {
+                    fail(path, rc);
+                }
+                // 节点已被删除时不记录，删除事件随后到达
+            }, null);
+        }
+    }
+
+    private synchronized void append(String path, NodeEvent event, long zxid) {
+        lastZxid = Math.max(zxid, lastZxid + 1);
+        Change evicted = changes[next];
+        changes[next] = new Change(lastZxid, path, event);
+        next = (next + 1) % changes.length;
+        if (size < changes.length) {
+            size++;
+        } else if (evicted != null) {
+            floor = Math.max(floor, evicted.zxid);
+        }
+    }
+
+    private void fail(String path, int rc) {
+        logger.warn("变更日志读取节点失败，需要重建: path={}, rc={}", path, KeeperException.Code.get(rc));
+        broken = true;
+    }
+
+    // 按zxid顺序返回晚于since的变更和当前的高水位，两者在同一把锁内取得；
+    // 高水位之后记录的变更zxid都大于它。since早于日志窗口时变更列表为null，调用方需要全量重新同步
+    synchronized Window read(long since) {
+        lastAccessTime = System.currentTimeMillis();
+        if (since < floor) {
+            return new Window(null, Math.max(lastZxid, floor == Long.MAX_VALUE ? 0 : floor));
+        }
+        List<Change> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Change change = changes[(next - size + i + changes.length) % changes.length];
+            if (change.zxid > since) {
+                result.add(change);
+            }
+        }
+        return new Window(result, lastZxid);
+    }
+
+    static final class Window {
+        private final List<Change> changes;
+        private final long highWater;
+
+        Window(List<Change> changes, long highWater) {
+            this.changes = changes;
+            this.highWater = highWater;
+        }
+
+        List<Change> getChanges() {
+            return changes;
+        }
+
+        long getHighWater() {
+            return highWater;
+        }
+    }
+
+    void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        session.unpin();
+        if (session.isAlive()) {
+            try {
+                session.getZooKeeper().removeWatches(root, this, WatcherType.Any, true);
+            } catch (Exception e) {
+                logger.warn("移除变更日志监听失败: {} {}, 原因: {}", session.getKey(), root, e.getMessage());
+            }
+        }
+    }
+
+    boolean covers(String path) {
+        return path.equals(root) || root.equals("/") || path.startsWith(root + "/");
+    }
+
+    boolean isUsable() {
+        return open && !broken && session.isAlive();
+    }
+
+    ZkSession getSession() {
+        return session;
+    }
+
+    String getRoot() {
+        return root;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    long getLastAccessTime() {
+        return lastAccessTime;
+    }
+}
@@ -0,0 +1,178 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.ChangeSet;
+import com.mytool.zktool.dto.NodeChange;
+import jakarta.annotation.PreDestroy;
+import org.apache.zookeeper.KeeperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 按集群路径维护变更日志，客户端带上次看到的zxid轮询，只取回之后变化的节点。
+// 日志在第一次查询时建立，长时间无人查询后关闭
+@Service
+public class ChangeJournalService {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeJournalService.class);
+
+    @Autowired
+    private ZkService zkService;
+
+    @Value("${zktool.changes.journal-size:10000}")
+    private int journalSize = 10000;
+
+    @Value("${zktool.changes.max-journals:32}")
+    private int maxJournals = 32;
+
+    @Value("${zktool.changes.max-results:1000}")
+    private int maxResults = 1000;
+
+    @Value("${zktool.changes.idle-timeout-ms:600000}")
+    private long idleTimeoutMs = 600000;
+
+    @Value("${zktool.traversal.max-in-flight:500}")
+    private int traversalMaxInFlight = AsyncTreeWalker.DEFAULT_MAX_IN_FLIGHT;
+
+    private final Map<String, ChangeJournal> journals = new ConcurrentHashMap<>();
+
+    // 返回path子树中zxid晚于since的变更，同一节点只返回最新状态；新建日志或since已超出日志窗口时要求全量重新同步
+    public ChangeSet getChanges(ZkSession session, String path, long since, boolean withData)
+            throws KeeperException, InterruptedException {
+        session.validate();
+        ChangeSet result = new ChangeSet();
+        result.setPath(path);
+        result.setSince(since);
+        result.setChanges(new ArrayList<>());
+
+        ChangeJournal journal = find(session, path);
+        if (journal == null) {
+            journal = open(session, path);
+            result.setResync(true);
+            result.setHighWater(journal.read(since).getHighWater());
+            return result;
+        }
+        ChangeJournal.Window window = journal.read(since);
+        result.setHighWater(window.getHighWater());
+        if (window.getChanges() == null) {
+            result.setResync(true);
+            return result;
+        }
+
+        // 同一节点多次变化时只保留最后一次；超过上限时截断，高水位退回到最后一条纳入的记录
+        Map<String, ChangeJournal.Change> latest = new LinkedHashMap<>();
+        for (ChangeJournal.Change change : window.getChanges()) {
+            if (!covers(path, change.getPath())) {
+                continue;
+            }
+            if (!latest.containsKey(change.getPath()) && latest.size() >= maxResults) {
+                result.setHasMore(true);
+                break;
+            }
+            latest.remove(change.getPath());
+            latest.put(change.getPath(), change);
+        }
+        if (result.isHasMore()) {
+            result.setHighWater(latest.values().stream().mapToLong(ChangeJournal.Change::getZxid).max().orElse(since));
+        }
+
+        // 未删除节点的当前状态通过节点缓存读取，读取时已不存在的按删除返回
+        List<String> present = new ArrayList<>();
+        for (ChangeJournal.Change change : latest.values()) {
+            if (change.getEvent() != NodeEvent.DELETED) {
+                present.add(change.getPath());
+            }
+        }
+        Map<String, NodeCache.Entry> entries = present.isEmpty() ? Map.of()
+                : zkService.readNodes(session, present, withData);
+        for (ChangeJournal.Change change : latest.values()) {
+            NodeChange nodeChange = new NodeChange();
+            nodeChange.setPath(change.getPath());
+            nodeChange.setZxid(change.getZxid());
+            NodeCache.Entry entry = change.getEvent() != NodeEvent.DELETED ? entries.get(change.getPath()) : null;
+            if (entry == null) {
+                nodeChange.setEvent(NodeEvent.DELETED.name());
+            } else {
+                nodeChange.setEvent(change.getEvent().name());
+                nodeChange.setStat(entry.getStat());
+                if (withData && entry.getData() != null) {
+                    nodeChange.setData(new String(entry.getData(), StandardCharsets.UTF_8));
+                }
+            }
+            result.getChanges().add(nodeChange);
+        }
+        return result;
+    }
+
+    private ChangeJournal find(ZkSession session, String path) {
+        ChangeJournal best = null;
+        for (ChangeJournal journal : journals.values()) {
+            if (journal.getSession() == session && journal.isUsable() && journal.covers(path)
+                    && (best == null || journal.getRoot().length() > best.getRoot().length())) {
+                best = journal;
+            }
+        }
+        return best;
+    }
+
+    private synchronized ChangeJournal open(ZkSession session, String path) throws KeeperException, InterruptedException {
+        String key = session.getKey() + "|" + path;
+        ChangeJournal existing = journals.get(key);
+        if (existing != null && existing.getSession() == session && existing.isUsable()) {
+            return existing;
+        }
+        // 超过数量上限时关闭最久未查询的日志
+        while (journals.size() >= maxJournals) {
+            journals.entrySet().stream()
+                    .min(Comparator.comparingLong(e -> e.getValue().getLastAccessTime()))
+                    .ifPresent(e -> close(e.getKey()));
+        }
+        ChangeJournal journal = new ChangeJournal(session, path, journalSize, traversalMaxInFlight);
+        journal.open();
+        ChangeJournal previous = journals.put(key, journal);
+        if (previous != null) {
+            previous.close();
+        }
+        logger.info("建立变更日志: {} {}", session.getKey(), path);
+        return journal;
+    }
+
+    // 关闭长时间无人查询或已中断的日志，中断的日志在下次查询时重建并要求客户端全量同步
+    @Scheduled(fixedDelayString = "${zktool.changes.check-interval-ms:60000}")
+    public void evictJournals() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, ChangeJournal> entry : journals.entrySet()) {
+            ChangeJournal journal = entry.getValue();
+            if (!journal.isUsable() || now - journal.getLastAccessTime() > idleTimeoutMs) {
+                close(entry.getKey());
+            }
+        }
+    }
+
+    private void close(String key) {
+        ChangeJournal journal = journals.remove(key);
+        if (journal != null) {
+            logger.info("关闭变更日志: {} {}, 记录数={}", journal.getSession().getKey(), journal.getRoot(), journal.size());
+            journal.close();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        journals.values().forEach(ChangeJournal::close);
+        journals.clear();
+    }
+
+    private static boolean covers(String root, String path) {
+        return path.equals(root) || root.equals("/") || path.startsWith(root + "/");
+    }
+}
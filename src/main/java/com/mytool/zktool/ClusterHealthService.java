@@ -0,0 +1,374 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.ClusterHealth;
+import com.mytool.zktool.dto.ServerHealth;
+import com.mytool.zktool.entity.Cluster;
+import com.mytool.zktool.service.ClusterService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.zookeeper.client.FourLetterWordMain;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 定时用四字命令（mntr、srvr、cons）采集已登记集群各服务器的延迟、排队请求、节点数和Watch数，
+// 每台服务器保留固定条数的采样，用于在操作超时之前发现负载过高的集群。
+// mntr不可用（未加入4lw.commands.whitelist或版本过旧）时退回到srvr的输出。
+@Service
+public class ClusterHealthService {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterHealthService.class);
+
+    public static final String STATUS_OK = "OK";
+    public static final String STATUS_WARN = "WARN";
+    public static final String STATUS_DOWN = "DOWN";
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Value("${zktool.health.history-size:720}")
+    private int historySize = 720;
+
+    @Value("${zktool.health.timeout-ms:3000}")
+    private int timeoutMs = 3000;
+
+    @Value("${zktool.health.threads:4}")
+    private int threads = 4;
+
+    @Value("${zktool.health.warn-avg-latency-ms:100}")
+    private double warnAvgLatencyMs = 100;
+
+    @Value("${zktool.health.warn-outstanding:100}")
+    private long warnOutstanding = 100;
+
+    // 键为"集群ID|host:port"
+    private final Map<String, ServerState> states = new ConcurrentHashMap<>();
+    private ExecutorService poller;
+
+    // 单台服务器的采样历史，以及计算请求速率用的上一次收包数
+    private static class ServerState {
+        final RingBuffer<ServerHealth> history;
+        long lastPackets = -1;
+        long lastTime;
+
+        ServerState(int capacity) {
+            history = new RingBuffer<>(capacity);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger count = new AtomicInteger();
+        poller = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "zk-health-poller-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${zktool.health.poll-interval-ms:10000}")
+    public void pollAll() {
+        Set<String> keys = new HashSet<>();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Cluster cluster : clusterService.getAllClusters()) {
+            for (String server : servers(cluster)) {
+                String key = cluster.getId() + "|" + server;
+                keys.add(key);
+                ServerState state = states.computeIfAbsent(key, k -> new ServerState(historySize));
+                tasks.add(() -> {
+                    ServerHealth sample;
+                    try {
+                        sample = poll(server, state);
+                    } catch (RuntimeException e) {
+                        // invokeAll不会抛出任务的异常，未预料的错误也记为一次采样
+                        logger.warn("采集服务器状态失败: {}", server, e);
+                        sample = failed(server, STATUS_WARN, e.toString());
+                        state.lastPackets = -1;
+                    }
+                    state.history.add(sample);
+                    return null;
+                });
+            }
+        }
+        // 已删除的集群不再保留历史
+        states.keySet().retainAll(keys);
+        try {
+            poller.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 各集群的总体状态和每台服务器最近一次采样
+    public List<ClusterHealth> summary() {
+        List<ClusterHealth> result = new ArrayList<>();
+        for (Cluster cluster : clusterService.getAllClusters()) {
+            List<ServerHealth> latest = new ArrayList<>();
+            for (String server : servers(cluster)) {
+                ServerState state = states.get(cluster.getId() + "|" + server);
+                ServerHealth sample = state != null ? state.history.latest() : null;
+                if (sample != null) {
+                    latest.add(sample);
+                }
+            }
+            ClusterHealth health = new ClusterHealth();
+            health.setClusterId(cluster.getId());
+            health.setName(cluster.getName());
+            health.setServers(latest);
+            health.setStatus(clusterStatus(latest));
+            result.add(health);
+        }
+        return result;
+    }
+
+    // 单个集群的采样时间序列，从旧到新；server为空时返回全部服务器
+    public List<ServerHealth> history(Long clusterId, String server, Long since, int limit) {
+        Cluster cluster = clusterService.getClusterById(clusterId);
+        if (cluster == null) {
+            throw new IllegalArgumentException("集群不存在: " + clusterId);
+        }
+        LocalDateTime from = since != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(since), ZoneId.systemDefault()) : null;
+        List<ServerHealth> result = new ArrayList<>();
+        for (String address : servers(cluster)) {
+            ServerState state = states.get(clusterId + "|" + address);
+            if (state != null && (server == null || server.equals(address))) {
+                result.addAll(state.history.list(sample -> from == null || sample.getTime().isAfter(from),
+                        Math.max(1, limit)));
+            }
+        }
+        return result;
+    }
+
+    private ServerHealth poll(String server, ServerState state) {
+        ServerHealth sample = new ServerHealth();
+        long now = System.currentTimeMillis();
+        sample.setTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault()));
+        sample.setServer(server);
+        String host;
+        int port;
+        String mntr;
+        try {
+            InetSocketAddress address = parseAddress(server);
+            host = address.getHostString();
+            port = address.getPort();
+            mntr = FourLetterWordMain.send4LetterWord(host, port, "mntr", false, timeoutMs);
+        } catch (Exception e) {
+            sample.setStatus(STATUS_DOWN);
+            sample.setError(e.getMessage());
+            state.lastPackets = -1;
+            return sample;
+        }
+
+        Long packets;
+        Map<String, String> metrics = parseMntr(mntr);
+        if (metrics.containsKey("zk_avg_latency")) {
+            sample.setMode(metrics.get("zk_server_state"));
+            sample.setAvgLatency(number(metrics.get("zk_avg_latency")));
+            sample.setMaxLatency(longNumber(metrics.get("zk_max_latency")));
+            sample.setOutstandingRequests(longNumber(metrics.get("zk_outstanding_requests")));
+            sample.setZnodeCount(longNumber(metrics.get("zk_znode_count")));
+            sample.setWatchCount(longNumber(metrics.get("zk_watch_count")));
+            sample.setConnections(longNumber(metrics.get("zk_num_alive_connections")));
+            packets = longNumber(metrics.get("zk_packets_received"));
+        } else {
+            Map<String, String> srvr = parseSrvr(send(host, port, "srvr"));
+            String latency = srvr.get("Latency min/avg/max");
+            if (latency == null) {
+                // 两个命令都不可用，或服务器尚未开始服务
+                sample.setStatus(STATUS_WARN);
+                sample.setError(firstLine(mntr));
+                state.lastPackets = -1;
+                return sample;
+            }
+            String[] parts = latency.split("/");
+            sample.setMode(srvr.get("Mode"));
+            sample.setAvgLatency(number(parts[1]));
+            sample.setMaxLatency(longNumber(parts[2]));
+            sample.setOutstandingRequests(longNumber(srvr.get("Outstanding")));
+            sample.setZnodeCount(longNumber(srvr.get("Node count")));
+            sample.setConnections(longNumber(srvr.get("Connections")));
+            packets = longNumber(srvr.get("Received"));
+        }
+        long[] cons = parseCons(send(host, port, "cons"));
+        if (cons != null) {
+            if (sample.getConnections() == null) {
+                sample.setConnections(cons[0]);
+            }
+            sample.setMaxQueued(cons[1]);
+        }
+        if (packets != null && state.lastPackets >= 0 && packets >= state.lastPackets && now > state.lastTime) {
+            sample.setRequestsPerSecond((packets - state.lastPackets) * 1000.0 / (now - state.lastTime));
+        }
+        state.lastPackets = packets != null ? packets : -1;
+        state.lastTime = now;
+        assess(sample);
+        return sample;
+    }
+
+    private static ServerHealth failed(String server, String status, String error) {
+        ServerHealth sample = new ServerHealth();
+        sample.setTime(LocalDateTime.now());
+        sample.setServer(server);
+        sample.setStatus(status);
+        sample.setError(error);
+        return sample;
+    }
+
+    // 集群登记的地址在采集时才解析，格式错误时抛出IllegalArgumentException，记为该服务器的DOWN采样
+    static InetSocketAddress parseAddress(String server) {
+        int colon = server.lastIndexOf(':');
+        if (colon <= 0 || colon == server.length() - 1) {
+            throw new IllegalArgumentException("无效的服务器地址: " + server + "，应为host:port");
+        }
+        int port;
+        try {
+            port = Integer.parseInt(server.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的服务器端口: " + server);
+        }
+        if (port <= 0 || port > 65535) {
+            throw new IllegalArgumentException("无效的服务器端口: " + server);
+        }
+        return InetSocketAddress.createUnresolved(server.substring(0, colon), port);
+    }
+
+    private void assess(ServerHealth sample) {
+        List<String> reasons = new ArrayList<>();
+        if (sample.getAvgLatency() != null && sample.getAvgLatency() >= warnAvgLatencyMs) {
+            reasons.add("平均延迟" + sample.getAvgLatency() + "ms");
+        }
+        if (sample.getOutstandingRequests() != null && sample.getOutstandingRequests() >= warnOutstanding) {
+            reasons.add("排队请求" + sample.getOutstandingRequests() + "个");
+        }
+        sample.setStatus(reasons.isEmpty() ? STATUS_OK : STATUS_WARN);
+        sample.setError(reasons.isEmpty() ? null : String.join("，", reasons));
+    }
+
+    // 全部服务器不可达为DOWN，任一服务器异常为WARN
+    static String clusterStatus(List<ServerHealth> servers) {
+        if (servers.isEmpty()) {
+            return null;
+        }
+        boolean allDown = true;
+        boolean anyProblem = false;
+        for (ServerHealth server : servers) {
+            allDown &= STATUS_DOWN.equals(server.getStatus());
+            anyProblem |= !STATUS_OK.equals(server.getStatus());
+        }
+        return allDown ? STATUS_DOWN : anyProblem ? STATUS_WARN : STATUS_OK;
+    }
+
+    // 集群的host可以是逗号分隔的多个地址，未带端口的使用集群端口
+    static List<String> servers(Cluster cluster) {
+        List<String> servers = new ArrayList<>();
+        if (cluster.getHost() == null) {
+            return servers;
+        }
+        for (String host : cluster.getHost().split(",")) {
+            String trimmed = host.trim();
+            if (!trimmed.isEmpty()) {
+                servers.add(trimmed.contains(":") ? trimmed : trimmed + ":" + cluster.getPort());
+            }
+        }
+        return servers;
+    }
+
+    // mntr每行为"键\t值"
+    static Map<String, String> parseMntr(String text) {
+        Map<String, String> metrics = new HashMap<>();
+        for (String line : text.split("\n")) {
+            int tab = line.indexOf('\t');
+            if (tab > 0) {
+                metrics.put(line.substring(0, tab).trim(), line.substring(tab + 1).trim());
+            }
+        }
+        return metrics;
+    }
+
+    // srvr每行为"键: 值"
+    static Map<String, String> parseSrvr(String text) {
+        Map<String, String> values = new HashMap<>();
+        if (text == null) {
+            return values;
+        }
+        for (String line : text.split("\n")) {
+            int colon = line.indexOf(": ");
+            if (colon > 0) {
+                values.put(line.substring(0, colon).trim(), line.substring(colon + 2).trim());
+            }
+        }
+        return values;
+    }
+
+    // cons每个连接一行，如" /127.0.0.1:52768[1](queued=0,recved=10,...)"；返回连接数和最大排队数
+    static long[] parseCons(String text) {
+        if (text == null || !text.contains("(queued=")) {
+            return null;
+        }
+        long connections = 0;
+        long maxQueued = 0;
+        for (String line : text.split("\n")) {
+            int start = line.indexOf("(queued=");
+            if (start < 0) {
+                continue;
+            }
+            connections++;
+            int end = line.indexOf(',', start);
+            String queued = line.substring(start + "(queued=".length(), end > 0 ? end : line.length() - 1);
+            maxQueued = Math.max(maxQueued, Long.parseLong(queued.trim()));
+        }
+        return new long[]{connections, maxQueued};
+    }
+
+    private String send(String host, int port, String command) {
+        try {
+            return FourLetterWordMain.send4LetterWord(host, port, command, false, timeoutMs);
+        } catch (Exception e) {
+            logger.debug("四字命令执行失败: {}:{} {}", host, port, command, e);
+            return null;
+        }
+    }
+
+    private static Double number(String value) {
+        try {
+            return value != null ? Double.valueOf(value.trim()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Long longNumber(String value) {
+        Double number = number(value);
+        return number != null ? Long.valueOf(number.longValue()) : null;
+    }
+
+    private static String firstLine(String text) {
+        String trimmed = text.trim();
+        int newline = trimmed.indexOf('\n');
+        return newline > 0 ? trimmed.substring(0, newline) : trimmed;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+}
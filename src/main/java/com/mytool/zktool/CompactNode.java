@@ -0,0 +1,74 @@
+package com.mytool.zktool;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import org.apache.zookeeper.ZKUtil;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// NodeInfo的紧凑表示：去掉界面状态字段、派生的时间和版本字符串，Stat按固定顺序编码为数组，
+// ACL编码为"scheme:id:perms"字符串，子节点只带名称，路径由父节点路径拼接
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactNode {
+    private String path;            // 节点路径，只有请求的根节点返回
+    private String name;            // 节点名称
+    private String data;            // 节点数据
+    private long[] stat;            // czxid, mzxid, ctime, mtime, version, cversion, aversion, ephemeralOwner, dataLength, numChildren, pzxid
+    private List<String> acls;      // 访问控制列表，如world:anyone:cdrwa
+    private Integer numChildren;    // 子节点总数
+    private List<CompactNode> children; // 子节点列表
+    private Boolean hasMore;        // 子节点还有下一页时为true，否则不返回
+    private String nextCursor;      // 下一页游标
+
+    public static CompactNode of(NodeInfo node) {
+        CompactNode compact = convert(node);
+        compact.setPath(node.getPath());
+        return compact;
+    }
+
+    private static CompactNode convert(NodeInfo node) {
+        CompactNode compact = new CompactNode();
+        compact.setName(node.getName());
+        compact.setData(node.getData());
+        compact.setStat(toArray(node.getStat()));
+        compact.setAcls(toStrings(node.getAcls()));
+        compact.setNumChildren(node.getNumChildren());
+        if (node.isHasMore()) {
+            compact.setHasMore(true);
+            compact.setNextCursor(node.getNextCursor());
+        }
+        if (node.getChildren() != null) {
+            List<CompactNode> children = new ArrayList<>(node.getChildren().size());
+            for (NodeInfo childNode : node.getChildren()) {
+                children.add(convert(childNode));
+            }
+            compact.setChildren(children);
+        }
+        return compact;
+    }
+
+    // 顺序与Stat的构造函数一致
+    private static long[] toArray(Stat stat) {
+        if (stat == null) {
+            return null;
+        }
+        return new long[]{stat.getCzxid(), stat.getMzxid(), stat.getCtime(), stat.getMtime(), stat.getVersion(),
+                stat.getCversion(), stat.getAversion(), stat.getEphemeralOwner(), stat.getDataLength(),
+                stat.getNumChildren(), stat.getPzxid()};
+    }
+
+    private static List<String> toStrings(List<ACL> acls) {
+        if (acls == null) {
+            return null;
+        }
+        List<String> result = new ArrayList<>(acls.size());
+        for (ACL acl : acls) {
+            result.add(acl.getId().getScheme() + ":" + acl.getId().getId() + ":" + ZKUtil.getPermString(acl.getPerms()));
+        }
+        return result;
+    }
+}
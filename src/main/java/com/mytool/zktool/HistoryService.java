@@ -0,0 +1,397 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.NodeVersionInfo;
+import com.mytool.zktool.entity.HistoryRun;
+import com.mytool.zktool.entity.HistorySchedule;
+import com.mytool.zktool.entity.NodeVersion;
+import com.mytool.zktool.mapper.HistoryMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// 按计划为集群路径记录历史版本，支持查询节点或子树在某一时刻的状态以及单个节点的历史。
+// 每次执行只列出Stat，与上次记录的mzxid比较后仅保存有变化的节点，按批在事务中写入SQLite。
+// 版本的生效时间取节点的mtime，因此"某时刻的值"在两次执行之间也是准确的；
+// 删除时间无法从ZooKeeper得知，以发现删除的那次执行时间为准。
+@Service
+public class HistoryService {
+    private static final Logger logger = LoggerFactory.getLogger(HistoryService.class);
+
+    @Autowired
+    private HistoryMapper historyMapper;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ZkSessionRegistry sessionRegistry;
+
+    @Autowired
+    private TreeMirrorService mirrorService;
+
+    @Value("${zktool.traversal.max-in-flight:500}")
+    private int maxInFlight = AsyncTreeWalker.DEFAULT_MAX_IN_FLIGHT;
+
+    @Value("${zktool.history.batch-size:1000}")
+    private int batchSize = 1000;
+
+    // 批量执行器的会话绑定到当前事务，事务提交时统一执行
+    private HistoryMapper batchMapper;
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "zk-history-runner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        batchMapper = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH).getMapper(HistoryMapper.class);
+    }
+
+    public List<HistorySchedule> listSchedules() {
+        return historyMapper.findSchedules();
+    }
+
+    public HistorySchedule createSchedule(String cluster, String path, int intervalMinutes) throws Exception {
+        if (cluster == null || cluster.trim().isEmpty()) {
+            throw new IllegalArgumentException("集群不能为空");
+        }
+        if (path == null || !path.startsWith("/")) {
+            throw new IllegalArgumentException("路径必须以/开头");
+        }
+        if (intervalMinutes < 1) {
+            throw new IllegalArgumentException("执行间隔不能小于1分钟");
+        }
+        // 确认集群可以连接
+        sessionRegistry.resolve(cluster).validate();
+        HistorySchedule schedule = new HistorySchedule();
+        schedule.setCluster(cluster.trim());
+        schedule.setPath(path);
+        schedule.setIntervalMinutes(intervalMinutes);
+        schedule.setEnabled(true);
+        schedule.setCreateTime(System.currentTimeMillis());
+        historyMapper.insertSchedule(schedule);
+        logger.info("新建历史快照计划: id={}, cluster={}, path={}, 间隔={}分钟",
+                schedule.getId(), schedule.getCluster(), path, intervalMinutes);
+        return schedule;
+    }
+
+    public HistorySchedule updateSchedule(Long id, Integer intervalMinutes, Boolean enabled) {
+        HistorySchedule schedule = requireSchedule(id);
+        if (intervalMinutes != null) {
+            if (intervalMinutes < 1) {
+                throw new IllegalArgumentException("执行间隔不能小于1分钟");
+            }
+            schedule.setIntervalMinutes(intervalMinutes);
+        }
+        if (enabled != null) {
+            schedule.setEnabled(enabled);
+        }
+        historyMapper.updateSchedule(schedule);
+        return schedule;
+    }
+
+    // 删除计划及其全部历史记录
+    public void deleteSchedule(Long id) {
+        requireSchedule(id);
+        transactionTemplate.executeWithoutResult(status -> {
+            historyMapper.deleteSchedule(id);
+            historyMapper.deleteRuns(id);
+            historyMapper.deleteVersions(id);
+            historyMapper.deleteLatestAll(id);
+        });
+        logger.info("删除历史快照计划: id={}", id);
+    }
+
+    public List<HistoryRun> listRuns(Long id, int limit) {
+        return historyMapper.findRuns(id, Math.max(1, limit));
+    }
+
+    @Scheduled(fixedDelayString = "${zktool.history.check-interval-ms:60000}")
+    public void runDueSchedules() {
+        long now = System.currentTimeMillis();
+        for (HistorySchedule schedule : historyMapper.findSchedules()) {
+            boolean due = schedule.getLastRunTime() == null
+                    || now - schedule.getLastRunTime() >= schedule.getIntervalMinutes() * 60000L;
+            if (Boolean.TRUE.equals(schedule.getEnabled()) && due && running.add(schedule.getId())) {
+                runner.submit(() -> {
+                    try {
+                        execute(schedule);
+                    } finally {
+                        running.remove(schedule.getId());
+                    }
+                });
+            }
+        }
+    }
+
+    // 立即执行一次，同一计划不会同时执行
+    public HistoryRun runNow(Long id) {
+        HistorySchedule schedule = requireSchedule(id);
+        if (!running.add(id)) {
+            throw new IllegalStateException("该计划正在执行");
+        }
+        try {
+            return execute(schedule);
+        } finally {
+            running.remove(id);
+        }
+    }
+
+    private HistoryRun execute(HistorySchedule schedule) {
+        long start = System.currentTimeMillis();
+        HistoryRun run = new HistoryRun();
+        run.setScheduleId(schedule.getId());
+        run.setRunTime(start);
+        run.setScanned(0);
+        run.setChanged(0);
+        run.setDeleted(0);
+        run.setElapsedMs(0L);
+        run.setSuccess(true);
+        historyMapper.insertRun(run);
+        try {
+            capture(schedule, run);
+        } catch (Exception e) {
+            logger.error("历史快照执行失败: id={}, cluster={}, path={}",
+                    schedule.getId(), schedule.getCluster(), schedule.getPath(), e);
+            run.setSuccess(false);
+            run.setError(e.getMessage());
+        }
+        run.setElapsedMs(System.currentTimeMillis() - start);
+        historyMapper.updateRun(run);
+        historyMapper.updateLastRunTime(schedule.getId(), start);
+        logger.info("历史快照完成: id={}, path={}, 扫描={}, 变化={}, 删除={}, 耗时={}ms",
+                schedule.getId(), schedule.getPath(), run.getScanned(), run.getChanged(), run.getDeleted(), run.getElapsedMs());
+        return run;
+    }
+
+    private void capture(HistorySchedule schedule, HistoryRun run) throws Exception {
+        ZkSession session = sessionRegistry.resolve(schedule.getCluster());
+        session.validate();
+        TreeMirror mirror = mirrorService.find(session, schedule.getPath());
+        Map<String, Stat> stats = listStats(session, mirror, schedule.getPath());
+        run.setScanned(stats.size());
+
+        Map<String, Long> latest = new HashMap<>();
+        historyMapper.findLatest(schedule.getId(), context -> {
+            NodeVersion version = context.getResultObject();
+            latest.put(version.getPath(), version.getMzxid());
+        });
+        List<String> changed = new ArrayList<>();
+        for (Map.Entry<String, Stat> entry : stats.entrySet()) {
+            Long mzxid = latest.get(entry.getKey());
+            if (mzxid == null || mzxid != entry.getValue().getMzxid()) {
+                changed.add(entry.getKey());
+            }
+        }
+
+        for (int from = 0; from < changed.size(); from += batchSize) {
+            List<String> window = changed.subList(from, Math.min(from + batchSize, changed.size()));
+            Map<String, NodeRecord> nodes = fetch(session, mirror, window);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (NodeRecord node : nodes.values()) {
+                    Stat stat = node.getStat();
+                    NodeVersion version = new NodeVersion();
+                    version.setScheduleId(schedule.getId());
+                    version.setRunId(run.getId());
+                    version.setPath(node.getPath());
+                    version.setValidFrom(stat.getMtime());
+                    version.setMzxid(stat.getMzxid());
+                    version.setVersion(stat.getVersion());
+                    version.setDataLength(stat.getDataLength());
+                    version.setData(node.getData());
+                    version.setDeleted(false);
+                    batchMapper.insertVersion(version);
+                    batchMapper.upsertLatest(schedule.getId(), node.getPath(), stat.getMzxid());
+                }
+            });
+            // 列出后被删除的节点留给下次执行记录
+            run.setChanged(run.getChanged() + nodes.size());
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : latest.entrySet()) {
+            if (!stats.containsKey(entry.getKey())) {
+                removed.add(entry.getKey());
+            }
+        }
+        for (int from = 0; from < removed.size(); from += batchSize) {
+            List<String> window = removed.subList(from, Math.min(from + batchSize, removed.size()));
+            transactionTemplate.executeWithoutResult(status -> {
+                for (String path : window) {
+                    NodeVersion tombstone = new NodeVersion();
+                    tombstone.setScheduleId(schedule.getId());
+                    tombstone.setRunId(run.getId());
+                    tombstone.setPath(path);
+                    tombstone.setValidFrom(run.getRunTime());
+                    tombstone.setMzxid(latest.get(path));
+                    tombstone.setVersion(-1);
+                    tombstone.setDataLength(0);
+                    tombstone.setDeleted(true);
+                    batchMapper.insertVersion(tombstone);
+                    batchMapper.deleteLatest(schedule.getId(), path);
+                }
+            });
+        }
+        run.setDeleted(removed.size());
+    }
+
+    // 节点（recursive时连同子孙节点）在time时刻的状态，time为毫秒时间戳或"yyyy-MM-ddTHH:mm:ss"
+    public List<NodeVersionInfo> asOf(Long scheduleId, String cluster, String path, String time,
+                                      boolean recursive, int offset, int limit) {
+        HistorySchedule schedule = findSchedule(scheduleId, cluster, path);
+        String lower = null;
+        String upper = null;
+        if (recursive) {
+            // 子孙节点的路径都在(path/, path0)之间，'0'紧跟在'/'之后
+            String base = path.equals("/") ? "" : path;
+            lower = base + "/";
+            upper = base + "0";
+        }
+        List<NodeVersionInfo> result = new ArrayList<>();
+        for (NodeVersion version : historyMapper.findAsOf(schedule.getId(), path, lower, upper, QueryParams.parseTime(time),
+                Math.max(0, offset), Math.max(1, limit))) {
+            result.add(toInfo(version));
+        }
+        return result;
+    }
+
+    // 单个节点记录到的全部版本，最新的在前
+    public List<NodeVersionInfo> versions(Long scheduleId, String cluster, String path, int limit) {
+        HistorySchedule schedule = findSchedule(scheduleId, cluster, path);
+        List<NodeVersionInfo> result = new ArrayList<>();
+        for (NodeVersion version : historyMapper.findVersions(schedule.getId(), path, Math.max(1, limit))) {
+            result.add(toInfo(version));
+        }
+        return result;
+    }
+
+    // 指定了scheduleId时直接使用，否则在该集群的计划中选择覆盖path且根路径最深的
+    private HistorySchedule findSchedule(Long scheduleId, String cluster, String path) {
+        if (path == null || !path.startsWith("/")) {
+            throw new IllegalArgumentException("路径必须以/开头");
+        }
+        if (scheduleId != null) {
+            HistorySchedule schedule = requireSchedule(scheduleId);
+            if (!covers(schedule.getPath(), path)) {
+                throw new IllegalArgumentException("路径不在该计划的范围内: " + path);
+            }
+            return schedule;
+        }
+        // 集群ID、地址的不同写法按会话key归一后比较，查询历史不需要连接集群
+        String key = cluster != null ? sessionRegistry.keyOf(cluster) : null;
+        HistorySchedule best = null;
+        for (HistorySchedule schedule : historyMapper.findSchedules()) {
+            boolean sameCluster = cluster == null || sessionRegistry.keyOf(schedule.getCluster()).equals(key);
+            if (sameCluster && covers(schedule.getPath(), path)
+                    && (best == null || schedule.getPath().length() > best.getPath().length())) {
+                best = schedule;
+            }
+        }
+        if (best == null) {
+            throw new IllegalArgumentException("没有覆盖该路径的历史快照计划: " + path);
+        }
+        return best;
+    }
+
+    private HistorySchedule requireSchedule(Long id) {
+        HistorySchedule schedule = historyMapper.findSchedule(id);
+        if (schedule == null) {
+            throw new IllegalArgumentException("历史快照计划不存在: " + id);
+        }
+        return schedule;
+    }
+
+    private Map<String, Stat> listStats(ZkSession session, TreeMirror mirror, String path)
+            throws KeeperException, InterruptedException {
+        Map<String, Stat> stats = new LinkedHashMap<>();
+        if (mirror != null) {
+            mirror.forEach(path, entry -> {
+                if (!system(entry.getKey())) {
+                    stats.put(entry.getKey(), entry.getValue().getStat());
+                }
+            });
+            return stats;
+        }
+        try {
+            new AsyncTreeWalker(session.getZooKeeper(), maxInFlight).withData(false).walk(path, node -> {
+                if (!system(node.getPath())) {
+                    stats.put(node.getPath(), node.getStat());
+                }
+            });
+        } catch (KeeperException.NoNodeException e) {
+            // 路径不存在时视为子树已全部删除
+        }
+        return stats;
+    }
+
+    private Map<String, NodeRecord> fetch(ZkSession session, TreeMirror mirror, List<String> paths)
+            throws KeeperException, InterruptedException {
+        if (mirror == null) {
+            return new AsyncNodeFetcher(session.getZooKeeper(), maxInFlight).fetch(paths, true, false);
+        }
+        Map<String, NodeRecord> nodes = new HashMap<>();
+        for (String path : paths) {
+            TreeMirror.MirrorNode node = mirror.get(path);
+            if (node != null) {
+                nodes.put(path, new NodeRecord(path, node.getData(), node.getStat(), null));
+            }
+        }
+        return nodes;
+    }
+
+    private static NodeVersionInfo toInfo(NodeVersion version) {
+        NodeVersionInfo info = new NodeVersionInfo();
+        info.setPath(version.getPath());
+        info.setData(version.getData() != null ? new String(version.getData(), StandardCharsets.UTF_8) : null);
+        info.setDataLength(version.getDataLength());
+        info.setVersion(version.getVersion());
+        info.setMzxid(Long.toHexString(version.getMzxid()));
+        info.setValidFrom(LocalDateTime.ofInstant(Instant.ofEpochMilli(version.getValidFrom()), ZoneId.systemDefault()));
+        info.setDeleted(Boolean.TRUE.equals(version.getDeleted()));
+        info.setRunId(version.getRunId());
+        return info;
+    }
+
+    private static boolean covers(String root, String path) {
+        return root.equals("/") || path.equals(root) || path.startsWith(root + "/");
+    }
+
+    private static boolean system(String path) {
+        return path.equals("/zookeeper") || path.startsWith("/zookeeper/");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+}
@@ -0,0 +1,597 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.LatencyStats;
+import com.mytool.zktool.dto.LoadTestRequest;
+import com.mytool.zktool.dto.LoadTestResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.common.PathUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+// 内置压测：按配置的操作比例、数据大小、会话数和目标速率向集群发出异步请求，统计吞吐量和HdrHistogram延迟分布。
+// 每次运行只读写沙箱路径下新建的子路径，结束（包括取消和失败）后递归删除该子路径。
+// 限速时延迟从计划发出时间算起，集群跟不上时的排队时间也计入延迟，避免协调遗漏低估尾延迟。
+// 预建节点和create新建的节点按序号分到每个最多BUCKET_SIZE个子节点的桶目录下，
+// 任何一次getChildren的响应都远小于jute.maxbuffer，清理时可以正常列出子树。
+@Service
+public class LoadTestService {
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestService.class);
+
+    public static final String STATE_PREPARING = "PREPARING";
+    public static final String STATE_RUNNING = "RUNNING";
+    public static final String STATE_COMPLETED = "COMPLETED";
+    public static final String STATE_CANCELLED = "CANCELLED";
+    public static final String STATE_FAILED = "FAILED";
+
+    static final String OP_CREATE = "create";
+    static final String OP_SET_DATA = "setData";
+    static final String OP_GET_DATA = "getData";
+    static final String OP_EXISTS = "exists";
+    static final String OP_DELETE = "delete";
+    static final List<String> OPERATIONS = List.of(OP_CREATE, OP_SET_DATA, OP_GET_DATA, OP_EXISTS, OP_DELETE);
+    private static final String TOTAL = "total";
+
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SESSION_TIMEOUT_MS = 30000;
+    private static final int CONNECT_TIMEOUT_SECONDS = 10;
+    private static final int DRAIN_TIMEOUT_SECONDS = 30;
+    static final int BUCKET_SIZE = 1000;
+
+    @Autowired
+    private ZkSessionRegistry sessionRegistry;
+
+    @Autowired
+    private ZkService zkService;
+
+    @Value("${zktool.loadtest.max-sessions:64}")
+    private int maxSessions = 64;
+
+    @Value("${zktool.loadtest.max-in-flight:1000}")
+    private int maxInFlight = 1000;
+
+    @Value("${zktool.loadtest.max-duration-seconds:3600}")
+    private int maxDurationSeconds = 3600;
+
+    @Value("${zktool.loadtest.max-payload-bytes:1000000}")
+    private int maxPayloadBytes = 1000000;
+
+    @Value("${zktool.loadtest.max-key-count:100000}")
+    private int maxKeyCount = 100000;
+
+    // 每次运行create最多新建的节点数，达到后create改为delete已建的节点，没有可删除的节点时改为setData
+    @Value("${zktool.loadtest.max-creates:100000}")
+    private int maxCreates = 100000;
+
+    @Value("${zktool.loadtest.history-size:20}")
+    private int historySize = 20;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final NavigableMap<Long, LoadTest> tests = new ConcurrentSkipListMap<>();
+    private ExecutorService executor;
+
+    // 一次压测运行的配置和统计
+    static class LoadTest {
+        final long id;
+        final LoadTestRequest request;
+        final String address;
+        final String runPath;
+        final int maxCreates;
+        final byte[] payload;
+        final String[] operations;
+        final int[] cumulativeWeights;
+        final Map<String, Histogram> histograms = new LinkedHashMap<>();
+        final Map<String, LongAdder> errors = new LinkedHashMap<>();
+        final Map<String, LongAdder> errorCodes = new ConcurrentHashMap<>();
+        final AtomicLong createSeq = new AtomicLong();
+        // 压测期间创建的节点，供delete使用
+        final ConcurrentLinkedQueue<String> created = new ConcurrentLinkedQueue<>();
+        final LocalDateTime startTime = LocalDateTime.now();
+        volatile LocalDateTime endTime;
+        volatile String state = STATE_PREPARING;
+        volatile long runStartNanos;
+        volatile long runEndNanos;
+        volatile boolean cancelled;
+        volatile boolean cleanedUp;
+        volatile String error;
+
+        LoadTest(long id, LoadTestRequest request, String address, Map<String, Integer> mix, int maxCreates) {
+            this.id = id;
+            this.request = request;
+            this.address = address;
+            this.runPath = request.getSandboxPath() + "/run-" + id + "-" + System.currentTimeMillis();
+            this.maxCreates = maxCreates;
+            this.payload = new byte[request.getPayloadBytes()];
+            ThreadLocalRandom.current().nextBytes(payload);
+            this.operations = mix.keySet().toArray(new String[0]);
+            this.cumulativeWeights = new int[operations.length];
+            int sum = 0;
+            for (int i = 0; i < operations.length; i++) {
+                sum += mix.get(operations[i]);
+                cumulativeWeights[i] = sum;
+            }
+            for (String op : operations) {
+                histograms.put(op, new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3));
+                errors.put(op, new LongAdder());
+            }
+            // delete在没有可删除的节点时改为create，create达到上限后改为delete或setData
+            if (mix.containsKey(OP_DELETE)) {
+                addOperation(OP_CREATE);
+            }
+            if (histograms.containsKey(OP_CREATE)) {
+                addOperation(OP_DELETE);
+                addOperation(OP_SET_DATA);
+            }
+            histograms.put(TOTAL, new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3));
+        }
+
+        private void addOperation(String op) {
+            if (!histograms.containsKey(op)) {
+                histograms.put(op, new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3));
+                errors.put(op, new LongAdder());
+            }
+        }
+
+        String key(int index) {
+            return runPath + "/k" + index / BUCKET_SIZE + "/k" + index;
+        }
+
+        // 序号从1开始
+        String createPath(long seq) {
+            return runPath + "/c" + (seq - 1) / BUCKET_SIZE + "/c" + seq;
+        }
+
+        boolean createsNodes() {
+            return histograms.containsKey(OP_CREATE);
+        }
+
+        String pick() {
+            int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (value < cumulativeWeights[i]) {
+                    return operations[i];
+                }
+            }
+            return operations[operations.length - 1];
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "zk-loadtest-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public LoadTestResult start(LoadTestRequest request) throws IOException, InterruptedException {
+        Map<String, Integer> mix = validate(request);
+        for (LoadTest test : tests.values()) {
+            if (test.endTime == null) {
+                throw new IllegalStateException("已有压测任务在运行: " + test.id);
+            }
+        }
+        ZkSession session = sessionRegistry.resolve(request.getCluster());
+        if (session.getAddress() == null) {
+            throw new IllegalStateException("无法确定集群地址");
+        }
+        LoadTest test = new LoadTest(ids.incrementAndGet(), request, session.getAddress(), mix, maxCreates);
+        tests.put(test.id, test);
+        while (tests.size() > Math.max(1, historySize)) {
+            Map.Entry<Long, LoadTest> oldest = tests.firstEntry();
+            if (oldest == null || oldest.getValue().endTime == null) {
+                break;
+            }
+            tests.remove(oldest.getKey());
+        }
+        logger.info("开始压测: id={}, 集群={}, 路径={}, 会话数={}, 目标速率={}/s, 操作比例={}",
+                test.id, test.address, test.runPath, request.getSessions(), request.getTargetRate(), mix);
+        executor.submit(() -> run(test));
+        return toResult(test);
+    }
+
+    public LoadTestResult cancel(long id) {
+        LoadTest test = tests.get(id);
+        if (test == null) {
+            throw new IllegalArgumentException("压测任务不存在: " + id);
+        }
+        test.cancelled = true;
+        return toResult(test);
+    }
+
+    public LoadTestResult getResult(long id) {
+        LoadTest test = tests.get(id);
+        if (test == null) {
+            throw new IllegalArgumentException("压测任务不存在: " + id);
+        }
+        return toResult(test);
+    }
+
+    // 最近的在前
+    public List<LoadTestResult> listResults() {
+        List<LoadTestResult> results = new ArrayList<>();
+        for (LoadTest test : tests.descendingMap().values()) {
+            results.add(toResult(test));
+        }
+        return results;
+    }
+
+    // 校验参数并返回操作权重
+    private Map<String, Integer> validate(LoadTestRequest request) {
+        String sandbox = request.getSandboxPath();
+        if (sandbox == null || sandbox.isEmpty()) {
+            throw new IllegalArgumentException("压测路径不能为空");
+        }
+        PathUtils.validatePath(sandbox);
+        if (sandbox.equals("/") || sandbox.equals("/zookeeper") || sandbox.startsWith("/zookeeper/")) {
+            throw new IllegalArgumentException("不允许在该路径下压测: " + sandbox);
+        }
+        checkRange("会话数", request.getSessions(), 1, maxSessions);
+        checkRange("每会话在途请求数", request.getMaxInFlight(), 1, maxInFlight);
+        checkRange("运行时长", request.getDurationSeconds(), 1, maxDurationSeconds);
+        checkRange("数据大小", request.getPayloadBytes(), 0, maxPayloadBytes);
+        checkRange("预建节点数", request.getKeyCount(), 1, maxKeyCount);
+        checkRange("目标速率", request.getTargetRate(), 0, Integer.MAX_VALUE);
+
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        if (request.getMix() == null || request.getMix().isEmpty()) {
+            mix.put(OP_GET_DATA, 80);
+            mix.put(OP_EXISTS, 20);
+            return mix;
+        }
+        for (Map.Entry<String, Integer> entry : request.getMix().entrySet()) {
+            if (!OPERATIONS.contains(entry.getKey())) {
+                throw new IllegalArgumentException("不支持的操作: " + entry.getKey() + "，可选值: " + String.join(", ", OPERATIONS));
+            }
+            if (entry.getValue() != null && entry.getValue() < 0) {
+                throw new IllegalArgumentException("操作权重不能为负数: " + entry.getKey());
+            }
+            if (entry.getValue() != null && entry.getValue() > 0) {
+                mix.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("操作权重之和必须大于0");
+        }
+        return mix;
+    }
+
+    private static void checkRange(String name, int value, int min, int max) {
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(name + "超出范围[" + min + ", " + max + "]: " + value);
+        }
+    }
+
+    private void run(LoadTest test) {
+        LoadTestRequest request = test.request;
+        List<ZooKeeper> clients = new ArrayList<>();
+        try {
+            for (int i = 0; i < request.getSessions(); i++) {
+                clients.add(connect(test.address));
+            }
+            ZooKeeper first = clients.get(0);
+            ensurePath(first, request.getSandboxPath());
+            first.create(test.runPath, null, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+            populate(test, first);
+            if (test.cancelled) {
+                test.state = STATE_CANCELLED;
+                return;
+            }
+
+            long intervalNanos = request.getTargetRate() > 0
+                    ? TimeUnit.SECONDS.toNanos(request.getSessions()) / request.getTargetRate() : 0;
+            test.runStartNanos = System.nanoTime();
+            long deadline = test.runStartNanos + TimeUnit.SECONDS.toNanos(request.getDurationSeconds());
+            test.state = STATE_RUNNING;
+            List<Future<?>> workers = new ArrayList<>();
+            for (ZooKeeper client : clients) {
+                workers.add(executor.submit(() -> {
+                    drive(test, client, intervalNanos, deadline);
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            test.runEndNanos = System.nanoTime();
+            test.state = test.cancelled ? STATE_CANCELLED : STATE_COMPLETED;
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            logger.error("压测失败: id={}", test.id, cause);
+            test.error = cause.getMessage();
+            test.state = STATE_FAILED;
+            if (test.runStartNanos > 0 && test.runEndNanos == 0) {
+                test.runEndNanos = System.nanoTime();
+            }
+        } finally {
+            for (ZooKeeper client : clients) {
+                try {
+                    client.close();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            cleanup(test);
+            test.endTime = LocalDateTime.now();
+            LoadTestResult result = toResult(test);
+            logger.info("压测结束: id={}, 状态={}, 请求数={}, 吞吐量={}/s, p99={}ms",
+                    test.id, test.state, result.getTotalOps(), result.getThroughput(), result.getLatency().getP99Ms());
+        }
+    }
+
+    // 单个会话的发送循环：限速时按固定间隔计划发送时间，否则只受在途窗口限制
+    private void drive(LoadTest test, ZooKeeper zooKeeper, long intervalNanos, long deadline) throws InterruptedException {
+        int window = test.request.getMaxInFlight();
+        Semaphore inFlight = new Semaphore(window);
+        long next = System.nanoTime();
+        while (!test.cancelled && System.nanoTime() < deadline) {
+            long intended;
+            if (intervalNanos > 0) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                intended = next;
+                next += intervalNanos;
+                inFlight.acquire();
+            } else {
+                inFlight.acquire();
+                intended = System.nanoTime();
+            }
+            issue(test, zooKeeper, test.pick(), intended, inFlight);
+        }
+        // 等待在途请求全部返回
+        if (!inFlight.tryAcquire(window, DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            logger.warn("压测结束时仍有请求未返回: id={}", test.id);
+        }
+    }
+
+    void issue(LoadTest test, ZooKeeper zooKeeper, String op, long intended, Semaphore inFlight) {
+        switch (op) {
+            case OP_CREATE: {
+                long seq = test.createSeq.incrementAndGet();
+                if (seq > test.maxCreates) {
+                    issue(test, zooKeeper, test.created.isEmpty() ? OP_SET_DATA : OP_DELETE, intended, inFlight);
+                    return;
+                }
+                String path = test.createPath(seq);
+                zooKeeper.create(path, test.payload, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT,
+                        (rc, p, ctx, name) -> {
+                            if (rc == KeeperException.Code.OK.intValue()) {
+                                test.created.add(p);
+                            }
+                            completed(test, OP_CREATE, rc, intended, inFlight);
+                        }, null);
+                break;
+            }
+            case OP_DELETE: {
+                String path = test.created.poll();
+                if (path == null) {
+                    issue(test, zooKeeper, test.createSeq.get() < test.maxCreates ? OP_CREATE : OP_SET_DATA,
+                            intended, inFlight);
+                    return;
+                }
+                zooKeeper.delete(path, -1, (rc, p, ctx) -> completed(test, OP_DELETE, rc, intended, inFlight), null);
+                break;
+            }
+            case OP_SET_DATA:
+                zooKeeper.setData(randomKey(test), test.payload, -1,
+                        (rc, p, ctx, stat) -> completed(test, OP_SET_DATA, rc, intended, inFlight), null);
+                break;
+            case OP_GET_DATA:
+                zooKeeper.getData(randomKey(test), false,
+                        (rc, p, ctx, data, stat) -> completed(test, OP_GET_DATA, rc, intended, inFlight), null);
+                break;
+            default:
+                zooKeeper.exists(randomKey(test), false,
+                        (rc, p, ctx, stat) -> completed(test, OP_EXISTS, rc, intended, inFlight), null);
+                break;
+        }
+    }
+
+    private static String randomKey(LoadTest test) {
+        return test.key(ThreadLocalRandom.current().nextInt(test.request.getKeyCount()));
+    }
+
+    private static void completed(LoadTest test, String op, int rc, long intended, Semaphore inFlight) {
+        long micros = Math.min(HIGHEST_LATENCY_MICROS, Math.max(0, (System.nanoTime() - intended) / 1000));
+        test.histograms.get(op).recordValue(micros);
+        test.histograms.get(TOTAL).recordValue(micros);
+        if (rc != KeeperException.Code.OK.intValue()) {
+            test.errors.get(op).increment();
+            KeeperException.Code code = KeeperException.Code.get(rc);
+            test.errorCodes.computeIfAbsent(code != null ? code.name() : String.valueOf(rc), k -> new LongAdder())
+                    .increment();
+        }
+        inFlight.release();
+    }
+
+    // 预先创建桶目录和供读写访问的节点
+    void populate(LoadTest test, ZooKeeper zooKeeper) throws KeeperException, InterruptedException {
+        int keyCount = test.request.getKeyCount();
+        createAll(test, zooKeeper, bucketCount(keyCount), i -> test.runPath + "/k" + i, null);
+        if (test.createsNodes()) {
+            createAll(test, zooKeeper, bucketCount(test.maxCreates), i -> test.runPath + "/c" + i, null);
+        }
+        createAll(test, zooKeeper, keyCount, test::key, test.payload);
+    }
+
+    private static int bucketCount(int count) {
+        return (count + BUCKET_SIZE - 1) / BUCKET_SIZE;
+    }
+
+    // 通过异步create流水线创建count个节点，取消时提前返回
+    private static void createAll(LoadTest test, ZooKeeper zooKeeper, int count, IntFunction<String> path, byte[] data)
+            throws KeeperException, InterruptedException {
+        if (test.cancelled) {
+            return;
+        }
+        AsyncPipeline pipeline = new AsyncPipeline(test.request.getMaxInFlight(),
+                TimeUnit.SECONDS.toMillis(DRAIN_TIMEOUT_SECONDS));
+        for (int i = 0; i < count && !test.cancelled; i++) {
+            pipeline.submit();
+            zooKeeper.create(path.apply(i), data, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT,
+                    (rc, p, ctx, name) -> {
+                        pipeline.fail(rc, p);
+                        pipeline.complete();
+                    }, null);
+        }
+        if (test.cancelled) {
+            return;
+        }
+        pipeline.await();
+    }
+
+    // 逐级创建沙箱根路径，已存在的忽略
+    private static void ensurePath(ZooKeeper zooKeeper, String path) throws KeeperException, InterruptedException {
+        StringBuilder prefix = new StringBuilder();
+        for (String part : path.substring(1).split("/")) {
+            prefix.append('/').append(part);
+            try {
+                zooKeeper.create(prefix.toString(), null, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+            } catch (KeeperException.NodeExistsException e) {
+                // 已存在
+            }
+        }
+    }
+
+    // 删除本次运行的子路径，沙箱根路径保留
+    void cleanup(LoadTest test) {
+        try {
+            ZkSession session = sessionRegistry.resolve(test.request.getCluster());
+            test.cleanedUp = zkService.deleteRecursive(session, test.runPath, -1, false).isSuccess();
+        } catch (KeeperException.NoNodeException e) {
+            test.cleanedUp = true;
+        } catch (Exception e) {
+            logger.error("清理压测路径失败: {}", test.runPath, e);
+        }
+        if (!test.cleanedUp) {
+            logger.warn("压测路径未能清理，请手动删除: {}", test.runPath);
+        }
+    }
+
+    private static ZooKeeper connect(String address) throws IOException, InterruptedException {
+        CountDownLatch connected = new CountDownLatch(1);
+        ZooKeeper zooKeeper = new ZooKeeper(address, SESSION_TIMEOUT_MS, event -> {
+            if (event.getState() == Watcher.Event.KeeperState.SyncConnected) {
+                connected.countDown();
+            }
+        });
+        if (!connected.await(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            zooKeeper.close();
+            throw new IOException("连接ZooKeeper超时: " + address);
+        }
+        return zooKeeper;
+    }
+
+    private LoadTestResult toResult(LoadTest test) {
+        boolean finished = test.endTime != null;
+        LoadTestResult result = new LoadTestResult();
+        result.setId(test.id);
+        result.setCluster(test.address);
+        result.setSandboxPath(test.runPath);
+        result.setState(test.state);
+        result.setStartTime(test.startTime);
+        result.setEndTime(test.endTime);
+        result.setTargetRate(test.request.getTargetRate());
+        long elapsedNanos = test.runStartNanos == 0 ? 0
+                : (test.runEndNanos > 0 ? test.runEndNanos : System.nanoTime()) - test.runStartNanos;
+        result.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+
+        Map<String, LatencyStats> operations = new LinkedHashMap<>();
+        long totalErrors = 0;
+        for (Map.Entry<String, Histogram> entry : test.histograms.entrySet()) {
+            if (entry.getKey().equals(TOTAL)) {
+                continue;
+            }
+            LatencyStats stats = toStats(entry.getValue().copy(), finished);
+            stats.setErrors(test.errors.get(entry.getKey()).sum());
+            totalErrors += stats.getErrors();
+            operations.put(entry.getKey(), stats);
+        }
+        LatencyStats total = toStats(test.histograms.get(TOTAL).copy(), finished);
+        total.setErrors(totalErrors);
+        result.setOperations(operations);
+        result.setLatency(total);
+        result.setTotalOps(total.getCount());
+        result.setTotalErrors(totalErrors);
+        result.setThroughput(elapsedNanos > 0 ? round(total.getCount() * 1e9 / elapsedNanos) : 0);
+        Map<String, Long> errorCodes = new LinkedHashMap<>();
+        test.errorCodes.forEach((code, count) -> errorCodes.put(code, count.sum()));
+        result.setErrorCodes(errorCodes);
+        result.setCleanedUp(test.cleanedUp);
+        result.setError(test.error);
+        return result;
+    }
+
+    static LatencyStats toStats(Histogram histogram, boolean encode) {
+        LatencyStats stats = new LatencyStats();
+        stats.setCount(histogram.getTotalCount());
+        if (histogram.getTotalCount() > 0) {
+            stats.setMeanMs(round(histogram.getMean() / 1000));
+            stats.setP50Ms(round(histogram.getValueAtPercentile(50) / 1000.0));
+            stats.setP99Ms(round(histogram.getValueAtPercentile(99) / 1000.0));
+            stats.setP999Ms(round(histogram.getValueAtPercentile(99.9) / 1000.0));
+            stats.setMaxMs(round(histogram.getMaxValue() / 1000.0));
+        }
+        if (encode) {
+            ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+            int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+            stats.setHistogram(Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+        }
+        return stats;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // 取消运行中的压测，让其清理沙箱路径后退出
+        for (LoadTest test : tests.values()) {
+            test.cancelled = true;
+        }
+        executor.shutdown();
+        executor.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+}
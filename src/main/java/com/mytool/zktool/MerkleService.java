@@ -0,0 +1,226 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.MerkleHash;
+import com.mytool.zktool.dto.TreeCompareResult;
+import com.mytool.zktool.dto.TreeDiff;
+import org.apache.zookeeper.KeeperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 计算子树的Merkle哈希并按哈希比较两棵子树（集群与集群、集群与快照）。
+// 哈希树按"会话|路径|是否含ACL"缓存，再次请求时只需列出Stat，仅mzxid变化的节点重新读取内容。
+@Service
+public class MerkleService {
+    private static final Logger logger = LoggerFactory.getLogger(MerkleService.class);
+
+    @Autowired
+    private ZkSessionRegistry sessionRegistry;
+
+    @Autowired
+    private TreeMirrorService mirrorService;
+
+    @Autowired
+    private SnapshotService snapshotService;
+
+    @Value("${zktool.traversal.max-in-flight:500}")
+    private int maxInFlight = AsyncTreeWalker.DEFAULT_MAX_IN_FLIGHT;
+
+    @Value("${zktool.merkle.max-trees:8}")
+    private int maxTrees = 8;
+
+    // 按最近使用淘汰，快照对应的哈希树以快照生成时间作为版本
+    private final Map<String, CachedTree> trees = new LinkedHashMap<>(16, 0.75f, true);
+
+    public MerkleHash hash(String cluster, String path, boolean includeAcl, long maxAgeMs)
+            throws KeeperException, InterruptedException, IOException {
+        long start = System.currentTimeMillis();
+        ZkSession session = sessionRegistry.resolve(cluster);
+        MerkleTree tree = clusterTree(session, path, includeAcl);
+        int hashed = refreshCluster(session, tree, maxAgeMs);
+        return toHash(tree, hashed, start);
+    }
+
+    // 右侧为快照时rightSnapshot非空，否则比较rightCluster（为空时与左侧相同集群）中的rightPath
+    public TreeCompareResult compare(String leftCluster, String leftPath, String rightCluster, String rightSnapshot,
+                                     String rightPath, boolean includeAcl, int limit, long maxAgeMs)
+            throws KeeperException, InterruptedException, IOException {
+        long start = System.currentTimeMillis();
+        ZkSession leftSession = sessionRegistry.resolve(leftCluster);
+        MerkleTree left = clusterTree(leftSession, leftPath, includeAcl);
+        refreshCluster(leftSession, left, maxAgeMs);
+
+        MerkleTree right;
+        if (rightSnapshot != null && !rightSnapshot.isEmpty()) {
+            right = snapshotTree(rightSnapshot, rightPath, includeAcl);
+        } else {
+            ZkSession rightSession = rightCluster == null || rightCluster.isEmpty()
+                    ? leftSession : sessionRegistry.resolve(rightCluster);
+            right = clusterTree(rightSession, rightPath, includeAcl);
+            refreshCluster(rightSession, right, maxAgeMs);
+        }
+
+        TreeCompareResult result = new TreeCompareResult();
+        result.setLeftRoot(leftPath);
+        result.setRightRoot(rightPath);
+        result.setLeftHash(MerkleTree.toHex(left.getRootEntry().getSubtree()));
+        result.setRightHash(MerkleTree.toHex(right.getRootEntry().getSubtree()));
+        List<TreeDiff> differences = new ArrayList<>();
+        result.setTruncated(!MerkleTree.diff(left, right, limit, differences));
+        result.setDifferences(differences);
+        result.setIdentical(differences.isEmpty());
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        logger.info("子树比较完成: {} {} <-> {} {}, 差异={}, 耗时={}ms", leftSession.getKey(), leftPath,
+                rightSnapshot != null ? rightSnapshot : rightCluster, rightPath, differences.size(), result.getElapsedMs());
+        return result;
+    }
+
+    private MerkleTree clusterTree(ZkSession session, String path, boolean includeAcl) {
+        return cached(session.getKey() + "|" + path + "|" + includeAcl, 0, path, includeAcl);
+    }
+
+    // 重新列出子树并更新哈希，maxAgeMs内刷新过的哈希树直接使用
+    private int refreshCluster(ZkSession session, MerkleTree tree, long maxAgeMs)
+            throws KeeperException, InterruptedException {
+        if (maxAgeMs > 0 && tree.getRootEntry() != null
+                && System.currentTimeMillis() - tree.getRefreshedTime() <= maxAgeMs) {
+            return 0;
+        }
+        session.validate();
+        String path = tree.getRoot();
+        boolean includeAcl = tree.isIncludeAcl();
+        // 内存镜像不保存ACL，包含ACL时直接读取集群
+        TreeMirror mirror = includeAcl ? null : mirrorService.find(session, path);
+        List<MerkleTree.Listed> listing = new ArrayList<>();
+        if (mirror != null) {
+            mirror.forEach(path, entry -> {
+                if (!system(entry.getKey())) {
+                    listing.add(new MerkleTree.Listed(entry.getKey(), entry.getValue().getStat(), entry.getValue().getChildren()));
+                }
+            });
+            if (listing.isEmpty()) {
+                throw new KeeperException.NoNodeException(path);
+            }
+        } else {
+            new AsyncTreeWalker(session.getZooKeeper(), maxInFlight).withData(false).walk(path, node -> {
+                if (!system(node.getPath())) {
+                    listing.add(new MerkleTree.Listed(node.getPath(), node.getStat(), node.getChildren()));
+                }
+            });
+        }
+
+        MerkleTree.ContentHasher hasher = paths -> {
+            Map<String, byte[]> hashes = new ConcurrentHashMap<>();
+            if (mirror != null) {
+                paths.parallelStream().forEach(p -> {
+                    TreeMirror.MirrorNode node = mirror.get(p);
+                    if (node != null) {
+                        hashes.put(p, MerkleTree.ownHash(node.getData(), null, false));
+                    }
+                });
+                return hashes;
+            }
+            Map<String, NodeRecord> nodes = new AsyncNodeFetcher(session.getZooKeeper(), maxInFlight)
+                    .fetch(paths, true, includeAcl);
+            nodes.values().parallelStream().forEach(node ->
+                    hashes.put(node.getPath(), MerkleTree.ownHash(node.getData(), node.getAcls(), includeAcl)));
+            return hashes;
+        };
+        int hashed = tree.refresh(listing, hasher);
+        logger.debug("刷新Merkle哈希: {} {}, 节点数={}, 重新读取={}", session.getKey(), path, listing.size(), hashed);
+        return hashed;
+    }
+
+    // 快照内容不变，每个快照路径只在首次使用（或快照文件被替换）时计算一次
+    private MerkleTree snapshotTree(String name, String path, boolean includeAcl) throws IOException {
+        long createTime = snapshotService.inspect(name).getCreateTime();
+        MerkleTree tree = cached("snapshot:" + name + "|" + path + "|" + includeAcl, createTime, path, includeAcl);
+        if (tree.getRootEntry() != null) {
+            return tree;
+        }
+        List<NodeRecord> records = new ArrayList<>();
+        Map<String, List<String>> children = new HashMap<>();
+        try (SnapshotReader reader = SnapshotReader.open(snapshotService.resolve(name))) {
+            reader.forEach(path, record -> {
+                if (system(record.getPath())) {
+                    return;
+                }
+                records.add(record);
+                children.computeIfAbsent(record.getPath(), p -> new ArrayList<>());
+                if (!record.getPath().equals(path)) {
+                    String parent = record.getPath().substring(0, Math.max(1, record.getPath().lastIndexOf('/')));
+                    children.computeIfAbsent(parent, p -> new ArrayList<>())
+                            .add(record.getPath().substring(record.getPath().lastIndexOf('/') + 1));
+                }
+            });
+        }
+        if (records.isEmpty()) {
+            throw new IllegalArgumentException("快照中不存在路径: " + path);
+        }
+        Map<String, byte[]> hashes = new ConcurrentHashMap<>();
+        records.parallelStream().forEach(record ->
+                hashes.put(record.getPath(), MerkleTree.ownHash(record.getData(), record.getAcls(), includeAcl)));
+        List<MerkleTree.Listed> listing = new ArrayList<>(records.size());
+        for (NodeRecord record : records) {
+            listing.add(new MerkleTree.Listed(record.getPath(), record.getStat(), children.get(record.getPath())));
+        }
+        try {
+            tree.refresh(listing, paths -> hashes);
+        } catch (KeeperException | InterruptedException e) {
+            // 内容已全部在内存中，不会访问集群
+            throw new IllegalStateException(e);
+        }
+        return tree;
+    }
+
+    private MerkleTree cached(String key, long version, String path, boolean includeAcl) {
+        synchronized (trees) {
+            CachedTree cached = trees.get(key);
+            if (cached == null || cached.version != version) {
+                cached = new CachedTree(new MerkleTree(path, includeAcl), version);
+                trees.put(key, cached);
+                while (trees.size() > Math.max(1, maxTrees)) {
+                    trees.remove(trees.keySet().iterator().next());
+                }
+            }
+            return cached.tree;
+        }
+    }
+
+    private static MerkleHash toHash(MerkleTree tree, int hashed, long start) {
+        MerkleTree.Entry root = tree.getRootEntry();
+        MerkleHash result = new MerkleHash();
+        result.setPath(tree.getRoot());
+        result.setHash(MerkleTree.toHex(root.getSubtree()));
+        result.setNodeCount(root.getSize());
+        result.setHashedNodes(hashed);
+        result.setIncludeAcl(tree.isIncludeAcl());
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    // /zookeeper是各集群自己的系统节点，不参与哈希
+    private static boolean system(String path) {
+        return path.equals("/zookeeper") || path.startsWith("/zookeeper/");
+    }
+
+    private static class CachedTree {
+        private final MerkleTree tree;
+        private final long version;
+
+        CachedTree(MerkleTree tree, long version) {
+            this.tree = tree;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.TreeDiff;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// 子树的Merkle哈希缓存。节点自身哈希覆盖数据（可选ACL），按mzxid/aversion缓存；
+// 子树哈希 = H(自身哈希, 按名称排序的每个子节点的(名称, 子树哈希))。
+// 刷新时只为mzxid变化的节点重新读取内容，子树哈希按层自底向上并行计算，且只重算有变化的分支。
+class MerkleTree {
+    static final int HASH_BYTES = 16;
+    private static final byte[] MISSING = new byte[HASH_BYTES];
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    // 刷新时提供的节点列表项，顺序不限
+    static class Listed {
+        final String path;
+        final Stat stat;
+        final Collection<String> children;
+
+        Listed(String path, Stat stat, Collection<String> children) {
+            this.path = path;
+            this.stat = stat;
+            this.children = children;
+        }
+    }
+
+    // 计算一批节点的自身哈希，结果中缺少的节点视为读取期间已被删除
+    interface ContentHasher {
+        Map<String, byte[]> hash(List<String> paths) throws KeeperException, InterruptedException;
+    }
+
+    // 发布后不再修改，未变化的节点在新旧两次结果之间共享同一个对象
+    static final class Entry {
+        private final String path;
+        private final long mzxid;
+        private final int aversion;
+        private final byte[] own;
+        private String[] children;
+        private byte[] subtree;
+        private int size;
+
+        Entry(String path, long mzxid, int aversion, byte[] own) {
+            this.path = path;
+            this.mzxid = mzxid;
+            this.aversion = aversion;
+            this.own = own;
+        }
+
+        byte[] getSubtree() {
+            return subtree;
+        }
+
+        int getSize() {
+            return size;
+        }
+    }
+
+    private final String root;
+    private final boolean includeAcl;
+    private volatile Map<String, Entry> entries = Collections.emptyMap();
+    private volatile long refreshedTime;
+
+    MerkleTree(String root, boolean includeAcl) {
+        this.root = root;
+        this.includeAcl = includeAcl;
+    }
+
+    // 用最新的节点列表刷新哈希，返回本次重新计算自身哈希的节点数
+    synchronized int refresh(List<Listed> listing, ContentHasher hasher) throws KeeperException, InterruptedException {
+        Map<String, Entry> previous = entries;
+        List<String> stale = new ArrayList<>();
+        for (Listed node : listing) {
+            Entry old = previous.get(node.path);
+            if (old == null || old.mzxid != node.stat.getMzxid()
+                    || (includeAcl && old.aversion != node.stat.getAversion())) {
+                stale.add(node.path);
+            }
+        }
+        Map<String, byte[]> hashes = stale.isEmpty() ? Collections.emptyMap() : hasher.hash(stale);
+
+        Map<String, Entry> next = new HashMap<>(listing.size() * 4 / 3 + 1);
+        TreeMap<Integer, List<Entry>> levels = new TreeMap<>(Collections.reverseOrder());
+        for (Listed node : listing) {
+            Entry old = previous.get(node.path);
+            byte[] own = hashes.get(node.path);
+            long mzxid = node.stat.getMzxid();
+            if (own == null) {
+                if (old != null && old.mzxid == mzxid && old.own != MISSING
+                        && (!includeAcl || old.aversion == node.stat.getAversion())) {
+                    own = old.own;
+                } else {
+                    // 读取内容时节点已被删除，下次刷新时重新读取
+                    own = MISSING;
+                    mzxid = -1;
+                }
+            }
+            Entry entry = new Entry(node.path, mzxid, node.stat.getAversion(), own);
+            entry.children = node.children.toArray(new String[0]);
+            next.put(node.path, entry);
+            levels.computeIfAbsent(depth(node.path), d -> new ArrayList<>()).add(entry);
+        }
+
+        // 同一层的节点互不依赖，由深到浅逐层并行计算
+        for (List<Entry> level : levels.values()) {
+            level.parallelStream().forEach(entry -> combine(entry, next, previous));
+        }
+        entries = next;
+        refreshedTime = System.currentTimeMillis();
+        return stale.size();
+    }
+
+    private static void combine(Entry entry, Map<String, Entry> next, Map<String, Entry> previous) {
+        // 列出后被删除的子节点不参与计算
+        List<String> present = new ArrayList<>(entry.children.length);
+        for (String child : entry.children) {
+            if (next.containsKey(AsyncTreeWalker.childPath(entry.path, child))) {
+                present.add(child);
+            }
+        }
+        Collections.sort(present);
+        entry.children = present.toArray(new String[0]);
+
+        // 自身哈希、子节点列表和每个子节点的子树哈希都未变化时沿用上次的结果
+        Entry old = previous.get(entry.path);
+        if (old != null && old.own == entry.own && Arrays.equals(old.children, entry.children)) {
+            boolean unchanged = true;
+            for (String child : entry.children) {
+                String childPath = AsyncTreeWalker.childPath(entry.path, child);
+                Entry oldChild = previous.get(childPath);
+                if (oldChild == null || oldChild.subtree != next.get(childPath).subtree) {
+                    unchanged = false;
+                    break;
+                }
+            }
+            if (unchanged) {
+                entry.subtree = old.subtree;
+                entry.size = old.size;
+                return;
+            }
+        }
+
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        digest.update(entry.own);
+        int size = 1;
+        for (String child : entry.children) {
+            Entry childEntry = next.get(AsyncTreeWalker.childPath(entry.path, child));
+            byte[] name = child.getBytes(StandardCharsets.UTF_8);
+            digest.update(intBytes(name.length));
+            digest.update(name);
+            digest.update(childEntry.subtree);
+            size += childEntry.size;
+        }
+        entry.subtree = Arrays.copyOf(digest.digest(), HASH_BYTES);
+        entry.size = size;
+    }
+
+    // 节点自身哈希：数据（null与空数据等价）和可选的ACL
+    static byte[] ownHash(byte[] data, List<ACL> acls, boolean includeAcl) {
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        byte[] bytes = data != null ? data : new byte[0];
+        digest.update(intBytes(bytes.length));
+        digest.update(bytes);
+        if (includeAcl && acls != null) {
+            for (ACL acl : acls) {
+                digest.update(intBytes(acl.getPerms()));
+                digest.update((acl.getId().getScheme() + ":" + acl.getId().getId() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return Arrays.copyOf(digest.digest(), HASH_BYTES);
+    }
+
+    // 自上而下比较两棵树，只进入子树哈希不同的分支，路径以相对于各自根节点的形式给出
+    static boolean diff(MerkleTree left, MerkleTree right, int limit, List<TreeDiff> differences) {
+        Map<String, Entry> leftEntries = left.entries;
+        Map<String, Entry> rightEntries = right.entries;
+        Deque<String> pending = new ArrayDeque<>();
+        pending.push("/");
+        while (!pending.isEmpty()) {
+            String relative = pending.pop();
+            Entry l = leftEntries.get(left.absolute(relative));
+            Entry r = rightEntries.get(right.absolute(relative));
+            if (Arrays.equals(l.subtree, r.subtree)) {
+                continue;
+            }
+            if (!Arrays.equals(l.own, r.own)) {
+                if (!add(differences, limit, relative, TreeDiff.CHANGED, 1)) {
+                    return false;
+                }
+            }
+            Set<String> rightChildren = new HashSet<>(Arrays.asList(r.children));
+            for (String child : l.children) {
+                String childRelative = AsyncTreeWalker.childPath(relative, child);
+                if (rightChildren.remove(child)) {
+                    pending.push(childRelative);
+                } else if (!add(differences, limit, childRelative, TreeDiff.LEFT_ONLY,
+                        leftEntries.get(left.absolute(childRelative)).size)) {
+                    return false;
+                }
+            }
+            for (String child : r.children) {
+                if (rightChildren.contains(child)) {
+                    String childRelative = AsyncTreeWalker.childPath(relative, child);
+                    if (!add(differences, limit, childRelative, TreeDiff.RIGHT_ONLY,
+                            rightEntries.get(right.absolute(childRelative)).size)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean add(List<TreeDiff> differences, int limit, String path, String type, int nodeCount) {
+        if (limit > 0 && differences.size() >= limit) {
+            return false;
+        }
+        TreeDiff diff = new TreeDiff();
+        diff.setPath(path);
+        diff.setType(type);
+        diff.setNodeCount(nodeCount);
+        differences.add(diff);
+        return true;
+    }
+
+    private String absolute(String relative) {
+        if (relative.equals("/")) {
+            return root;
+        }
+        return root.equals("/") ? relative : root + relative;
+    }
+
+    Entry getRootEntry() {
+        return entries.get(root);
+    }
+
+    String getRoot() {
+        return root;
+    }
+
+    boolean isIncludeAcl() {
+        return includeAcl;
+    }
+
+    long getRefreshedTime() {
+        return refreshedTime;
+    }
+
+    static String toHex(byte[] hash) {
+        StringBuilder sb = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static int depth(String path) {
+        if (path.equals("/")) {
+            return 0;
+        }
+        int depth = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    private static byte[] intBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+}
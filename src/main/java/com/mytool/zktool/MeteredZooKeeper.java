@@ -0,0 +1,329 @@
+package com.mytool.zktool;
+
+import org.apache.zookeeper.AddWatchMode;
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 记录每个ZooKeeper请求的耗时和返回码。只覆盖真正发出请求的重载，
+// 其余重载（如watch为boolean的版本）在ZooKeeper内部委托给这些方法，不会重复计数
+class MeteredZooKeeper extends ZooKeeper {
+    private final ZkMetrics metrics;
+
+    MeteredZooKeeper(String connectString, int sessionTimeout, Watcher watcher, ZkMetrics metrics) throws IOException {
+        super(connectString, sessionTimeout, watcher);
+        this.metrics = metrics;
+    }
+
+    private interface Call<T> {
+        T call() throws KeeperException, InterruptedException;
+    }
+
+    private <T> T timed(String op, Call<T> call) throws KeeperException, InterruptedException {
+        long start = metrics.start(false);
+        try {
+            T result = call.call();
+            metrics.record(op, start, KeeperException.Code.OK.intValue(), false);
+            return result;
+        } catch (KeeperException e) {
+            metrics.record(op, start, e.code().intValue(), false);
+            throw e;
+        }
+    }
+
+    // 异步请求完成：记录耗时，并切换到发出请求时的HTTP请求上下文，返回原上下文供回调结束后恢复
+    private AtomicInteger completed(String op, long start, int rc, AtomicInteger request) {
+        metrics.record(op, start, rc, true);
+        return metrics.switchRequest(request);
+    }
+
+    // 请求在发出前就抛出异常（如路径不合法）时也要结束在途计数
+    private void rejected(String op, long start) {
+        metrics.record(op, start, KeeperException.Code.BADARGUMENTS.intValue(), true);
+    }
+
+    private void watched(Watcher watcher, String type) {
+        if (watcher != null) {
+            metrics.watchRegistered(type);
+        }
+    }
+
+    @Override
+    public String create(String path, byte[] data, List<ACL> acl, CreateMode createMode)
+            throws KeeperException, InterruptedException {
+        return timed("create", () -> super.create(path, data, acl, createMode));
+    }
+
+    @Override
+    public String create(String path, byte[] data, List<ACL> acl, CreateMode createMode, Stat stat, long ttl)
+            throws KeeperException, InterruptedException {
+        return timed("create", () -> super.create(path, data, acl, createMode, stat, ttl));
+    }
+
+    @Override
+    public void create(String path, byte[] data, List<ACL> acl, CreateMode createMode,
+                       AsyncCallback.StringCallback cb, Object ctx) {
+        long start = metrics.start(true);
+        AtomicInteger request = metrics.currentRequest();
+        try {
+            super.create(path, data, acl, createMode, (rc, p, c, name) -> {
+                AtomicInteger previous = completed("create", start, rc, request);
+                try {
+                    cb.processResult(rc, p, c, name);
+                } finally {
+                    metrics.switchRequest(previous);
+                }
+            }, ctx);
+        } catch (RuntimeException e) {
+            rejected("create", start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void create(String path, byte[] data, List<ACL> acl, CreateMode createMode,
+                       AsyncCallback.Create2Callback cb, Object ctx, long ttl) {
+        long start = metrics.start(true);
+        AtomicInteger request = metrics.currentRequest();
+        try {
+            super.create(path, data, acl, createMode, (rc, p, c, name, stat) -> {
+                AtomicInteger previous = completed("create", start, rc, request);
+                try {
+                    cb.processResult(rc, p, c, name, stat);
+                } finally {
+                    metrics.switchRequest(previous);
+                }
+            }, ctx, ttl);
+        } catch (RuntimeException e) {
+            rejected("create", start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(String path, int version) throws InterruptedException, KeeperException {
+        timed("delete", () -> {
+            super.delete(path, version);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(String path, int version, AsyncCallback.VoidCallback cb, Object ctx) {
+        long start = metrics.start(true);
+        AtomicInteger request = metrics.currentRequest();
+        try {
+            super.delete(path, version, (rc, p, c) -> {
+                AtomicInteger previous = completed("delete", start, rc, request);
+                try {
+                    cb.processResult(rc, p, c);
+                } finally {
+                    metrics.switchRequest(previous);
+                }
+            }, ctx);
+        } catch (RuntimeException e) {
+            rejected("delete", start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<OpResult> multi(Iterable<Op> ops) throws InterruptedException, KeeperException {
+        return timed("multi", () -> super.multi(ops));
+    }
+
+    @Override
+    public void multi(Iterable<Op> ops, AsyncCallback.MultiCallback cb, Object ctx) {
+        long start = metrics.start(true);
+        AtomicInteger request = metrics.currentRequest();
+        try {
+            super.multi(ops, (rc, p, c, results) -> {
+                AtomicInteger previous = completed("multi", start, rc, request);
+                try {
+                    cb.processResult(rc, p, c, results);
+                } finally {
+                    metrics.switchRequest(previous);
+                }
+            }, ctx);
+        } catch (RuntimeException e) {
+            rejected("multi", start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Stat exists(String path, Watcher watcher) throws KeeperException, InterruptedException {
+        watched(watcher, "exists");
+        return timed("exists", () -> super.exists(path, watcher));
+    }
+
+    @Override
+    public void exists(String path, Watcher watcher, AsyncCallback.StatCallback cb, Object ctx) {
+        watched(watcher, "exists");
+        long start = metrics.start(true);
+        AtomicInteger request = metrics.currentRequest();
+        try {
+            super.exists(path, watcher, (rc, p, c, stat) -> {
+                AtomicInteger previous = completed("exists", start, rc, request);
+                try {
+                    cb.processResult(rc, p, c, stat);
+                } finally {
+                    metrics.switchRequest(previous);
+                }
+            }, ctx);
+        } catch (RuntimeException e) {
+            rejected("exists", start);
+            throw e;
+        }
+    }
+
+    @Override
+    public byte[] getData(String path, Watcher watcher, Stat stat) throws KeeperException, InterruptedException {
+        watched(watcher, "data");
+        return timed("getData", () -> super.getData(path, watcher, stat));
+    }
+
+    @Override
+    public void getData(String path, Watcher watcher, AsyncCallback.DataCallback cb, Object ctx) {
+        watched(watcher, "data");
+        long start = metrics.start(true);
+        AtomicInteger request = metrics.currentRequest();
+        try {
+            super.getData(path, watcher, (rc, p, c, data, stat) -> {
+                AtomicInteger previous = completed("getData", start, rc, request);
+                try {
+                    cb.processResult(rc, p, c, data, stat);
+                } finally {
+                    metrics.switchRequest(previous);
+                }
+            }, ctx);
+        } catch (RuntimeException e) {
+            rejected("getData", start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Stat setData(String path, byte[] data, int version) throws KeeperException, InterruptedException {
+        return timed("setData", () -> super.setData(path, data, version));
+    }
+
+    @Override
+    public void setData(String path, byte[] data, int version, AsyncCallback.StatCallback cb, Object ctx) {
+        long start = metrics.start(true);
+        AtomicInteger request = metrics.currentRequest();
+        try {
+            super.setData(path, data, version, (rc, p, c, stat) -> {
+                AtomicInteger previous = completed("setData", start, rc, request);
+                try {
+                    cb.processResult(rc, p, c, stat);
+                } finally {
+                    metrics.switchRequest(previous);
+                }
+            }, ctx);
+        } catch (RuntimeException e) {
+            rejected("setData", start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<ACL> getACL(String path, Stat stat) throws KeeperException, InterruptedException {
+        return timed("getACL", () -> super.getACL(path, stat));
+    }
+
+    @Override
+    public void getACL(String path, Stat stat, AsyncCallback.ACLCallback cb, Object ctx) {
+        long start = metrics.start(true);
+        AtomicInteger request = metrics.currentRequest();
+        try {
+            super.getACL(path, stat, (rc, p, c, acl, s) -> {
+                AtomicInteger previous = completed("getACL", start, rc, request);
+                try {
+                    cb.processResult(rc, p, c, acl, s);
+                } finally {
+                    metrics.switchRequest(previous);
+                }
+            }, ctx);
+        } catch (RuntimeException e) {
+            rejected("getACL", start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Stat setACL(String path, List<ACL> acl, int aclVersion) throws KeeperException, InterruptedException {
+        return timed("setACL", () -> super.setACL(path, acl, aclVersion));
+    }
+
+    @Override
+    public List<String> getChildren(String path, Watcher watcher) throws KeeperException, InterruptedException {
+        watched(watcher, "children");
+        return timed("getChildren", () -> super.getChildren(path, watcher));
+    }
+
+    @Override
+    public List<String> getChildren(String path, Watcher watcher, Stat stat) throws KeeperException, InterruptedException {
+        watched(watcher, "children");
+        return timed("getChildren", () -> super.getChildren(path, watcher, stat));
+    }
+
+    @Override
+    public void getChildren(String path, Watcher watcher, AsyncCallback.ChildrenCallback cb, Object ctx) {
+        watched(watcher, "children");
+        long start = metrics.start(true);
+        AtomicInteger request = metrics.currentRequest();
+        try {
+            super.getChildren(path, watcher, (rc, p, c, children) -> {
+                AtomicInteger previous = completed("getChildren", start, rc, request);
+                try {
+                    cb.processResult(rc, p, c, children);
+                } finally {
+                    metrics.switchRequest(previous);
+                }
+            }, ctx);
+        } catch (RuntimeException e) {
+            rejected("getChildren", start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void getChildren(String path, Watcher watcher, AsyncCallback.Children2Callback cb, Object ctx) {
+        watched(watcher, "children");
+        long start = metrics.start(true);
+        AtomicInteger request = metrics.currentRequest();
+        try {
+            super.getChildren(path, watcher, (rc, p, c, children, stat) -> {
+                AtomicInteger previous = completed("getChildren", start, rc, request);
+                try {
+                    cb.processResult(rc, p, c, children, stat);
+                } finally {
+                    metrics.switchRequest(previous);
+                }
+            }, ctx);
+        } catch (RuntimeException e) {
+            rejected("getChildren", start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void addWatch(String basePath, Watcher watcher, AddWatchMode mode) throws KeeperException, InterruptedException {
+        watched(watcher, mode.name().toLowerCase());
+        timed("addWatch", () -> {
+            super.addWatch(basePath, watcher, mode);
+            return null;
+        });
+    }
+}
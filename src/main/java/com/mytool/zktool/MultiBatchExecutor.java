@@ -0,0 +1,375 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.BatchResult;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 把批量操作拆分成若干个ZooKeeper.multi()事务执行，每个事务的大小控制在jute.maxbuffer以内。
+// 每个分块本身是原子的；atomic模式下任一分块失败会按相反顺序补偿已提交的分块。
+// 补偿只在节点仍是本批次写入的版本时生效，期间被其他客户端修改过的节点回滚失败，不覆盖他人的写入。
+public class MultiBatchExecutor {
+    public static final int DEFAULT_MAX_CHUNK_BYTES = 512 * 1024;
+    public static final int DEFAULT_MAX_CHUNK_OPS = 1000;
+    // 单个操作在请求中除路径和数据之外的大致开销（类型、版本、ACL、标志位等）
+    private static final int OP_OVERHEAD_BYTES = 64;
+    private static final int JUTE_MAX_BUFFER = Integer.getInteger("jute.maxbuffer", 0xfffff);
+
+    private static final Logger logger = LoggerFactory.getLogger(MultiBatchExecutor.class);
+
+    private final ZooKeeper zooKeeper;
+    private final int maxChunkBytes;
+    private final int maxChunkOps;
+    // 预先读取旧值时同时在途的节点数和等待超时
+    private int maxInFlight = AsyncTreeWalker.DEFAULT_MAX_IN_FLIGHT;
+    private long timeoutMs = AsyncPipeline.DEFAULT_TIMEOUT_MS;
+
+    public MultiBatchExecutor(ZooKeeper zooKeeper, int maxChunkBytes, int maxChunkOps) {
+        this.zooKeeper = zooKeeper;
+        int bytes = maxChunkBytes > 0 ? maxChunkBytes : DEFAULT_MAX_CHUNK_BYTES;
+        // 请求还要经过序列化和包头，预留一半余量
+        this.maxChunkBytes = Math.min(bytes, JUTE_MAX_BUFFER / 2);
+        this.maxChunkOps = maxChunkOps > 0 ? maxChunkOps : DEFAULT_MAX_CHUNK_OPS;
+    }
+
+    public MultiBatchExecutor withPipeline(int maxInFlight, long timeoutMs) {
+        this.maxInFlight = maxInFlight;
+        this.timeoutMs = timeoutMs;
+        return this;
+    }
+
+    public enum Kind {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    public static class Step {
+        private final Kind kind;
+        private final String path;
+        private final byte[] data;
+        private final int version;
+        private final Op op;
+        private final int size;
+
+        private Step(Kind kind, String path, byte[] data, int version, Op op) {
+            this.kind = kind;
+            this.path = path;
+            this.data = data;
+            this.version = version;
+            this.op = op;
+            this.size = estimateSize(path, data);
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        // 更新和删除的CAS版本号，-1表示不校验
+        public int getVersion() {
+            return version;
+        }
+    }
+
+    public static Step create(String path, byte[] data) {
+        return new Step(Kind.CREATE, path, data, -1,
+                Op.create(path, data, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT));
+    }
+
+    public static Step update(String path, byte[] data, int version) {
+        return new Step(Kind.UPDATE, path, data, version, Op.setData(path, data, version));
+    }
+
+    public static Step delete(String path, int version) {
+        return new Step(Kind.DELETE, path, null, version, Op.delete(path, version));
+    }
+
+    // 执行批量操作，checks中的版本校验会加在每个分块事务的开头
+    public BatchResult execute(List<Step> steps, List<Op> checks, boolean atomic) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        List<Op> guards = checks != null ? checks : Collections.emptyList();
+        List<List<Step>> chunks = split(steps, guards);
+
+        BatchResult result = new BatchResult();
+        result.setTotal(steps.size());
+        result.setChunks(chunks.size());
+
+        // 跨多个事务的全量原子操作需要预先记录旧值，用于失败时补偿
+        Map<String, Undo> undo = null;
+        if (atomic && chunks.size() > 1) {
+            try {
+                undo = prepareUndo(steps);
+            } catch (KeeperException e) {
+                fail(result, e.getPath(), e);
+                result.setElapsedMs(System.currentTimeMillis() - start);
+                return result;
+            }
+            String unrecoverable = findUnrecoverable(undo);
+            if (unrecoverable != null) {
+                // 临时节点属于创建它的会话，删除后无法原样重建，不开始写入
+                result.setSuccess(false);
+                result.setFailedPath(unrecoverable);
+                result.setError("无法回滚临时节点的删除 @ " + unrecoverable);
+                result.setElapsedMs(System.currentTimeMillis() - start);
+                return result;
+            }
+        }
+
+        // 各步骤提交后的数据版本，回滚时据此校验节点未被他人修改
+        int[] committedVersions = new int[steps.size()];
+        for (List<Step> chunk : chunks) {
+            List<Op> ops = new ArrayList<>(guards.size() + chunk.size());
+            ops.addAll(guards);
+            for (Step step : chunk) {
+                ops.add(step.op);
+            }
+            try {
+                List<OpResult> results = zooKeeper.multi(ops);
+                for (int i = 0; undo != null && i < chunk.size(); i++) {
+                    OpResult opResult = results.get(guards.size() + i);
+                    if (opResult instanceof OpResult.SetDataResult) {
+                        committedVersions[result.getApplied() + i] = ((OpResult.SetDataResult) opResult).getStat().getVersion();
+                    }
+                }
+                result.setCommittedChunks(result.getCommittedChunks() + 1);
+                result.setApplied(result.getApplied() + chunk.size());
+            } catch (KeeperException e) {
+                fail(result, findFailedPath(e, ops), e);
+                if (undo != null && result.getApplied() > 0) {
+                    rollback(undoSteps(steps, undo, committedVersions, result.getApplied()), result);
+                }
+                break;
+            }
+        }
+
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        logger.debug("批量事务执行完成: total={}, chunks={}, committed={}, success={}",
+                result.getTotal(), result.getChunks(), result.getCommittedChunks(), result.isSuccess());
+        return result;
+    }
+
+    // 按字节数和操作数上限切分，checks会计入每个分块的大小
+    List<List<Step>> split(List<Step> steps, List<Op> checks) {
+        int guardBytes = 0;
+        for (Op check : checks) {
+            guardBytes += estimateSize(check.getPath(), null);
+        }
+        int opLimit = Math.max(1, maxChunkOps - checks.size());
+
+        List<List<Step>> chunks = new ArrayList<>();
+        List<Step> current = new ArrayList<>();
+        int currentBytes = guardBytes;
+        for (Step step : steps) {
+            if (!current.isEmpty()
+                    && (currentBytes + step.size > maxChunkBytes || current.size() >= opLimit)) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                currentBytes = guardBytes;
+            }
+            current.add(step);
+            currentBytes += step.size;
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    // 一个路径的补偿信息。同一路径可能在批次中出现多次（如先建后改、连续更新），补偿按路径合并：
+    // 只读取批次开始前的状态，回滚时恢复一次。批次开始前存在时记录数据，批次中删除过时还记录ACL和Stat
+    private static final class Undo {
+        private final String path;
+        private final boolean existed;
+        private final boolean deleted;
+        private volatile byte[] data;
+        private volatile List<ACL> acls;
+        private volatile Stat stat;
+        private final AtomicInteger remaining;
+
+        Undo(String path, boolean existed, boolean deleted) {
+            this.path = path;
+            this.existed = existed;
+            this.deleted = deleted;
+            this.remaining = new AtomicInteger(deleted ? 2 : 1);
+        }
+    }
+
+    // 按路径首次出现的顺序建立补偿信息：首次出现是新建的路径原本不存在，不需要读取；
+    // 其余路径流水线读取批次开始前的数据，批次中删除过的同时读取ACL
+    private Map<String, Undo> prepareUndo(List<Step> steps) throws KeeperException, InterruptedException {
+        Map<String, Kind> first = new LinkedHashMap<>();
+        Set<String> deleted = new HashSet<>();
+        for (Step step : steps) {
+            first.putIfAbsent(step.path, step.kind);
+            if (step.kind == Kind.DELETE) {
+                deleted.add(step.path);
+            }
+        }
+        Map<String, Undo> undo = new LinkedHashMap<>();
+        AsyncPipeline pipeline = new AsyncPipeline(maxInFlight, timeoutMs);
+        for (Map.Entry<String, Kind> entry : first.entrySet()) {
+            String path = entry.getKey();
+            Undo item = new Undo(path, entry.getValue() != Kind.CREATE, deleted.contains(path));
+            undo.put(path, item);
+            if (!item.existed) {
+                continue;
+            }
+            pipeline.submit();
+            Runnable complete = () -> {
+                if (item.remaining.decrementAndGet() == 0) {
+                    pipeline.complete();
+                }
+            };
+            zooKeeper.getData(path, false, (rc, p, ctx, data, stat) -> {
+                if (rc == KeeperException.Code.OK.intValue()) {
+                    item.data = data;
+                    item.stat = stat;
+                } else {
+                    pipeline.fail(rc, p);
+                }
+                complete.run();
+            }, null);
+            if (item.deleted) {
+                zooKeeper.getACL(path, new Stat(), (rc, p, ctx, acls, stat) -> {
+                    if (rc == KeeperException.Code.OK.intValue()) {
+                        item.acls = acls;
+                    } else {
+                        pipeline.fail(rc, p);
+                    }
+                    complete.run();
+                }, null);
+            }
+        }
+        pipeline.await();
+        return undo;
+    }
+
+    private static String findUnrecoverable(Map<String, Undo> undo) {
+        for (Undo item : undo.values()) {
+            if (item.existed && item.deleted && item.stat.getEphemeralOwner() != 0) {
+                return item.path;
+            }
+        }
+        return null;
+    }
+
+    // 已提交的前applied个步骤的补偿操作，按路径首次出现的顺序排列，回滚时倒序执行（子节点先于父节点恢复）。
+    // 每个路径由批次前的状态和最后一个已提交步骤之后的状态决定：原本不存在的按最终版本删除；
+    // 原本存在、现已删除的按原来的数据和ACL重建（已存在时失败）；只被更新过的按最终版本写回旧值；
+    // 删除后又重建的先按最终版本删除再重建。服务端对客户端隐藏容器节点和TTL节点的类型（ephemeralOwner为0），只能按持久节点重建
+    private static List<Step> undoSteps(List<Step> steps, Map<String, Undo> undo, int[] committedVersions, int applied) {
+        Map<String, Integer> last = new HashMap<>();
+        Set<String> deletedSoFar = new HashSet<>();
+        for (int i = 0; i < applied; i++) {
+            Step step = steps.get(i);
+            last.put(step.path, i);
+            if (step.kind == Kind.DELETE) {
+                deletedSoFar.add(step.path);
+            }
+        }
+        List<Step> result = new ArrayList<>(last.size());
+        for (Undo item : undo.values()) {
+            Integer index = last.get(item.path);
+            if (index == null) {
+                continue;
+            }
+            boolean present = steps.get(index).kind != Kind.DELETE;
+            // 新建后的版本为0，更新后的版本取自提交结果
+            int version = committedVersions[index];
+            if (!item.existed) {
+                if (present) {
+                    result.add(delete(item.path, version));
+                }
+            } else if (!present) {
+                result.add(recreate(item));
+            } else if (deletedSoFar.contains(item.path)) {
+                // 整体倒序执行，先放入重建再放入删除
+                result.add(recreate(item));
+                result.add(delete(item.path, version));
+            } else {
+                result.add(update(item.path, item.data, version));
+            }
+        }
+        return result;
+    }
+
+    private static Step recreate(Undo item) {
+        return new Step(Kind.CREATE, item.path, item.data, -1,
+                Op.create(item.path, item.data, item.acls, CreateMode.PERSISTENT));
+    }
+
+    private void rollback(List<Step> applied, BatchResult result) throws InterruptedException {
+        List<Step> reversed = new ArrayList<>(applied);
+        Collections.reverse(reversed);
+        for (List<Step> chunk : split(reversed, Collections.emptyList())) {
+            List<Op> ops = new ArrayList<>(chunk.size());
+            for (Step step : chunk) {
+                ops.add(step.op);
+            }
+            try {
+                zooKeeper.multi(ops);
+            } catch (KeeperException e) {
+                logger.error("批量操作回滚失败: path={}, 原因: {}", findFailedPath(e, ops), e.getMessage());
+                result.setError(result.getError() + "; 回滚失败: " + e.getMessage());
+                return;
+            }
+        }
+        result.setRolledBack(true);
+        result.setApplied(0);
+        result.setCommittedChunks(0);
+    }
+
+    private void fail(BatchResult result, String path, KeeperException e) {
+        result.setSuccess(false);
+        result.setFailedPath(path);
+        result.setError(e.code() + (path != null ? " @ " + path : ""));
+        logger.warn("批量事务执行失败: path={}, 原因: {}", path, e.getMessage());
+    }
+
+    // multi失败时，出错的操作返回真实错误码，其余操作返回RUNTIMEINCONSISTENCY或OK
+    private static String findFailedPath(KeeperException e, List<Op> ops) {
+        List<OpResult> results = e.getResults();
+        if (results != null) {
+            for (int i = 0; i < results.size() && i < ops.size(); i++) {
+                if (results.get(i) instanceof OpResult.ErrorResult) {
+                    int err = ((OpResult.ErrorResult) results.get(i)).getErr();
+                    if (err != KeeperException.Code.OK.intValue()
+                            && err != KeeperException.Code.RUNTIMEINCONSISTENCY.intValue()) {
+                        return ops.get(i).getPath();
+                    }
+                }
+            }
+        }
+        return e.getPath();
+    }
+
+    static int estimateSize(String path, byte[] data) {
+        return OP_OVERHEAD_BYTES + path.getBytes(StandardCharsets.UTF_8).length + (data != null ? data.length : 0);
+    }
+}
@@ -0,0 +1,68 @@
+package com.mytool.zktool;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+// 逐个读取NdjsonNodeWriter写出的节点，只保留当前这一行
+public class NdjsonNodeReader implements NodeRecord.Source, Closeable {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+
+    public NdjsonNodeReader(InputStream in) throws IOException {
+        this.parser = JSON_FACTORY.createParser(in);
+    }
+
+    // 读取下一个节点，输入结束时返回null
+    @Override
+    public NodeRecord next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "每行必须是一个JSON对象");
+        }
+        String path = null;
+        String data = null;
+        String error = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "path":
+                    path = parser.getValueAsString();
+                    break;
+                case "data":
+                    data = parser.getValueAsString();
+                    break;
+                case "error":
+                    error = parser.getValueAsString();
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        // 导出中途失败时最后一行是错误信息
+        if (error != null) {
+            throw new IOException("导入文件不完整: " + error);
+        }
+        if (path == null || !path.startsWith("/")) {
+            throw new JsonParseException(parser, "缺少有效的path字段");
+        }
+        return new NodeRecord(path, data != null ? data.getBytes(StandardCharsets.UTF_8) : null, null, null);
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,55 @@
+package com.mytool.zktool;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// 按NDJSON格式逐行写出节点：{"path":"/a","data":"..."}，每写一行不保留任何状态
+public class NdjsonNodeWriter implements Closeable {
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonGenerator generator;
+    private long count;
+
+    public NdjsonNodeWriter(OutputStream out) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator.setRootValueSeparator(null);
+    }
+
+    public void write(String path, byte[] data) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("path", path);
+        generator.writeStringField("data", data != null ? new String(data, StandardCharsets.UTF_8) : null);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        // 第一行立即发出，客户端无需等缓冲区写满就能开始处理
+        if (++count == 1) {
+            generator.flush();
+        }
+    }
+
+    // 导出中途失败时追加一行错误信息，客户端据此判断数据不完整
+    public void writeError(String message) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("error", message);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
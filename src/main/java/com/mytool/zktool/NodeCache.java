@@ -0,0 +1,202 @@
+package com.mytool.zktool;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.data.Stat;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// 会话级的节点读缓存，按数据、路径和子节点名称的估算字节数限制总容量，淘汰策略为Caffeine的W-TinyLFU。
+// 只缓存读取时同时注册了数据Watch（getData或exists）和子节点Watch（getChildren）的节点，
+// 两者覆盖了数据、Stat和子节点列表的全部变化，任一Watch触发即失效；本工具自己的写操作在返回前同步失效。
+// 连接断开、会话过期或关闭后Watch可能丢失，清空全部缓存。
+// 每次读取持有一个Load标记，读取期间该路径失效（或缓存被清空）则结果不放入缓存；失效只影响同一路径的读取。
+// 因容量不足被淘汰的条目和被丢弃的读取结果通知removeWatches移除其Watch，避免服务端为不再缓存的节点保留Watch；
+// 该路径正在被重新读取或已有缓存条目时不通知，它们依赖的是同一个Watch，移除后将不再失效。
+class NodeCache {
+    static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    // 每个条目的固定开销估算：Stat、对象头和引用
+    private static final int ENTRY_OVERHEAD = 160;
+    private static final int CHILD_OVERHEAD = 40;
+
+    // 缓存的节点，子节点列表已排序且不可修改，Stat不可修改
+    static final class Entry {
+        private final byte[] data;
+        private final boolean hasData;
+        private final Stat stat;
+        private final List<String> children;
+
+        Entry(byte[] data, boolean hasData, Stat stat, List<String> children) {
+            this.data = data;
+            this.hasData = hasData;
+            this.stat = stat;
+            this.children = children;
+        }
+
+        byte[] getData() {
+            return data;
+        }
+
+        boolean hasData() {
+            return hasData;
+        }
+
+        Stat getStat() {
+            return stat;
+        }
+
+        List<String> getChildren() {
+            return children;
+        }
+    }
+
+    // 一次读取：读取期间该路径失效则标记为stale，缓存被清空时clearEpoch变化
+    static final class Load {
+        private final String path;
+        private final long epoch;
+        private volatile boolean stale;
+
+        private Load(String path, long epoch) {
+            this.path = path;
+            this.epoch = epoch;
+        }
+    }
+
+    private final Cache<String, Entry> cache;
+    private final Consumer<String> removeWatches;
+    // 每次清空全部缓存加一
+    private final AtomicLong clearEpoch = new AtomicLong();
+    // 正在读取的路径 -> 该路径上进行中的读取
+    private final Map<String, Set<Load>> loading = new ConcurrentHashMap<>();
+
+    NodeCache(long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    NodeCache(long maxBytes, Consumer<String> removeWatches) {
+        this.removeWatches = removeWatches;
+        if (maxBytes <= 0) {
+            cache = null;
+            return;
+        }
+        Caffeine<String, Entry> builder = Caffeine.newBuilder().maximumWeight(maxBytes).weigher(NodeCache::weigh);
+        if (removeWatches != null) {
+            // 淘汰监听与条目的移除是同一个原子操作，之后的读取一定在移除Watch的请求之后发出
+            builder.evictionListener((String path, Entry entry, RemovalCause cause) -> {
+                if (path != null && !loading.containsKey(path)) {
+                    removeWatches.accept(path);
+                }
+            });
+        }
+        cache = builder.build();
+    }
+
+    // withData为true时只返回带数据的条目
+    Entry get(String path, boolean withData) {
+        Entry entry = cache != null ? cache.getIfPresent(path) : null;
+        return entry != null && (!withData || entry.hasData) ? entry : null;
+    }
+
+    // 在发出读取请求前调用，读取完成（包括失败）后必须调用complete
+    Load beginLoad(String path) {
+        Load load = new Load(path, clearEpoch.get());
+        loading.compute(path, (k, loads) -> {
+            Set<Load> result = loads != null ? loads : new HashSet<>();
+            result.add(load);
+            return result;
+        });
+        return load;
+    }
+
+    // entry为读取结果，读取失败或节点不存在时为null。返回是否放入了缓存
+    boolean complete(Load load, Entry entry) {
+        boolean cached = false;
+        if (entry != null && cache != null) {
+            // 先放入再检查：与invalidate先标记再移除配合，失效无论早于还是晚于放入都不会留下旧数据
+            cache.put(load.path, entry);
+            cached = !load.stale && load.epoch == clearEpoch.get();
+            if (!cached) {
+                cache.invalidate(load.path);
+            }
+        }
+        boolean last = loading.computeIfPresent(load.path, (k, loads) -> {
+            loads.remove(load);
+            return loads.isEmpty() ? null : loads;
+        }) == null;
+        // 丢弃的结果注册的Watch没有条目可以淘汰，同一路径没有其他读取和缓存条目时移除
+        if (!cached && last && cache != null && removeWatches != null && cache.getIfPresent(load.path) == null) {
+            removeWatches.accept(load.path);
+        }
+        return cached;
+    }
+
+    void invalidate(String path) {
+        loading.computeIfPresent(path, (k, loads) -> {
+            for (Load load : loads) {
+                load.stale = true;
+            }
+            return loads;
+        });
+        if (cache != null) {
+            cache.invalidate(path);
+        }
+    }
+
+    // 写操作会同时改变父节点的子节点列表和Stat
+    void invalidateWrite(String path) {
+        invalidate(path);
+        int lastSlash = path.lastIndexOf('/');
+        if (lastSlash >= 0 && path.length() > 1) {
+            invalidate(lastSlash == 0 ? "/" : path.substring(0, lastSlash));
+        }
+    }
+
+    void onEvent(WatchedEvent event) {
+        if (event.getType() != Watcher.Event.EventType.None) {
+            if (event.getPath() != null) {
+                invalidate(event.getPath());
+            }
+            return;
+        }
+        switch (event.getState()) {
+            case Disconnected:
+            case Expired:
+            case Closed:
+                clear();
+                break;
+            default:
+                break;
+        }
+    }
+
+    void clear() {
+        clearEpoch.incrementAndGet();
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    long size() {
+        return cache != null ? cache.estimatedSize() : 0;
+    }
+
+    private static int weigh(String path, Entry entry) {
+        long bytes = ENTRY_OVERHEAD + 2L * path.length();
+        if (entry.data != null) {
+            bytes += entry.data.length;
+        }
+        for (String child : entry.children) {
+            bytes += CHILD_OVERHEAD + 2L * child.length();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+}
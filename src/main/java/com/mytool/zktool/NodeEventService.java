@@ -0,0 +1,269 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.NodeEventMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.zookeeper.AddWatchMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// 通过SSE推送节点变更事件。每个集群路径只注册一个PERSISTENT_RECURSIVE监听，由该路径的所有订阅者共享；
+// 事件按合并窗口批量发送，前端无需再轮询/zk/nodes。
+// SseEmitter的发送和结束都是阻塞的同步方法：每个订阅者同时只有一个发送任务，停止读取的客户端只占住自己的发送线程；
+// 发送超时的订阅者被移除，结束连接也交给发送线程，不阻塞调度和ZooKeeper事件线程。
+// 发送线程数和排队任务数都有上限，线程池饱和时发送任务被拒绝，事件留在订阅者缓冲区中合并（溢出计入dropped），下一轮再发送。
+@Service
+public class NodeEventService {
+    private static final Logger logger = LoggerFactory.getLogger(NodeEventService.class);
+    // 没有事件时发送心跳注释，及时发现已断开的客户端
+    private static final long HEARTBEAT_MS = 15000;
+
+    @Value("${zktool.events.coalesce-ms:200}")
+    private long coalesceMs = 200;
+
+    @Value("${zktool.events.buffer-size:1000}")
+    private int bufferSize = 1000;
+
+    @Value("${zktool.events.sender-threads:4}")
+    private int senderThreads = 4;
+
+    @Value("${zktool.events.max-sender-threads:64}")
+    private int maxSenderThreads = 64;
+
+    @Value("${zktool.events.sender-queue-size:256}")
+    private int senderQueueSize = 256;
+
+    @Value("${zktool.events.send-timeout-ms:10000}")
+    private long sendTimeoutMs = 10000;
+
+    @Value("${zktool.events.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs = 1800000;
+
+    private final Map<String, PrefixWatch> watches = new HashMap<>();
+    private ScheduledExecutorService flusher;
+    private ExecutorService sender;
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(daemon("zk-event-flusher"));
+        // 常驻senderThreads个线程，队列满时新建，最多maxSenderThreads个，空闲一分钟后回收；再满时拒绝，由调用方处理
+        int core = Math.max(1, senderThreads);
+        sender = new ThreadPoolExecutor(core, Math.max(core, maxSenderThreads), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, senderQueueSize)), daemon("zk-event-sender"),
+                new ThreadPoolExecutor.AbortPolicy());
+        flusher.scheduleWithFixedDelay(this::flush, coalesceMs, Math.max(10, coalesceMs), TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe(ZkSession session, String path) throws KeeperException, InterruptedException {
+        session.validate();
+        String key = session.getKey() + "|" + path;
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        NodeEventSubscriber subscriber = new NodeEventSubscriber(key, emitter, bufferSize);
+        synchronized (watches) {
+            PrefixWatch watch = watches.get(key);
+            if (watch != null && watch.session != session) {
+                // 会话已重建，旧监听不会再收到事件
+                watches.remove(key);
+                complete(watch);
+                release(watch);
+                watch = null;
+            }
+            if (watch == null) {
+                watch = new PrefixWatch(session, path);
+                session.getZooKeeper().addWatch(path, watch, AddWatchMode.PERSISTENT_RECURSIVE);
+                session.pin();
+                watches.put(key, watch);
+                logger.info("注册节点事件监听: {} {}", session.getKey(), path);
+            }
+            watch.subscribers.add(subscriber);
+        }
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        return emitter;
+    }
+
+    private void unsubscribe(NodeEventSubscriber subscriber) {
+        synchronized (watches) {
+            PrefixWatch watch = watches.get(subscriber.getWatchKey());
+            if (watch != null && watch.subscribers.remove(subscriber) && watch.subscribers.isEmpty()) {
+                watches.remove(subscriber.getWatchKey());
+                release(watch);
+            }
+        }
+    }
+
+    // 最后一个订阅者离开后移除ZooKeeper上的监听
+    private void release(PrefixWatch watch) {
+        watch.session.unpin();
+        if (!watch.session.isAlive()) {
+            return;
+        }
+        try {
+            watch.session.getZooKeeper().removeWatches(watch.path, watch, Watcher.WatcherType.Any, true);
+            logger.info("移除节点事件监听: {} {}", watch.session.getKey(), watch.path);
+        } catch (Exception e) {
+            logger.warn("移除节点事件监听失败: {} {}, 原因: {}", watch.session.getKey(), watch.path, e.getMessage());
+        }
+    }
+
+    private void flush() {
+        long now = System.currentTimeMillis();
+        List<NodeEventSubscriber> subscribers = new ArrayList<>();
+        synchronized (watches) {
+            for (PrefixWatch watch : watches.values()) {
+                subscribers.addAll(watch.subscribers);
+            }
+        }
+        for (NodeEventSubscriber subscriber : subscribers) {
+            if (subscriber.isStalled(now, sendTimeoutMs)) {
+                expire(subscriber);
+                continue;
+            }
+            boolean due = subscriber.hasPending() || now - subscriber.getLastSendTime() >= HEARTBEAT_MS;
+            if (due && subscriber.tryStartSending()) {
+                try {
+                    sender.execute(() -> send(subscriber));
+                } catch (RejectedExecutionException e) {
+                    // 发送线程池已满：事件继续在缓冲区中合并，下一轮重试；发送超时只针对已开始的发送
+                    subscriber.finishSending();
+                    logger.debug("发送线程池已满，推迟推送节点事件: {}", subscriber.getWatchKey());
+                }
+            }
+        }
+    }
+
+    private void send(NodeEventSubscriber subscriber) {
+        SseEmitter emitter = subscriber.getEmitter();
+        try {
+            long dropped = subscriber.drainDropped();
+            if (dropped > 0) {
+                // 缓冲区溢出后客户端应重新拉取一次节点
+                emitter.send(SseEmitter.event().name("dropped").data(dropped));
+            }
+            List<NodeEventMessage> messages = subscriber.drain();
+            if (!messages.isEmpty()) {
+                emitter.send(SseEmitter.event().name("nodes").data(messages, MediaType.APPLICATION_JSON));
+            } else if (dropped == 0) {
+                emitter.send(SseEmitter.event().comment("ping"));
+            }
+            subscriber.markSent();
+        } catch (Exception e) {
+            logger.debug("推送节点事件失败，关闭订阅: {}, 原因: {}", subscriber.getWatchKey(), e.getMessage());
+            unsubscribe(subscriber);
+            emitter.completeWithError(e);
+        } finally {
+            subscriber.finishSending();
+        }
+    }
+
+    // 移除发送超时的订阅者；阻塞中的写入由容器的写超时结束，之后连接随之关闭
+    private void expire(NodeEventSubscriber subscriber) {
+        if (!subscriber.close()) {
+            return;
+        }
+        logger.warn("推送节点事件超时，关闭订阅: {}, 超时={}ms", subscriber.getWatchKey(), sendTimeoutMs);
+        unsubscribe(subscriber);
+        SseEmitter emitter = subscriber.getEmitter();
+        closeLater(() -> emitter.completeWithError(new TimeoutException("推送节点事件超时")));
+    }
+
+    private void complete(PrefixWatch watch) {
+        for (NodeEventSubscriber subscriber : watch.subscribers) {
+            if (subscriber.close()) {
+                closeLater(subscriber.getEmitter()::complete);
+            }
+        }
+    }
+
+    // 结束连接可能阻塞，交给发送线程；线程池已满时由调度线程稍后重试，不在调用线程中执行
+    private void closeLater(Runnable close) {
+        try {
+            sender.execute(close);
+        } catch (RejectedExecutionException e) {
+            try {
+                flusher.schedule(() -> closeLater(close), Math.max(10, coalesceMs), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException stopped) {
+                // 服务已停止，连接随容器关闭
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<PrefixWatch> closing;
+        synchronized (watches) {
+            closing = new ArrayList<>(watches.values());
+            watches.clear();
+        }
+        for (PrefixWatch watch : closing) {
+            complete(watch);
+            release(watch);
+        }
+        if (flusher != null) {
+            flusher.shutdownNow();
+            sender.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // 某个集群路径上的持久递归监听，事件在ZooKeeper事件线程中只写入各订阅者的缓冲区
+    private class PrefixWatch implements Watcher {
+        private final ZkSession session;
+        private final String path;
+        private final Set<NodeEventSubscriber> subscribers = new CopyOnWriteArraySet<>();
+
+        PrefixWatch(ZkSession session, String path) {
+            this.session = session;
+            this.path = path;
+        }
+
+        @Override
+        public void process(WatchedEvent event) {
+            if (event.getType() == Event.EventType.None) {
+                // 会话过期后监听随之失效，结束订阅让客户端重新连接
+                if (event.getState() == Event.KeeperState.Expired || event.getState() == Event.KeeperState.Closed) {
+                    complete(this);
+                }
+                return;
+            }
+            if (event.getPath() == null) {
+                return;
+            }
+            NodeEvent nodeEvent = NodeEvent.of(event.getType());
+            for (NodeEventSubscriber subscriber : subscribers) {
+                subscriber.offer(event.getPath(), nodeEvent);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.NodeEventMessage;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// 一个SSE订阅者：同一路径的事件在发送前合并，缓冲区满时丢弃最早的路径，慢客户端不会占用更多内存
+class NodeEventSubscriber {
+    private final String watchKey;
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final Map<String, NodeEventMessage> pending = new LinkedHashMap<>();
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private long dropped;
+    private volatile long sendStartTime;
+    private volatile long lastSendTime = System.currentTimeMillis();
+
+    NodeEventSubscriber(String watchKey, SseEmitter emitter, int capacity) {
+        this.watchKey = watchKey;
+        this.emitter = emitter;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    synchronized void offer(String path, NodeEvent event) {
+        long now = System.currentTimeMillis();
+        NodeEventMessage message = pending.get(path);
+        if (message == null) {
+            if (pending.size() >= capacity) {
+                Iterator<String> oldest = pending.keySet().iterator();
+                oldest.next();
+                oldest.remove();
+                dropped++;
+            }
+            message = new NodeEventMessage();
+            message.setPath(path);
+            pending.put(path, message);
+        }
+        message.setEvent(event.name());
+        message.setCount(message.getCount() + 1);
+        message.setTimestamp(now);
+    }
+
+    synchronized boolean hasPending() {
+        return !pending.isEmpty() || dropped > 0;
+    }
+
+    synchronized List<NodeEventMessage> drain() {
+        List<NodeEventMessage> messages = new ArrayList<>(pending.values());
+        pending.clear();
+        return messages;
+    }
+
+    synchronized long drainDropped() {
+        long count = dropped;
+        dropped = 0;
+        return count;
+    }
+
+    // 同一订阅者同时只有一个发送任务，发送阻塞期间新事件继续在缓冲区中合并
+    boolean tryStartSending() {
+        if (closed.get() || !sending.compareAndSet(false, true)) {
+            return false;
+        }
+        sendStartTime = System.currentTimeMillis();
+        return true;
+    }
+
+    // 当前发送已超过timeoutMs仍未返回，客户端不再读取
+    boolean isStalled(long now, long timeoutMs) {
+        return sending.get() && now - sendStartTime > timeoutMs;
+    }
+
+    // 只有第一次调用返回true，之后不再开始新的发送
+    boolean close() {
+        return closed.compareAndSet(false, true);
+    }
+
+    void finishSending() {
+        sending.set(false);
+    }
+
+    void markSent() {
+        lastSendTime = System.currentTimeMillis();
+    }
+
+    long getLastSendTime() {
+        return lastSendTime;
+    }
+
+    String getWatchKey() {
+        return watchKey;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+}
@@ -1,5 +1,6 @@
 package com.mytool.zktool;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import org.apache.zookeeper.data.ACL;
 import org.apache.zookeeper.data.Stat;
@@ -8,6 +9,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class NodeInfo {
     private String path;            // 节点路径
     private String name;            // 节点名称
@@ -19,11 +21,17 @@ public class NodeInfo {
     private String version;         // 版本号
     private String status;          // 节点状态
     private List<NodeInfo> children; // 子节点列表
-    private boolean expanded;       // 是否展开
-    private boolean selected;       // 是否选中
+    private Integer numChildren;    // 子节点总数（来自Stat，未展开时用于绘制展开箭头）
+    private boolean hasMore;        // 子节点是否还有下一页
+    private String nextCursor;      // 下一页游标（最后一个返回的子节点名称）
+    private Boolean expanded;       // 是否展开
+    private Boolean selected;       // 是否选中
     private boolean isLeaf;         // 是否为叶子节点
 
     public boolean getIsLeaf() {
+        if (numChildren != null) {
+            return numChildren == 0;
+        }
         return children == null || children.isEmpty();
     }
 
@@ -0,0 +1,43 @@
+package com.mytool.zktool;
+
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+
+import java.io.IOException;
+import java.util.List;
+
+// 导入导出和快照中的单个节点，stat和acls在来源不提供时为null
+public class NodeRecord {
+    private final String path;
+    private final byte[] data;
+    private final Stat stat;
+    private final List<ACL> acls;
+
+    public NodeRecord(String path, byte[] data, Stat stat, List<ACL> acls) {
+        this.path = path;
+        this.data = data;
+        this.stat = stat;
+        this.acls = acls;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public Stat getStat() {
+        return stat;
+    }
+
+    public List<ACL> getAcls() {
+        return acls;
+    }
+
+    // 按顺序逐个提供节点的数据源，结束时返回null
+    public interface Source {
+        NodeRecord next() throws IOException;
+    }
+}
@@ -0,0 +1,77 @@
+package com.mytool.zktool;
+
+import org.springframework.http.MediaType;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HexFormat;
+
+// 节点原始数据的内容识别和文本渲染。内容识别只检查开头的一段字节，
+// 不保证整个值合法：合法的UTF-8且没有控制字符时视为文本，以{或[开头的文本视为JSON
+final class NodeValueFormat {
+    static final String RENDER_RAW = "raw";
+    static final String RENDER_HEX = "hex";
+    static final String RENDER_BASE64 = "base64";
+    static final int SNIFF_BYTES = 4096;
+
+    private NodeValueFormat() {
+    }
+
+    static boolean isSupportedRender(String render) {
+        return RENDER_RAW.equals(render) || RENDER_HEX.equals(render) || RENDER_BASE64.equals(render);
+    }
+
+    // raw原样返回同一个数组，不复制
+    static byte[] render(byte[] data, String render) {
+        switch (render) {
+            case RENDER_RAW:
+                return data;
+            case RENDER_HEX:
+                return HexFormat.of().formatHex(data).getBytes(StandardCharsets.US_ASCII);
+            case RENDER_BASE64:
+                return Base64.getEncoder().encode(data);
+            default:
+                throw new IllegalArgumentException("不支持的render: " + render + "，可选值: raw, hex, base64");
+        }
+    }
+
+    static MediaType sniff(byte[] data) {
+        int length = Math.min(data.length, SNIFF_BYTES);
+        if (length == 0 || !isText(data, length)) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        for (int i = 0; i < length; i++) {
+            byte b = data[i];
+            if (b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                continue;
+            }
+            return b == '{' || b == '[' ? MediaType.APPLICATION_JSON : new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+        }
+        return new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+    }
+
+    // 截断处落在多字节字符中间时不算非法；除制表、换行、回车外的控制字符视为二进制
+    private static boolean isText(byte[] data, int length) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer chars = CharBuffer.allocate(length);
+        CoderResult result = decoder.decode(ByteBuffer.wrap(data, 0, length), chars, length == data.length);
+        if (result.isError()) {
+            return false;
+        }
+        chars.flip();
+        while (chars.hasRemaining()) {
+            char c = chars.get();
+            if ((c < 0x20 && c != '\t' && c != '\n' && c != '\r') || c == 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,43 @@
+package com.mytool.zktool;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+// 查询参数的解析，历史快照和审计日志共用
+final class QueryParams {
+
+    private QueryParams() {
+    }
+
+    // 毫秒时间戳或本地时间（yyyy-MM-ddTHH:mm:ss，T也可写作空格），为空时取当前时间
+    static long parseTime(String time) {
+        if (time == null || time.trim().isEmpty()) {
+            return System.currentTimeMillis();
+        }
+        String value = time.trim();
+        if (value.matches("\\d+")) {
+            return Long.parseLong(value);
+        }
+        try {
+            return LocalDateTime.parse(value.replace(' ', 'T')).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("无法解析时间: " + time);
+        }
+    }
+
+    // 以prefix开头的字符串的上界（不含）：最后一个可以加一的码点加一并截断其后内容，
+    // UTF-8按码点保持字节顺序，SQLite按字节比较；所有码点都已是最大值时没有上界，返回null
+    static String prefixEnd(String prefix) {
+        int end = prefix.length();
+        while (end > 0) {
+            int codePoint = prefix.codePointBefore(end);
+            int start = end - Character.charCount(codePoint);
+            if (codePoint < Character.MAX_CODE_POINT) {
+                int next = codePoint + 1 == Character.MIN_SURROGATE ? Character.MAX_SURROGATE + 1 : codePoint + 1;
+                return prefix.substring(0, start) + new String(Character.toChars(next));
+            }
+            end = start;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.mytool.zktool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+// 固定容量的环形缓冲区，写满后覆盖最旧的元素；读写都加锁，适合低频写入、偶尔读取的时间序列
+class RingBuffer<T> {
+    private final Object[] items;
+    private int next;
+    private int size;
+
+    RingBuffer(int capacity) {
+        items = new Object[Math.max(1, capacity)];
+    }
+
+    synchronized void add(T item) {
+        items[next] = item;
+        next = (next + 1) % items.length;
+        size = Math.min(size + 1, items.length);
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized T latest() {
+        return size == 0 ? null : (T) items[(next - 1 + items.length) % items.length];
+    }
+
+    // 按从旧到新的顺序返回满足条件的最近limit个元素
+    @SuppressWarnings("unchecked")
+    synchronized List<T> list(Predicate<T> filter, int limit) {
+        List<T> result = new ArrayList<>();
+        for (int i = 0; i < size && result.size() < limit; i++) {
+            T item = (T) items[(next - 1 - i + items.length) % items.length];
+            if (filter.test(item)) {
+                result.add(item);
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+}
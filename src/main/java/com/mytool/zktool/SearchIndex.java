@@ -0,0 +1,489 @@
+package com.mytool.zktool;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+// 内存镜像的搜索索引，随镜像增量更新，查询不访问ZooKeeper。
+// 路径和节点名用有序集合做前缀查询（与字典树等价，内存占用更小）；
+// 节点数据建立三字符组（trigram，ASCII不区分大小写）倒排索引，子串和正则查询先求候选集再逐个校验。
+// 节点每次更新都分配新的编号，旧编号只做标记，失效编号过多时整体压缩，倒排表始终保持有序。
+class SearchIndex {
+    // 查询结果中的一项
+    static class Hit {
+        final String path;
+        final byte[] data;
+
+        Hit(String path, byte[] data) {
+            this.path = path;
+            this.data = data;
+        }
+    }
+
+    // 一页结果，total达到计数上限时exact为false
+    static class Page {
+        final List<Hit> hits;
+        final int total;
+        final boolean exact;
+
+        Page(List<Hit> hits, int total, boolean exact) {
+            this.hits = hits;
+            this.total = total;
+            this.exact = exact;
+        }
+    }
+
+    private static final int MIN_COMPACT = 10000;
+    private static final String REGEX_META = "\\^$.|?*+()[]{}";
+
+    private final int maxIndexedBytes;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeSet<String> paths = new TreeSet<>();
+    // 节点名 -> 同名节点的路径
+    private final TreeMap<String, Set<String>> names = new TreeMap<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private String[] pathById = new String[1024];
+    private byte[][] dataById = new byte[1024][];
+    // 数据超过maxIndexedBytes的节点没有建立倒排索引，数据查询时总是作为候选
+    private final Set<Integer> unindexed = new HashSet<>();
+    private int nextId;
+    private int dead;
+
+    SearchIndex(int maxIndexedBytes) {
+        this.maxIndexedBytes = maxIndexedBytes;
+    }
+
+    void put(String path, byte[] data) {
+        lock.writeLock().lock();
+        try {
+            Integer old = ids.get(path);
+            if (old != null) {
+                if (dataById[old] == data || Arrays.equals(dataById[old], data)) {
+                    dataById[old] = data;
+                    return;
+                }
+                kill(old);
+            } else {
+                paths.add(path);
+                names.computeIfAbsent(name(path), n -> new HashSet<>()).add(path);
+            }
+            int id = nextId++;
+            if (id == pathById.length) {
+                pathById = Arrays.copyOf(pathById, id * 2);
+                dataById = Arrays.copyOf(dataById, id * 2);
+            }
+            pathById[id] = path;
+            dataById[id] = data;
+            ids.put(path, id);
+            if (data != null && data.length > maxIndexedBytes) {
+                unindexed.add(id);
+            } else {
+                for (long gram : trigrams(text(data))) {
+                    postings.computeIfAbsent(gram, g -> new Postings()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String path) {
+        lock.writeLock().lock();
+        try {
+            Integer id = ids.remove(path);
+            if (id == null) {
+                return;
+            }
+            kill(id);
+            paths.remove(path);
+            Set<String> sameName = names.get(name(path));
+            if (sameName != null) {
+                sameName.remove(path);
+                if (sameName.isEmpty()) {
+                    names.remove(name(path));
+                }
+            }
+            if (dead > MIN_COMPACT && dead > ids.size()) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            paths.clear();
+            names.clear();
+            ids.clear();
+            postings.clear();
+            unindexed.clear();
+            pathById = new String[1024];
+            dataById = new byte[1024][];
+            nextId = 0;
+            dead = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // scope下以prefix开头的路径
+    Page searchPath(String scope, String prefix, int offset, int limit, int maxCount) {
+        lock.readLock().lock();
+        try {
+            String from = prefix.compareTo(scope) > 0 ? prefix : scope;
+            NavigableSet<String> range = paths.subSet(from, true, prefix + Character.MAX_VALUE, false);
+            return page(range.iterator(), path -> inScope(scope, path), offset, limit, maxCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // scope下节点名以prefix开头的节点
+    Page searchName(String scope, String prefix, int offset, int limit, int maxCount) {
+        lock.readLock().lock();
+        try {
+            TreeSet<String> matched = new TreeSet<>();
+            for (Set<String> sameName : names.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                for (String path : sameName) {
+                    if (inScope(scope, path)) {
+                        matched.add(path);
+                    }
+                }
+            }
+            return page(matched.iterator(), path -> true, offset, limit, maxCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 数据包含text的节点，ignoreCase只忽略ASCII字母的大小写（与索引一致）
+    Page searchData(String scope, String text, boolean ignoreCase, int offset, int limit, int maxCount) {
+        Predicate<String> matcher = ignoreCase
+                ? value -> asciiLower(value).contains(asciiLower(text))
+                : value -> value.contains(text);
+        return searchContent(scope, List.of(text), matcher, offset, limit, maxCount);
+    }
+
+    // 数据匹配正则的节点，从正则中提取的必需字面量用于缩小候选集
+    Page searchRegex(String scope, Pattern pattern, int offset, int limit, int maxCount) {
+        return searchContent(scope, requiredLiterals(pattern.pattern()),
+                value -> pattern.matcher(value).find(), offset, limit, maxCount);
+    }
+
+    private Page searchContent(String scope, List<String> literals, Predicate<String> matcher,
+                               int offset, int limit, int maxCount) {
+        lock.readLock().lock();
+        try {
+            int[] candidates = candidates(literals);
+            Iterator<String> ordered;
+            Predicate<String> candidate = path -> true;
+            if (candidates == null || candidates.length > ids.size() / 16) {
+                // 没有可用的三字符组或候选集很大时，按路径顺序扫描scope下的节点，结果够数即可停止，无需对候选集排序
+                if (candidates != null) {
+                    BitSet set = new BitSet(nextId);
+                    for (int id : candidates) {
+                        set.set(id);
+                    }
+                    candidate = path -> set.get(ids.get(path));
+                }
+                String upper = (scope.equals("/") ? "/" : scope + "/") + Character.MAX_VALUE;
+                ordered = paths.subSet(scope, true, upper, false).iterator();
+            } else {
+                List<String> sorted = new ArrayList<>(candidates.length);
+                for (int id : candidates) {
+                    if (pathById[id] != null && inScope(scope, pathById[id])) {
+                        sorted.add(pathById[id]);
+                    }
+                }
+                sorted.sort(null);
+                ordered = sorted.iterator();
+            }
+            Predicate<String> indexed = candidate;
+            return page(ordered, path -> inScope(scope, path) && indexed.test(path)
+                            && matcher.test(text(dataById[ids.get(path)])),
+                    offset, limit, maxCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 按路径顺序逐个判断，跳过offset条后收集limit条，计数到maxCount为止
+    private Page page(Iterator<String> ordered, Predicate<String> accept, int offset, int limit, int maxCount) {
+        List<Hit> hits = new ArrayList<>();
+        int total = 0;
+        while (ordered.hasNext()) {
+            if (total >= Math.max(maxCount, offset + limit)) {
+                return new Page(hits, total, false);
+            }
+            String path = ordered.next();
+            if (!accept.test(path)) {
+                continue;
+            }
+            if (total >= offset && hits.size() < limit) {
+                hits.add(new Hit(path, dataById[ids.get(path)]));
+            }
+            total++;
+        }
+        return new Page(hits, total, true);
+    }
+
+    // 自动补全：parent下名称以partial开头的直接子节点，借助有序集合跳过每个子节点的子孙
+    List<String> complete(String parent, String partial, int limit) {
+        lock.readLock().lock();
+        try {
+            String base = parent.equals("/") ? "/" : parent + "/";
+            String from = base + partial;
+            List<String> result = new ArrayList<>();
+            String current = paths.ceiling(from);
+            while (current != null && current.startsWith(from) && result.size() < limit) {
+                int slash = current.indexOf('/', base.length());
+                String child = slash < 0 ? current : current.substring(0, slash);
+                result.add(child);
+                // '0'紧跟在'/'之后，child + "0"之前的路径都是该子节点的子孙
+                current = paths.ceiling(child + "0");
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 所有字面量的三字符组倒排表求交集，返回null表示无法缩小范围
+    private int[] candidates(List<String> literals) {
+        Set<Long> grams = new HashSet<>();
+        for (String literal : literals) {
+            grams.addAll(trigrams(literal));
+        }
+        if (grams.isEmpty()) {
+            return null;
+        }
+        List<Postings> lists = new ArrayList<>();
+        for (long gram : grams) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                lists.clear();
+                break;
+            }
+            lists.add(list);
+        }
+        int[] result = null;
+        if (!lists.isEmpty()) {
+            // 从最短的倒排表开始求交，中间结果只会越来越小
+            lists.sort((a, b) -> Integer.compare(a.size, b.size));
+            result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+            for (int i = 1; i < lists.size() && result.length > 0; i++) {
+                result = intersect(result, lists.get(i));
+            }
+        }
+        if (unindexed.isEmpty()) {
+            return result != null ? result : new int[0];
+        }
+        TreeSet<Integer> merged = new TreeSet<>(unindexed);
+        if (result != null) {
+            for (int id : result) {
+                merged.add(id);
+            }
+        }
+        return merged.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // left通常远短于right，在right中做倍增查找，代价与left的长度成正比
+    private static int[] intersect(int[] left, Postings right) {
+        int[] result = new int[Math.min(left.length, right.size)];
+        int count = 0;
+        int low = 0;
+        for (int id : left) {
+            int step = 1;
+            int high = low;
+            while (high < right.size && right.ids[high] < id) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            if (low >= right.size) {
+                break;
+            }
+            int index = Arrays.binarySearch(right.ids, low, Math.min(high + 1, right.size), id);
+            if (index >= 0) {
+                result[count++] = id;
+                low = index + 1;
+            } else {
+                low = -index - 1;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private void kill(int id) {
+        pathById[id] = null;
+        dataById[id] = null;
+        unindexed.remove(id);
+        dead++;
+    }
+
+    // 重新连续编号并去掉倒排表中的失效编号
+    private void compact() {
+        int[] remap = new int[nextId];
+        int live = 0;
+        for (int id = 0; id < nextId; id++) {
+            if (pathById[id] != null) {
+                remap[id] = live;
+                pathById[live] = pathById[id];
+                dataById[live] = dataById[id];
+                ids.put(pathById[live], live);
+                live++;
+            } else {
+                remap[id] = -1;
+            }
+        }
+        Arrays.fill(pathById, live, nextId, null);
+        Arrays.fill(dataById, live, nextId, null);
+        Iterator<Postings> iterator = postings.values().iterator();
+        while (iterator.hasNext()) {
+            Postings list = iterator.next();
+            int size = 0;
+            for (int i = 0; i < list.size; i++) {
+                int mapped = remap[list.ids[i]];
+                if (mapped >= 0) {
+                    list.ids[size++] = mapped;
+                }
+            }
+            list.size = size;
+            if (size == 0) {
+                iterator.remove();
+            }
+        }
+        Set<Integer> remapped = new HashSet<>();
+        for (int id : unindexed) {
+            remapped.add(remap[id]);
+        }
+        unindexed.clear();
+        unindexed.addAll(remapped);
+        nextId = live;
+        dead = 0;
+    }
+
+    // 不含分支（|）和特殊分组的正则中，分组之外每段不受量词和字符类影响的连续普通字符都必须出现在匹配结果中
+    static List<String> requiredLiterals(String regex) {
+        List<String> literals = new ArrayList<>();
+        String body = regex.startsWith("(?i)") ? regex.substring(4) : regex;
+        if (body.contains("|") || body.contains("(?") || body.contains("\\Q")) {
+            return literals;
+        }
+        StringBuilder current = new StringBuilder();
+        int classDepth = 0;
+        int groupDepth = 0;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '\\') {
+                flush(literals, current);
+                i++;
+                continue;
+            }
+            if (classDepth == 0 && c == '(') {
+                groupDepth++;
+            } else if (classDepth == 0 && c == ')' && groupDepth > 0) {
+                groupDepth--;
+            } else if (c == '[') {
+                classDepth++;
+            } else if (c == ']' && classDepth > 0) {
+                classDepth--;
+                continue;
+            }
+            if (classDepth > 0 || groupDepth > 0 || REGEX_META.indexOf(c) >= 0) {
+                // 量词作用于前一个字符，该字符不是必需的
+                if ((c == '?' || c == '*' || c == '{') && current.length() > 0) {
+                    current.setLength(current.length() - 1);
+                }
+                flush(literals, current);
+                if (c == '{' && classDepth == 0) {
+                    // 跳过{m,n}中的数字
+                    int close = body.indexOf('}', i);
+                    i = close < 0 ? body.length() : close;
+                }
+                continue;
+            }
+            current.append(c);
+        }
+        flush(literals, current);
+        return literals;
+    }
+
+    private static void flush(List<String> literals, StringBuilder current) {
+        if (current.length() >= 3) {
+            literals.add(current.toString());
+        }
+        current.setLength(0);
+    }
+
+    private static Set<Long> trigrams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(((long) lower(text.charAt(i)) << 32) | ((long) lower(text.charAt(i + 1)) << 16) | lower(text.charAt(i + 2)));
+        }
+        return grams;
+    }
+
+    private static String asciiLower(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = lower(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static String text(byte[] data) {
+        return data != null ? new String(data, StandardCharsets.UTF_8) : "";
+    }
+
+    private static boolean inScope(String scope, String path) {
+        return scope.equals("/") || path.equals(scope) || path.startsWith(scope + "/");
+    }
+
+    private static String name(String path) {
+        return path.equals("/") ? "/" : path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    // 按编号递增追加的倒排表
+    private static class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.SearchHit;
+import com.mytool.zktool.dto.SearchResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// 按路径、节点名和数据搜索，查询由内存镜像的搜索索引提供，不访问ZooKeeper。
+// 镜像需通过/zk/mirrors显式开启，没有覆盖查询范围且已同步的镜像时返回错误，不会自动镜像整个集群。
+@Service
+public class SearchService {
+    public static final String TYPE_PATH = "path";
+    public static final String TYPE_NAME = "name";
+    public static final String TYPE_DATA = "data";
+    public static final String TYPE_REGEX = "regex";
+
+    private static final int MAX_LIMIT = 1000;
+    private static final int PREVIEW_CHARS = 100;
+
+    @Autowired
+    private ZkSessionRegistry sessionRegistry;
+
+    @Autowired
+    private TreeMirrorService mirrorService;
+
+    @Value("${zktool.search.max-count:10000}")
+    private int maxCount = 10000;
+
+    public SearchResult search(String cluster, String type, String query, String scope, boolean ignoreCase,
+                               int offset, int limit) throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        if (query == null || query.isEmpty()) {
+            throw new IllegalArgumentException("查询内容不能为空");
+        }
+        offset = Math.max(0, offset);
+        limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        SearchIndex index = index(cluster, scope);
+
+        SearchIndex.Page page;
+        switch (type) {
+            case TYPE_PATH:
+                page = index.searchPath(scope, query, offset, limit, maxCount);
+                break;
+            case TYPE_NAME:
+                page = index.searchName(scope, query, offset, limit, maxCount);
+                break;
+            case TYPE_DATA:
+                page = index.searchData(scope, query, ignoreCase, offset, limit, maxCount);
+                break;
+            case TYPE_REGEX:
+                Pattern pattern = Pattern.compile(query, ignoreCase ? Pattern.CASE_INSENSITIVE : 0);
+                page = index.searchRegex(scope, pattern, offset, limit, maxCount);
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的查询类型: " + type);
+        }
+
+        List<SearchHit> items = new ArrayList<>(page.hits.size());
+        for (SearchIndex.Hit hit : page.hits) {
+            items.add(toHit(hit));
+        }
+        SearchResult result = new SearchResult();
+        result.setType(type);
+        result.setQuery(query);
+        result.setScope(scope);
+        result.setTotal(page.total);
+        result.setTotalExact(page.exact);
+        result.setOffset(offset);
+        result.setLimit(limit);
+        result.setItems(items);
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    // 按已输入的路径补全下一级节点，如"/app/co"返回/app下以co开头的子节点
+    public List<String> complete(String cluster, String prefix, int limit) throws IOException, InterruptedException {
+        if (prefix == null || !prefix.startsWith("/")) {
+            throw new IllegalArgumentException("路径必须以/开头");
+        }
+        int lastSlash = prefix.lastIndexOf('/');
+        String parent = lastSlash == 0 ? "/" : prefix.substring(0, lastSlash);
+        SearchIndex index = index(cluster, parent);
+        return index.complete(parent, prefix.substring(lastSlash + 1), Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+
+    private SearchIndex index(String cluster, String scope) throws IOException, InterruptedException {
+        ZkSession session = sessionRegistry.resolve(cluster);
+        TreeMirror mirror = mirrorService.find(session, scope);
+        if (mirror == null) {
+            throw new IllegalStateException("没有覆盖" + scope + "且已同步的内存镜像，请先开启镜像");
+        }
+        if (mirror.getIndex() == null) {
+            throw new IllegalStateException("内存镜像未建立搜索索引");
+        }
+        return mirror.getIndex();
+    }
+
+    private static SearchHit toHit(SearchIndex.Hit hit) {
+        SearchHit result = new SearchHit();
+        result.setPath(hit.path);
+        result.setName(hit.path.equals("/") ? "/" : hit.path.substring(hit.path.lastIndexOf('/') + 1));
+        result.setDataLength(hit.data != null ? hit.data.length : 0);
+        if (hit.data != null) {
+            String text = new String(hit.data, 0, Math.min(hit.data.length, PREVIEW_CHARS * 4), StandardCharsets.UTF_8);
+            result.setPreview(text.length() > PREVIEW_CHARS ? text.substring(0, PREVIEW_CHARS) : text);
+        }
+        return result;
+    }
+}
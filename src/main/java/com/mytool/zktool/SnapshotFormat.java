@@ -0,0 +1,69 @@
+package com.mytool.zktool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// 二进制快照文件格式（版本1），所有定长整数均为大端：
+//   文件头: "ZKSN" | version u16 | flags u16 | createTime i64 | root(u16长度 + UTF-8)
+//   数据块: rawLength i32 | storedLength i32 | payload（flags含FLAG_DEFLATE时为Deflate压缩）
+//   索引:   blockCount varint，每个块 offset varlong | storedLength varint | rawLength varint | entryCount varint | minPath | maxPath
+//   文件尾: indexOffset i64 | nodeCount i64 | "ZKSE"
+// 块内每个节点：与上一路径的公共前缀长度 varint | 后缀 | stat | ACL | data。
+// 每个块独立解码：前缀压缩和ACL表都在块开头重置。
+final class SnapshotFormat {
+    static final int MAGIC = 0x5A4B534E;        // "ZKSN"
+    static final int END_MAGIC = 0x5A4B5345;    // "ZKSE"
+    static final short VERSION = 1;
+    static final short FLAG_DEFLATE = 1;
+    static final int BLOCK_HEADER_BYTES = 8;
+    static final int TRAILER_BYTES = 20;
+    static final String FILE_SUFFIX = ".zks";
+
+    private SnapshotFormat() {
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("快照文件损坏：varint过长");
+    }
+
+    static int readVarInt(ByteBuffer in) throws IOException {
+        return (int) readVarLong(in);
+    }
+
+    static void writeBytes(ByteArrayOutputStream out, byte[] bytes) {
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    static void writeString(ByteArrayOutputStream out, String value) {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static byte[] readBytes(ByteBuffer in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.get(bytes);
+        return bytes;
+    }
+
+    static String readString(ByteBuffer in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,254 @@
+package com.mytool.zktool;
+
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Id;
+import org.apache.zookeeper.data.Stat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// 通过内存映射读取二进制快照，文件内容不整体复制到堆中；未压缩的块直接在映射区上解码。
+// 顺序读取（next）和按前缀查询（forEach）共用解压缓冲区，不能交替使用。
+public class SnapshotReader implements NodeRecord.Source, Closeable {
+    private final FileChannel channel;
+    private final long fileSize;
+    // 文件不超过2GB时整体映射，否则按块映射
+    private final MappedByteBuffer mapped;
+    private final boolean compressed;
+    private final long createTime;
+    private final String root;
+    private final long nodeCount;
+    private final List<Block> blocks = new ArrayList<>();
+    private final Inflater inflater = new Inflater();
+    private byte[] rawBuffer = new byte[0];
+
+    private int nextBlock;
+    private BlockDecoder current;
+
+    private SnapshotReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.fileSize = channel.size();
+            if (fileSize < SnapshotFormat.TRAILER_BYTES + 18) {
+                throw new IOException("不是有效的快照文件: " + file.getFileName());
+            }
+            this.mapped = fileSize <= Integer.MAX_VALUE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize) : null;
+
+            ByteBuffer header = region(0, (int) Math.min(fileSize, 18 + 0xFFFF));
+            if (header.getInt() != SnapshotFormat.MAGIC) {
+                throw new IOException("不是有效的快照文件: " + file.getFileName());
+            }
+            short version = header.getShort();
+            if (version != SnapshotFormat.VERSION) {
+                throw new IOException("不支持的快照版本: " + version);
+            }
+            this.compressed = (header.getShort() & SnapshotFormat.FLAG_DEFLATE) != 0;
+            this.createTime = header.getLong();
+            byte[] rootBytes = new byte[header.getShort() & 0xFFFF];
+            header.get(rootBytes);
+            this.root = new String(rootBytes, StandardCharsets.UTF_8);
+
+            ByteBuffer trailer = region(fileSize - SnapshotFormat.TRAILER_BYTES, SnapshotFormat.TRAILER_BYTES);
+            long indexOffset = trailer.getLong();
+            this.nodeCount = trailer.getLong();
+            if (trailer.getInt() != SnapshotFormat.END_MAGIC) {
+                throw new IOException("快照文件不完整: " + file.getFileName());
+            }
+
+            ByteBuffer index = region(indexOffset, (int) (fileSize - SnapshotFormat.TRAILER_BYTES - indexOffset));
+            int blockCount = SnapshotFormat.readVarInt(index);
+            for (int i = 0; i < blockCount; i++) {
+                Block block = new Block();
+                block.offset = SnapshotFormat.readVarLong(index);
+                block.storedLength = SnapshotFormat.readVarInt(index);
+                block.rawLength = SnapshotFormat.readVarInt(index);
+                block.entryCount = SnapshotFormat.readVarInt(index);
+                block.minPath = SnapshotFormat.readString(index);
+                block.maxPath = SnapshotFormat.readString(index);
+                blocks.add(block);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static SnapshotReader open(Path file) throws IOException {
+        return new SnapshotReader(file);
+    }
+
+    @Override
+    public NodeRecord next() throws IOException {
+        while (true) {
+            if (current != null) {
+                NodeRecord record = current.next();
+                if (record != null) {
+                    return record;
+                }
+            }
+            if (nextBlock >= blocks.size()) {
+                return null;
+            }
+            Block block = blocks.get(nextBlock++);
+            current = new BlockDecoder(decode(block), block.entryCount);
+        }
+    }
+
+    // 访问path及其子孙节点，借助索引中每个块的路径范围跳过无关的块
+    public void forEach(String path, Consumer<NodeRecord> visitor) throws IOException {
+        String prefix = path.equals("/") ? "/" : path + "/";
+        String upper = prefix + Character.MAX_VALUE;
+        for (Block block : blocks) {
+            if (block.maxPath.compareTo(path) < 0 || block.minPath.compareTo(upper) > 0) {
+                continue;
+            }
+            BlockDecoder decoder = new BlockDecoder(decode(block), block.entryCount);
+            NodeRecord record;
+            while ((record = decoder.next()) != null) {
+                if (record.getPath().equals(path) || record.getPath().startsWith(prefix)) {
+                    visitor.accept(record);
+                }
+            }
+        }
+    }
+
+    private ByteBuffer region(long offset, int length) throws IOException {
+        if (mapped != null) {
+            return mapped.slice((int) offset, length);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    private ByteBuffer decode(Block block) throws IOException {
+        ByteBuffer payload = region(block.offset + SnapshotFormat.BLOCK_HEADER_BYTES, block.storedLength);
+        if (!compressed) {
+            return payload;
+        }
+        if (rawBuffer.length < block.rawLength) {
+            rawBuffer = new byte[block.rawLength];
+        }
+        inflater.reset();
+        inflater.setInput(payload);
+        try {
+            int length = inflater.inflate(rawBuffer, 0, block.rawLength);
+            if (length != block.rawLength) {
+                throw new IOException("快照数据块长度不符: offset=" + block.offset);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("快照数据块损坏: offset=" + block.offset, e);
+        }
+        return ByteBuffer.wrap(rawBuffer, 0, block.rawLength);
+    }
+
+    public String getRoot() {
+        return root;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getBlockCount() {
+        return blocks.size();
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        channel.close();
+    }
+
+    private static class Block {
+        long offset;
+        int storedLength;
+        int rawLength;
+        int entryCount;
+        String minPath;
+        String maxPath;
+    }
+
+    private static class BlockDecoder {
+        private final ByteBuffer in;
+        private int remaining;
+        private byte[] previousPath = new byte[0];
+        private final List<List<ACL>> aclTable = new ArrayList<>();
+
+        BlockDecoder(ByteBuffer in, int entryCount) {
+            this.in = in;
+            this.remaining = entryCount;
+        }
+
+        NodeRecord next() throws IOException {
+            if (remaining == 0) {
+                return null;
+            }
+            remaining--;
+            int shared = SnapshotFormat.readVarInt(in);
+            int suffix = SnapshotFormat.readVarInt(in);
+            byte[] path = new byte[shared + suffix];
+            System.arraycopy(previousPath, 0, path, 0, shared);
+            in.get(path, shared, suffix);
+            previousPath = path;
+
+            Stat stat = new Stat(
+                    SnapshotFormat.readVarLong(in),
+                    SnapshotFormat.readVarLong(in),
+                    SnapshotFormat.readVarLong(in),
+                    SnapshotFormat.readVarLong(in),
+                    SnapshotFormat.readVarInt(in),
+                    SnapshotFormat.readVarInt(in),
+                    SnapshotFormat.readVarInt(in),
+                    SnapshotFormat.readVarLong(in),
+                    SnapshotFormat.readVarInt(in),
+                    SnapshotFormat.readVarInt(in),
+                    SnapshotFormat.readVarLong(in));
+
+            int aclRef = SnapshotFormat.readVarInt(in);
+            List<ACL> acls;
+            if (aclRef == 0) {
+                int count = SnapshotFormat.readVarInt(in);
+                acls = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    int perms = SnapshotFormat.readVarInt(in);
+                    String scheme = SnapshotFormat.readString(in);
+                    String id = SnapshotFormat.readString(in);
+                    acls.add(new ACL(perms, new Id(scheme, id)));
+                }
+                aclTable.add(acls);
+            } else {
+                acls = aclTable.get(aclRef - 1);
+            }
+
+            int dataLength = SnapshotFormat.readVarInt(in);
+            byte[] data = null;
+            if (dataLength > 0) {
+                data = new byte[dataLength - 1];
+                in.get(data);
+            }
+            return new NodeRecord(new String(path, StandardCharsets.UTF_8), data, stat, acls);
+        }
+    }
+}
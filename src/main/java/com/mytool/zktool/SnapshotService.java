@@ -0,0 +1,163 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.ImportProgress;
+import com.mytool.zktool.dto.SnapshotInfo;
+import org.apache.zookeeper.KeeperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// 管理服务端快照目录中的二进制快照：生成、查看、离线检索和恢复
+@Service
+public class SnapshotService {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotService.class);
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9._-]+\\" + SnapshotFormat.FILE_SUFFIX);
+    private static final DateTimeFormatter NAME_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Autowired
+    private ZkService zkService;
+
+    @Value("${zktool.snapshot.dir:snapshots}")
+    private String snapshotDir = "snapshots";
+
+    public SnapshotInfo create(ZkSession session, String path, boolean compress)
+            throws KeeperException, InterruptedException, IOException {
+        long start = System.currentTimeMillis();
+        Path dir = directory();
+        String name = defaultName(path);
+        Path target = dir.resolve(name);
+        // 先写临时文件，完成后再改名，失败时不会留下不完整的快照
+        Path temp = Files.createTempFile(dir, "snapshot-", ".tmp");
+        try {
+            try (SnapshotWriter writer = new SnapshotWriter(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024), path, compress)) {
+                zkService.exportSnapshot(session, path, writer);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        SnapshotInfo info = inspect(name);
+        info.setElapsedMs(System.currentTimeMillis() - start);
+        logger.info("快照生成完成: {}, 节点数={}, 大小={}字节, 耗时={}ms",
+                name, info.getNodeCount(), info.getFileSize(), info.getElapsedMs());
+        return info;
+    }
+
+    public List<SnapshotInfo> list() throws IOException {
+        List<SnapshotInfo> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory())) {
+            for (Path file : files.filter(f -> NAME_PATTERN.matcher(f.getFileName().toString()).matches()).toList()) {
+                try {
+                    result.add(inspect(file.getFileName().toString()));
+                } catch (IOException e) {
+                    logger.warn("跳过无法读取的快照: {}, 原因: {}", file.getFileName(), e.getMessage());
+                }
+            }
+        }
+        result.sort(Comparator.comparingLong(SnapshotInfo::getCreateTime).reversed());
+        return result;
+    }
+
+    // 只读取文件头、索引和文件尾
+    public SnapshotInfo inspect(String name) throws IOException {
+        try (SnapshotReader reader = SnapshotReader.open(resolve(name))) {
+            SnapshotInfo info = new SnapshotInfo();
+            info.setName(name);
+            info.setRoot(reader.getRoot());
+            info.setNodeCount(reader.getNodeCount());
+            info.setBlockCount(reader.getBlockCount());
+            info.setCompressed(reader.isCompressed());
+            info.setFileSize(reader.getFileSize());
+            info.setCreateTime(reader.getCreateTime());
+            return info;
+        }
+    }
+
+    // 离线查看快照中path下的节点，不需要连接集群
+    public List<NodeInfo> listNodes(String name, String path, int limit) throws IOException {
+        List<NodeInfo> nodes = new ArrayList<>();
+        try (SnapshotReader reader = SnapshotReader.open(resolve(name))) {
+            reader.forEach(path, record -> {
+                if (limit <= 0 || nodes.size() < limit) {
+                    nodes.add(ZkService.toNodeInfo(record.getPath(), record.getData(), record.getAcls(), record.getStat()));
+                }
+            });
+        }
+        nodes.sort(Comparator.comparing(NodeInfo::getPath));
+        return nodes;
+    }
+
+    // 恢复快照中的持久节点（连同ACL），临时节点和/zookeeper系统节点会被跳过
+    public ImportProgress restore(ZkSession session, String name, StreamingImporter.Listener listener)
+            throws KeeperException, InterruptedException, IOException {
+        try (SnapshotReader reader = SnapshotReader.open(resolve(name))) {
+            NodeRecord.Source source = () -> {
+                NodeRecord record;
+                while ((record = reader.next()) != null && !restorable(record)) {
+                    // 跳过
+                }
+                return record;
+            };
+            return zkService.importData(session, source, listener);
+        }
+    }
+
+    public SnapshotInfo upload(String name, InputStream in) throws IOException {
+        Path dir = directory();
+        Path temp = Files.createTempFile(dir, "upload-", ".tmp");
+        try {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            // 校验文件格式后再放入快照目录
+            SnapshotReader.open(temp).close();
+            Files.move(temp, resolve(name), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return inspect(name);
+    }
+
+    public boolean delete(String name) throws IOException {
+        return Files.deleteIfExists(resolve(name));
+    }
+
+    public Path resolve(String name) throws IOException {
+        if (name == null || !NAME_PATTERN.matcher(name).matches()) {
+            throw new IllegalArgumentException("无效的快照文件名: " + name);
+        }
+        return directory().resolve(name);
+    }
+
+    private Path directory() throws IOException {
+        return Files.createDirectories(Paths.get(snapshotDir));
+    }
+
+    private static boolean restorable(NodeRecord record) {
+        String path = record.getPath();
+        boolean system = path.equals("/zookeeper") || path.startsWith("/zookeeper/");
+        boolean ephemeral = record.getStat() != null && record.getStat().getEphemeralOwner() != 0;
+        return !system && !ephemeral;
+    }
+
+    private static String defaultName(String path) {
+        String base = path.equals("/") ? "root" : path.substring(1).replaceAll("[^A-Za-z0-9._-]", "_");
+        return base + "-" + LocalDateTime.now().format(NAME_TIME_FORMAT) + SnapshotFormat.FILE_SUFFIX;
+    }
+}
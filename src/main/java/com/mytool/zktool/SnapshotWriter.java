@@ -0,0 +1,224 @@
+package com.mytool.zktool;
+
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+// 顺序写出二进制快照（格式见SnapshotFormat），只缓存当前数据块和索引，可直接写入网络流
+public class SnapshotWriter implements Closeable {
+    private static final int BLOCK_TARGET_BYTES = 256 * 1024;
+
+    private final DataOutputStream out;
+    private final boolean compress;
+    private final Deflater deflater;
+    private final BlockBuffer block = new BlockBuffer();
+    private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+    private byte[] compressed = new byte[0];
+    private long offset;
+    private long nodeCount;
+    private int blockCount;
+    private boolean finished;
+
+    // 当前块的状态，每个块开始时重置
+    private byte[] previousPath = new byte[0];
+    private final Map<List<ACL>, Integer> aclTable = new HashMap<>();
+    private int blockEntries;
+    private String minPath;
+    private String maxPath;
+
+    public SnapshotWriter(OutputStream out, String root, boolean compress) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.compress = compress;
+        this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+        byte[] rootBytes = root.getBytes(StandardCharsets.UTF_8);
+        this.out.writeInt(SnapshotFormat.MAGIC);
+        this.out.writeShort(SnapshotFormat.VERSION);
+        this.out.writeShort(compress ? SnapshotFormat.FLAG_DEFLATE : 0);
+        this.out.writeLong(System.currentTimeMillis());
+        this.out.writeShort(rootBytes.length);
+        this.out.write(rootBytes);
+        this.offset = 4 + 2 + 2 + 8 + 2 + rootBytes.length;
+    }
+
+    public void write(NodeRecord record) throws IOException {
+        byte[] path = record.getPath().getBytes(StandardCharsets.UTF_8);
+        int shared = commonPrefix(previousPath, path);
+        SnapshotFormat.writeVarLong(block, shared);
+        SnapshotFormat.writeVarLong(block, path.length - shared);
+        block.write(path, shared, path.length - shared);
+        previousPath = path;
+
+        writeStat(record.getStat() != null ? record.getStat() : new Stat());
+
+        // 相同的ACL在块内只写一次，之后按编号引用
+        List<ACL> acls = record.getAcls() != null ? record.getAcls() : Collections.emptyList();
+        Integer aclRef = aclTable.get(acls);
+        if (aclRef != null) {
+            SnapshotFormat.writeVarLong(block, aclRef);
+        } else {
+            SnapshotFormat.writeVarLong(block, 0);
+            SnapshotFormat.writeVarLong(block, acls.size());
+            for (ACL acl : acls) {
+                SnapshotFormat.writeVarLong(block, acl.getPerms());
+                SnapshotFormat.writeString(block, acl.getId().getScheme());
+                SnapshotFormat.writeString(block, acl.getId().getId());
+            }
+            aclTable.put(acls, aclTable.size() + 1);
+        }
+
+        // 数据长度加1写入，0表示null
+        byte[] data = record.getData();
+        if (data == null) {
+            SnapshotFormat.writeVarLong(block, 0);
+        } else {
+            SnapshotFormat.writeVarLong(block, data.length + 1L);
+            block.write(data, 0, data.length);
+        }
+
+        String pathString = record.getPath();
+        if (minPath == null || pathString.compareTo(minPath) < 0) {
+            minPath = pathString;
+        }
+        if (maxPath == null || pathString.compareTo(maxPath) > 0) {
+            maxPath = pathString;
+        }
+        blockEntries++;
+        nodeCount++;
+        if (block.size() >= BLOCK_TARGET_BYTES) {
+            flushBlock();
+        }
+    }
+
+    private void writeStat(Stat stat) {
+        SnapshotFormat.writeVarLong(block, stat.getCzxid());
+        SnapshotFormat.writeVarLong(block, stat.getMzxid());
+        SnapshotFormat.writeVarLong(block, stat.getCtime());
+        SnapshotFormat.writeVarLong(block, stat.getMtime());
+        SnapshotFormat.writeVarLong(block, stat.getVersion());
+        SnapshotFormat.writeVarLong(block, stat.getCversion());
+        SnapshotFormat.writeVarLong(block, stat.getAversion());
+        SnapshotFormat.writeVarLong(block, stat.getEphemeralOwner());
+        SnapshotFormat.writeVarLong(block, stat.getDataLength());
+        SnapshotFormat.writeVarLong(block, stat.getNumChildren());
+        SnapshotFormat.writeVarLong(block, stat.getPzxid());
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockEntries == 0) {
+            return;
+        }
+        int rawLength = block.size();
+        byte[] payload = block.array();
+        int storedLength = rawLength;
+        if (compress) {
+            deflater.reset();
+            deflater.setInput(payload, 0, rawLength);
+            deflater.finish();
+            if (compressed.length < rawLength + 64) {
+                compressed = new byte[rawLength + rawLength / 8 + 64];
+            }
+            storedLength = 0;
+            while (!deflater.finished()) {
+                if (storedLength == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                storedLength += deflater.deflate(compressed, storedLength, compressed.length - storedLength);
+            }
+            payload = compressed;
+        }
+        out.writeInt(rawLength);
+        out.writeInt(storedLength);
+        out.write(payload, 0, storedLength);
+
+        SnapshotFormat.writeVarLong(index, offset);
+        SnapshotFormat.writeVarLong(index, storedLength);
+        SnapshotFormat.writeVarLong(index, rawLength);
+        SnapshotFormat.writeVarLong(index, blockEntries);
+        SnapshotFormat.writeString(index, minPath);
+        SnapshotFormat.writeString(index, maxPath);
+        offset += SnapshotFormat.BLOCK_HEADER_BYTES + storedLength;
+        blockCount++;
+
+        block.reset();
+        previousPath = new byte[0];
+        aclTable.clear();
+        blockEntries = 0;
+        minPath = null;
+        maxPath = null;
+    }
+
+    // 写出最后一个数据块、索引和文件尾
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        flushBlock();
+        ByteArrayOutputStream count = new ByteArrayOutputStream();
+        SnapshotFormat.writeVarLong(count, blockCount);
+        count.writeTo(out);
+        index.writeTo(out);
+        out.writeLong(offset);
+        out.writeLong(nodeCount);
+        out.writeInt(SnapshotFormat.END_MAGIC);
+        out.flush();
+    }
+
+    // 导出失败时放弃写出文件尾，读取方会把结果识别为不完整的快照
+    public void abort() throws IOException {
+        finished = true;
+        close();
+    }
+
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+            out.close();
+        }
+    }
+
+    private static int commonPrefix(byte[] a, byte[] b) {
+        int limit = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < limit && a[i] == b[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    // 暴露内部数组，压缩和写出时不再复制
+    private static class BlockBuffer extends ByteArrayOutputStream {
+        BlockBuffer() {
+            super(BLOCK_TARGET_BYTES + 64 * 1024);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.ImportProgress;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.ACL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 边解析边写入的流式导入：每个节点先异步create，已存在时改为setData，同时在途的请求数有上限。
+// 同一会话的请求按发送顺序执行，输入按父先子后排列（导出格式即如此）时子节点总能找到父节点；
+// 顺序不满足时，子节点会在补建缺失的父节点后重试一次。
+public class StreamingImporter {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingImporter.class);
+    // 在途请求超过该时间没有任何完成时视为超时
+    private static final long RESULT_TIMEOUT_MS = 30000;
+
+    public interface Listener {
+        void onProgress(ImportProgress progress) throws IOException;
+    }
+
+    // 节点写入成功后在ZooKeeper回调线程中调用：version为写入后的数据版本号，latencyMs从提交请求算起
+    public interface AppliedHandler {
+        void onApplied(NodeRecord entry, boolean created, int version, long latencyMs);
+    }
+
+    // 每次发送请求前在调用线程中调用，可以阻塞以限速；回调线程中的处理不能阻塞，下游跟不上时在这里等待
+    public interface Throttle {
+        void beforeSubmit(int maxInFlight) throws InterruptedException;
+    }
+
+    private final ZooKeeper zooKeeper;
+    private final int maxInFlight;
+    private final long progressIntervalMs;
+    private final AppliedHandler onApplied;
+    private Throttle throttle;
+
+    private final Semaphore window;
+    private final Queue<NodeRecord> retries = new ConcurrentLinkedQueue<>();
+    private final Queue<Map.Entry<String, KeeperException.Code>> failures = new ConcurrentLinkedQueue<>();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong updated = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private long processed;
+    private long start;
+    private long lastProgressTime;
+    private volatile long lastCompletionTime;
+
+    public StreamingImporter(ZooKeeper zooKeeper, int maxInFlight, long progressIntervalMs, AppliedHandler onApplied) {
+        this.zooKeeper = zooKeeper;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.progressIntervalMs = progressIntervalMs;
+        this.onApplied = onApplied;
+        this.window = new Semaphore(this.maxInFlight);
+    }
+
+    public StreamingImporter withThrottle(Throttle throttle) {
+        this.throttle = throttle;
+        return this;
+    }
+
+    // 导入全部节点，进度和失败明细都在调用线程中回调，结束时返回汇总
+    public ImportProgress run(NodeRecord.Source source, Listener listener)
+            throws IOException, KeeperException, InterruptedException {
+        start = System.currentTimeMillis();
+        lastProgressTime = start;
+        lastCompletionTime = start;
+        // 输入格式错误时停止读取，但已发出的请求仍要等待完成并计入汇总
+        String readError = null;
+        try {
+            NodeRecord entry;
+            while ((entry = source.next()) != null) {
+                processed++;
+                acquire();
+                submit(entry, true);
+                report(listener);
+            }
+        } catch (IOException e) {
+            readError = e.getMessage();
+        }
+
+        // 等待在途请求全部完成，期间补建父节点后重试的请求也要等待
+        while (true) {
+            if (window.tryAcquire(maxInFlight, progressIntervalMs, TimeUnit.MILLISECONDS)) {
+                window.release(maxInFlight);
+                if (retries.isEmpty()) {
+                    break;
+                }
+            } else if (System.currentTimeMillis() - lastCompletionTime > RESULT_TIMEOUT_MS) {
+                throw new KeeperException.OperationTimeoutException();
+            }
+            report(listener);
+        }
+        report(listener);
+
+        ImportProgress done = snapshot(readError == null ? "done" : "error");
+        done.setError(readError);
+        logger.info("流式导入完成: 节点数={}, 新建={}, 更新={}, 失败={}, 耗时={}ms, 速度={}/s",
+                processed, done.getCreated(), done.getUpdated(), done.getFailed(), done.getElapsedMs(), done.getNodesPerSecond());
+        return done;
+    }
+
+    private void acquire() throws KeeperException, InterruptedException {
+        if (throttle != null) {
+            throttle.beforeSubmit(maxInFlight);
+        }
+        if (!window.tryAcquire(RESULT_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            throw new KeeperException.OperationTimeoutException();
+        }
+    }
+
+    private void submit(NodeRecord entry, boolean retryOnMissingParent) {
+        List<ACL> acls = entry.getAcls() != null && !entry.getAcls().isEmpty() ? entry.getAcls() : ZooDefs.Ids.OPEN_ACL_UNSAFE;
+        long sent = System.currentTimeMillis();
+        zooKeeper.create(entry.getPath(), entry.getData(), acls, CreateMode.PERSISTENT,
+                (rc, path, ctx, name) -> {
+                    KeeperException.Code code = KeeperException.Code.get(rc);
+                    if (code == KeeperException.Code.OK) {
+                        created.incrementAndGet();
+                        applied(entry, true, 0, sent);
+                    } else if (code == KeeperException.Code.NODEEXISTS) {
+                        update(entry, sent);
+                        return;
+                    } else if (code == KeeperException.Code.NONODE && retryOnMissingParent) {
+                        retries.add(entry);
+                    } else {
+                        fail(path, code);
+                    }
+                    complete();
+                }, null);
+    }
+
+    private void update(NodeRecord entry, long sent) {
+        zooKeeper.setData(entry.getPath(), entry.getData(), -1, (rc, path, ctx, stat) -> {
+            if (rc == KeeperException.Code.OK.intValue()) {
+                updated.incrementAndGet();
+                applied(entry, false, stat != null ? stat.getVersion() : -1, sent);
+            } else {
+                fail(path, KeeperException.Code.get(rc));
+            }
+            complete();
+        }, null);
+    }
+
+    private void complete() {
+        lastCompletionTime = System.currentTimeMillis();
+        window.release();
+    }
+
+    private void applied(NodeRecord entry, boolean isCreated, int version, long sent) {
+        if (onApplied != null) {
+            onApplied.onApplied(entry, isCreated, version, System.currentTimeMillis() - sent);
+        }
+    }
+
+    private void fail(String path, KeeperException.Code code) {
+        failed.incrementAndGet();
+        failures.add(Map.entry(path, code));
+    }
+
+    // 在调用线程中补建父节点并重试，输出失败明细和定期进度
+    private void report(Listener listener) throws IOException, KeeperException, InterruptedException {
+        NodeRecord retry;
+        while ((retry = retries.poll()) != null) {
+            createParents(retry.getPath());
+            acquire();
+            submit(retry, false);
+        }
+        Map.Entry<String, KeeperException.Code> failure;
+        while ((failure = failures.poll()) != null) {
+            logger.warn("导入节点失败: path={}, 原因: {}", failure.getKey(), failure.getValue());
+            ImportProgress progress = snapshot("failure");
+            progress.setPath(failure.getKey());
+            progress.setError(failure.getValue().name());
+            listener.onProgress(progress);
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastProgressTime >= progressIntervalMs) {
+            lastProgressTime = now;
+            listener.onProgress(snapshot("progress"));
+        }
+    }
+
+    private void createParents(String path) throws KeeperException, InterruptedException {
+        int index = path.indexOf('/', 1);
+        while (index > 0) {
+            try {
+                zooKeeper.create(path.substring(0, index), new byte[0], ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+            } catch (KeeperException.NodeExistsException e) {
+                // 父节点已存在
+            }
+            index = path.indexOf('/', index + 1);
+        }
+    }
+
+    private ImportProgress snapshot(String stage) {
+        ImportProgress progress = new ImportProgress();
+        long elapsed = System.currentTimeMillis() - start;
+        long written = created.get() + updated.get();
+        progress.setStage(stage);
+        progress.setProcessed(processed);
+        progress.setCreated(created.get());
+        progress.setUpdated(updated.get());
+        progress.setFailed(failed.get());
+        progress.setElapsedMs(elapsed);
+        progress.setNodesPerSecond(elapsed > 0 ? written * 1000 / elapsed : written);
+        return progress;
+    }
+}
@@ -0,0 +1,290 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.BatchResult;
+import com.mytool.zktool.dto.SyncResult;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+// 把源集群的一个子树增量同步到目标集群，由SyncService创建，每次同步一个实例。
+// 两侧子树只按Stat列出；上次确认一致后两侧mzxid都未变化的节点直接跳过，其余节点才读取数据，
+// 目标侧数据长度相同时再读取目标数据逐字节比较，内容相同的节点不写入。
+// 新建和更新按父先子后分窗口提交，目标侧多出的节点最后按子先父后删除。
+class SubtreeSync {
+    interface Applier {
+        BatchResult apply(List<MultiBatchExecutor.Step> steps) throws InterruptedException;
+    }
+
+    private final ZooKeeper source;
+    private final ZooKeeper target;
+    private final int maxInFlight;
+    private final int windowSize;
+    private TreeMirror sourceMirror;
+    private TreeMirror targetMirror;
+    // 路径 -> {源mzxid, 目标mzxid}，即上次确认两侧内容一致时的版本
+    private Map<String, long[]> verified = new HashMap<>();
+
+    SubtreeSync(ZooKeeper source, ZooKeeper target, int maxInFlight, int windowSize) {
+        this.source = source;
+        this.target = target;
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : AsyncTreeWalker.DEFAULT_MAX_IN_FLIGHT;
+        this.windowSize = Math.max(1, windowSize);
+    }
+
+    // 有可用的内存镜像时由镜像提供Stat和数据
+    SubtreeSync withMirrors(TreeMirror sourceMirror, TreeMirror targetMirror) {
+        this.sourceMirror = sourceMirror;
+        this.targetMirror = targetMirror;
+        return this;
+    }
+
+    SubtreeSync withVerified(Map<String, long[]> verified) {
+        this.verified = verified;
+        return this;
+    }
+
+    SyncResult run(String path, boolean deleteExtra, boolean dryRun, Applier applier)
+            throws KeeperException, InterruptedException {
+        long start = System.currentTimeMillis();
+        SyncResult result = new SyncResult();
+        result.setPath(path);
+        result.setDryRun(dryRun);
+
+        // 两侧子树同时列出
+        FutureTask<Map<String, Stat>> targetListing = new FutureTask<>(() -> listStats(target, targetMirror, path));
+        Thread lister = new Thread(targetListing, "sync-list-target");
+        lister.setDaemon(true);
+        lister.start();
+        Map<String, Stat> sourceStats;
+        Map<String, Stat> targetStats;
+        try {
+            sourceStats = listStats(source, sourceMirror, path);
+            targetStats = targetListing.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof KeeperException) {
+                throw (KeeperException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            targetListing.cancel(true);
+        }
+        if (sourceStats.isEmpty()) {
+            throw new KeeperException.NoNodeException(path);
+        }
+        if (targetStats.isEmpty() && !dryRun) {
+            createParents(path);
+        }
+
+        List<String> window = new ArrayList<>(windowSize);
+        for (Map.Entry<String, Stat> entry : sourceStats.entrySet()) {
+            String node = entry.getKey();
+            result.setScanned(result.getScanned() + 1);
+            if (!syncable(node, entry.getValue())) {
+                result.setSkipped(result.getSkipped() + 1);
+                continue;
+            }
+            Stat targetStat = targetStats.get(node);
+            long[] last = verified.get(node);
+            if (targetStat != null && last != null
+                    && last[0] == entry.getValue().getMzxid() && last[1] == targetStat.getMzxid()) {
+                result.setUnchanged(result.getUnchanged() + 1);
+                continue;
+            }
+            window.add(node);
+            if (window.size() >= windowSize) {
+                if (!applyWindow(window, targetStats, dryRun, applier, result)) {
+                    return finish(result, start);
+                }
+                window.clear();
+            }
+        }
+        if (!window.isEmpty() && !applyWindow(window, targetStats, dryRun, applier, result)) {
+            return finish(result, start);
+        }
+
+        if (deleteExtra) {
+            deleteExtra(sourceStats, targetStats, dryRun, applier, result);
+        }
+        verified.keySet().retainAll(sourceStats.keySet());
+        return finish(result, start);
+    }
+
+    // 处理一个窗口内需要比较的节点，写入失败时返回false
+    private boolean applyWindow(List<String> paths, Map<String, Stat> targetStats, boolean dryRun,
+                                Applier applier, SyncResult result) throws KeeperException, InterruptedException {
+        Map<String, NodeRecord> sourceNodes = fetch(source, sourceMirror, paths, true);
+        // 数据长度不同时无需读取目标数据即可确定需要更新
+        List<String> compare = new ArrayList<>();
+        for (String path : paths) {
+            NodeRecord node = sourceNodes.get(path);
+            Stat targetStat = targetStats.get(path);
+            if (node != null && targetStat != null && targetStat.getDataLength() == node.getStat().getDataLength()) {
+                compare.add(path);
+            }
+        }
+        Map<String, NodeRecord> targetNodes = fetch(target, targetMirror, compare, true);
+        result.setFetched(result.getFetched() + sourceNodes.size() + targetNodes.size());
+
+        List<MultiBatchExecutor.Step> steps = new ArrayList<>();
+        for (String path : paths) {
+            NodeRecord node = sourceNodes.get(path);
+            if (node == null) {
+                // 列出后已在源集群被删除，留给下次同步处理
+                continue;
+            }
+            if (!targetStats.containsKey(path)) {
+                steps.add(MultiBatchExecutor.create(path, node.getData()));
+                continue;
+            }
+            NodeRecord existing = targetNodes.get(path);
+            if (existing != null && Arrays.equals(nullToEmpty(existing.getData()), nullToEmpty(node.getData()))) {
+                verified.put(path, new long[]{node.getStat().getMzxid(), existing.getStat().getMzxid()});
+                result.setUnchanged(result.getUnchanged() + 1);
+                continue;
+            }
+            steps.add(MultiBatchExecutor.update(path, node.getData(), -1));
+        }
+        if (!dryRun) {
+            for (MultiBatchExecutor.Step step : steps) {
+                verified.remove(step.getPath());
+            }
+        }
+        int applied = apply(steps, dryRun, applier, result);
+        if (!dryRun && applied > 0) {
+            recordWritten(steps.subList(0, applied), sourceNodes);
+        }
+        return applied == steps.size();
+    }
+
+    // 写入成功后立即读取目标侧的Stat并记为一致，下次同步无需再比较这些节点的内容
+    private void recordWritten(List<MultiBatchExecutor.Step> steps, Map<String, NodeRecord> sourceNodes)
+            throws KeeperException, InterruptedException {
+        List<String> paths = new ArrayList<>(steps.size());
+        for (MultiBatchExecutor.Step step : steps) {
+            paths.add(step.getPath());
+        }
+        Map<String, NodeRecord> written = fetch(target, null, paths, false);
+        for (NodeRecord node : written.values()) {
+            NodeRecord sourceNode = sourceNodes.get(node.getPath());
+            verified.put(node.getPath(), new long[]{sourceNode.getStat().getMzxid(), node.getStat().getMzxid()});
+        }
+    }
+
+    private void deleteExtra(Map<String, Stat> sourceStats, Map<String, Stat> targetStats, boolean dryRun,
+                             Applier applier, SyncResult result) throws InterruptedException {
+        List<MultiBatchExecutor.Step> steps = new ArrayList<>();
+        for (Map.Entry<String, Stat> entry : targetStats.entrySet()) {
+            // 目标集群自己的临时节点（如服务注册）不删除
+            if (!sourceStats.containsKey(entry.getKey()) && syncable(entry.getKey(), entry.getValue())) {
+                steps.add(MultiBatchExecutor.delete(entry.getKey(), -1));
+            }
+        }
+        // 列出顺序为父先子后，倒序即可先删除子节点
+        Collections.reverse(steps);
+        apply(steps, dryRun, applier, result);
+    }
+
+    // 提交写入并计数，返回已生效的操作数
+    private int apply(List<MultiBatchExecutor.Step> steps, boolean dryRun, Applier applier, SyncResult result)
+            throws InterruptedException {
+        if (steps.isEmpty()) {
+            return 0;
+        }
+        int applied = steps.size();
+        BatchResult batch = null;
+        if (!dryRun) {
+            batch = applier.apply(steps);
+            applied = batch.getApplied();
+        }
+        for (MultiBatchExecutor.Step step : steps.subList(0, applied)) {
+            switch (step.getKind()) {
+                case CREATE:
+                    result.setCreated(result.getCreated() + 1);
+                    break;
+                case UPDATE:
+                    result.setUpdated(result.getUpdated() + 1);
+                    break;
+                case DELETE:
+                    result.setDeleted(result.getDeleted() + 1);
+                    break;
+            }
+        }
+        if (batch != null && !batch.isSuccess()) {
+            result.setSuccess(false);
+            result.setFailedPath(batch.getFailedPath());
+            result.setError(batch.getError());
+        }
+        return applied;
+    }
+
+    // 父先子后列出子树中每个节点的Stat，子树不存在时返回空表
+    private Map<String, Stat> listStats(ZooKeeper zooKeeper, TreeMirror mirror, String path)
+            throws KeeperException, InterruptedException {
+        Map<String, Stat> stats = new LinkedHashMap<>();
+        if (mirror != null) {
+            mirror.forEach(path, entry -> stats.put(entry.getKey(), entry.getValue().getStat()));
+            return stats;
+        }
+        try {
+            new AsyncTreeWalker(zooKeeper, maxInFlight).withData(false)
+                    .walk(path, node -> stats.put(node.getPath(), node.getStat()));
+        } catch (KeeperException.NoNodeException e) {
+            // 子树不存在
+        }
+        return stats;
+    }
+
+    // 流水线读取一批节点的数据（withData为false时只读取Stat），已被删除的节点不出现在结果中
+    private Map<String, NodeRecord> fetch(ZooKeeper zooKeeper, TreeMirror mirror, List<String> paths, boolean withData)
+            throws KeeperException, InterruptedException {
+        if (mirror == null) {
+            return new AsyncNodeFetcher(zooKeeper, maxInFlight).fetch(paths, withData, false);
+        }
+        Map<String, NodeRecord> nodes = new HashMap<>();
+        for (String path : paths) {
+            TreeMirror.MirrorNode node = mirror.get(path);
+            if (node != null) {
+                nodes.put(path, new NodeRecord(path, node.getData(), node.getStat(), null));
+            }
+        }
+        return nodes;
+    }
+
+    private void createParents(String path) throws KeeperException, InterruptedException {
+        int index = path.indexOf('/', 1);
+        while (index > 0) {
+            try {
+                target.create(path.substring(0, index), new byte[0], ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+            } catch (KeeperException.NodeExistsException e) {
+                // 父节点已存在
+            }
+            index = path.indexOf('/', index + 1);
+        }
+    }
+
+    private static boolean syncable(String path, Stat stat) {
+        boolean system = path.equals("/zookeeper") || path.startsWith("/zookeeper/");
+        return !system && stat.getEphemeralOwner() == 0;
+    }
+
+    private static byte[] nullToEmpty(byte[] data) {
+        return data != null ? data : new byte[0];
+    }
+
+    private static SyncResult finish(SyncResult result, long start) {
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        return result;
+    }
+}
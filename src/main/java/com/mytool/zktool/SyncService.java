@@ -0,0 +1,76 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.SyncRequest;
+import com.mytool.zktool.dto.SyncResult;
+import org.apache.zookeeper.KeeperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 跨集群增量同步（如预发 -> 生产、机房之间），只传输有变化的节点
+@Service
+public class SyncService {
+    private static final Logger logger = LoggerFactory.getLogger(SyncService.class);
+
+    @Autowired
+    private ZkSessionRegistry sessionRegistry;
+
+    @Autowired
+    private ZkService zkService;
+
+    @Autowired
+    private TreeMirrorService mirrorService;
+
+    @Value("${zktool.traversal.max-in-flight:500}")
+    private int maxInFlight = AsyncTreeWalker.DEFAULT_MAX_IN_FLIGHT;
+
+    @Value("${zktool.sync.window-size:1000}")
+    private int windowSize = 1000;
+
+    // "源会话|目标会话|路径" -> 上次确认两侧一致的节点版本，服务重启后首次同步会重新比较内容
+    private final Map<String, Map<String, long[]>> verified = new ConcurrentHashMap<>();
+
+    // 按顺序同步每个路径，某个路径写入失败后不再继续
+    public List<SyncResult> sync(SyncRequest request) throws KeeperException, InterruptedException, IOException {
+        ZkSession source = sessionRegistry.resolve(request.getSourceCluster());
+        ZkSession target = sessionRegistry.resolve(request.getTargetCluster());
+        if (source.getKey().equals(target.getKey())) {
+            throw new IllegalArgumentException("源集群和目标集群不能相同");
+        }
+        source.validate();
+        target.validate();
+        // 同步期间会话不会因空闲被回收
+        source.pin();
+        target.pin();
+        try {
+            List<SyncResult> results = new ArrayList<>();
+            for (String path : request.getPaths()) {
+                String key = source.getKey() + "|" + target.getKey() + "|" + path;
+                SubtreeSync sync = new SubtreeSync(source.getZooKeeper(), target.getZooKeeper(), maxInFlight, windowSize)
+                        .withMirrors(mirrorService.find(source, path), mirrorService.find(target, path))
+                        .withVerified(verified.computeIfAbsent(key, k -> new ConcurrentHashMap<>()));
+                SyncResult result = sync.run(path, request.isDeleteExtra(), request.isDryRun(),
+                        steps -> zkService.applySteps(target, steps));
+                logger.info("同步完成: {} -> {}, path={}, 扫描={}, 未变化={}, 新建={}, 更新={}, 删除={}, 成功={}, 耗时={}ms",
+                        source.getAddress(), target.getAddress(), path, result.getScanned(), result.getUnchanged(),
+                        result.getCreated(), result.getUpdated(), result.getDeleted(), result.isSuccess(), result.getElapsedMs());
+                results.add(result);
+                if (!result.isSuccess()) {
+                    break;
+                }
+            }
+            return results;
+        } finally {
+            source.unpin();
+            target.unpin();
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.mytool.zktool;
+
+import org.apache.zookeeper.AddWatchMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// 某个集群路径下子树的内存镜像：全量加载一次后，通过PERSISTENT_RECURSIVE监听保持最新。
+// 每个变更事件都会重新异步读取该节点，读到NONODE即删除对应子树，因此事件的类型和顺序不影响最终结果。
+// 递归监听不触发NodeChildrenChanged，子节点增删后另外读取父节点的Stat（pzxid、cversion、numChildren）。
+// 注意：ACL变更不会触发监听，镜像中不保存ACL。
+public class TreeMirror implements Watcher {
+    public enum State {
+        LOADING,
+        SYNCED,
+        STALE,
+        CLOSED
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(TreeMirror.class);
+
+    private final ZkSession session;
+    private final String root;
+    private final int maxInFlight;
+    private final Map<String, MirrorNode> nodes = new ConcurrentHashMap<>();
+    // 加载过程中收到的事件，加载完成后统一重放
+    private final Queue<String> deferred = new ConcurrentLinkedQueue<>();
+    private final Object stateLock = new Object();
+    private final AtomicLong lastAppliedZxid = new AtomicLong();
+    // 镜像内容每次变化加一（含删除和重新加载），作为整个镜像子树的版本
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicInteger pendingFetches = new AtomicInteger();
+    private volatile State state = State.LOADING;
+    private volatile boolean watching;
+    private volatile long loadedTime;
+    private volatile long lastEventTime;
+    private volatile long lastSyncedTime;
+    private volatile Consumer<TreeMirror> reloadRequest = mirror -> { };
+    // 可选的搜索索引，与镜像内容同步更新
+    private volatile SearchIndex index;
+
+    public TreeMirror(ZkSession session, String root, int maxInFlight) {
+        this.session = session;
+        this.root = root;
+        this.maxInFlight = maxInFlight;
+        session.pin();
+    }
+
+    void onReloadRequest(Consumer<TreeMirror> reloadRequest) {
+        this.reloadRequest = reloadRequest;
+    }
+
+    void withIndex(SearchIndex index) {
+        this.index = index;
+    }
+
+    // 先注册持久递归监听再全量加载，加载期间的事件在加载完成后重放，不会丢失变更
+    public void load() throws KeeperException, InterruptedException {
+        synchronized (stateLock) {
+            if (state == State.CLOSED) {
+                return;
+            }
+            state = State.LOADING;
+        }
+        if (!watching) {
+            session.getZooKeeper().addWatch(root, this, AddWatchMode.PERSISTENT_RECURSIVE);
+            watching = true;
+        }
+
+        long start = System.currentTimeMillis();
+        nodes.clear();
+        if (index != null) {
+            index.clear();
+        }
+        new AsyncTreeWalker(session.getZooKeeper(), maxInFlight).walk(root, visited -> {
+            MirrorNode node = new MirrorNode(visited.getData(), visited.getStat());
+            node.children.addAll(visited.getChildren());
+            nodes.put(visited.getPath(), node);
+            if (index != null) {
+                index.put(visited.getPath(), visited.getData());
+            }
+            advanceZxid(visited.getStat());
+        });
+
+        synchronized (stateLock) {
+            if (state == State.CLOSED) {
+                return;
+            }
+            state = State.SYNCED;
+        }
+        version.incrementAndGet();
+        loadedTime = System.currentTimeMillis();
+        lastSyncedTime = loadedTime;
+        String path;
+        while ((path = deferred.poll()) != null) {
+            refresh(path);
+        }
+        logger.info("镜像加载完成: {} {}, 节点数={}, 耗时={}ms",
+                session.getKey(), root, nodes.size(), loadedTime - start);
+    }
+
+    @Override
+    public void process(WatchedEvent event) {
+        if (event.getType() == Event.EventType.None) {
+            handleConnectionEvent(event.getState());
+            return;
+        }
+        if (event.getPath() == null) {
+            return;
+        }
+        lastEventTime = System.currentTimeMillis();
+        synchronized (stateLock) {
+            if (state == State.CLOSED) {
+                return;
+            }
+            if (state == State.LOADING) {
+                deferred.add(event.getPath());
+                return;
+            }
+        }
+        refresh(event.getPath());
+    }
+
+    // 断线期间的变更不会补发事件，重连后需要重新全量加载
+    private void handleConnectionEvent(Event.KeeperState keeperState) {
+        switch (keeperState) {
+            case Disconnected:
+            case Expired:
+                synchronized (stateLock) {
+                    if (state == State.SYNCED) {
+                        state = State.STALE;
+                    }
+                }
+                logger.warn("镜像连接中断，数据可能已过期: {} {}", session.getKey(), root);
+                break;
+            case SyncConnected:
+                if (state == State.STALE) {
+                    reloadRequest.accept(this);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void refresh(String path) {
+        pendingFetches.incrementAndGet();
+        session.getZooKeeper().getData(path, false, (rc, p, ctx, data, stat) -> {
+            try {
+                if (rc == KeeperException.Code.OK.intValue()) {
+                    apply(p, data, stat);
+                } else if (rc == KeeperException.Code.NONODE.intValue()) {
+                    remove(p);
+                } else {
+                    logger.warn("镜像刷新节点失败: path={}, rc={}", p, KeeperException.Code.get(rc));
+                }
+            } finally {
+                fetchDone();
+            }
+        }, null);
+    }
+
+    // 子节点增删后重新读取父节点的Stat，删除事件的zxid也只能从父节点的pzxid得到
+    private void refreshParentStat(String path) {
+        if (path.equals("/")) {
+            return;
+        }
+        pendingFetches.incrementAndGet();
+        session.getZooKeeper().exists(parentPath(path), false, (rc, p, ctx, stat) -> {
+            try {
+                if (rc == KeeperException.Code.OK.intValue()) {
+                    MirrorNode parent = nodes.get(p);
+                    if (parent != null && isNewer(stat, parent.stat)) {
+                        parent.stat = stat;
+                        version.incrementAndGet();
+                    }
+                    advanceZxid(stat);
+                } else if (rc != KeeperException.Code.NONODE.intValue()) {
+                    logger.warn("镜像刷新父节点失败: path={}, rc={}", p, KeeperException.Code.get(rc));
+                }
+                // 父节点已删除时由它自己的删除事件处理
+            } finally {
+                fetchDone();
+            }
+        }, null);
+    }
+
+    private void fetchDone() {
+        if (pendingFetches.decrementAndGet() == 0 && state == State.SYNCED) {
+            lastSyncedTime = System.currentTimeMillis();
+        }
+    }
+
+    private void apply(String path, byte[] data, Stat stat) {
+        MirrorNode node = nodes.computeIfAbsent(path, k -> new MirrorNode(data, stat));
+        if (isNewer(stat, node.stat)) {
+            node.data = data;
+            node.stat = stat;
+        }
+        if (index != null) {
+            index.put(path, node.data);
+        }
+        if (!path.equals(root)) {
+            MirrorNode parent = nodes.get(parentPath(path));
+            if (parent != null && parent.children.add(nodeName(path))) {
+                refreshParentStat(path);
+            }
+        }
+        advanceZxid(stat);
+        version.incrementAndGet();
+    }
+
+    // 同一会话的响应按请求顺序返回，两个zxid都不小于已有Stat时即为更新的读取结果
+    private static boolean isNewer(Stat stat, Stat current) {
+        return stat.getMzxid() >= current.getMzxid() && stat.getPzxid() >= current.getPzxid();
+    }
+
+    private void remove(String path) {
+        MirrorNode parent = path.equals(root) ? null : nodes.get(parentPath(path));
+        if (parent != null) {
+            parent.children.remove(nodeName(path));
+        }
+        if (nodes.containsKey(path)) {
+            refreshParentStat(path);
+        }
+        Deque<String> stack = new ArrayDeque<>();
+        stack.push(path);
+        while (!stack.isEmpty()) {
+            String current = stack.pop();
+            MirrorNode node = nodes.remove(current);
+            if (node != null) {
+                if (index != null) {
+                    index.remove(current);
+                }
+                for (String child : node.children) {
+                    stack.push(AsyncTreeWalker.childPath(current, child));
+                }
+            }
+        }
+        version.incrementAndGet();
+    }
+
+    private void advanceZxid(Stat stat) {
+        if (stat != null) {
+            lastAppliedZxid.accumulateAndGet(Math.max(stat.getMzxid(), stat.getPzxid()), Math::max);
+        }
+    }
+
+    public void close() {
+        synchronized (stateLock) {
+            if (state == State.CLOSED) {
+                return;
+            }
+            state = State.CLOSED;
+        }
+        session.unpin();
+        if (watching && session.isAlive()) {
+            try {
+                session.getZooKeeper().removeWatches(root, this, WatcherType.Any, true);
+            } catch (Exception e) {
+                logger.warn("移除镜像监听失败: {} {}, 原因: {}", session.getKey(), root, e.getMessage());
+            }
+        }
+        nodes.clear();
+        deferred.clear();
+        if (index != null) {
+            index.clear();
+        }
+    }
+
+    public boolean covers(String path) {
+        return path.equals(root) || root.equals("/") || path.startsWith(root + "/");
+    }
+
+    public boolean isServing() {
+        return state == State.SYNCED && session.isAlive();
+    }
+
+    public MirrorNode get(String path) {
+        return nodes.get(path);
+    }
+
+    // 深度优先遍历镜像中的子树，父节点先于子节点
+    public void forEach(String path, Consumer<Map.Entry<String, MirrorNode>> visitor) {
+        Deque<String> stack = new ArrayDeque<>();
+        stack.push(path);
+        while (!stack.isEmpty()) {
+            String current = stack.pop();
+            MirrorNode node = nodes.get(current);
+            if (node == null) {
+                continue;
+            }
+            visitor.accept(Map.entry(current, node));
+            List<String> children = new ArrayList<>(node.children);
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(AsyncTreeWalker.childPath(current, children.get(i)));
+            }
+        }
+    }
+
+    public long getStalenessMs() {
+        if (state == State.SYNCED && pendingFetches.get() == 0) {
+            return 0;
+        }
+        long since = lastSyncedTime > 0 ? lastSyncedTime : System.currentTimeMillis();
+        return System.currentTimeMillis() - since;
+    }
+
+    public ZkSession getSession() {
+        return session;
+    }
+
+    public String getRoot() {
+        return root;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public long getLastAppliedZxid() {
+        return lastAppliedZxid.get();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public long getLoadedTime() {
+        return loadedTime;
+    }
+
+    public long getLastEventTime() {
+        return lastEventTime;
+    }
+
+    SearchIndex getIndex() {
+        return index;
+    }
+
+    public int getPendingFetches() {
+        return pendingFetches.get();
+    }
+
+    private static String parentPath(String path) {
+        int lastSlash = path.lastIndexOf('/');
+        return lastSlash <= 0 ? "/" : path.substring(0, lastSlash);
+    }
+
+    private static String nodeName(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    public static class MirrorNode {
+        private volatile byte[] data;
+        private volatile Stat stat;
+        private final NavigableSet<String> children = new ConcurrentSkipListSet<>();
+
+        MirrorNode(byte[] data, Stat stat) {
+            this.data = data;
+            this.stat = stat;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public Stat getStat() {
+            return stat;
+        }
+
+        public NavigableSet<String> getChildren() {
+            return children;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.MirrorStatus;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// 管理按集群路径开启的内存镜像，镜像就绪后读请求直接由内存提供
+@Service
+public class TreeMirrorService {
+    private static final Logger logger = LoggerFactory.getLogger(TreeMirrorService.class);
+
+    @Autowired
+    private ZkSessionRegistry sessionRegistry;
+
+    @Autowired(required = false)
+    private ZkMetrics metrics;
+
+    @Value("${zktool.traversal.max-in-flight:500}")
+    private int traversalMaxInFlight = AsyncTreeWalker.DEFAULT_MAX_IN_FLIGHT;
+
+    @Value("${zktool.search.index-mirrors:true}")
+    private boolean indexMirrors = true;
+
+    @Value("${zktool.search.max-indexed-bytes:65536}")
+    private int maxIndexedBytes = 65536;
+
+    private final Map<String, TreeMirror> mirrors = new ConcurrentHashMap<>();
+    // 全量加载可能耗时较长，放在后台线程执行，避免阻塞请求线程和ZooKeeper事件线程
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "zk-mirror-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TreeMirror enable(ZkSession session, String path) {
+        String key = mirrorKey(session.getKey(), path);
+        TreeMirror existing = mirrors.get(key);
+        if (existing != null && existing.getSession() == session && existing.getState() != TreeMirror.State.CLOSED) {
+            return existing;
+        }
+        TreeMirror mirror = new TreeMirror(session, path, traversalMaxInFlight);
+        mirror.onReloadRequest(this::scheduleLoad);
+        if (indexMirrors) {
+            mirror.withIndex(new SearchIndex(maxIndexedBytes));
+        }
+        TreeMirror previous = mirrors.put(key, mirror);
+        if (previous != null) {
+            previous.close();
+        }
+        logger.info("开启内存镜像: {} {}", session.getKey(), path);
+        scheduleLoad(mirror);
+        return mirror;
+    }
+
+    public boolean disable(String sessionKey, String path) {
+        TreeMirror mirror = mirrors.remove(mirrorKey(sessionKey, path));
+        if (mirror == null) {
+            return false;
+        }
+        logger.info("关闭内存镜像: {} {}", sessionKey, path);
+        mirror.close();
+        return true;
+    }
+
+    // 查找覆盖该路径且已同步的镜像，存在多个时使用根路径最深的
+    public TreeMirror find(ZkSession session, String path) {
+        TreeMirror best = null;
+        for (TreeMirror mirror : mirrors.values()) {
+            if (mirror.getSession() == session && mirror.isServing() && mirror.covers(path)
+                    && (best == null || mirror.getRoot().length() > best.getRoot().length())) {
+                best = mirror;
+            }
+        }
+        if (metrics != null) {
+            metrics.cacheAccess("mirror", best != null);
+        }
+        return best;
+    }
+
+    public List<MirrorStatus> getStatus() {
+        List<MirrorStatus> result = new ArrayList<>();
+        for (TreeMirror mirror : mirrors.values()) {
+            MirrorStatus status = new MirrorStatus();
+            status.setSessionKey(mirror.getSession().getKey());
+            status.setPath(mirror.getRoot());
+            status.setState(mirror.getState().name());
+            status.setNodeCount(mirror.size());
+            status.setLastAppliedZxid(Long.toHexString(mirror.getLastAppliedZxid()));
+            status.setLoadedTime(mirror.getLoadedTime());
+            status.setLastEventTime(mirror.getLastEventTime());
+            status.setPendingFetches(mirror.getPendingFetches());
+            status.setStalenessMs(mirror.getStalenessMs());
+            status.setIndexedCount(mirror.getIndex() != null ? mirror.getIndex().size() : 0);
+            result.add(status);
+        }
+        return result;
+    }
+
+    private void scheduleLoad(TreeMirror mirror) {
+        loader.submit(() -> {
+            try {
+                mirror.load();
+            } catch (Exception e) {
+                logger.error("镜像加载失败: {} {}, 原因: {}", mirror.getSession().getKey(), mirror.getRoot(), e.getMessage());
+            }
+        });
+    }
+
+    // 会话失效后镜像无法继续接收事件，定期用新会话重建
+    @Scheduled(fixedDelayString = "${zktool.mirror.recover-interval-ms:30000}")
+    public void recoverMirrors() {
+        for (TreeMirror mirror : new ArrayList<>(mirrors.values())) {
+            ZkSession session = mirror.getSession();
+            if (session.isAlive()) {
+                continue;
+            }
+            try {
+                ZkSession renewed = session.getClusterId() != null
+                        ? sessionRegistry.getSession(session.getClusterId())
+                        : sessionRegistry.getSession(session.getAddress());
+                logger.info("会话已失效，重建内存镜像: {} {}", session.getKey(), mirror.getRoot());
+                enable(renewed, mirror.getRoot());
+            } catch (Exception e) {
+                logger.warn("重建内存镜像失败: {} {}, 原因: {}", session.getKey(), mirror.getRoot(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        mirrors.values().forEach(TreeMirror::close);
+        mirrors.clear();
+        loader.shutdownNow();
+    }
+
+    private static String mirrorKey(String sessionKey, String path) {
+        return sessionKey + "|" + path;
+    }
+}
@@ -2,18 +2,40 @@ package com.mytool.zktool;
 
 import com.mytool.zktool.dto.ApiResponse;
 import com.mytool.zktool.dto.BatchOperationRequest;
+import com.mytool.zktool.dto.BatchResult;
+import com.mytool.zktool.dto.ImportProgress;
+import com.mytool.zktool.dto.NodeQuery;
 import com.mytool.zktool.dto.NodeRequest;
+import com.mytool.zktool.dto.SessionInfo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.apache.zookeeper.CreateMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -26,6 +48,15 @@ public class ZkController {
     @Autowired
     private ZkService zkService;
 
+    @Autowired
+    private ZkSessionRegistry sessionRegistry;
+
+    @Autowired
+    private NodeEventService eventService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Operation(summary = "连接到ZooKeeper集群")
     @GetMapping("/connect")
     public ApiResponse<String> connect(@RequestParam String address) {
@@ -36,7 +67,7 @@ public class ZkController {
 
         logger.info("尝试连接到ZooKeeper集群: {}", address);
         try {
-            zkService.connect(address);
+            sessionRegistry.connect(address.trim());
             String successMsg = String.format("成功连接到ZooKeeper集群: %s", address);
             logger.info(successMsg);
             return ApiResponse.success(successMsg);
@@ -47,36 +78,181 @@ public class ZkController {
         }
     }
 
-    @Operation(summary = "获取节点信息")
+    @Operation(summary = "获取节点信息", description = "fields可指定返回字段（path,data,acls,stat，逗号分隔），不需要data或acls时跳过对应的读取请求；"
+            + "响应带ETag，请求携带If-None-Match且内容未变化时返回304；view=compact返回紧凑结构，Accept: application/cbor时以CBOR编码")
     @GetMapping("/nodes")
-    public ApiResponse<NodeInfo> getNode(
+    public ResponseEntity<ApiResponse<?>> getNode(
             @RequestParam(required = false, defaultValue = "/") String path,
-            @RequestParam(required = false) String cluster) {
+            @RequestParam(required = false) String cluster,
+            @RequestParam(required = false) Long clusterId,
+            @RequestParam(required = false, defaultValue = "1") int depth,
+            @RequestParam(required = false, defaultValue = "0") int offset,
+            @RequestParam(required = false, defaultValue = "" + NodeQuery.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false, defaultValue = "full") String view,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         
-        logger.info("获取节点信息: path={}, cluster={}", path, cluster);
+        logger.info("获取节点信息: path={}, cluster={}, clusterId={}, depth={}, offset={}, limit={}, after={}, fields={}",
+                path, cluster, clusterId, depth, offset, limit, after, fields);
         
         try {
-            // 如果指定了集群地址，先尝试连接
-            if (cluster != null && !cluster.trim().isEmpty()) {
-                zkService.connect(cluster);
+            // 按集群ID或地址路由到已有会话，只有会话不存在时才建立连接
+            ZkSession session = sessionRegistry.resolve(clusterId, cluster);
+            NodeQuery query = new NodeQuery();
+            query.setDepth(depth);
+            query.setOffset(offset);
+            query.setLimit(limit);
+            query.setAfter(after);
+            query.setFields(NodeQuery.parseFields(fields));
+            boolean compact = "compact".equals(view);
+            if (!compact && !"full".equals(view)) {
+                return ResponseEntity.ok(ApiResponse.error("不支持的view: " + view + "，可选值: full, compact"));
+            }
+            // 不同视图和编码是不同的表示，ETag需要区分
+            boolean cbor = prefersCbor(accept);
+            String etagSuffix = (compact ? "-c" : "") + (cbor ? "-b" : "");
+            // 只有条件请求才单独校验版本，未变化时不构建节点；普通请求的ETag由构建时读取的内容计算
+            if (ifNoneMatch != null) {
+                String version = zkService.getNodeVersion(session, path, query);
+                if (version != null && etagMatches(ifNoneMatch, "\"" + version + etagSuffix + "\"")) {
+                    logger.info("节点未变化: path={}", path);
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag("W/\"" + version + etagSuffix + "\"")
+                            .cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT).build();
+                }
             }
-            
-            NodeInfo rootNode = zkService.getNode(path);
-            logger.info("成功获取节点信息: {}", rootNode);
-            return ApiResponse.success(rootNode);
+            ZkService.VersionedNode result = zkService.getVersionedNode(session, path, query);
+            NodeInfo rootNode = result.getNode();
+            logger.info("成功获取节点信息: path={}, children={}", path, rootNode.getNumChildren());
+            ApiResponse<?> body = compact ? ApiResponse.success(CompactNode.of(rootNode)) : ApiResponse.success(rootNode);
+            if (result.getVersion() == null) {
+                return ResponseEntity.ok(body);
+            }
+            String etag = "\"" + result.getVersion() + etagSuffix + "\"";
+            // no-cache：浏览器可以缓存，但每次使用前都要带If-None-Match重新验证。
+            // 使用弱ETag：Tomcat不压缩带强ETag的响应，且压缩前后内容语义相同
+            return ResponseEntity.ok().eTag("W/" + etag).cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT).body(body);
         } catch (Exception e) {
             String errorMsg = String.format("获取节点[%s]信息失败: %s", path, e.getMessage());
             logger.error(errorMsg, e);
-            return ApiResponse.error(errorMsg);
+            return ResponseEntity.ok(ApiResponse.error(errorMsg));
+        }
+    }
+
+    @Operation(summary = "读取节点原始数据", description = "按原始字节返回节点数据，不经过字符串解码；支持单个Range分段读取（如Range: bytes=0-4095预览开头4KB）、"
+            + "If-Range和If-None-Match；sniff=true时按内容识别为JSON、文本或二进制，render=hex或base64时返回对应的文本形式")
+    @GetMapping("/nodes/value")
+    public ResponseEntity<?> getNodeValue(
+            @RequestParam String path,
+            @RequestParam(required = false) String cluster,
+            @RequestParam(required = false) Long clusterId,
+            @RequestParam(required = false, defaultValue = NodeValueFormat.RENDER_RAW) String render,
+            @RequestParam(required = false, defaultValue = "false") boolean sniff,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws Exception {
+        if (!NodeValueFormat.isSupportedRender(render)) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("不支持的render: " + render + "，可选值: raw, hex, base64"));
+        }
+        // 连接问题和节点不存在在开始输出前抛出，由全局异常处理返回错误状态码，避免被当作节点数据
+        ZkSession session = sessionRegistry.resolve(clusterId, cluster);
+        NodeCache.Entry entry = zkService.getNodeValue(session, path);
+        byte[] data = entry.getData() != null ? entry.getData() : new byte[0];
+        byte[] value = NodeValueFormat.render(data, render);
+        MediaType contentType;
+        if (!NodeValueFormat.RENDER_RAW.equals(render)) {
+            contentType = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.US_ASCII);
+        } else {
+            contentType = sniff ? NodeValueFormat.sniff(data) : MediaType.APPLICATION_OCTET_STREAM;
+        }
+
+        // 分段读取要求强ETag，mzxid随每次修改和删除重建变化；带强ETag的响应Tomcat不压缩，分段的字节偏移不受影响
+        String etag = "\"" + Long.toHexString(entry.getStat().getMzxid()) + "-" + render + (sniff ? "-s" : "") + "\"";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setLastModified(entry.getStat().getMtime());
+        headers.setCacheControl(CacheControl.noCache());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.set("X-Content-Type-Options", "nosniff");
+        if (etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
         }
+        // If-Range与当前版本不一致时，客户端已有的分段已过期，返回完整内容；
+        // 预览只需要单个分段，多个分段时按规范忽略Range返回完整内容
+        List<HttpRange> ranges;
+        try {
+            ranges = range != null && (ifRange == null || ifRange.trim().equals(etag)) ? HttpRange.parseRanges(range) : List.of();
+        } catch (IllegalArgumentException e) {
+            ranges = List.of();
+        }
+        if (ranges.size() == 1) {
+            ResourceRegion region;
+            try {
+                region = ranges.get(0).toResourceRegion(new ByteArrayResource(value));
+            } catch (IllegalArgumentException e) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + value.length);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+            }
+            int start = (int) region.getPosition();
+            int end = start + (int) region.getCount();
+            logger.info("分段读取节点数据: path={}, range={}-{}, length={}", path, start, end - 1, value.length);
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + value.length);
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(headers).contentType(contentType)
+                    .contentLength(end - start).body(Arrays.copyOfRange(value, start, end));
+        }
+        // 以byte[]而不是Resource返回，Spring不会绕过If-Range再次按Range截取
+        return ResponseEntity.ok().headers(headers).contentType(contentType).contentLength(value.length).body(value);
+    }
+
+    // 按与内容协商相同的规则判断响应是否以CBOR编码：取q值最高且可以由JSON或CBOR满足的类型（q相同时取靠前的），
+    // 同时兼容两者的通配类型（*/*、application/*）按JSON处理，q=0表示不接受
+    private static boolean prefersCbor(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MediaType best = null;
+        for (MediaType type : types) {
+            if (type.getQualityValue() > 0
+                    && (type.isCompatibleWith(MediaType.APPLICATION_JSON) || type.isCompatibleWith(MediaType.APPLICATION_CBOR))
+                    && (best == null || type.getQualityValue() > best.getQualityValue())) {
+                best = type;
+            }
+        }
+        return best != null && best.isCompatibleWith(MediaType.APPLICATION_CBOR)
+                && !best.isCompatibleWith(MediaType.APPLICATION_JSON);
+    }
+
+    // If-None-Match可能是逗号分隔的多个值，按弱比较忽略W/前缀
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String value = tag.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Operation(summary = "创建节点")
     @PostMapping("/nodes")
-    public ApiResponse<String> createNode(@Valid @RequestBody NodeRequest request) {
+    public ApiResponse<String> createNode(@Valid @RequestBody NodeRequest request,
+            @RequestParam(required = false) Long clusterId) {
         try {
             CreateMode mode = CreateMode.valueOf(request.getMode());
-            zkService.createNode(request.getPath(), request.getData(), mode);
+            zkService.createNode(session(clusterId), request.getPath(), request.getData(), mode);
             return ApiResponse.success("节点创建成功");
         } catch (Exception e) {
             return ApiResponse.error("创建节点失败: " + e.getMessage());
@@ -85,9 +261,10 @@ public class ZkController {
 
     @Operation(summary = "更新节点")
     @PutMapping("/nodes/update")
-    public ApiResponse<String> updateNode(@Valid @RequestBody NodeRequest request) {
+    public ApiResponse<String> updateNode(@Valid @RequestBody NodeRequest request,
+            @RequestParam(required = false) Long clusterId) {
         try {
-            zkService.updateNode(request.getPath(), request.getData(), request.getVersion());
+            zkService.updateNode(session(clusterId), request.getPath(), request.getData(), request.getVersion());
             return ApiResponse.success("节点更新成功");
         } catch (Exception e) {
             return ApiResponse.error("更新节点失败: " + e.getMessage());
@@ -96,49 +273,52 @@ public class ZkController {
 
     @Operation(summary = "删除节点")
     @DeleteMapping("/nodes/delete")
-    public ApiResponse<String> deleteNode(@Valid @RequestBody NodeRequest request) {
+    public ApiResponse<String> deleteNode(@Valid @RequestBody NodeRequest request,
+            @RequestParam(required = false) Long clusterId) {
         try {
-            // 获取节点信息，检查是否有子节点
-            NodeInfo node = zkService.getNode(request.getPath());
-            if (node.getChildren() != null && !node.getChildren().isEmpty()) {
-                // 如果有子节点，先删除所有子节点
-                for (NodeInfo child : node.getChildren()) {
-                    zkService.deleteNode(child.getPath(), -1);
-                }
+            // 连同全部子孙节点一起删除
+            BatchResult result = zkService.deleteRecursive(session(clusterId), request.getPath(),
+                    request.getVersion() != null ? request.getVersion() : -1, false);
+            if (!result.isSuccess()) {
+                return ApiResponse.error("删除节点失败: " + result.getError());
             }
-            
-            // 删除当前节点
-            zkService.deleteNode(request.getPath(), request.getVersion() != null ? request.getVersion() : -1);
             return ApiResponse.success("节点删除成功");
         } catch (Exception e) {
             return ApiResponse.error("删除节点失败: " + e.getMessage());
         }
     }
 
+    @Operation(summary = "递归删除节点", description = "删除节点及其全部子孙节点，dryRun=true时只返回将被删除的节点数")
+    @DeleteMapping("/nodes/recursive")
+    public ApiResponse<BatchResult> deleteRecursive(@RequestParam String path,
+            @RequestParam(required = false, defaultValue = "-1") int version,
+            @RequestParam(required = false, defaultValue = "false") boolean dryRun,
+            @RequestParam(required = false) Long clusterId) {
+        try {
+            BatchResult result = zkService.deleteRecursive(session(clusterId), path, version, dryRun);
+            if (!result.isSuccess()) {
+                return ApiResponse.error("递归删除失败: " + result.getError(), result);
+            }
+            return ApiResponse.success(dryRun ? "预演完成，未删除任何节点" : "递归删除成功", result);
+        } catch (Exception e) {
+            logger.error("递归删除失败: path={}, clusterId={}", path, clusterId, e);
+            return ApiResponse.error("递归删除失败: " + e.getMessage());
+        }
+    }
+
     @Operation(summary = "批量操作节点")
     @PostMapping("/nodes/batch")
-    public ApiResponse<String> batchOperation(@Valid @RequestBody BatchOperationRequest request) {
+    public ApiResponse<BatchResult> batchOperation(@Valid @RequestBody BatchOperationRequest request,
+            @RequestParam(required = false) Long clusterId) {
         try {
-            switch (request.getOperation().toUpperCase()) {
-                case "CREATE":
-                    zkService.batchCreate(request.getNodes().stream()
-                            .map(node -> {
-                                NodeInfo info = new NodeInfo();
-                                info.setPath(node.getPath());
-                                info.setData(node.getData());
-                                return info;
-                            })
-                            .toList());
-                    break;
-                case "DELETE":
-                    zkService.batchDelete(request.getNodes().stream()
-                            .map(BatchOperationRequest.BatchNode::getPath)
-                            .toList());
-                    break;
-                default:
-                    return ApiResponse.error("不支持的操作类型");
+            BatchResult result = zkService.executeBatch(session(clusterId), request.getOperation(), request.getNodes(),
+                    request.getChecks(), request.isAtomic());
+            if (!result.isSuccess()) {
+                return ApiResponse.error("批量操作失败: " + result.getError(), result);
             }
-            return ApiResponse.success("批量操作成功");
+            return ApiResponse.success("批量操作成功", result);
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(e.getMessage());
         } catch (Exception e) {
             return ApiResponse.error("批量操作失败: " + e.getMessage());
         }
@@ -146,46 +326,178 @@ public class ZkController {
 
     @Operation(summary = "导出节点数据")
     @GetMapping("/nodes/export")
-    public ApiResponse<Map<String, String>> exportData(@RequestParam String path) {
+    public ApiResponse<Map<String, String>> exportData(@RequestParam String path,
+            @RequestParam(required = false) Long clusterId) {
         try {
-            Map<String, String> data = zkService.exportData(path);
+            Map<String, String> data = zkService.exportData(session(clusterId), path);
             return ApiResponse.success(data);
         } catch (Exception e) {
             return ApiResponse.error("导出数据失败: " + e.getMessage());
         }
     }
 
+    @Operation(summary = "流式导出节点数据", description = "以NDJSON格式逐行输出节点，每行一个{path,data}，适合大子树导出")
+    @GetMapping(value = "/nodes/export", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> exportDataStream(@RequestParam String path,
+            @RequestParam(required = false) Long clusterId) throws Exception {
+        // 连接问题在开始输出前抛出，由全局异常处理返回错误
+        ZkSession session = session(clusterId);
+        session.validate();
+        StreamingResponseBody body = out -> {
+            NdjsonNodeWriter writer = new NdjsonNodeWriter(out);
+            try {
+                long count = zkService.exportData(session, path, writer);
+                logger.info("流式导出完成: path={}, 节点数={}", path, count);
+            } catch (IOException e) {
+                // 客户端断开，停止导出
+                logger.warn("流式导出中断: path={}, 已导出={}, 原因: {}", path, writer.getCount(), e.getMessage());
+                return;
+            } catch (Exception e) {
+                logger.error("流式导出失败: path={}, 已导出={}", path, writer.getCount(), e);
+                writer.writeError("导出数据失败: " + e.getMessage());
+            }
+            writer.close();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonNodeWriter.MEDIA_TYPE))
+                .body(body);
+    }
+
+    @Operation(summary = "导出二进制快照", description = "流式输出二进制快照（原始数据、Stat和ACL），可用快照接口上传后离线查看或恢复")
+    @GetMapping(value = "/nodes/export", params = "format=snapshot")
+    public ResponseEntity<StreamingResponseBody> exportSnapshot(@RequestParam String path,
+            @RequestParam(required = false, defaultValue = "true") boolean compress,
+            @RequestParam(required = false) Long clusterId) throws Exception {
+        ZkSession session = session(clusterId);
+        session.validate();
+        StreamingResponseBody body = out -> {
+            SnapshotWriter writer = new SnapshotWriter(out, path, compress);
+            try {
+                long count = zkService.exportSnapshot(session, path, writer);
+                writer.close();
+                logger.info("快照导出完成: path={}, 节点数={}", path, count);
+            } catch (Exception e) {
+                // 不写文件尾，读取方会把结果识别为不完整的快照
+                logger.error("快照导出失败: path={}, 已导出={}", path, writer.getNodeCount(), e);
+                writer.abort();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"snapshot" + SnapshotFormat.FILE_SUFFIX + "\"")
+                .body(body);
+    }
+
     @Operation(summary = "导入节点数据")
     @PostMapping("/nodes/import")
-    public ApiResponse<String> importData(@RequestBody Map<String, String> data) {
+    public ApiResponse<BatchResult> importData(@RequestBody Map<String, String> data,
+            @RequestParam(required = false) Long clusterId) {
         try {
-            zkService.importData(data);
-            return ApiResponse.success("数据导入成功");
+            BatchResult result = zkService.importData(session(clusterId), data);
+            if (!result.isSuccess()) {
+                return ApiResponse.error("导入数据失败: " + result.getError(), result);
+            }
+            return ApiResponse.success("数据导入成功", result);
         } catch (Exception e) {
             return ApiResponse.error("导入数据失败: " + e.getMessage());
         }
     }
 
+    @Operation(summary = "流式导入节点数据", description = "请求体为流式导出的NDJSON，边读取边写入；响应逐行输出进度、失败明细和最终汇总")
+    @PostMapping(value = "/nodes/import", consumes = NdjsonNodeWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> importDataStream(HttpServletRequest request,
+            @RequestParam(required = false) Long clusterId) throws Exception {
+        ZkSession session = session(clusterId);
+        session.validate();
+        InputStream in = request.getInputStream();
+        ObjectWriter lineWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        StreamingResponseBody body = out -> {
+            StreamingImporter.Listener listener = progress -> {
+                lineWriter.writeValue(out, progress);
+                out.write('\n');
+                out.flush();
+            };
+            try (NdjsonNodeReader reader = new NdjsonNodeReader(in)) {
+                listener.onProgress(zkService.importData(session, reader, listener));
+            } catch (Exception e) {
+                logger.error("流式导入失败: clusterId={}", clusterId, e);
+                ImportProgress error = new ImportProgress();
+                error.setStage("error");
+                error.setError("导入数据失败: " + e.getMessage());
+                listener.onProgress(error);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonNodeWriter.MEDIA_TYPE))
+                .body(body);
+    }
+
     @Operation(summary = "添加节点监听器")
     @PostMapping("/nodes/watch")
-    public ApiResponse<String> addNodeListener(@RequestParam String path) {
+    public ApiResponse<String> addNodeListener(@RequestParam String path,
+            @RequestParam(required = false) Long clusterId) {
         try {
-            zkService.addListener(path, (watchedPath, event) -> 
-                System.out.println("Node event: " + event + " on path: " + watchedPath));
+            // 事件只记录日志，需要推送给前端时使用/nodes/events订阅
+            zkService.addListener(session(clusterId), path, (watchedPath, event) ->
+                    logger.info("节点事件: event={}, path={}", event, watchedPath));
             return ApiResponse.success("监听器添加成功");
         } catch (Exception e) {
             return ApiResponse.error("添加监听器失败: " + e.getMessage());
         }
     }
 
+    @Operation(summary = "订阅节点变更事件（SSE）", description = "推送path及其所有子孙节点的变更，同一节点的连续变更在合并窗口内只推送一次")
+    @GetMapping(value = "/nodes/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNodeEvents(
+            @RequestParam(required = false, defaultValue = "/") String path,
+            @RequestParam(required = false) Long clusterId) throws Exception {
+        try {
+            return eventService.subscribe(session(clusterId), path);
+        } catch (Exception e) {
+            logger.error("订阅节点事件失败: path={}, clusterId={}", path, clusterId, e);
+            throw e;
+        }
+    }
+
     @Operation(summary = "移除节点监听器")
     @DeleteMapping("/nodes/watch")
-    public ApiResponse<String> removeNodeListener(@RequestParam String path) {
+    public ApiResponse<String> removeNodeListener(@RequestParam String path,
+            @RequestParam(required = false) Long clusterId) {
         try {
-            zkService.removeListener(path);
+            zkService.removeListener(session(clusterId), path);
             return ApiResponse.success("监听器移除成功");
         } catch (Exception e) {
             return ApiResponse.error("移除监听器失败: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "查看集群会话")
+    @GetMapping("/sessions")
+    public ApiResponse<List<SessionInfo>> listSessions() {
+        List<SessionInfo> sessions = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (ZkSession session : sessionRegistry.getSessions()) {
+            SessionInfo info = new SessionInfo();
+            info.setKey(session.getKey());
+            info.setClusterId(session.getClusterId());
+            info.setAddress(session.getAddress());
+            info.setState(session.getState().name());
+            info.setSessionId(Long.toHexString(session.getSessionId()));
+            info.setCreateTime(session.getCreateTime());
+            info.setIdleMs(now - session.getLastAccessTime());
+            sessions.add(info);
+        }
+        return ApiResponse.success(sessions);
+    }
+
+    @Operation(summary = "关闭集群会话")
+    @DeleteMapping("/sessions")
+    public ApiResponse<String> closeSession(@RequestParam String key) {
+        sessionRegistry.closeSession(key);
+        return ApiResponse.success("会话已关闭");
+    }
+
+    private ZkSession session(Long clusterId) throws Exception {
+        return sessionRegistry.resolve(clusterId, null);
+    }
+}
@@ -0,0 +1,149 @@
+package com.mytool.zktool;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.apache.zookeeper.KeeperException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// ZooKeeper客户端和HTTP请求的监控指标，通过/actuator/prometheus暴露：
+//   zk.client.requests        每种ZooKeeper操作的耗时直方图，按返回码区分
+//   zk.client.inflight        已发出尚未返回的异步请求数
+//   zk.client.watches         注册的Watch数，按类型区分
+//   zktool.http.zk.rpcs       单个HTTP请求发出的ZooKeeper请求数
+//   zktool.http.inflight      正在处理的HTTP请求数
+//   zktool.cache.requests     各缓存的命中和未命中次数
+// HTTP请求的计数器放在线程变量中，异步回调执行期间会切换到发出请求时的计数器，遍历等回调链发出的请求也计入原HTTP请求。
+// StreamingResponseBody在MVC异步线程池中执行，由propagate包装的任务沿用提交时的计数器，请求在异步处理结束后汇总。
+@Component
+public class ZkMetrics {
+    private static final String REQUESTS = "zk.client.requests";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+    private final ThreadLocal<AtomicInteger> requestRpcs = new ThreadLocal<>();
+    private final AtomicInteger zkInFlight = new AtomicInteger();
+    private final AtomicInteger httpInFlight = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("zk.client.inflight", zkInFlight, AtomicInteger::get)
+                .description("已发出尚未返回的ZooKeeper异步请求数")
+                .register(registry);
+        Gauge.builder("zktool.http.inflight", httpInFlight, AtomicInteger::get)
+                .description("正在处理的HTTP请求数")
+                .register(registry);
+    }
+
+    // 发出一个ZooKeeper请求，返回开始时间供record使用
+    long start(boolean async) {
+        AtomicInteger rpcs = requestRpcs.get();
+        if (rpcs != null) {
+            rpcs.incrementAndGet();
+        }
+        if (async) {
+            zkInFlight.incrementAndGet();
+        }
+        return System.nanoTime();
+    }
+
+    void record(String op, long startNanos, int rc, boolean async) {
+        if (async) {
+            zkInFlight.decrementAndGet();
+        }
+        String result = rc == 0 ? "OK" : KeeperException.Code.get(rc) != null ? KeeperException.Code.get(rc).name() : String.valueOf(rc);
+        timers.computeIfAbsent(op + "|" + result, k -> Timer.builder(REQUESTS)
+                        .description("ZooKeeper请求耗时")
+                        .tag("op", op)
+                        .tag("result", result)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void watchRegistered(String type) {
+        count("zk.client.watches", "type", type);
+    }
+
+    public void cacheAccess(String cache, boolean hit) {
+        counters.computeIfAbsent("cache|" + cache + "|" + hit, k -> Counter.builder("zktool.cache.requests")
+                        .description("缓存访问次数")
+                        .tag("cache", cache)
+                        .tag("result", hit ? "hit" : "miss")
+                        .register(registry))
+                .increment();
+    }
+
+    // 当前线程对应的HTTP请求计数器，异步回调用它恢复发出请求时的上下文
+    AtomicInteger currentRequest() {
+        return requestRpcs.get();
+    }
+
+    AtomicInteger switchRequest(AtomicInteger rpcs) {
+        AtomicInteger previous = requestRpcs.get();
+        if (rpcs != null) {
+            requestRpcs.set(rpcs);
+        } else {
+            requestRpcs.remove();
+        }
+        return previous;
+    }
+
+    // 包装在其他线程中执行的任务，执行期间沿用提交时的HTTP请求计数器
+    public Runnable propagate(Runnable task) {
+        AtomicInteger rpcs = requestRpcs.get();
+        if (rpcs == null) {
+            return task;
+        }
+        return () -> {
+            AtomicInteger previous = switchRequest(rpcs);
+            try {
+                task.run();
+            } finally {
+                switchRequest(previous);
+            }
+        };
+    }
+
+    // 请求转为异步处理后，请求线程不再属于该请求
+    public void detachRequest() {
+        requestRpcs.remove();
+    }
+
+    public AtomicInteger beginRequest() {
+        httpInFlight.incrementAndGet();
+        AtomicInteger rpcs = new AtomicInteger();
+        requestRpcs.set(rpcs);
+        return rpcs;
+    }
+
+    public void endRequest(AtomicInteger rpcs, String method, String uri) {
+        requestRpcs.remove();
+        httpInFlight.decrementAndGet();
+        summaries.computeIfAbsent(method + " " + uri, k -> DistributionSummary.builder("zktool.http.zk.rpcs")
+                        .description("单个HTTP请求发出的ZooKeeper请求数")
+                        .tag("method", method)
+                        .tag("uri", uri)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(rpcs.get());
+    }
+
+    private void count(String name, String tag, String value) {
+        counters.computeIfAbsent(name + "|" + value, k -> Counter.builder(name).tag(tag, value).register(registry))
+                .increment();
+    }
+}
@@ -1,95 +1,488 @@
 package com.mytool.zktool;
 
+import com.mytool.zktool.dto.BatchOperationRequest;
+import com.mytool.zktool.dto.BatchResult;
+import com.mytool.zktool.dto.ImportProgress;
+import com.mytool.zktool.dto.NodeQuery;
 import org.apache.zookeeper.*;
 import org.apache.zookeeper.data.ACL;
 import org.apache.zookeeper.data.Stat;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 @Service
 public class ZkService {
-    private ZooKeeper zooKeeper;
-    private final CountDownLatch connectedSignal = new CountDownLatch(1);
-    private String currentCluster;
-    private final Map<String, Set<ZkNodeListener>> pathListeners = new ConcurrentHashMap<>();
-    private final Map<String, byte[]> dataCache = new ConcurrentHashMap<>();
     private static final Logger logger = LoggerFactory.getLogger(ZkService.class);
+    private static final int DELETE_MAX_ATTEMPTS = 3;
 
-    public void connect(String address) throws IOException, InterruptedException {
-        logger.info("开始连接ZooKeeper集群: {}", address);
-        try {
-            if (zooKeeper != null && zooKeeper.getState().isAlive()) {
-                logger.info("关闭已存在的连接");
-                close();
+    @Autowired
+    private ZkSessionRegistry sessionRegistry;
+
+    @Autowired
+    private TreeMirrorService mirrorService;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired(required = false)
+    private ZkMetrics metrics;
+
+    @Value("${zktool.traversal.max-in-flight:500}")
+    private int traversalMaxInFlight = AsyncTreeWalker.DEFAULT_MAX_IN_FLIGHT;
+
+    @Value("${zktool.traversal.timeout-ms:30000}")
+    private long traversalTimeoutMs = AsyncPipeline.DEFAULT_TIMEOUT_MS;
+
+    @Value("${zktool.batch.max-chunk-bytes:524288}")
+    private int batchMaxChunkBytes = MultiBatchExecutor.DEFAULT_MAX_CHUNK_BYTES;
+
+    @Value("${zktool.batch.max-chunk-ops:1000}")
+    private int batchMaxChunkOps = MultiBatchExecutor.DEFAULT_MAX_CHUNK_OPS;
+
+    @Value("${zktool.import.max-in-flight:1000}")
+    private int importMaxInFlight = 1000;
+
+    @Value("${zktool.import.progress-interval-ms:1000}")
+    private long importProgressIntervalMs = 1000;
+
+    @PostConstruct
+    public void init() {
+        sessionRegistry.addEventHandler(this::handleWatchedEvent);
+    }
+
+    // 节点基础操作
+    public NodeInfo getNode(ZkSession session, String path) throws KeeperException, InterruptedException {
+        return getNode(session, path, NodeQuery.fullTree());
+    }
+
+    // 按层级懒加载节点，子节点支持游标分页
+    public NodeInfo getNode(ZkSession session, String path, NodeQuery query) throws KeeperException, InterruptedException {
+        return loadNode(session, path, query, null).getNode();
+    }
+
+    // 查询节点并同时给出结果的版本（用作HTTP ETag），版本由构建时读到的同一批缓存条目计算，不额外发出请求；
+    // 对同一状态与getNodeVersion的结果相同。完整子树没有版本，为null
+    public VersionedNode getVersionedNode(ZkSession session, String path, NodeQuery query)
+            throws KeeperException, InterruptedException {
+        return loadNode(session, path, query, newVersionDigest(query));
+    }
+
+    private VersionedNode loadNode(ZkSession session, String path, NodeQuery query, MessageDigest digest)
+            throws KeeperException, InterruptedException {
+        session.validate();
+        TreeMirror mirror = mirrorService.find(session, path);
+        if (mirror != null) {
+            // 先取镜像版本再构建，版本不会比返回的内容新
+            if (digest != null) {
+                updateMirrorVersion(digest, mirror);
             }
+            NodeInfo node = buildFromMirror(session, mirror, path, query, 0, digest);
+            if (node == null) {
+                throw new KeeperException.NoNodeException(path);
+            }
+            return new VersionedNode(node, digest != null ? MerkleTree.toHex(digest.digest()).substring(0, 32) : null);
+        }
+        if (query.getDepth() < 0 && query.getLimit() <= 0) {
+            return new VersionedNode(fetchTree(session.getZooKeeper(), path, query), null);
+        }
+        NodeCache.Entry entry = readNodes(session, List.of(path), query.includes(NodeQuery.FIELD_DATA)).get(path);
+        if (entry == null) {
+            throw new KeeperException.NoNodeException(path);
+        }
+        NodeInfo node = buildNode(session, path, entry, query, 0, digest);
+        return new VersionedNode(node, digest != null ? MerkleTree.toHex(digest.digest()).substring(0, 32) : null);
+    }
+
+    public static final class VersionedNode {
+        private final NodeInfo node;
+        private final String version;
+
+        VersionedNode(NodeInfo node, String version) {
+            this.node = node;
+            this.version = version;
+        }
 
-            CountDownLatch connectionLatch = new CountDownLatch(1);
-            this.zooKeeper = new ZooKeeper(address, 30000, event -> {
-                if (event.getState() == Watcher.Event.KeeperState.SyncConnected) {
-                    logger.info("ZooKeeper连接已建立");
-                    connectionLatch.countDown();
-                } else if (event.getState() == Watcher.Event.KeeperState.Expired) {
-                    logger.warn("ZooKeeper会话已过期");
-                } else if (event.getState() == Watcher.Event.KeeperState.Disconnected) {
-                    logger.warn("ZooKeeper连接已断开");
+        public NodeInfo getNode() {
+            return node;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+    }
+
+    // 读取节点的原始数据，数据和Stat来自同一次读取；返回的数组与节点缓存共享，调用方不能修改
+    NodeCache.Entry getNodeValue(ZkSession session, String path) throws KeeperException, InterruptedException {
+        session.validate();
+        NodeCache.Entry entry = readNodes(session, List.of(path), true).get(path);
+        if (entry == null) {
+            throw new KeeperException.NoNodeException(path);
+        }
+        return entry;
+    }
+
+    // 节点查询结果的当前版本，用于校验If-None-Match，内容变化时版本一定变化；完整子树没有低成本的版本，返回null。
+    // 镜像提供的结果使用镜像版本，不发出请求；否则用一次exists确认节点本身未变，
+    // 其余节点的Stat取自由Watch失效的缓存，不构建NodeInfo也不序列化
+    public String getNodeVersion(ZkSession session, String path, NodeQuery query) throws KeeperException, InterruptedException {
+        session.validate();
+        MessageDigest digest = newVersionDigest(query);
+        TreeMirror mirror = mirrorService.find(session, path);
+        if (mirror != null) {
+            if (mirror.get(path) == null) {
+                throw new KeeperException.NoNodeException(path);
+            }
+            updateMirrorVersion(digest, mirror);
+            if (query.includes(NodeQuery.FIELD_ACLS)) {
+                // 镜像中没有ACL，返回ACL的节点流水线读取实时aversion，顺序与buildFromMirror一致
+                List<String> aclPaths = new ArrayList<>();
+                collectMirrorAclPaths(mirror, path, query, 0, aclPaths);
+                Map<String, Stat> aclStats = statNodes(session.getZooKeeper(), aclPaths);
+                for (String aclPath : aclPaths) {
+                    updateAclVersion(digest, aclStats.get(aclPath));
                 }
-                handleWatchedEvent(event);
-            });
+            }
+            return MerkleTree.toHex(digest.digest()).substring(0, 32);
+        }
+        if (query.getDepth() < 0 && query.getLimit() <= 0) {
+            return null;
+        }
+        Stat stat = session.getZooKeeper().exists(path, false);
+        if (stat == null) {
+            throw new KeeperException.NoNodeException(path);
+        }
+        NodeCache cache = session.getNodeCache();
+        NodeCache.Entry cached = cache.get(path, false);
+        if (cached != null && !sameVersion(cached.getStat(), stat)) {
+            // Watch事件尚未到达，丢弃缓存后重新读取
+            cache.invalidate(path);
+        }
+        NodeCache.Entry entry = readNodes(session, List.of(path), query.includes(NodeQuery.FIELD_DATA)).get(path);
+        if (entry == null) {
+            throw new KeeperException.NoNodeException(path);
+        }
+        // 根节点的ACL版本取自exists的结果
+        versionNode(session, path, entry, stat, query, 0, digest);
+        return MerkleTree.toHex(digest.digest()).substring(0, 32);
+    }
 
-            logger.info("等待ZooKeeper连接建立...");
-            if (!connectionLatch.await(5, TimeUnit.SECONDS)) {
-                throw new IOException("连接ZooKeeper超时");
+    private static void updateMirrorVersion(MessageDigest digest, TreeMirror mirror) {
+        digest.update(("mirror:" + mirror.getLoadedTime() + ":" + mirror.getVersion()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 按buildFromMirror的层级、分页和顺序列出返回ACL的节点（展开的节点，不含边界层）
+    private void collectMirrorAclPaths(TreeMirror mirror, String path, NodeQuery query, int level, List<String> paths) {
+        TreeMirror.MirrorNode mirrorNode = mirror.get(path);
+        if (mirrorNode == null) {
+            return;
+        }
+        paths.add(path);
+        if (!query.expands(level) || !query.expands(level + 1)) {
+            return;
+        }
+        for (String child : pageChildren(new NodeInfo(), new ArrayList<>(mirrorNode.getChildren()), query, level)) {
+            collectMirrorAclPaths(mirror, AsyncTreeWalker.childPath(path, child), query, level + 1, paths);
+        }
+    }
+
+    // 与buildNode按相同的层级、分页和顺序遍历，只累加各节点的版本；
+    // 返回ACL的节点由aclStat提供实时的aversion，与buildNode中getACL返回的Stat对应
+    private void versionNode(ZkSession session, String path, NodeCache.Entry entry, Stat aclStat, NodeQuery query,
+                             int level, MessageDigest digest) throws KeeperException, InterruptedException {
+        updateVersion(digest, path, entry.getStat());
+        if (query.includes(NodeQuery.FIELD_ACLS)) {
+            updateAclVersion(digest, aclStat);
+        }
+        if (!query.expands(level)) {
+            return;
+        }
+        List<String> childPaths = new ArrayList<>();
+        for (String child : pageChildren(new NodeInfo(), new ArrayList<>(entry.getChildren()), query, level)) {
+            childPaths.add(AsyncTreeWalker.childPath(path, child));
+        }
+        boolean expandChildren = query.expands(level + 1);
+        Map<String, NodeCache.Entry> entries = readNodes(session, childPaths,
+                expandChildren && query.includes(NodeQuery.FIELD_DATA));
+        // 展开的子节点会返回ACL，ACL变化不触发Watch，缓存中的aversion可能已过期，逐层流水线读取实时Stat
+        Map<String, Stat> aclStats = expandChildren && query.includes(NodeQuery.FIELD_ACLS)
+                ? statNodes(session.getZooKeeper(), childPaths) : Map.of();
+        for (String childPath : childPaths) {
+            NodeCache.Entry childEntry = entries.get(childPath);
+            if (childEntry == null) {
+                continue;
+            }
+            if (expandChildren) {
+                versionNode(session, childPath, childEntry, aclStats.get(childPath), query, level + 1, digest);
+            } else {
+                updateVersion(digest, childPath, childEntry.getStat());
             }
+        }
+    }
 
-            // 验证连接
-            try {
-                zooKeeper.exists("/", false);
-                this.currentCluster = address;
-                logger.info("成功连接到ZooKeeper集群");
-            } catch (KeeperException e) {
-                throw new IOException("连接验证失败: " + e.getMessage());
+    private static MessageDigest newVersionDigest(NodeQuery query) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update((query.getDepth() + ":" + query.getOffset() + ":" + query.getLimit() + ":" + query.getAfter()
+                + ":" + query.getFields()).getBytes(StandardCharsets.UTF_8));
+        return digest;
+    }
+
+    // 数据变化改变mzxid，子节点增删改变pzxid，删除后重建改变czxid，ACL变化只改变aversion
+    private static void updateVersion(MessageDigest digest, String path, Stat stat) {
+        digest.update(path.getBytes(StandardCharsets.UTF_8));
+        digest.update(ByteBuffer.allocate(28).putLong(stat.getCzxid()).putLong(stat.getMzxid())
+                .putLong(stat.getPzxid()).putInt(stat.getAversion()).array());
+    }
+
+    // 节点在读取ACL前被删除时没有实时Stat，buildNode此时整体失败，版本只需保持确定
+    private static void updateAclVersion(MessageDigest digest, Stat aclStat) {
+        digest.update(ByteBuffer.allocate(4).putInt(aclStat != null ? aclStat.getAversion() : -1).array());
+    }
+
+    // 不注册Watch的流水线exists，不存在的节点不在结果中
+    private Map<String, Stat> statNodes(ZooKeeper zooKeeper, List<String> paths) throws KeeperException, InterruptedException {
+        Map<String, Stat> result = new HashMap<>();
+        for (NodeRecord record : newFetcher(zooKeeper).fetch(paths, false, false).values()) {
+            result.put(record.getPath(), record.getStat());
+        }
+        return result;
+    }
+
+    private static boolean sameVersion(Stat cached, Stat current) {
+        return cached.getMzxid() == current.getMzxid() && cached.getPzxid() == current.getPzxid()
+                && cached.getCzxid() == current.getCzxid() && cached.getAversion() == current.getAversion();
+    }
+
+    // 完整子树通过异步遍历引擎流水线拉取
+    private NodeInfo fetchTree(ZooKeeper zooKeeper, String path, NodeQuery query) throws KeeperException, InterruptedException {
+        Map<String, NodeInfo> nodes = new HashMap<>();
+        AsyncTreeWalker walker = newWalker(zooKeeper)
+                .withData(query.includes(NodeQuery.FIELD_DATA))
+                .withAcl(query.includes(NodeQuery.FIELD_ACLS));
+        walker.walk(path, visited -> {
+            NodeInfo node = toNodeInfo(visited.getPath(), visited.getData(), visited.getAcls(), visited.getStat(), query);
+            node.setNumChildren(visited.getChildren().size());
+            node.setChildren(new ArrayList<>(visited.getChildren().size()));
+            nodes.put(node.getPath(), node);
+            NodeInfo parent = nodes.get(getParentPath(node.getPath()));
+            if (parent != null && !node.getPath().equals(path)) {
+                parent.getChildren().add(node);
             }
-        } catch (Exception e) {
-            logger.error("连接ZooKeeper失败: {}", e.getMessage(), e);
-            if (zooKeeper != null) {
-                try {
-                    zooKeeper.close();
-                } catch (InterruptedException ie) {
-                    logger.warn("关闭失败的连接时出错", ie);
+        });
+        for (NodeInfo node : nodes.values()) {
+            node.getChildren().sort(Comparator.comparing(NodeInfo::getName));
+        }
+        return nodes.get(path);
+    }
+
+    // digest不为null时按versionNode的顺序累加各节点的版本
+    private NodeInfo buildNode(ZkSession session, String path, NodeCache.Entry entry, NodeQuery query, int level,
+                               MessageDigest digest) throws KeeperException, InterruptedException {
+        // ACL变化不触发Watch，不缓存
+        Stat aclStat = new Stat();
+        List<ACL> acls = query.includes(NodeQuery.FIELD_ACLS) ? session.getZooKeeper().getACL(path, aclStat) : null;
+        NodeInfo node = toNodeInfo(path, entry.getData(), acls, entry.getStat(), query);
+        if (digest != null) {
+            updateVersion(digest, path, entry.getStat());
+            if (acls != null) {
+                updateAclVersion(digest, aclStat);
+            }
+        }
+
+        if (!query.expands(level)) {
+            // 超出展开层数，只保留子节点数量
+            return node;
+        }
+
+        List<String> children = new ArrayList<>(entry.getChildren());
+        node.setNumChildren(children.size());
+        List<String> childPaths = new ArrayList<>();
+        for (String child : pageChildren(node, children, query, level)) {
+            childPaths.add(AsyncTreeWalker.childPath(path, child));
+        }
+        // 边界层节点只返回Stat，不拉取数据和ACL
+        boolean expandChildren = query.expands(level + 1);
+        Map<String, NodeCache.Entry> entries = readNodes(session, childPaths,
+                expandChildren && query.includes(NodeQuery.FIELD_DATA));
+
+        List<NodeInfo> childNodes = new ArrayList<>(childPaths.size());
+        for (String childPath : childPaths) {
+            NodeCache.Entry childEntry = entries.get(childPath);
+            if (childEntry == null) {
+                // 子节点在遍历过程中被删除
+                logger.debug("节点已被删除，跳过: {}", childPath);
+                continue;
+            }
+            if (expandChildren) {
+                childNodes.add(buildNode(session, childPath, childEntry, query, level + 1, digest));
+            } else {
+                childNodes.add(toStubNode(childPath, childEntry.getStat(), query));
+                if (digest != null) {
+                    updateVersion(digest, childPath, childEntry.getStat());
+                }
+            }
+        }
+        node.setChildren(childNodes);
+        return node;
+    }
+
+    // 读取一组节点，不存在的节点不在结果中。命中缓存的直接返回，其余通过异步流水线读取：
+    // 每个节点同时发出getData（不需要数据时为exists）和getChildren，注册数据Watch和子节点Watch后放入缓存。
+    // 包内可见，变更日志用它读取变更节点的当前状态
+    Map<String, NodeCache.Entry> readNodes(ZkSession session, List<String> paths, boolean withData)
+            throws KeeperException, InterruptedException {
+        NodeCache cache = session.getNodeCache();
+        Map<String, NodeCache.Entry> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String path : paths) {
+            NodeCache.Entry entry = cache.get(path, withData);
+            if (metrics != null) {
+                metrics.cacheAccess("data", entry != null);
+            }
+            if (entry != null) {
+                result.put(path, entry);
+            } else {
+                missing.add(path);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        ZooKeeper zooKeeper = session.getZooKeeper();
+        Map<String, NodeCache.Entry> loaded = new ConcurrentHashMap<>();
+        AsyncPipeline pipeline = new AsyncPipeline(traversalMaxInFlight, traversalTimeoutMs);
+        for (String path : missing) {
+            pipeline.submit();
+            NodeLoad load = new NodeLoad();
+            NodeCache.Load token = cache.beginLoad(path);
+            Runnable complete = () -> {
+                if (load.remaining.decrementAndGet() > 0) {
+                    return;
                 }
-                zooKeeper = null;
+                NodeCache.Entry entry = null;
+                if (load.rc == KeeperException.Code.OK.intValue()) {
+                    List<String> children = new ArrayList<>(load.children);
+                    Collections.sort(children);
+                    entry = new NodeCache.Entry(load.data, withData,
+                            load.dataStat != null ? load.dataStat : load.childrenStat,
+                            Collections.unmodifiableList(children));
+                    loaded.put(path, entry);
+                } else if (load.rc != KeeperException.Code.NONODE.intValue()) {
+                    pipeline.fail(load.rc, path);
+                }
+                // 不存在的节点和读取期间已失效的结果不缓存，其注册的Watch随之移除
+                cache.complete(token, entry);
+                pipeline.complete();
+            };
+            if (withData) {
+                zooKeeper.getData(path, true, (rc, p, ctx, data, stat) -> {
+                    load.fail(rc);
+                    load.data = data;
+                    load.dataStat = stat;
+                    complete.run();
+                }, null);
+            } else {
+                zooKeeper.exists(path, true, (rc, p, ctx, stat) -> {
+                    // 节点不存在时exists同样注册了Watch，但不缓存不存在的节点
+                    load.fail(rc == KeeperException.Code.OK.intValue() && stat == null
+                            ? KeeperException.Code.NONODE.intValue() : rc);
+                    complete.run();
+                }, null);
             }
-            throw new IOException("无法连接到ZooKeeper: " + e.getMessage());
+            zooKeeper.getChildren(path, true, (rc, p, ctx, children, stat) -> {
+                load.fail(rc);
+                load.children = children;
+                load.childrenStat = stat;
+                complete.run();
+            }, null);
         }
+        pipeline.await();
+        result.putAll(loaded);
+        return result;
     }
 
-    public void close() throws InterruptedException {
-        if (zooKeeper != null) {
-            zooKeeper.close();
+    // 同一节点的数据和子节点两个异步请求的结果，两个回调都在ZooKeeper事件线程中依次执行
+    private static class NodeLoad {
+        final AtomicInteger remaining = new AtomicInteger(2);
+        volatile int rc = KeeperException.Code.OK.intValue();
+        volatile byte[] data;
+        volatile Stat dataStat;
+        volatile List<String> children;
+        volatile Stat childrenStat;
+
+        void fail(int code) {
+            if (code != KeeperException.Code.OK.intValue() && rc == KeeperException.Code.OK.intValue()) {
+                rc = code;
+            }
         }
-        pathListeners.clear();
-        dataCache.clear();
     }
 
-    // 节点基础操作
-    public NodeInfo getNode(String path) throws KeeperException, InterruptedException {
-        validateConnection();
-        Stat stat = new Stat();
-        byte[] data = zooKeeper.getData(path, true, stat);
-        List<String> children = zooKeeper.getChildren(path, true);
-        List<ACL> acls = zooKeeper.getACL(path, stat);
+    // 由内存镜像构建节点，层级和分页语义与buildNode一致。镜像中不含ACL（ACL变化也不触发Watch），
+    // 需要ACL时与buildNode一样为展开的节点读取实时ACL；digest不为null时按collectMirrorAclPaths的顺序累加aversion
+    private NodeInfo buildFromMirror(ZkSession session, TreeMirror mirror, String path, NodeQuery query, int level,
+                                     MessageDigest digest) throws KeeperException, InterruptedException {
+        TreeMirror.MirrorNode mirrorNode = mirror.get(path);
+        if (mirrorNode == null) {
+            return null;
+        }
+        Stat aclStat = new Stat();
+        List<ACL> acls = query.includes(NodeQuery.FIELD_ACLS) ? session.getZooKeeper().getACL(path, aclStat) : null;
+        if (digest != null && acls != null) {
+            updateAclVersion(digest, aclStat);
+        }
+        // 子节点数以镜像中的子节点集合为准，Stat中的numChildren依赖父节点Stat的异步刷新
+        List<String> children = new ArrayList<>(mirrorNode.getChildren());
+        NodeInfo node = toNodeInfo(path, mirrorNode.getData(), acls, mirrorNode.getStat(), query);
+        node.setNumChildren(children.size());
+        if (!query.expands(level)) {
+            return node;
+        }
 
+        List<NodeInfo> childNodes = new ArrayList<>();
+        for (String child : pageChildren(node, children, query, level)) {
+            String childPath = AsyncTreeWalker.childPath(path, child);
+            NodeInfo childNode;
+            if (query.expands(level + 1)) {
+                childNode = buildFromMirror(session, mirror, childPath, query, level + 1, digest);
+            } else {
+                TreeMirror.MirrorNode stub = mirror.get(childPath);
+                childNode = stub != null ? toStubNode(childPath, stub.getStat(), query) : null;
+                if (childNode != null) {
+                    childNode.setNumChildren(stub.getChildren().size());
+                }
+            }
+            if (childNode != null) {
+                childNodes.add(childNode);
+            }
+        }
+        node.setChildren(childNodes);
+        return node;
+    }
+
+    static NodeInfo toNodeInfo(String path, byte[] data, List<ACL> acls, Stat stat) {
         NodeInfo node = new NodeInfo();
         node.setPath(path);
         node.setName(getNodeName(path));
@@ -102,125 +495,446 @@ public class ZkService {
         node.setStatus("connected");
         node.setExpanded(false);
         node.setSelected(false);
-        node.setIsLeaf(children.isEmpty());
+        node.setNumChildren(stat.getNumChildren());
+        return node;
+    }
 
-        if (!children.isEmpty()) {
-            List<NodeInfo> childNodes = new ArrayList<>();
-            for (String child : children) {
-                String childPath = path.equals("/") ? "/" + child : path + "/" + child;
-                childNodes.add(getNode(childPath));
-            }
-            node.setChildren(childNodes);
-        } else {
-            node.setChildren(new ArrayList<>());
+    // 按字段投影构建节点，未指定字段时与toNodeInfo相同；投影结果不含时间、状态等派生字段
+    private static NodeInfo toNodeInfo(String path, byte[] data, List<ACL> acls, Stat stat, NodeQuery query) {
+        if (query.getFields() == null) {
+            return toNodeInfo(path, data, acls, stat);
+        }
+        NodeInfo node = new NodeInfo();
+        node.setPath(path);
+        node.setName(getNodeName(path));
+        if (query.includes(NodeQuery.FIELD_DATA) && data != null) {
+            node.setData(new String(data, StandardCharsets.UTF_8));
+        }
+        if (query.includes(NodeQuery.FIELD_ACLS)) {
+            node.setAcls(acls);
+        }
+        if (query.includes(NodeQuery.FIELD_STAT)) {
+            node.setStat(stat);
         }
+        node.setNumChildren(stat.getNumChildren());
+        return node;
+    }
 
+    private NodeInfo toStubNode(String path, Stat stat, NodeQuery query) {
+        if (query.getFields() != null) {
+            return toNodeInfo(path, null, null, stat, query);
+        }
+        NodeInfo node = new NodeInfo();
+        node.setPath(path);
+        node.setName(getNodeName(path));
+        node.setStat(stat);
+        node.setVersion(String.valueOf(stat.getVersion()));
+        node.setStatus("connected");
+        node.setNumChildren(stat.getNumChildren());
         return node;
     }
 
-    public void createNode(String path, String data, CreateMode mode) throws KeeperException, InterruptedException {
-        validateConnection();
+    // 对子节点排序后按游标/偏移量截取一页，只有请求的根节点使用游标和偏移量
+    private List<String> pageChildren(NodeInfo node, List<String> children, NodeQuery query, int level) {
+        Collections.sort(children);
+        int from = 0;
+        if (level == 0) {
+            if (query.getAfter() != null && !query.getAfter().isEmpty()) {
+                int index = Collections.binarySearch(children, query.getAfter());
+                from = index >= 0 ? index + 1 : -index - 1;
+            }
+            from = Math.min(children.size(), from + Math.max(0, query.getOffset()));
+        }
+        int to = query.getLimit() > 0 ? Math.min(children.size(), from + query.getLimit()) : children.size();
+        List<String> page = children.subList(from, to);
+        if (to < children.size()) {
+            node.setHasMore(true);
+            node.setNextCursor(page.isEmpty() ? query.getAfter() : page.get(page.size() - 1));
+        }
+        return page;
+    }
+
+    public void createNode(ZkSession session, String path, String data, CreateMode mode) throws KeeperException, InterruptedException {
+        session.validate();
+        ZooKeeper zooKeeper = session.getZooKeeper();
         byte[] bytes = data != null ? data.getBytes(StandardCharsets.UTF_8) : new byte[0];
-        zooKeeper.create(path, bytes, ZooDefs.Ids.OPEN_ACL_UNSAFE, mode);
-        notifyListeners(path, NodeEvent.CREATED);
+        long start = System.currentTimeMillis();
+        try {
+            zooKeeper.create(path, bytes, ZooDefs.Ids.OPEN_ACL_UNSAFE, mode);
+        } catch (KeeperException e) {
+            audit(session, "CREATE", path, null, null, bytes, start, e);
+            throw e;
+        } finally {
+            // 失败时缓存也可能已过期（如节点已被他人创建）
+            session.getNodeCache().invalidateWrite(path);
+        }
+        audit(session, "CREATE", path, null, 0, bytes, start, null);
+        notifyListeners(session, path, NodeEvent.CREATED);
     }
 
-    public void updateNode(String path, String data, int version) throws KeeperException, InterruptedException {
-        validateConnection();
+    public void updateNode(ZkSession session, String path, String data, int version) throws KeeperException, InterruptedException {
+        session.validate();
+        ZooKeeper zooKeeper = session.getZooKeeper();
         byte[] bytes = data != null ? data.getBytes(StandardCharsets.UTF_8) : new byte[0];
-        zooKeeper.setData(path, bytes, version);
-        notifyListeners(path, NodeEvent.UPDATED);
+        long start = System.currentTimeMillis();
+        Stat stat;
+        try {
+            stat = zooKeeper.setData(path, bytes, version);
+        } catch (KeeperException e) {
+            audit(session, "UPDATE", path, version >= 0 ? version : null, null, bytes, start, e);
+            throw e;
+        } finally {
+            session.getNodeCache().invalidateWrite(path);
+        }
+        // setData成功后版本号加一，未指定版本时据此推算旧版本
+        Integer newVersion = stat != null ? stat.getVersion() : null;
+        Integer oldVersion = version >= 0 ? Integer.valueOf(version) : newVersion != null ? newVersion - 1 : null;
+        audit(session, "UPDATE", path, oldVersion, newVersion, bytes, start, null);
+        notifyListeners(session, path, NodeEvent.UPDATED);
     }
 
-    public void deleteNode(String path, int version) throws KeeperException, InterruptedException {
-        validateConnection();
-        zooKeeper.delete(path, version);
-        notifyListeners(path, NodeEvent.DELETED);
+    public void deleteNode(ZkSession session, String path, int version) throws KeeperException, InterruptedException {
+        session.validate();
+        ZooKeeper zooKeeper = session.getZooKeeper();
+        long start = System.currentTimeMillis();
+        try {
+            zooKeeper.delete(path, version);
+        } catch (KeeperException e) {
+            audit(session, "DELETE", path, version >= 0 ? version : null, null, null, start, e);
+            throw e;
+        } finally {
+            session.getNodeCache().invalidateWrite(path);
+        }
+        audit(session, "DELETE", path, version >= 0 ? version : null, null, null, start, null);
+        notifyListeners(session, path, NodeEvent.DELETED);
     }
 
     // 批量操作
-    public void batchCreate(List<NodeInfo> nodes) throws KeeperException, InterruptedException {
-        validateConnection();
+    public BatchResult batchCreate(ZkSession session, List<NodeInfo> nodes) throws KeeperException, InterruptedException {
+        List<BatchOperationRequest.BatchNode> batchNodes = new ArrayList<>(nodes.size());
         for (NodeInfo node : nodes) {
-            createNode(node.getPath(), node.getData(), CreateMode.PERSISTENT);
+            BatchOperationRequest.BatchNode batchNode = new BatchOperationRequest.BatchNode();
+            batchNode.setPath(node.getPath());
+            batchNode.setData(node.getData());
+            batchNodes.add(batchNode);
         }
+        return executeBatch(session, "CREATE", batchNodes, null, false);
     }
 
-    public void batchDelete(List<String> paths) throws KeeperException, InterruptedException {
-        validateConnection();
-        // 按路径长度降序排序，确保先删除子节点
-        paths.sort((a, b) -> b.length() - a.length());
+    public BatchResult batchDelete(ZkSession session, List<String> paths) throws KeeperException, InterruptedException {
+        List<BatchOperationRequest.BatchNode> batchNodes = new ArrayList<>(paths.size());
         for (String path : paths) {
-            Stat stat = zooKeeper.exists(path, false);
-            if (stat != null) {
-                deleteNode(path, stat.getVersion());
+            BatchOperationRequest.BatchNode batchNode = new BatchOperationRequest.BatchNode();
+            batchNode.setPath(path);
+            batchNodes.add(batchNode);
+        }
+        return executeBatch(session, "DELETE", batchNodes, null, false);
+    }
+
+    // 递归删除path及其全部子孙节点：只按Stat列出子树，子节点先于父节点分块multi提交。
+    // 删除期间有节点被并发创建或删除时，重新列出剩余子树后重试；dryRun只统计将被删除的节点数
+    public BatchResult deleteRecursive(ZkSession session, String path, int version, boolean dryRun)
+            throws KeeperException, InterruptedException {
+        if (path.equals("/") || path.equals("/zookeeper") || path.startsWith("/zookeeper/")) {
+            throw new IllegalArgumentException("不允许递归删除: " + path);
+        }
+        long start = System.currentTimeMillis();
+        List<String> paths = listSubtree(session, path);
+        if (dryRun) {
+            BatchResult result = new BatchResult();
+            result.setTotal(paths.size());
+            result.setElapsedMs(System.currentTimeMillis() - start);
+            return result;
+        }
+
+        int applied = 0;
+        BatchResult result;
+        for (int attempt = 1; ; attempt++) {
+            List<MultiBatchExecutor.Step> steps = new ArrayList<>(paths.size());
+            for (String node : paths) {
+                steps.add(MultiBatchExecutor.delete(node, node.equals(path) ? version : -1));
+            }
+            result = applySteps(session, steps);
+            applied += result.getApplied();
+            if (result.isSuccess() || attempt >= DELETE_MAX_ATTEMPTS || !isConcurrentChange(result)) {
+                break;
+            }
+            logger.info("递归删除期间子树发生变化，重新列出后重试: path={}, 第{}次", path, attempt);
+            try {
+                paths = listSubtree(session, path);
+            } catch (KeeperException.NoNodeException e) {
+                // 剩余节点已被其他客户端删除
+                result.setSuccess(true);
+                result.setFailedPath(null);
+                result.setError(null);
+                break;
+            }
+        }
+        result.setApplied(applied);
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        logger.info("递归删除完成: path={}, 删除节点数={}, 成功={}, 耗时={}ms",
+                path, applied, result.isSuccess(), result.getElapsedMs());
+        return result;
+    }
+
+    // 非原子地分块提交已构建好的操作，并通知监听器
+    BatchResult applySteps(ZkSession session, List<MultiBatchExecutor.Step> steps) throws InterruptedException {
+        BatchResult result = newBatchExecutor(session.getZooKeeper()).execute(steps, null, false);
+        notifyApplied(session, steps, result.getApplied());
+        auditBatch(session, steps, result);
+        return result;
+    }
+
+    private static boolean isConcurrentChange(BatchResult result) {
+        String error = result.getError();
+        return error != null && (error.startsWith(KeeperException.Code.NOTEMPTY.name())
+                || error.startsWith(KeeperException.Code.NONODE.name()));
+    }
+
+    // 通过分块的multi()事务执行批量创建/更新/删除，BatchNode.version用作CAS版本号
+    public BatchResult executeBatch(ZkSession session, String operation, List<BatchOperationRequest.BatchNode> nodes,
+                                    List<BatchOperationRequest.BatchNode> checks, boolean atomic)
+            throws KeeperException, InterruptedException {
+        session.validate();
+        ZooKeeper zooKeeper = session.getZooKeeper();
+        List<BatchOperationRequest.BatchNode> ordered = new ArrayList<>(nodes);
+        List<MultiBatchExecutor.Step> steps = new ArrayList<>(ordered.size());
+        switch (operation.toUpperCase()) {
+            case "CREATE":
+                // 按路径长度升序排序，确保先创建父节点
+                ordered.sort(Comparator.comparingInt(node -> node.getPath().length()));
+                for (BatchOperationRequest.BatchNode node : ordered) {
+                    steps.add(MultiBatchExecutor.create(node.getPath(), toBytes(node.getData())));
+                }
+                break;
+            case "UPDATE":
+                for (BatchOperationRequest.BatchNode node : ordered) {
+                    steps.add(MultiBatchExecutor.update(node.getPath(), toBytes(node.getData()), versionOf(node)));
+                }
+                break;
+            case "DELETE":
+                // 按路径长度降序排序，确保先删除子节点
+                ordered.sort((a, b) -> b.getPath().length() - a.getPath().length());
+                for (BatchOperationRequest.BatchNode node : ordered) {
+                    steps.add(MultiBatchExecutor.delete(node.getPath(), versionOf(node)));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的操作类型: " + operation);
+        }
+
+        List<Op> guards = new ArrayList<>();
+        if (checks != null) {
+            for (BatchOperationRequest.BatchNode check : checks) {
+                guards.add(Op.check(check.getPath(), versionOf(check)));
             }
         }
+        BatchResult result = newBatchExecutor(zooKeeper).execute(steps, guards, atomic);
+        notifyApplied(session, steps, result.getApplied());
+        auditBatch(session, steps, result);
+        return result;
     }
 
     // 数据导入导出
-    public Map<String, String> exportData(String path) throws KeeperException, InterruptedException {
-        validateConnection();
+    public Map<String, String> exportData(ZkSession session, String path) throws KeeperException, InterruptedException {
         Map<String, String> data = new HashMap<>();
-        exportNodeRecursive(path, data);
+        visitSubtree(session, path, (nodePath, bytes) -> {
+            if (bytes != null) {
+                data.put(nodePath, new String(bytes, StandardCharsets.UTF_8));
+            }
+        });
         return data;
     }
 
-    public void importData(Map<String, String> data) throws KeeperException, InterruptedException {
-        validateConnection();
+    // 流式导出：每读到一个节点立即写出，父节点先于子节点，内存占用与子树大小无关
+    public long exportData(ZkSession session, String path, NdjsonNodeWriter writer)
+            throws KeeperException, InterruptedException, IOException {
+        try {
+            visitSubtree(session, path, (nodePath, bytes) -> {
+                try {
+                    writer.write(nodePath, bytes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return writer.getCount();
+    }
+
+    // 导出二进制快照，包含原始数据、Stat和ACL；镜像中没有ACL，因此总是从ZooKeeper读取
+    public long exportSnapshot(ZkSession session, String path, SnapshotWriter writer)
+            throws KeeperException, InterruptedException, IOException {
+        session.validate();
+        try {
+            newWalker(session.getZooKeeper()).withAcl(true).walk(path, node -> {
+                try {
+                    writer.write(new NodeRecord(node.getPath(), node.getData(), node.getStat(), node.getAcls()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return writer.getNodeCount();
+    }
+
+    // 按父先子后的顺序访问子树，镜像可用时直接读内存
+    private void visitSubtree(ZkSession session, String path, BiConsumer<String, byte[]> visitor)
+            throws KeeperException, InterruptedException {
+        session.validate();
+        TreeMirror mirror = mirrorService.find(session, path);
+        if (mirror != null) {
+            mirror.forEach(path, entry -> visitor.accept(entry.getKey(), entry.getValue().getData()));
+            return;
+        }
+        newWalker(session.getZooKeeper()).walk(path, node -> visitor.accept(node.getPath(), node.getData()));
+    }
+
+    // 列出子树中的全部路径（只取Stat），子节点总排在父节点之前，可直接用于自底向上删除
+    public List<String> listSubtree(ZkSession session, String path) throws KeeperException, InterruptedException {
+        session.validate();
+        ZooKeeper zooKeeper = session.getZooKeeper();
+        List<String> paths = new ArrayList<>();
+        newWalker(zooKeeper).withData(false).walk(path, node -> paths.add(node.getPath()));
+        Collections.reverse(paths);
+        return paths;
+    }
+
+    public BatchResult importData(ZkSession session, Map<String, String> data) throws KeeperException, InterruptedException {
+        session.validate();
+        ZooKeeper zooKeeper = session.getZooKeeper();
         // 按路径长度升序排序，确保先创建父节点
         List<String> paths = new ArrayList<>(data.keySet());
         paths.sort(Comparator.comparingInt(String::length));
+        Set<String> existing = findExisting(zooKeeper, paths);
+        List<MultiBatchExecutor.Step> steps = new ArrayList<>(paths.size());
         for (String path : paths) {
-            Stat stat = zooKeeper.exists(path, false);
-            if (stat == null) {
-                createNode(path, data.get(path), CreateMode.PERSISTENT);
-            } else {
-                updateNode(path, data.get(path), stat.getVersion());
-            }
+            byte[] bytes = toBytes(data.get(path));
+            steps.add(existing.contains(path)
+                    ? MultiBatchExecutor.update(path, bytes, -1)
+                    : MultiBatchExecutor.create(path, bytes));
         }
+        BatchResult result = newBatchExecutor(zooKeeper).execute(steps, null, false);
+        notifyApplied(session, steps, result.getApplied());
+        auditBatch(session, steps, result);
+        return result;
+    }
+
+    // 流式导入：边解析边写入，内存占用只与在途请求数有关，与导入的节点总数无关
+    public ImportProgress importData(ZkSession session, NodeRecord.Source source, StreamingImporter.Listener listener)
+            throws KeeperException, InterruptedException, IOException {
+        session.validate();
+        NodeCache nodeCache = session.getNodeCache();
+        // 回调在ZooKeeper事件线程中执行，操作者需提前取得；回调中不能阻塞，审计队列的限速放在发送请求的线程中
+        String operator = auditService.currentOperator();
+        StreamingImporter.AppliedHandler onApplied = (entry, created, version, latencyMs) -> {
+            nodeCache.invalidateWrite(entry.getPath());
+            auditService.tryRecord(operator, session, created ? "CREATE" : "UPDATE", entry.getPath(),
+                    created ? null : version - 1, version, entry.getData(), latencyMs, null);
+        };
+        return new StreamingImporter(session.getZooKeeper(), importMaxInFlight, importProgressIntervalMs, onApplied)
+                .withThrottle(auditService::awaitCapacity)
+                .run(source, listener);
+    }
+
+    // 通过异步exists流水线检查哪些路径已存在
+    private Set<String> findExisting(ZooKeeper zooKeeper, List<String> paths) throws KeeperException, InterruptedException {
+        return newFetcher(zooKeeper).fetch(paths, false, false).keySet();
     }
 
     // 监听器管理
-    public void addListener(String path, ZkNodeListener listener) throws KeeperException, InterruptedException {
-        validateConnection();
-        pathListeners.computeIfAbsent(path, k -> new HashSet<>()).add(listener);
+    public void addListener(ZkSession session, String path, ZkNodeListener listener) throws KeeperException, InterruptedException {
+        session.validate();
+        ZooKeeper zooKeeper = session.getZooKeeper();
+        session.getPathListeners().computeIfAbsent(path, k -> ConcurrentHashMap.newKeySet()).add(listener);
         // 设置监听
         zooKeeper.exists(path, true);
     }
 
-    public void removeListener(String path) {
-        pathListeners.remove(path);
+    public void removeListener(ZkSession session, String path) {
+        session.getPathListeners().remove(path);
     }
 
     // 工具方法
-    private void validateConnection() {
-        if (zooKeeper == null || !zooKeeper.getState().isAlive()) {
-            logger.error("ZooKeeper连接未建立或已关闭");
-            throw new IllegalStateException("ZooKeeper连接未建立或已关闭");
-        }
-    }
-
-    private String getNodeName(String path) {
+    private static String getNodeName(String path) {
         if (path.equals("/")) return "/";
         int lastSlash = path.lastIndexOf('/');
         return lastSlash < 0 ? path : path.substring(lastSlash + 1);
     }
 
-    private void exportNodeRecursive(String path, Map<String, String> data) throws KeeperException, InterruptedException {
-        byte[] nodeData = zooKeeper.getData(path, false, null);
-        if (nodeData != null) {
-            data.put(path, new String(nodeData, StandardCharsets.UTF_8));
+    private MultiBatchExecutor newBatchExecutor(ZooKeeper zooKeeper) {
+        return new MultiBatchExecutor(zooKeeper, batchMaxChunkBytes, batchMaxChunkOps)
+                .withPipeline(traversalMaxInFlight, traversalTimeoutMs);
+    }
+
+    private AsyncNodeFetcher newFetcher(ZooKeeper zooKeeper) {
+        return new AsyncNodeFetcher(zooKeeper, traversalMaxInFlight, traversalTimeoutMs);
+    }
+
+    // 批量事务提交后按已生效的操作失效缓存并通知监听器
+    private void notifyApplied(ZkSession session, List<MultiBatchExecutor.Step> steps, int applied) {
+        for (MultiBatchExecutor.Step step : steps.subList(0, applied)) {
+            session.getNodeCache().invalidateWrite(step.getPath());
+            switch (step.getKind()) {
+                case CREATE:
+                    notifyListeners(session, step.getPath(), NodeEvent.CREATED);
+                    break;
+                case UPDATE:
+                    notifyListeners(session, step.getPath(), NodeEvent.UPDATED);
+                    break;
+                case DELETE:
+                    notifyListeners(session, step.getPath(), NodeEvent.DELETED);
+                    break;
+            }
         }
+    }
 
-        List<String> children = zooKeeper.getChildren(path, false);
-        for (String child : children) {
-            String childPath = path.equals("/") ? "/" + child : path + "/" + child;
-            exportNodeRecursive(childPath, data);
+    private void audit(ZkSession session, String operation, String path, Integer oldVersion, Integer newVersion,
+                       byte[] data, long start, KeeperException error) {
+        auditService.record(session, operation, path, oldVersion, newVersion, data,
+                System.currentTimeMillis() - start, error != null ? error.code().name() : null);
+    }
+
+    // 分块事务中已生效的操作逐条记录审计，耗时为整个批量操作的耗时；失败的操作单独记录一条
+    private void auditBatch(ZkSession session, List<MultiBatchExecutor.Step> steps, BatchResult result) {
+        String operator = auditService.currentOperator();
+        int applied = result.getApplied();
+        for (MultiBatchExecutor.Step step : steps.subList(0, applied)) {
+            Integer oldVersion = step.getVersion() >= 0 ? step.getVersion() : null;
+            Integer newVersion = step.getKind() == MultiBatchExecutor.Kind.CREATE ? Integer.valueOf(0)
+                    : step.getKind() == MultiBatchExecutor.Kind.UPDATE && oldVersion != null ? Integer.valueOf(oldVersion + 1)
+                    : null;
+            auditService.record(operator, session, step.getKind().name(), step.getPath(), oldVersion, newVersion,
+                    step.getData(), result.getElapsedMs(), null);
+        }
+        if (result.getFailedPath() != null) {
+            for (MultiBatchExecutor.Step step : steps.subList(applied, steps.size())) {
+                if (step.getPath().equals(result.getFailedPath())) {
+                    auditService.record(operator, session, step.getKind().name(), step.getPath(),
+                            step.getVersion() >= 0 ? step.getVersion() : null, null, step.getData(),
+                            result.getElapsedMs(), result.getError());
+                    break;
+                }
+            }
         }
     }
 
-    private void handleWatchedEvent(WatchedEvent event) {
+    private static byte[] toBytes(String data) {
+        return data != null ? data.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    private static int versionOf(BatchOperationRequest.BatchNode node) {
+        return node.getVersion() != null ? node.getVersion() : -1;
+    }
+
+    private AsyncTreeWalker newWalker(ZooKeeper zooKeeper) {
+        return new AsyncTreeWalker(zooKeeper, traversalMaxInFlight);
+    }
+
+    private void handleWatchedEvent(ZkSession session, WatchedEvent event) {
         if (event == null) {
             logger.warn("收到空的Watch事件");
             return;
@@ -231,35 +945,25 @@ public class ZkService {
                     event.getState(), 
                     event.getPath());
 
-        // 只处理有路径的事件
-        if (event.getPath() == null) {
+        // 只处理有路径的事件；缓存注册的Watch已由NodeCache处理，不重新注册，淘汰时才能移除干净
+        String path = event.getPath();
+        if (path == null || !session.getPathListeners().containsKey(path)) {
             return;
         }
-        
-        try {
-            // 重新注册监听器
-            zooKeeper.exists(event.getPath(), true);
-            // 通知相关监听器
-            notifyListeners(event.getPath(), convertEventType(event.getType()));
-        } catch (Exception e) {
-            logger.error("处理Watch事件失败: {}", e.getMessage(), e);
-        }
-    }
 
-    private NodeEvent convertEventType(Watcher.Event.EventType eventType) {
-        switch (eventType) {
-            case NodeCreated:
-                return NodeEvent.CREATED;
-            case NodeDeleted:
-                return NodeEvent.DELETED;
-            case NodeDataChanged:
-                return NodeEvent.UPDATED;
-            default:
-                return NodeEvent.UNKNOWN;
-        }
+        // 在事件线程中不能发出同步请求，异步重新注册监听器的Watch
+        session.getZooKeeper().exists(path, true, (rc, p, ctx, stat) -> {
+            if (rc != KeeperException.Code.OK.intValue() && rc != KeeperException.Code.NONODE.intValue()) {
+                logger.error("重新注册Watch失败: {} {}", p, KeeperException.Code.get(rc));
+            }
+        }, null);
+        // 通知相关监听器
+        notifyListeners(session, path, NodeEvent.of(event.getType()));
     }
 
-    private void notifyListeners(String path, NodeEvent event) {
+    // 包内可见，供基准测试直接测量监听器分发
+    void notifyListeners(ZkSession session, String path, NodeEvent event) {
+        Map<String, Set<ZkNodeListener>> pathListeners = session.getPathListeners();
         // 获取当前路径的监听器
         Set<ZkNodeListener> listeners = pathListeners.get(path);
         if (listeners != null) {
@@ -288,18 +992,6 @@ public class ZkService {
                 }
             }
         }
-
-        // 更新缓存
-        try {
-            if (event == NodeEvent.DELETED) {
-                dataCache.remove(path);
-            } else if (event == NodeEvent.CREATED || event == NodeEvent.UPDATED) {
-                byte[] data = zooKeeper.getData(path, true, null);
-                dataCache.put(path, data);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
     }
 
     private String getParentPath(String path) {
@@ -318,7 +1010,23 @@ enum NodeEvent {
     CREATED,
     UPDATED,
     DELETED,
-    UNKNOWN
+    CHILDREN_CHANGED,
+    UNKNOWN;
+
+    static NodeEvent of(Watcher.Event.EventType eventType) {
+        switch (eventType) {
+            case NodeCreated:
+                return CREATED;
+            case NodeDeleted:
+                return DELETED;
+            case NodeDataChanged:
+                return UPDATED;
+            case NodeChildrenChanged:
+                return CHILDREN_CHANGED;
+            default:
+                return UNKNOWN;
+        }
+    }
 }
 
 interface ZkNodeListener {
@@ -0,0 +1,193 @@
+package com.mytool.zktool;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+// 一个集群对应的长连接会话，持有该集群的ZooKeeper客户端、监听器和数据缓存
+public class ZkSession {
+    public enum State {
+        CONNECTING,
+        CONNECTED,
+        DISCONNECTED,
+        EXPIRED,
+        CLOSED
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ZkSession.class);
+
+    private final String key;
+    private final Long clusterId;
+    private final String address;
+    private final ZooKeeper zooKeeper;
+    private final CountDownLatch connectedSignal = new CountDownLatch(1);
+    private final long createTime = System.currentTimeMillis();
+    private volatile long lastAccessTime = createTime;
+    private volatile State state = State.CONNECTING;
+    // 被镜像等长期任务占用时不做空闲回收
+    private final AtomicInteger pins = new AtomicInteger();
+    private final Map<String, Set<ZkNodeListener>> pathListeners = new ConcurrentHashMap<>();
+    private final NodeCache nodeCache;
+    private final Watcher watcher;
+
+    ZkSession(String key, Long clusterId, String address, int sessionTimeoutMs,
+              BiConsumer<ZkSession, WatchedEvent> eventHandler, ZkMetrics metrics, long cacheMaxBytes) throws IOException {
+        this.key = key;
+        this.clusterId = clusterId;
+        this.address = address;
+        this.nodeCache = new NodeCache(cacheMaxBytes, this::removeCacheWatches);
+        this.watcher = event -> {
+            updateState(event);
+            // 先使缓存失效，监听器在事件处理中读取到的就是最新数据
+            nodeCache.onEvent(event);
+            eventHandler.accept(this, event);
+        };
+        // 启用监控时使用记录请求耗时的客户端
+        this.zooKeeper = metrics != null
+                ? new MeteredZooKeeper(address, sessionTimeoutMs, watcher, metrics)
+                : new ZooKeeper(address, sessionTimeoutMs, watcher);
+    }
+
+    // 包装已有的客户端，主要用于测试
+    ZkSession(String key, ZooKeeper zooKeeper) {
+        this.key = key;
+        this.clusterId = null;
+        this.address = null;
+        this.nodeCache = new NodeCache(NodeCache.DEFAULT_MAX_BYTES);
+        this.watcher = null;
+        this.zooKeeper = zooKeeper;
+        this.state = State.CONNECTED;
+        this.connectedSignal.countDown();
+    }
+
+    // 缓存淘汰的节点和丢弃的读取结果的数据和子节点Watch都注册在默认Watcher上，仍有监听器的路径保留
+    private void removeCacheWatches(String path) {
+        if (pathListeners.containsKey(path)) {
+            return;
+        }
+        zooKeeper.removeWatches(path, watcher, Watcher.WatcherType.Any, false, (rc, p, ctx) -> {
+            if (rc != KeeperException.Code.OK.intValue() && rc != KeeperException.Code.NOWATCHER.intValue()) {
+                logger.debug("移除缓存节点的Watch失败: {} {}", p, KeeperException.Code.get(rc));
+            }
+        }, null);
+    }
+
+    private void updateState(WatchedEvent event) {
+        if (event.getType() != Watcher.Event.EventType.None) {
+            return;
+        }
+        switch (event.getState()) {
+            case SyncConnected:
+            case ConnectedReadOnly:
+                logger.info("ZooKeeper连接已建立: {}", key);
+                state = State.CONNECTED;
+                connectedSignal.countDown();
+                break;
+            case Disconnected:
+                logger.warn("ZooKeeper连接已断开: {}", key);
+                state = State.DISCONNECTED;
+                break;
+            case Expired:
+                logger.warn("ZooKeeper会话已过期: {}", key);
+                state = State.EXPIRED;
+                break;
+            case Closed:
+                state = State.CLOSED;
+                break;
+            default:
+                break;
+        }
+    }
+
+    boolean awaitConnected(long timeoutMs) throws InterruptedException {
+        return connectedSignal.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    public ZooKeeper getZooKeeper() {
+        lastAccessTime = System.currentTimeMillis();
+        return zooKeeper;
+    }
+
+    public boolean isAlive() {
+        return state != State.EXPIRED && state != State.CLOSED && zooKeeper.getState().isAlive();
+    }
+
+    public void pin() {
+        pins.incrementAndGet();
+    }
+
+    public void unpin() {
+        pins.decrementAndGet();
+    }
+
+    public boolean isPinned() {
+        return pins.get() > 0;
+    }
+
+    public void validate() {
+        if (!isAlive()) {
+            logger.error("ZooKeeper连接未建立或已关闭: {}", key);
+            throw new IllegalStateException("ZooKeeper连接未建立或已关闭");
+        }
+    }
+
+    public void close() {
+        state = State.CLOSED;
+        pathListeners.clear();
+        nodeCache.clear();
+        try {
+            zooKeeper.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("关闭ZooKeeper连接时被中断: {}", key);
+        }
+    }
+
+    Map<String, Set<ZkNodeListener>> getPathListeners() {
+        return pathListeners;
+    }
+
+    NodeCache getNodeCache() {
+        return nodeCache;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Long getClusterId() {
+        return clusterId;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    public long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    public long getSessionId() {
+        return zooKeeper.getSessionId();
+    }
+}
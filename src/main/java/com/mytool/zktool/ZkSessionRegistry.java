@@ -0,0 +1,221 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.entity.Cluster;
+import com.mytool.zktool.mapper.ClusterMapper;
+import jakarta.annotation.PreDestroy;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+// 按集群维护长连接会话：每个集群一个会话，空闲超时自动关闭，会话总数有上限
+@Component
+public class ZkSessionRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(ZkSessionRegistry.class);
+    private static final int DEFAULT_CONNECT_TIMEOUT_MS = 5000;
+
+    @Autowired
+    private ClusterMapper clusterMapper;
+
+    @Autowired(required = false)
+    private ZkMetrics metrics;
+
+    @Value("${zktool.session.timeout-ms:30000}")
+    private int sessionTimeoutMs;
+
+    @Value("${zktool.session.max-sessions:16}")
+    private int maxSessions;
+
+    @Value("${zktool.session.idle-timeout-ms:600000}")
+    private long idleTimeoutMs;
+
+    @Value("${zktool.cache.max-bytes:67108864}")
+    private long cacheMaxBytes = NodeCache.DEFAULT_MAX_BYTES;
+
+    private final Map<String, ZkSession> sessions = new ConcurrentHashMap<>();
+    private final List<BiConsumer<ZkSession, WatchedEvent>> eventHandlers = new CopyOnWriteArrayList<>();
+    // 通过/zk/connect直接指定地址时使用的默认会话
+    private volatile String defaultKey;
+
+    public void addEventHandler(BiConsumer<ZkSession, WatchedEvent> handler) {
+        eventHandlers.add(handler);
+    }
+
+    // 获取已注册集群的会话，不存在或已失效时才建立新连接
+    public ZkSession getSession(Long clusterId) throws IOException, InterruptedException {
+        ZkSession session = sessions.get(clusterKey(clusterId));
+        if (session != null && session.isAlive()) {
+            return session;
+        }
+        Cluster cluster = clusterMapper.findById(clusterId);
+        if (cluster == null) {
+            throw new IllegalArgumentException("集群不存在: " + clusterId);
+        }
+        int connectTimeout = cluster.getTimeout() != null ? cluster.getTimeout() : DEFAULT_CONNECT_TIMEOUT_MS;
+        return open(clusterKey(clusterId), clusterId, cluster.getHost() + ":" + cluster.getPort(), connectTimeout);
+    }
+
+    // 按地址获取会话（兼容未注册的集群），已连接时直接复用
+    public ZkSession getSession(String address) throws IOException, InterruptedException {
+        ZkSession session = sessions.get(addressKey(address));
+        if (session != null && session.isAlive()) {
+            return session;
+        }
+        return open(addressKey(address), null, address, DEFAULT_CONNECT_TIMEOUT_MS);
+    }
+
+    public ZkSession connect(String address) throws IOException, InterruptedException {
+        ZkSession session = getSession(address);
+        defaultKey = session.getKey();
+        return session;
+    }
+
+    public ZkSession getDefaultSession() {
+        ZkSession session = defaultKey != null ? sessions.get(defaultKey) : null;
+        if (session == null) {
+            throw new IllegalStateException("ZooKeeper连接未建立或已关闭");
+        }
+        return session;
+    }
+
+    // 优先使用集群ID，其次是集群地址，都未指定时使用默认会话
+    public ZkSession resolve(Long clusterId, String address) throws IOException, InterruptedException {
+        if (clusterId != null) {
+            return getSession(clusterId);
+        }
+        if (address != null && !address.trim().isEmpty()) {
+            return getSession(address.trim());
+        }
+        return getDefaultSession();
+    }
+
+    // 纯数字按集群ID解析，否则按地址解析，为空时使用默认会话
+    public ZkSession resolve(String cluster) throws IOException, InterruptedException {
+        if (cluster != null && cluster.trim().matches("\\d+")) {
+            return getSession(Long.valueOf(cluster.trim()));
+        }
+        return resolve(null, cluster);
+    }
+
+    // resolve(cluster)所得会话的key，不建立连接；未指定集群且没有默认会话时返回null
+    public String keyOf(String cluster) {
+        if (cluster == null || cluster.trim().isEmpty()) {
+            return defaultKey;
+        }
+        String value = cluster.trim();
+        return value.matches("\\d+") ? clusterKey(Long.valueOf(value)) : addressKey(value);
+    }
+
+    public List<ZkSession> getSessions() {
+        return new ArrayList<>(sessions.values());
+    }
+
+    public void closeSession(String key) {
+        ZkSession session = sessions.remove(key);
+        if (session != null) {
+            logger.info("关闭ZooKeeper会话: {}", key);
+            session.close();
+        }
+    }
+
+    private ZkSession open(String key, Long clusterId, String address, int connectTimeoutMs)
+            throws IOException, InterruptedException {
+        logger.info("开始连接ZooKeeper集群: {}", address);
+        ZkSession session = sessions.compute(key, (k, existing) -> {
+            if (existing != null && existing.isAlive()) {
+                return existing;
+            }
+            if (existing != null) {
+                existing.close();
+            }
+            try {
+                return new ZkSession(k, clusterId, address, sessionTimeoutMs, this::dispatch, metrics, cacheMaxBytes);
+            } catch (IOException e) {
+                throw new IllegalStateException("无法连接到ZooKeeper: " + e.getMessage(), e);
+            }
+        });
+
+        try {
+            logger.info("等待ZooKeeper连接建立...");
+            if (!session.awaitConnected(connectTimeoutMs)) {
+                throw new IOException("连接ZooKeeper超时");
+            }
+            // 验证连接
+            session.getZooKeeper().exists("/", false);
+        } catch (IOException | KeeperException e) {
+            logger.error("连接ZooKeeper失败: {}", e.getMessage(), e);
+            sessions.remove(key, session);
+            session.close();
+            throw new IOException("无法连接到ZooKeeper: " + e.getMessage());
+        }
+
+        logger.info("成功连接到ZooKeeper集群: {}", address);
+        evictOverflow();
+        return session;
+    }
+
+    private void dispatch(ZkSession session, WatchedEvent event) {
+        for (BiConsumer<ZkSession, WatchedEvent> handler : eventHandlers) {
+            handler.accept(session, event);
+        }
+    }
+
+    // 超过会话上限时关闭最久未使用的会话（被镜像占用的会话除外）
+    private void evictOverflow() {
+        int overflow = sessions.size() - Math.max(1, maxSessions);
+        if (overflow <= 0) {
+            return;
+        }
+        sessions.values().stream()
+                .filter(session -> !session.isPinned())
+                .sorted(Comparator.comparingLong(ZkSession::getLastAccessTime))
+                .limit(overflow)
+                .map(ZkSession::getKey)
+                .toList()
+                .forEach(key -> {
+                    logger.info("会话数超过上限{}，关闭最久未使用的会话: {}", maxSessions, key);
+                    closeSession(key);
+                });
+    }
+
+    // 定期关闭空闲超时或已失效的会话
+    @Scheduled(fixedDelayString = "${zktool.session.evict-interval-ms:60000}")
+    public void evictIdleSessions() {
+        long now = System.currentTimeMillis();
+        for (ZkSession session : getSessions()) {
+            boolean idle = !session.isPinned() && now - session.getLastAccessTime() > idleTimeoutMs;
+            if (!session.isAlive() || idle) {
+                logger.info("关闭空闲或失效的会话: {}, state={}", session.getKey(), session.getState());
+                closeSession(session.getKey());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        for (String key : new ArrayList<>(sessions.keySet())) {
+            closeSession(key);
+        }
+    }
+
+    private static String clusterKey(Long clusterId) {
+        return "cluster:" + clusterId;
+    }
+
+    private static String addressKey(String address) {
+        return "address:" + address;
+    }
+}
@@ -6,11 +6,11 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
-import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableWebSecurity
-@MapperScan("com.mytool.zktool.mapper")
+@EnableScheduling
 public class ZkToolApplication {
 
     public static void main(String[] args) {
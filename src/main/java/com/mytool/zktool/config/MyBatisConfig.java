@@ -0,0 +1,10 @@
+package com.mytool.zktool.config;
+
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.context.annotation.Configuration;
+
+// 不放在启动类上，@WebMvcTest等切片测试不加载数据源时不会扫描Mapper
+@Configuration
+@MapperScan("com.mytool.zktool.mapper")
+public class MyBatisConfig {
+}
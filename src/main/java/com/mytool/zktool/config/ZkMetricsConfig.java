@@ -0,0 +1,17 @@
+package com.mytool.zktool.config;
+
+import com.mytool.zktool.ZkMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+@Configuration
+public class ZkMetricsConfig {
+
+    // Spring Boot把唯一的TaskDecorator应用到applicationTaskExecutor，MVC用它执行StreamingResponseBody，
+    // 流式响应中发出的ZooKeeper请求因此计入原HTTP请求
+    @Bean
+    public TaskDecorator zkMetricsTaskDecorator(ZkMetrics metrics) {
+        return metrics::propagate;
+    }
+}
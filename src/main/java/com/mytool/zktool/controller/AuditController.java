@@ -0,0 +1,37 @@
+package com.mytool.zktool.controller;
+
+import com.mytool.zktool.AuditService;
+import com.mytool.zktool.dto.ApiResponse;
+import com.mytool.zktool.entity.AuditLog;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/zk/audit")
+@Tag(name = "审计日志", description = "查询通过本工具执行的写操作记录")
+public class AuditController {
+
+    @Autowired
+    private AuditService auditService;
+
+    @Operation(summary = "查询审计日志",
+            description = "按路径前缀、集群和时间范围查询，最新的在前；时间为毫秒时间戳或yyyy-MM-ddTHH:mm:ss。记录异步写入，最近约一秒的操作可能尚未出现")
+    @GetMapping
+    public ApiResponse<List<AuditLog>> find(
+            @RequestParam(required = false) String path,
+            @RequestParam(required = false) String cluster,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false, defaultValue = "0") int offset,
+            @RequestParam(required = false, defaultValue = "100") int limit) {
+        try {
+            return ApiResponse.success(auditService.find(path, cluster, from, to, offset, limit));
+        } catch (Exception e) {
+            return ApiResponse.error("查询审计日志失败: " + e.getMessage());
+        }
+    }
+}
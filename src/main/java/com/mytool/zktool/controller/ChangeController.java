@@ -0,0 +1,44 @@
+package com.mytool.zktool.controller;
+
+import com.mytool.zktool.ChangeJournalService;
+import com.mytool.zktool.ZkSession;
+import com.mytool.zktool.ZkSessionRegistry;
+import com.mytool.zktool.dto.ApiResponse;
+import com.mytool.zktool.dto.ChangeSet;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/zk/changes")
+@Tag(name = "增量变更", description = "按zxid增量获取子树中创建、更新和删除的节点")
+public class ChangeController {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeController.class);
+
+    @Autowired
+    private ChangeJournalService changeJournalService;
+
+    @Autowired
+    private ZkSessionRegistry sessionRegistry;
+
+    @Operation(summary = "获取zxid之后的变更", description = "返回since之后变化的节点和新的highWater，下次查询传入highWater；"
+            + "resync=true时日志不包含since之后的全部变更，需要全量重新加载子树后从highWater继续；hasMore=true时应立即再次查询")
+    @GetMapping
+    public ApiResponse<ChangeSet> getChanges(
+            @RequestParam(required = false, defaultValue = "/") String path,
+            @RequestParam(required = false, defaultValue = "0") long since,
+            @RequestParam(required = false) String cluster,
+            @RequestParam(required = false) Long clusterId,
+            @RequestParam(required = false, defaultValue = "true") boolean data) {
+        try {
+            ZkSession session = sessionRegistry.resolve(clusterId, cluster);
+            return ApiResponse.success(changeJournalService.getChanges(session, path, since, data));
+        } catch (Exception e) {
+            logger.error("获取变更失败: path={}, since={}", path, since, e);
+            return ApiResponse.error("获取变更失败: " + e.getMessage());
+        }
+    }
+}
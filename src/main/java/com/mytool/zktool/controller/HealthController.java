@@ -0,0 +1,45 @@
+package com.mytool.zktool.controller;
+
+import com.mytool.zktool.ClusterHealthService;
+import com.mytool.zktool.dto.ApiResponse;
+import com.mytool.zktool.dto.ClusterHealth;
+import com.mytool.zktool.dto.ServerHealth;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/zk/health")
+@Tag(name = "集群健康", description = "定时采集已登记集群各服务器的延迟、排队请求、节点数和Watch数")
+public class HealthController {
+
+    @Autowired
+    private ClusterHealthService healthService;
+
+    @Operation(summary = "获取各集群健康状态", description = "每台服务器最近一次采样；全部服务器不可达为DOWN，任一服务器异常为WARN")
+    @GetMapping
+    public ApiResponse<List<ClusterHealth>> summary() {
+        try {
+            return ApiResponse.success(healthService.summary());
+        } catch (Exception e) {
+            return ApiResponse.error("获取集群健康状态失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "获取集群采样历史", description = "按时间从旧到新，since为毫秒时间戳，limit为每台服务器最多返回的采样数")
+    @GetMapping("/{clusterId}")
+    public ApiResponse<List<ServerHealth>> history(
+            @PathVariable Long clusterId,
+            @RequestParam(required = false) String server,
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false, defaultValue = "360") int limit) {
+        try {
+            return ApiResponse.success(healthService.history(clusterId, server, since, limit));
+        } catch (Exception e) {
+            return ApiResponse.error("获取集群采样历史失败: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.mytool.zktool.controller;
+
+import com.mytool.zktool.HistoryService;
+import com.mytool.zktool.dto.ApiResponse;
+import com.mytool.zktool.dto.HistoryScheduleRequest;
+import com.mytool.zktool.dto.NodeVersionInfo;
+import com.mytool.zktool.entity.HistoryRun;
+import com.mytool.zktool.entity.HistorySchedule;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/zk/history")
+@Tag(name = "历史快照", description = "按计划记录节点的历史版本，查询任意时刻的节点状态")
+public class HistoryController {
+
+    @Autowired
+    private HistoryService historyService;
+
+    @Operation(summary = "获取快照计划列表")
+    @GetMapping("/schedules")
+    public ApiResponse<List<HistorySchedule>> listSchedules() {
+        try {
+            return ApiResponse.success(historyService.listSchedules());
+        } catch (Exception e) {
+            return ApiResponse.error("获取快照计划失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "新建快照计划", description = "按间隔对集群的指定子树增量记录有变化的节点")
+    @PostMapping("/schedules")
+    public ApiResponse<HistorySchedule> createSchedule(@RequestBody HistoryScheduleRequest request) {
+        try {
+            int interval = request.getIntervalMinutes() != null ? request.getIntervalMinutes() : 60;
+            String path = request.getPath() != null ? request.getPath() : "/";
+            return ApiResponse.success(historyService.createSchedule(request.getCluster(), path, interval));
+        } catch (Exception e) {
+            return ApiResponse.error("新建快照计划失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "修改快照计划", description = "可修改执行间隔和启用状态")
+    @PutMapping("/schedules/{id}")
+    public ApiResponse<HistorySchedule> updateSchedule(@PathVariable Long id, @RequestBody HistoryScheduleRequest request) {
+        try {
+            return ApiResponse.success(historyService.updateSchedule(id, request.getIntervalMinutes(), request.getEnabled()));
+        } catch (Exception e) {
+            return ApiResponse.error("修改快照计划失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "删除快照计划", description = "同时删除该计划记录的全部历史版本")
+    @DeleteMapping("/schedules/{id}")
+    public ApiResponse<Void> deleteSchedule(@PathVariable Long id) {
+        try {
+            historyService.deleteSchedule(id);
+            return ApiResponse.success(null);
+        } catch (Exception e) {
+            return ApiResponse.error("删除快照计划失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "立即执行快照计划")
+    @PostMapping("/schedules/{id}/run")
+    public ApiResponse<HistoryRun> run(@PathVariable Long id) {
+        try {
+            return ApiResponse.success(historyService.runNow(id));
+        } catch (Exception e) {
+            return ApiResponse.error("执行快照计划失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "获取执行记录", description = "最近的在前")
+    @GetMapping("/schedules/{id}/runs")
+    public ApiResponse<List<HistoryRun>> listRuns(
+            @PathVariable Long id,
+            @RequestParam(required = false, defaultValue = "20") int limit) {
+        try {
+            return ApiResponse.success(historyService.listRuns(id, limit));
+        } catch (Exception e) {
+            return ApiResponse.error("获取执行记录失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "查询某一时刻的节点状态",
+            description = "time为毫秒时间戳或yyyy-MM-ddTHH:mm:ss，recursive=true时包含子孙节点；未指定scheduleId时使用覆盖该路径的计划")
+    @GetMapping("/asof")
+    public ApiResponse<List<NodeVersionInfo>> asOf(
+            @RequestParam String path,
+            @RequestParam String time,
+            @RequestParam(required = false, defaultValue = "false") boolean recursive,
+            @RequestParam(required = false, defaultValue = "0") int offset,
+            @RequestParam(required = false, defaultValue = "100") int limit,
+            @RequestParam(required = false) Long scheduleId,
+            @RequestParam(required = false) String cluster) {
+        try {
+            return ApiResponse.success(historyService.asOf(scheduleId, cluster, path, time, recursive, offset, limit));
+        } catch (Exception e) {
+            return ApiResponse.error("查询历史状态失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "获取节点的历史版本", description = "最新的在前，包含删除记录")
+    @GetMapping("/versions")
+    public ApiResponse<List<NodeVersionInfo>> versions(
+            @RequestParam String path,
+            @RequestParam(required = false, defaultValue = "50") int limit,
+            @RequestParam(required = false) Long scheduleId,
+            @RequestParam(required = false) String cluster) {
+        try {
+            return ApiResponse.success(historyService.versions(scheduleId, cluster, path, limit));
+        } catch (Exception e) {
+            return ApiResponse.error("获取历史版本失败: " + e.getMessage());
+        }
+    }
+}
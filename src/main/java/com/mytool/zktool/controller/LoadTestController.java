@@ -0,0 +1,62 @@
+package com.mytool.zktool.controller;
+
+import com.mytool.zktool.LoadTestService;
+import com.mytool.zktool.dto.ApiResponse;
+import com.mytool.zktool.dto.LoadTestRequest;
+import com.mytool.zktool.dto.LoadTestResult;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/zk/loadtest")
+@Tag(name = "压测", description = "按操作比例和目标速率压测集群，统计吞吐量和延迟分布，只在沙箱路径下读写")
+public class LoadTestController {
+
+    @Autowired
+    private LoadTestService loadTestService;
+
+    @Operation(summary = "开始压测", description = "后台运行，立即返回任务ID；mix为各操作的权重，如{\"getData\":70,\"setData\":20,\"create\":5,\"delete\":5}")
+    @PostMapping
+    public ApiResponse<LoadTestResult> start(@Valid @RequestBody LoadTestRequest request) {
+        try {
+            return ApiResponse.success(loadTestService.start(request));
+        } catch (Exception e) {
+            return ApiResponse.error("开始压测失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "获取压测任务列表", description = "最近的在前")
+    @GetMapping
+    public ApiResponse<List<LoadTestResult>> list() {
+        try {
+            return ApiResponse.success(loadTestService.listResults());
+        } catch (Exception e) {
+            return ApiResponse.error("获取压测任务失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "获取压测结果", description = "运行中返回当前统计，结束后附带各操作的HdrHistogram")
+    @GetMapping("/{id}")
+    public ApiResponse<LoadTestResult> get(@PathVariable Long id) {
+        try {
+            return ApiResponse.success(loadTestService.getResult(id));
+        } catch (Exception e) {
+            return ApiResponse.error("获取压测结果失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "取消压测", description = "停止发送请求，等待在途请求返回后清理沙箱路径")
+    @DeleteMapping("/{id}")
+    public ApiResponse<LoadTestResult> cancel(@PathVariable Long id) {
+        try {
+            return ApiResponse.success(loadTestService.cancel(id));
+        } catch (Exception e) {
+            return ApiResponse.error("取消压测失败: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.mytool.zktool.controller;
+
+import com.mytool.zktool.MerkleService;
+import com.mytool.zktool.dto.ApiResponse;
+import com.mytool.zktool.dto.MerkleHash;
+import com.mytool.zktool.dto.TreeCompareResult;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/zk/merkle")
+@Tag(name = "子树哈希", description = "计算子树Merkle哈希，按哈希快速比较两棵子树")
+public class MerkleController {
+    private static final Logger logger = LoggerFactory.getLogger(MerkleController.class);
+
+    @Autowired
+    private MerkleService merkleService;
+
+    @Operation(summary = "计算子树哈希", description = "哈希覆盖数据、子节点名称和可选的ACL，maxAgeMs内计算过的哈希直接返回")
+    @GetMapping("/hash")
+    public ApiResponse<MerkleHash> hash(
+            @RequestParam(required = false, defaultValue = "/") String path,
+            @RequestParam(required = false) String cluster,
+            @RequestParam(required = false, defaultValue = "false") boolean acl,
+            @RequestParam(required = false, defaultValue = "0") long maxAgeMs) {
+        try {
+            return ApiResponse.success(merkleService.hash(cluster, path, acl, maxAgeMs));
+        } catch (Exception e) {
+            logger.error("计算子树哈希失败: path={}, cluster={}", path, cluster, e);
+            return ApiResponse.error("计算子树哈希失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "比较两棵子树", description = "只深入哈希不同的分支；右侧可以是另一个集群（默认与左侧相同）或快照文件")
+    @GetMapping("/compare")
+    public ApiResponse<TreeCompareResult> compare(
+            @RequestParam(required = false) String leftCluster,
+            @RequestParam(required = false, defaultValue = "/") String leftPath,
+            @RequestParam(required = false) String rightCluster,
+            @RequestParam(required = false) String rightSnapshot,
+            @RequestParam(required = false, defaultValue = "/") String rightPath,
+            @RequestParam(required = false, defaultValue = "false") boolean acl,
+            @RequestParam(required = false, defaultValue = "1000") int limit,
+            @RequestParam(required = false, defaultValue = "0") long maxAgeMs) {
+        try {
+            return ApiResponse.success(merkleService.compare(leftCluster, leftPath, rightCluster, rightSnapshot,
+                    rightPath, acl, limit, maxAgeMs));
+        } catch (Exception e) {
+            logger.error("比较子树失败: {} {} <-> {} {}", leftCluster, leftPath,
+                    rightSnapshot != null ? rightSnapshot : rightCluster, rightPath, e);
+            return ApiResponse.error("比较子树失败: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.mytool.zktool.controller;
+
+import com.mytool.zktool.TreeMirror;
+import com.mytool.zktool.TreeMirrorService;
+import com.mytool.zktool.ZkSession;
+import com.mytool.zktool.ZkSessionRegistry;
+import com.mytool.zktool.dto.ApiResponse;
+import com.mytool.zktool.dto.MirrorStatus;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/zk/mirrors")
+@Tag(name = "内存镜像", description = "按集群路径开启内存镜像，读请求直接由内存提供")
+public class MirrorController {
+    private static final Logger logger = LoggerFactory.getLogger(MirrorController.class);
+
+    @Autowired
+    private TreeMirrorService mirrorService;
+
+    @Autowired
+    private ZkSessionRegistry sessionRegistry;
+
+    @Operation(summary = "查看内存镜像状态")
+    @GetMapping
+    public ApiResponse<List<MirrorStatus>> listMirrors() {
+        return ApiResponse.success(mirrorService.getStatus());
+    }
+
+    @Operation(summary = "开启内存镜像")
+    @PostMapping
+    public ApiResponse<String> enableMirror(
+            @RequestParam(required = false, defaultValue = "/") String path,
+            @RequestParam(required = false) Long clusterId) {
+        try {
+            ZkSession session = sessionRegistry.resolve(clusterId, null);
+            TreeMirror mirror = mirrorService.enable(session, path);
+            return ApiResponse.success("内存镜像已开启", mirror.getState().name());
+        } catch (Exception e) {
+            logger.error("开启内存镜像失败: path={}, clusterId={}", path, clusterId, e);
+            return ApiResponse.error("开启内存镜像失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "关闭内存镜像")
+    @DeleteMapping
+    public ApiResponse<String> disableMirror(
+            @RequestParam(required = false, defaultValue = "/") String path,
+            @RequestParam(required = false) Long clusterId) {
+        try {
+            ZkSession session = sessionRegistry.resolve(clusterId, null);
+            if (!mirrorService.disable(session.getKey(), path)) {
+                return ApiResponse.error("内存镜像不存在");
+            }
+            return ApiResponse.success("内存镜像已关闭");
+        } catch (Exception e) {
+            return ApiResponse.error("关闭内存镜像失败: " + e.getMessage());
+        }
+    }
+}
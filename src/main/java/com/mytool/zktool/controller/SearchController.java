@@ -0,0 +1,50 @@
+package com.mytool.zktool.controller;
+
+import com.mytool.zktool.SearchService;
+import com.mytool.zktool.dto.ApiResponse;
+import com.mytool.zktool.dto.SearchResult;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/zk/search")
+@Tag(name = "节点搜索", description = "按路径、节点名和数据搜索，由内存镜像的搜索索引提供")
+public class SearchController {
+
+    @Autowired
+    private SearchService searchService;
+
+    @Operation(summary = "搜索节点", description = "type=path按路径前缀，name按节点名前缀，data按数据子串，regex按数据正则；结果按路径排序分页")
+    @GetMapping
+    public ApiResponse<SearchResult> search(
+            @RequestParam String q,
+            @RequestParam(required = false, defaultValue = "data") String type,
+            @RequestParam(required = false, defaultValue = "/") String path,
+            @RequestParam(required = false, defaultValue = "false") boolean ignoreCase,
+            @RequestParam(required = false, defaultValue = "0") int offset,
+            @RequestParam(required = false, defaultValue = "50") int limit,
+            @RequestParam(required = false) String cluster) {
+        try {
+            return ApiResponse.success(searchService.search(cluster, type, q, path, ignoreCase, offset, limit));
+        } catch (Exception e) {
+            return ApiResponse.error("搜索失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "路径自动补全", description = "返回已输入路径的父节点下名称以最后一段开头的子节点")
+    @GetMapping("/complete")
+    public ApiResponse<List<String>> complete(
+            @RequestParam String prefix,
+            @RequestParam(required = false, defaultValue = "20") int limit,
+            @RequestParam(required = false) String cluster) {
+        try {
+            return ApiResponse.success(searchService.complete(cluster, prefix, limit));
+        } catch (Exception e) {
+            return ApiResponse.error("路径补全失败: " + e.getMessage());
+        }
+    }
+}
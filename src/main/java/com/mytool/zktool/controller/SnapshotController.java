@@ -0,0 +1,157 @@
+package com.mytool.zktool.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mytool.zktool.NdjsonNodeWriter;
+import com.mytool.zktool.NodeInfo;
+import com.mytool.zktool.SnapshotService;
+import com.mytool.zktool.StreamingImporter;
+import com.mytool.zktool.ZkSession;
+import com.mytool.zktool.ZkSessionRegistry;
+import com.mytool.zktool.dto.ApiResponse;
+import com.mytool.zktool.dto.ImportProgress;
+import com.mytool.zktool.dto.SnapshotInfo;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/zk/snapshots")
+@Tag(name = "二进制快照", description = "生成、下载、离线查看和恢复二进制快照")
+public class SnapshotController {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotController.class);
+
+    @Autowired
+    private SnapshotService snapshotService;
+
+    @Autowired
+    private ZkSessionRegistry sessionRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Operation(summary = "查看快照列表")
+    @GetMapping
+    public ApiResponse<List<SnapshotInfo>> listSnapshots() {
+        try {
+            return ApiResponse.success(snapshotService.list());
+        } catch (Exception e) {
+            return ApiResponse.error("获取快照列表失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "生成快照")
+    @PostMapping
+    public ApiResponse<SnapshotInfo> createSnapshot(
+            @RequestParam(required = false, defaultValue = "/") String path,
+            @RequestParam(required = false, defaultValue = "true") boolean compress,
+            @RequestParam(required = false) Long clusterId) {
+        try {
+            ZkSession session = sessionRegistry.resolve(clusterId, null);
+            return ApiResponse.success("快照生成成功", snapshotService.create(session, path, compress));
+        } catch (Exception e) {
+            logger.error("生成快照失败: path={}, clusterId={}", path, clusterId, e);
+            return ApiResponse.error("生成快照失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "查看快照信息")
+    @GetMapping("/{name}")
+    public ApiResponse<SnapshotInfo> getSnapshot(@PathVariable String name) {
+        try {
+            return ApiResponse.success(snapshotService.inspect(name));
+        } catch (Exception e) {
+            return ApiResponse.error("读取快照失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "离线查看快照中的节点")
+    @GetMapping("/{name}/nodes")
+    public ApiResponse<List<NodeInfo>> listSnapshotNodes(@PathVariable String name,
+            @RequestParam(required = false, defaultValue = "/") String path,
+            @RequestParam(required = false, defaultValue = "1000") int limit) {
+        try {
+            return ApiResponse.success(snapshotService.listNodes(name, path, limit));
+        } catch (Exception e) {
+            return ApiResponse.error("读取快照失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "下载快照文件")
+    @GetMapping("/{name}/file")
+    public ResponseEntity<Resource> downloadSnapshot(@PathVariable String name) throws Exception {
+        FileSystemResource file = new FileSystemResource(snapshotService.resolve(name));
+        if (!file.exists()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "\"")
+                .body(file);
+    }
+
+    @Operation(summary = "上传快照文件")
+    @PutMapping(value = "/{name}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ApiResponse<SnapshotInfo> uploadSnapshot(@PathVariable String name, HttpServletRequest request) {
+        try {
+            return ApiResponse.success("快照上传成功", snapshotService.upload(name, request.getInputStream()));
+        } catch (Exception e) {
+            return ApiResponse.error("上传快照失败: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "恢复快照", description = "按快照内容写入集群，响应逐行输出进度、失败明细和最终汇总")
+    @PostMapping("/{name}/restore")
+    public ResponseEntity<StreamingResponseBody> restoreSnapshot(@PathVariable String name,
+            @RequestParam(required = false) Long clusterId) throws Exception {
+        ZkSession session = sessionRegistry.resolve(clusterId, null);
+        session.validate();
+        snapshotService.inspect(name);
+        ObjectWriter lineWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        StreamingResponseBody body = out -> {
+            StreamingImporter.Listener listener = progress -> {
+                lineWriter.writeValue(out, progress);
+                out.write('\n');
+                out.flush();
+            };
+            try {
+                listener.onProgress(snapshotService.restore(session, name, listener));
+            } catch (Exception e) {
+                logger.error("恢复快照失败: {}, clusterId={}", name, clusterId, e);
+                ImportProgress error = new ImportProgress();
+                error.setStage("error");
+                error.setError("恢复快照失败: " + e.getMessage());
+                listener.onProgress(error);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonNodeWriter.MEDIA_TYPE))
+                .body(body);
+    }
+
+    @Operation(summary = "删除快照")
+    @DeleteMapping("/{name}")
+    public ApiResponse<String> deleteSnapshot(@PathVariable String name) {
+        try {
+            if (!snapshotService.delete(name)) {
+                return ApiResponse.error("快照不存在");
+            }
+            return ApiResponse.success("快照已删除");
+        } catch (Exception e) {
+            return ApiResponse.error("删除快照失败: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.mytool.zktool.controller;
+
+import com.mytool.zktool.SyncService;
+import com.mytool.zktool.dto.ApiResponse;
+import com.mytool.zktool.dto.SyncRequest;
+import com.mytool.zktool.dto.SyncResult;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/zk/sync")
+@Tag(name = "跨集群同步", description = "把源集群的子树增量同步到目标集群")
+public class SyncController {
+    private static final Logger logger = LoggerFactory.getLogger(SyncController.class);
+
+    @Autowired
+    private SyncService syncService;
+
+    @Operation(summary = "增量同步子树", description = "只写入有变化的节点，deleteExtra=true时删除目标集群多出的节点，dryRun=true时只统计差异")
+    @PostMapping
+    public ApiResponse<List<SyncResult>> sync(@Valid @RequestBody SyncRequest request) {
+        try {
+            List<SyncResult> results = syncService.sync(request);
+            for (SyncResult result : results) {
+                if (!result.isSuccess()) {
+                    return ApiResponse.error("同步失败: " + result.getError(), results);
+                }
+            }
+            return ApiResponse.success(request.isDryRun() ? "预演完成，未写入目标集群" : "同步成功", results);
+        } catch (Exception e) {
+            logger.error("同步失败: {} -> {}, paths={}", request.getSourceCluster(), request.getTargetCluster(),
+                    request.getPaths(), e);
+            return ApiResponse.error("同步失败: " + e.getMessage());
+        }
+    }
+}
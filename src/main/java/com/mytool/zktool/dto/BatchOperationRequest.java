@@ -46,11 +46,12 @@ public class BatchOperationRequest {
     @NotEmpty(message = "操作类型不能为空")
     private String operation; // CREATE, DELETE, UPDATE
 
+    // 为true时整个批量操作全部成功或全部回滚，否则只保证每个分块事务的原子性
+    private boolean atomic;
+
+    // 版本前置校验（Op.check），每个分块事务都会先校验这些节点的版本
+    private List<BatchNode> checks;
+
     // 用于导入/导出功能
     private Map<String, String> dataMap;
-    
-    // 用于数据同步功能
-    private String sourceCluster;
-    private String targetCluster;
-    private List<String> paths;
 }
\ No newline at end of file
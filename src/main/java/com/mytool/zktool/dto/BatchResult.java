@@ -0,0 +1,16 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+@Data
+public class BatchResult {
+    private boolean success = true;
+    private int total;              // 操作总数
+    private int chunks;             // 拆分出的事务数
+    private int committedChunks;    // 已提交的事务数
+    private int applied;            // 已生效的操作数
+    private String failedPath;      // 导致失败的节点路径
+    private String error;           // 失败原因
+    private boolean rolledBack;     // 全量原子模式下是否已回滚已提交的事务
+    private long elapsedMs;         // 耗时（毫秒）
+}
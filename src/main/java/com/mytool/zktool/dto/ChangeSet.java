@@ -0,0 +1,15 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ChangeSet {
+    private String path;            // 查询的子树路径
+    private long since;             // 客户端上次看到的zxid
+    private long highWater;         // 本次结果对应的zxid，下次查询作为since传入
+    private boolean resync;         // since早于日志窗口或日志刚建立，客户端需要全量重新加载后从highWater继续
+    private boolean hasMore;        // 变更数超过上限被截断，应立即用highWater再次查询
+    private List<NodeChange> changes; // 按zxid排序的变更，同一节点只出现一次
+}
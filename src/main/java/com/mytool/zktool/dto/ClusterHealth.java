@@ -0,0 +1,13 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ClusterHealth {
+    private Long clusterId;                 // 集群ID
+    private String name;                    // 集群名称
+    private String status;                  // 各服务器中最差的状态
+    private List<ServerHealth> servers;     // 各服务器最近一次采样
+}
@@ -0,0 +1,11 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+@Data
+public class HistoryScheduleRequest {
+    private String cluster;             // 集群连接串或已保存连接的名称
+    private String path;                // 记录历史的子树根路径
+    private Integer intervalMinutes;    // 执行间隔（分钟）
+    private Boolean enabled;            // 是否启用
+}
@@ -0,0 +1,16 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+@Data
+public class ImportProgress {
+    private String stage;           // progress / failure / done / error
+    private long processed;         // 已读取的节点数
+    private long created;           // 新建的节点数
+    private long updated;           // 已存在而更新数据的节点数
+    private long failed;            // 写入失败的节点数
+    private long elapsedMs;         // 已耗时
+    private long nodesPerSecond;    // 平均写入速度
+    private String path;            // 失败的节点路径（stage=failure时）
+    private String error;           // 失败原因
+}
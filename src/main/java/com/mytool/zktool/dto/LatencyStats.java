@@ -0,0 +1,15 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+@Data
+public class LatencyStats {
+    private long count;             // 完成的请求数
+    private long errors;            // 返回错误码的请求数
+    private double meanMs;          // 平均延迟
+    private double p50Ms;           // 延迟中位数
+    private double p99Ms;           // 99分位延迟
+    private double p999Ms;          // 99.9分位延迟
+    private double maxMs;           // 最大延迟
+    private String histogram;       // 压缩后Base64编码的HdrHistogram（微秒），运行结束后提供，可用HdrHistogram工具解码绘图
+}
@@ -0,0 +1,20 @@
+package com.mytool.zktool.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class LoadTestRequest {
+    @NotBlank(message = "集群不能为空")
+    private String cluster;                 // 集群ID或地址
+    private String sandboxPath = "/zktool-loadtest"; // 压测节点所在的根路径，每次运行在其下新建独立子路径，结束后删除
+    private int sessions = 4;               // 并发的ZooKeeper会话数
+    private int maxInFlight = 16;           // 每个会话同时在途的最大请求数
+    private int durationSeconds = 30;       // 运行时长
+    private int targetRate;                 // 目标总速率（次/秒），0表示不限速
+    private int payloadBytes = 128;         // create和setData写入的数据大小
+    private int keyCount = 1000;            // 预先创建、供getData/exists/setData访问的节点数
+    private Map<String, Integer> mix;       // 各操作的权重，可选create、setData、getData、exists、delete，为空时只读
+}
@@ -0,0 +1,26 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+public class LoadTestResult {
+    private Long id;                        // 压测任务ID
+    private String cluster;                 // 集群地址
+    private String sandboxPath;             // 本次运行使用的路径
+    private String state;                   // PREPARING / RUNNING / COMPLETED / CANCELLED / FAILED
+    private LocalDateTime startTime;        // 开始时间
+    private LocalDateTime endTime;          // 结束时间
+    private long elapsedMs;                 // 已运行时长（不含准备阶段）
+    private int targetRate;                 // 目标速率，0表示不限速
+    private long totalOps;                  // 已完成的请求数
+    private long totalErrors;               // 返回错误码的请求数
+    private double throughput;              // 实际吞吐量（次/秒）
+    private LatencyStats latency;           // 全部操作的延迟
+    private Map<String, LatencyStats> operations; // 各操作的延迟
+    private Map<String, Long> errorCodes;   // 各错误码出现的次数
+    private boolean cleanedUp;              // 压测路径是否已删除
+    private String error;                   // 失败原因
+}
@@ -0,0 +1,13 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+@Data
+public class MerkleHash {
+    private String path;            // 子树根路径
+    private String hash;            // 子树哈希（十六进制）
+    private int nodeCount;          // 子树节点数
+    private int hashedNodes;        // 本次重新读取内容的节点数，其余节点沿用缓存
+    private boolean includeAcl;     // 哈希是否包含ACL
+    private long elapsedMs;         // 耗时（毫秒）
+}
@@ -0,0 +1,17 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+@Data
+public class MirrorStatus {
+    private String sessionKey;      // 所属集群会话
+    private String path;            // 镜像根路径
+    private String state;           // LOADING / SYNCED / STALE / CLOSED
+    private int nodeCount;          // 镜像中的节点数
+    private String lastAppliedZxid; // 最后应用的zxid（十六进制）
+    private long loadedTime;        // 最近一次全量加载完成时间
+    private long lastEventTime;     // 最近一次收到变更事件的时间
+    private int pendingFetches;     // 尚未完成的增量刷新数
+    private long stalenessMs;       // 距离最近一次确认一致的时长，0表示已是最新
+    private int indexedCount;       // 搜索索引中的节点数，未建立索引时为0
+}
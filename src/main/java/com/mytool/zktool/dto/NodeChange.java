@@ -0,0 +1,13 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+import org.apache.zookeeper.data.Stat;
+
+@Data
+public class NodeChange {
+    private String path;            // 节点路径
+    private String event;           // CREATED / UPDATED / DELETED
+    private long zxid;              // 变更记录的zxid，不小于变更实际的zxid
+    private String data;            // 节点当前数据，已删除或未请求数据时为空
+    private Stat stat;              // 节点当前Stat，已删除时为空
+}
@@ -0,0 +1,11 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+@Data
+public class NodeEventMessage {
+    private String path;        // 发生变更的节点路径
+    private String event;       // CREATED / UPDATED / DELETED，合并窗口内以最后一次为准
+    private int count;          // 合并窗口内该路径收到的事件数
+    private long timestamp;     // 最后一次事件的时间
+}
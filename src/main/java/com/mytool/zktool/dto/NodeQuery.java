@@ -0,0 +1,59 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+@Data
+public class NodeQuery {
+    public static final int UNLIMITED_DEPTH = -1;
+    public static final int DEFAULT_LIMIT = 1000;
+    public static final String FIELD_PATH = "path";
+    public static final String FIELD_DATA = "data";
+    public static final String FIELD_ACLS = "acls";
+    public static final String FIELD_STAT = "stat";
+    private static final Set<String> SUPPORTED_FIELDS = Set.of(FIELD_PATH, FIELD_DATA, FIELD_ACLS, FIELD_STAT);
+
+    private int depth = 1;              // 展开层数，0只返回当前节点，负数表示不限制
+    private int offset = 0;             // 当前节点子节点的起始偏移
+    private int limit = DEFAULT_LIMIT;  // 每层最多返回的子节点数，<=0表示不限制
+    private String after;               // 游标：只返回名称大于该值的子节点
+    private Set<String> fields;         // 需要返回的字段，null表示返回全部字段
+
+    public static NodeQuery fullTree() {
+        NodeQuery query = new NodeQuery();
+        query.setDepth(UNLIMITED_DEPTH);
+        query.setLimit(0);
+        return query;
+    }
+
+    // 解析逗号分隔的字段列表，如"path,stat"；为空时返回null表示全部字段
+    public static Set<String> parseFields(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Set<String> fields = new LinkedHashSet<>();
+        for (String field : value.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!SUPPORTED_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("不支持的字段: " + name + "，可选值: path, data, acls, stat");
+            }
+            fields.add(name);
+        }
+        return fields;
+    }
+
+    // 判断是否需要返回指定字段，path和name总是返回
+    public boolean includes(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    // 判断指定层级的节点是否需要继续展开子节点
+    public boolean expands(int level) {
+        return depth < 0 || level < depth;
+    }
+}
@@ -0,0 +1,17 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class NodeVersionInfo {
+    private String path;                // 节点路径
+    private String data;                // 节点数据（UTF-8），删除记录为空
+    private int dataLength;             // 数据长度（字节）
+    private int version;                // 数据版本号，删除记录为-1
+    private String mzxid;               // 最后修改的事务ID（十六进制）
+    private LocalDateTime validFrom;    // 生效时间（节点修改时间，删除记录为发现删除的执行时间）
+    private boolean deleted;            // 是否为删除记录
+    private Long runId;                 // 记录该版本的执行ID
+}
@@ -0,0 +1,11 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+@Data
+public class SearchHit {
+    private String path;            // 节点路径
+    private String name;            // 节点名
+    private int dataLength;         // 数据长度（字节）
+    private String preview;         // 数据预览（UTF-8解码后的前若干字符）
+}
@@ -0,0 +1,18 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SearchResult {
+    private String type;            // 查询类型：path / name / data / regex
+    private String query;           // 查询内容
+    private String scope;           // 查询范围（子树根路径）
+    private int total;              // 匹配总数
+    private boolean totalExact;     // 匹配数超过计数上限时为false，total只是下限
+    private int offset;             // 分页起始位置
+    private int limit;              // 每页条数
+    private List<SearchHit> items;  // 当前页结果，按路径排序
+    private long elapsedMs;         // 耗时（毫秒）
+}
@@ -0,0 +1,22 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ServerHealth {
+    private LocalDateTime time;             // 采样时间
+    private String server;                  // 服务器地址（host:port）
+    private String status;                  // OK/WARN/DOWN
+    private String error;                   // 采样失败或告警原因
+    private String mode;                    // leader/follower/observer/standalone
+    private Double avgLatency;              // 平均延迟（毫秒，服务器统计重置以来）
+    private Long maxLatency;                // 最大延迟（毫秒）
+    private Long outstandingRequests;       // 排队中的请求数
+    private Long znodeCount;                // 节点数
+    private Long watchCount;                // Watch数
+    private Long connections;               // 客户端连接数
+    private Long maxQueued;                 // 单个连接排队请求数的最大值
+    private Double requestsPerSecond;       // 两次采样之间每秒收到的请求包数
+}
@@ -0,0 +1,14 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+@Data
+public class SessionInfo {
+    private String key;             // 会话标识（集群ID或地址）
+    private Long clusterId;         // 集群ID，直接按地址连接时为空
+    private String address;         // 集群地址
+    private String state;           // 健康状态
+    private String sessionId;       // ZooKeeper会话ID
+    private long createTime;        // 建立时间
+    private long idleMs;            // 空闲时长（毫秒）
+}
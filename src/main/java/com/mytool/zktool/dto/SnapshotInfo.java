@@ -0,0 +1,15 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+@Data
+public class SnapshotInfo {
+    private String name;            // 快照文件名
+    private String root;            // 快照的根路径
+    private long nodeCount;         // 节点数
+    private int blockCount;         // 数据块数
+    private boolean compressed;     // 数据块是否压缩
+    private long fileSize;          // 文件大小（字节）
+    private long createTime;        // 快照创建时间
+    private Long elapsedMs;         // 生成快照的耗时（仅创建时返回）
+}
@@ -0,0 +1,19 @@
+package com.mytool.zktool.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SyncRequest {
+    @NotBlank(message = "源集群不能为空")
+    private String sourceCluster;       // 源集群ID或地址
+    @NotBlank(message = "目标集群不能为空")
+    private String targetCluster;       // 目标集群ID或地址
+    @NotEmpty(message = "同步路径不能为空")
+    private List<String> paths;         // 需要同步的子树根路径
+    private boolean deleteExtra = true; // 是否删除目标集群中多出的节点
+    private boolean dryRun;             // 只统计差异，不写入目标集群
+}
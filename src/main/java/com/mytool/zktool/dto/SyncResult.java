@@ -0,0 +1,20 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+@Data
+public class SyncResult {
+    private String path;            // 同步的子树根路径
+    private boolean success = true;
+    private boolean dryRun;         // 是否为预演
+    private int scanned;            // 源集群扫描的节点数
+    private int unchanged;          // 两侧一致、无需写入的节点数
+    private int created;            // 新建的节点数
+    private int updated;            // 更新数据的节点数
+    private int deleted;            // 删除的节点数
+    private int skipped;            // 跳过的临时节点和系统节点数
+    private int fetched;            // 读取数据的节点数（两侧合计）
+    private String failedPath;      // 导致失败的节点路径
+    private String error;           // 失败原因
+    private long elapsedMs;         // 耗时（毫秒）
+}
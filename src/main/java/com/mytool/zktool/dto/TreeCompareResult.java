@@ -0,0 +1,17 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TreeCompareResult {
+    private String leftRoot;            // 左侧子树根路径
+    private String rightRoot;           // 右侧子树根路径
+    private boolean identical;          // 两侧子树是否完全一致
+    private String leftHash;            // 左侧子树哈希
+    private String rightHash;           // 右侧子树哈希
+    private List<TreeDiff> differences; // 差异列表
+    private boolean truncated;          // 差异数超过上限，列表不完整
+    private long elapsedMs;             // 耗时（毫秒）
+}
@@ -0,0 +1,14 @@
+package com.mytool.zktool.dto;
+
+import lombok.Data;
+
+@Data
+public class TreeDiff {
+    public static final String LEFT_ONLY = "LEFT_ONLY";
+    public static final String RIGHT_ONLY = "RIGHT_ONLY";
+    public static final String CHANGED = "CHANGED";
+
+    private String path;            // 相对于比较根节点的路径
+    private String type;            // LEFT_ONLY：仅左侧存在，RIGHT_ONLY：仅右侧存在，CHANGED：节点内容不同
+    private int nodeCount;          // 仅一侧存在时为该子树的节点数，CHANGED时为1
+}
@@ -0,0 +1,20 @@
+package com.mytool.zktool.entity;
+
+import lombok.Data;
+
+@Data
+public class AuditLog {
+    private Long id;
+    private Long time;
+    private String operator;
+    private String cluster;
+    private String operation;
+    private String path;
+    private Integer oldVersion;
+    private Integer newVersion;
+    private Integer dataLength;
+    private String dataHash;
+    private Long latencyMs;
+    private Boolean success;
+    private String error;
+}
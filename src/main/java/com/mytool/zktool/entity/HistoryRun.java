@@ -0,0 +1,16 @@
+package com.mytool.zktool.entity;
+
+import lombok.Data;
+
+@Data
+public class HistoryRun {
+    private Long id;
+    private Long scheduleId;
+    private Long runTime;
+    private Integer scanned;
+    private Integer changed;
+    private Integer deleted;
+    private Long elapsedMs;
+    private Boolean success;
+    private String error;
+}
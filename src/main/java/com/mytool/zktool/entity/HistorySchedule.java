@@ -0,0 +1,14 @@
+package com.mytool.zktool.entity;
+
+import lombok.Data;
+
+@Data
+public class HistorySchedule {
+    private Long id;
+    private String cluster;
+    private String path;
+    private Integer intervalMinutes;
+    private Boolean enabled;
+    private Long lastRunTime;
+    private Long createTime;
+}
@@ -0,0 +1,17 @@
+package com.mytool.zktool.entity;
+
+import lombok.Data;
+
+@Data
+public class NodeVersion {
+    private Long id;
+    private Long scheduleId;
+    private Long runId;
+    private String path;
+    private Long validFrom;
+    private Long mzxid;
+    private Integer version;
+    private Integer dataLength;
+    private byte[] data;
+    private Boolean deleted;
+}
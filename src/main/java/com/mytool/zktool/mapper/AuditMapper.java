@@ -0,0 +1,21 @@
+package com.mytool.zktool.mapper;
+
+import com.mytool.zktool.entity.AuditLog;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface AuditMapper {
+    int insert(AuditLog log);
+
+    // 路径前缀按[prefix, prefixEnd)范围查询，可以使用(path, time)索引
+    List<AuditLog> find(@Param("prefix") String prefix,
+                        @Param("prefixEnd") String prefixEnd,
+                        @Param("cluster") String cluster,
+                        @Param("from") Long from,
+                        @Param("to") Long to,
+                        @Param("offset") int offset,
+                        @Param("limit") int limit);
+}
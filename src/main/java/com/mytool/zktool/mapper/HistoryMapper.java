@@ -0,0 +1,39 @@
+package com.mytool.zktool.mapper;
+
+import com.mytool.zktool.entity.HistoryRun;
+import com.mytool.zktool.entity.HistorySchedule;
+import com.mytool.zktool.entity.NodeVersion;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.List;
+
+@Mapper
+public interface HistoryMapper {
+    List<HistorySchedule> findSchedules();
+    HistorySchedule findSchedule(Long id);
+    int insertSchedule(HistorySchedule schedule);
+    int updateSchedule(HistorySchedule schedule);
+    int updateLastRunTime(@Param("id") Long id, @Param("lastRunTime") Long lastRunTime);
+    int deleteSchedule(Long id);
+    int deleteRuns(Long scheduleId);
+    int deleteVersions(Long scheduleId);
+    int deleteLatestAll(Long scheduleId);
+
+    int insertRun(HistoryRun run);
+    int updateRun(HistoryRun run);
+    List<HistoryRun> findRuns(@Param("scheduleId") Long scheduleId, @Param("limit") int limit);
+
+    // 逐行回调每个节点最近一次记录的mzxid，避免一次性构造大列表
+    void findLatest(@Param("scheduleId") Long scheduleId, ResultHandler<NodeVersion> handler);
+    int insertVersion(NodeVersion version);
+    int upsertLatest(@Param("scheduleId") Long scheduleId, @Param("path") String path, @Param("mzxid") Long mzxid);
+    int deleteLatest(@Param("scheduleId") Long scheduleId, @Param("path") String path);
+
+    // path本身及路径在(lower, upper)范围内的子孙节点在time时刻的状态，已删除的节点不返回；lower为null时只查path本身
+    List<NodeVersion> findAsOf(@Param("scheduleId") Long scheduleId, @Param("path") String path,
+                               @Param("lower") String lower, @Param("upper") String upper, @Param("time") long time,
+                               @Param("offset") int offset, @Param("limit") int limit);
+    List<NodeVersion> findVersions(@Param("scheduleId") Long scheduleId, @Param("path") String path, @Param("limit") int limit);
+}
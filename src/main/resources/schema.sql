@@ -6,4 +6,71 @@ CREATE TABLE IF NOT EXISTS clusters (
     retry_count INTEGER NOT NULL DEFAULT 3,
     timeout INTEGER NOT NULL DEFAULT 5000,
     description TEXT
-); 
\ No newline at end of file
+); 
+
+CREATE TABLE IF NOT EXISTS history_schedules (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    cluster TEXT NOT NULL,
+    path TEXT NOT NULL,
+    interval_minutes INTEGER NOT NULL DEFAULT 60,
+    enabled INTEGER NOT NULL DEFAULT 1,
+    last_run_time INTEGER,
+    create_time INTEGER NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS history_runs (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    schedule_id INTEGER NOT NULL,
+    run_time INTEGER NOT NULL,
+    scanned INTEGER NOT NULL DEFAULT 0,
+    changed INTEGER NOT NULL DEFAULT 0,
+    deleted INTEGER NOT NULL DEFAULT 0,
+    elapsed_ms INTEGER NOT NULL DEFAULT 0,
+    success INTEGER NOT NULL DEFAULT 1,
+    error TEXT
+);
+
+CREATE INDEX IF NOT EXISTS idx_history_runs_schedule ON history_runs (schedule_id, run_time);
+
+CREATE TABLE IF NOT EXISTS history_versions (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    schedule_id INTEGER NOT NULL,
+    run_id INTEGER NOT NULL,
+    path TEXT NOT NULL,
+    valid_from INTEGER NOT NULL,
+    mzxid INTEGER NOT NULL,
+    version INTEGER NOT NULL,
+    data_length INTEGER NOT NULL,
+    data BLOB,
+    deleted INTEGER NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_history_versions_path ON history_versions (schedule_id, path, valid_from);
+
+CREATE TABLE IF NOT EXISTS history_latest (
+    schedule_id INTEGER NOT NULL,
+    path TEXT NOT NULL,
+    mzxid INTEGER NOT NULL,
+    PRIMARY KEY (schedule_id, path)
+) WITHOUT ROWID;
+
+CREATE TABLE IF NOT EXISTS audit_log (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    time INTEGER NOT NULL,
+    operator TEXT,
+    cluster TEXT,
+    operation TEXT NOT NULL,
+    path TEXT NOT NULL,
+    old_version INTEGER,
+    new_version INTEGER,
+    data_length INTEGER,
+    data_hash TEXT,
+    latency_ms INTEGER,
+    success INTEGER NOT NULL DEFAULT 1,
+    error TEXT
+);
+
+-- 按路径前缀的查询也沿时间索引分页，路径索引只增加写入开销
+DROP INDEX IF EXISTS idx_audit_log_path;
+
+CREATE INDEX IF NOT EXISTS idx_audit_log_time ON audit_log (time);
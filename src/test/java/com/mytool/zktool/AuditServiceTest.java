@@ -0,0 +1,79 @@
+package com.mytool.zktool;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AuditServiceTest {
+
+    @Test
+    void testRecordWaitsForQueueSpaceInsteadOfDropping() throws Exception {
+        // 准备：容量为1的队列，不启动写入线程，由测试线程模拟写入线程取走记录
+        AuditService service = new AuditService();
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(1);
+        ReflectionTestUtils.setField(service, "queue", queue);
+        ReflectionTestUtils.setField(service, "offerTimeoutMs", 5000L);
+        ZkSession session = mock(ZkSession.class);
+        service.record("tester", session, "UPDATE", "/app/a", 0, 1, new byte[]{1}, 1, null);
+        Thread consumer = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+                queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+
+        // 执行：队列已满，第二条记录等待写入线程腾出空间
+        service.record("tester", session, "UPDATE", "/app/b", 0, 1, new byte[]{2}, 1, null);
+        consumer.join();
+
+        // 验证
+        assertEquals(0, service.getDroppedCount());
+        assertEquals(1, service.getPendingCount());
+
+        // 执行和验证：写入线程停滞超过等待时间后才丢弃
+        ReflectionTestUtils.setField(service, "offerTimeoutMs", 50L);
+        long start = System.nanoTime();
+        service.record("tester", session, "UPDATE", "/app/c", 0, 1, null, 1, null);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+        assertEquals(1, service.getDroppedCount());
+    }
+
+    @Test
+    void testTryRecordNeverBlocksAndAwaitCapacityWaits() throws Exception {
+        // 准备：容量为1的队列已满
+        AuditService service = new AuditService();
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(1);
+        ReflectionTestUtils.setField(service, "queue", queue);
+        ReflectionTestUtils.setField(service, "offerTimeoutMs", 5000L);
+        ZkSession session = mock(ZkSession.class);
+        service.tryRecord("tester", session, "CREATE", "/app/a", null, 0, null, 1, null);
+
+        // 执行：回调线程中的记录不等待，直接丢弃
+        long start = System.nanoTime();
+        service.tryRecord("tester", session, "CREATE", "/app/b", null, 0, null, 1, null);
+
+        // 验证
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(1, service.getDroppedCount());
+
+        // 执行和验证：发送线程等待队列腾出空间，写入线程停滞时最多等待offer-timeout-ms
+        queue.clear();
+        start = System.nanoTime();
+        service.awaitCapacity(1);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        queue.add(new Object());
+        ReflectionTestUtils.setField(service, "offerTimeoutMs", 50L);
+        start = System.nanoTime();
+        service.awaitCapacity(1);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+    }
+}
@@ -0,0 +1,75 @@
+package com.mytool.zktool;
+
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeJournalTest {
+
+    @Mock
+    private ZooKeeper zooKeeper;
+
+    @Test
+    void testZxidsIncreaseAndWindowSlides() throws Exception {
+        // 准备：打开时子树中最大的zxid为10，日志只保留两条
+        doAnswer(inv -> {
+            AsyncCallback.Children2Callback cb = inv.getArgument(2);
+            cb.processResult(0, inv.getArgument(0), null, List.of(), stat(10, 10));
+            return null;
+        }).when(zooKeeper).getChildren(eq("/app"), eq(false), any(AsyncCallback.Children2Callback.class), any());
+        Map<String, Stat> current = new HashMap<>();
+        doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            AsyncCallback.StatCallback cb = inv.getArgument(2);
+            Stat stat = current.get(path);
+            cb.processResult(stat != null ? 0 : -101, path, null, stat);
+            return null;
+        }).when(zooKeeper).exists(anyString(), eq(false), any(AsyncCallback.StatCallback.class), any());
+        ChangeJournal journal = new ChangeJournal(new ZkSession("test", zooKeeper), "/app", 2, 10);
+        journal.open();
+
+        // 执行：/app/b读到的mzxid小于之前记录的/app/a，删除/app/a时父节点pzxid为14
+        current.put("/app/a", stat(12, 0));
+        journal.process(event(Watcher.Event.EventType.NodeDataChanged, "/app/a"));
+        current.put("/app/b", stat(11, 0));
+        journal.process(event(Watcher.Event.EventType.NodeCreated, "/app/b"));
+        ChangeJournal.Window first = journal.read(10);
+        current.put("/app", stat(10, 14));
+        journal.process(event(Watcher.Event.EventType.NodeDeleted, "/app/a"));
+
+        // 验证：记录的zxid严格递增，最旧的记录被覆盖后更早的since要求重新同步
+        assertEquals(List.of(12L, 13L), first.getChanges().stream().map(ChangeJournal.Change::getZxid).toList());
+        assertEquals(13, first.getHighWater());
+        assertNull(journal.read(10).getChanges());
+        ChangeJournal.Window second = journal.read(13);
+        assertEquals(1, second.getChanges().size());
+        assertEquals(NodeEvent.DELETED, second.getChanges().get(0).getEvent());
+        assertEquals(14, second.getHighWater());
+    }
+
+    private static Stat stat(long mzxid, long pzxid) {
+        Stat stat = new Stat();
+        stat.setMzxid(mzxid);
+        stat.setPzxid(pzxid);
+        return stat;
+    }
+
+    private static WatchedEvent event(Watcher.Event.EventType type, String path) {
+        return new WatchedEvent(type, Watcher.Event.KeeperState.SyncConnected, path);
+    }
+}
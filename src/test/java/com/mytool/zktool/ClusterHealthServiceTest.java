@@ -0,0 +1,91 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.ClusterHealth;
+import com.mytool.zktool.dto.ServerHealth;
+import com.mytool.zktool.entity.Cluster;
+import com.mytool.zktool.service.ClusterService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ClusterHealthServiceTest {
+
+    @Test
+    void testParseFourLetterWords() {
+        // 准备
+        String mntr = "zk_version\t3.8.2\nzk_avg_latency\t0.4521\nzk_max_latency\t12\nzk_outstanding_requests\t3\n"
+                + "zk_server_state\tleader\nzk_znode_count\t1024\nzk_watch_count\t17\n";
+        String srvr = "Zookeeper version: 3.8.2\nLatency min/avg/max: 0/1.5/30\nReceived: 120\nMode: follower\nNode count: 8\n";
+        String cons = " /127.0.0.1:52768[1](queued=0,recved=10,sent=10,sid=0x1,lop=PING)\n"
+                + " /127.0.0.1:52770[1](queued=7,recved=3,sent=2,sid=0x2,lop=GETD)\n"
+                + " /127.0.0.1:52772[0](queued=0,recved=1,sent=0)\n\n";
+
+        // 执行
+        Map<String, String> metrics = ClusterHealthService.parseMntr(mntr);
+        Map<String, String> values = ClusterHealthService.parseSrvr(srvr);
+        long[] connections = ClusterHealthService.parseCons(cons);
+
+        // 验证
+        assertEquals("0.4521", metrics.get("zk_avg_latency"));
+        assertEquals("leader", metrics.get("zk_server_state"));
+        assertEquals("0/1.5/30", values.get("Latency min/avg/max"));
+        assertEquals("8", values.get("Node count"));
+        assertArrayEquals(new long[]{3, 7}, connections);
+        assertNull(ClusterHealthService.parseCons("cons is not executed because it is not in the whitelist."));
+    }
+
+    @Test
+    void testServersAndClusterStatus() {
+        // 准备
+        Cluster cluster = new Cluster();
+        cluster.setHost("zk1, zk2:2182,zk3");
+        cluster.setPort(2181);
+
+        // 执行和验证
+        assertEquals(List.of("zk1:2181", "zk2:2182", "zk3:2181"), ClusterHealthService.servers(cluster));
+        assertEquals("OK", ClusterHealthService.clusterStatus(List.of(sample("OK"), sample("OK"))));
+        assertEquals("WARN", ClusterHealthService.clusterStatus(List.of(sample("OK"), sample("DOWN"))));
+        assertEquals("DOWN", ClusterHealthService.clusterStatus(List.of(sample("DOWN"), sample("DOWN"))));
+    }
+
+    @Test
+    void testInvalidAddressRecordedAsDownSample() {
+        // 准备：一个端口不是数字，一个端口超出范围
+        Cluster cluster = new Cluster();
+        cluster.setId(1L);
+        cluster.setName("test");
+        cluster.setHost("zk1:abc,zk2:70000");
+        cluster.setPort(2181);
+        ClusterService clusterService = mock(ClusterService.class);
+        when(clusterService.getAllClusters()).thenReturn(List.of(cluster));
+        ClusterHealthService service = new ClusterHealthService();
+        ReflectionTestUtils.setField(service, "clusterService", clusterService);
+        service.init();
+
+        // 执行
+        try {
+            service.pollAll();
+        } finally {
+            service.shutdown();
+        }
+
+        // 验证：每台服务器都有一条带解析错误的DOWN采样
+        ClusterHealth health = service.summary().get(0);
+        assertEquals("DOWN", health.getStatus());
+        assertEquals(2, health.getServers().size());
+        assertEquals("无效的服务器端口: zk1:abc", health.getServers().get(0).getError());
+        assertEquals("无效的服务器端口: zk2:70000", health.getServers().get(1).getError());
+        assertThrows(IllegalArgumentException.class, () -> ClusterHealthService.parseAddress(":2181"));
+    }
+
+    private static ServerHealth sample(String status) {
+        ServerHealth sample = new ServerHealth();
+        sample.setStatus(status);
+        return sample;
+    }
+}
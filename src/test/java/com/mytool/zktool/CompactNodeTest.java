@@ -0,0 +1,60 @@
+package com.mytool.zktool;
+
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Id;
+import org.apache.zookeeper.data.Stat;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactNodeTest {
+
+    @Test
+    void testOfEncodesStatAclsAndPaging() {
+        // 准备：根节点的子节点还有下一页，子节点没有分页
+        NodeInfo root = node("/app", "app", "root data");
+        root.setStat(new Stat(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11));
+        root.setAcls(List.of(new ACL(ZooDefs.Perms.ALL, ZooDefs.Ids.ANYONE_ID_UNSAFE),
+                new ACL(ZooDefs.Perms.READ | ZooDefs.Perms.WRITE, new Id("digest", "admin:abc="))));
+        root.setNumChildren(10);
+        root.setHasMore(true);
+        root.setNextCursor("b");
+        NodeInfo child = node("/app/b", "b", "child data");
+        child.setNumChildren(0);
+        root.setChildren(List.of(child));
+
+        // 执行
+        CompactNode compact = CompactNode.of(root);
+
+        // 验证：Stat数组与Stat构造函数的参数顺序一致，ACL编码为scheme:id:perms
+        assertEquals("/app", compact.getPath());
+        assertEquals("app", compact.getName());
+        assertEquals("root data", compact.getData());
+        assertArrayEquals(new long[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11}, compact.getStat());
+        assertEquals(List.of("world:anyone:cdrwa", "digest:admin:abc=:rw"), compact.getAcls());
+        assertEquals(10, compact.getNumChildren());
+        assertEquals(Boolean.TRUE, compact.getHasMore());
+        assertEquals("b", compact.getNextCursor());
+
+        // 验证：子节点只带名称，没有下一页时不返回分页字段
+        CompactNode compactChild = compact.getChildren().get(0);
+        assertNull(compactChild.getPath());
+        assertEquals("b", compactChild.getName());
+        assertNull(compactChild.getStat());
+        assertNull(compactChild.getAcls());
+        assertNull(compactChild.getHasMore());
+        assertNull(compactChild.getNextCursor());
+        assertNull(compactChild.getChildren());
+    }
+
+    private static NodeInfo node(String path, String name, String data) {
+        NodeInfo node = new NodeInfo();
+        node.setPath(path);
+        node.setName(name);
+        node.setData(data);
+        return node;
+    }
+}
@@ -0,0 +1,178 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.NodeVersionInfo;
+import com.mytool.zktool.entity.HistoryRun;
+import com.mytool.zktool.entity.HistorySchedule;
+import com.mytool.zktool.mapper.HistoryMapper;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.zookeeper.data.Stat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class HistoryServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<String, TreeMirror.MirrorNode> tree = new LinkedHashMap<>();
+    private final ZkSessionRegistry sessionRegistry = mock(ZkSessionRegistry.class);
+    private final HistoryService historyService = new HistoryService();
+    private HistoryMapper historyMapper;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // 临时SQLite数据库，使用与应用相同的建表脚本和映射文件
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("history.db"));
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"));
+        populator.setContinueOnError(true);
+        populator.execute(dataSource);
+        SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setMapperLocations(new ClassPathResource("mapper/HistoryMapper.xml"));
+        Configuration configuration = new Configuration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        factoryBean.setConfiguration(configuration);
+        SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+        historyMapper = new SqlSessionTemplate(sqlSessionFactory).getMapper(HistoryMapper.class);
+
+        // 节点树由内存镜像提供
+        ZkSession session = mock(ZkSession.class);
+        TreeMirror mirror = mock(TreeMirror.class);
+        TreeMirrorService mirrorService = mock(TreeMirrorService.class);
+        when(sessionRegistry.resolve(anyString())).thenReturn(session);
+        when(sessionRegistry.keyOf(anyString())).thenAnswer(inv -> "cluster:" + Long.valueOf(inv.<String>getArgument(0).trim()));
+        when(mirrorService.find(eq(session), anyString())).thenReturn(mirror);
+        doAnswer(inv -> {
+            Consumer<Map.Entry<String, TreeMirror.MirrorNode>> visitor = inv.getArgument(1);
+            new LinkedHashMap<>(tree).entrySet().forEach(visitor);
+            return null;
+        }).when(mirror).forEach(anyString(), any());
+        when(mirror.get(anyString())).thenAnswer(inv -> tree.get(inv.<String>getArgument(0)));
+
+        ReflectionTestUtils.setField(historyService, "historyMapper", historyMapper);
+        ReflectionTestUtils.setField(historyService, "sqlSessionFactory", sqlSessionFactory);
+        ReflectionTestUtils.setField(historyService, "transactionTemplate",
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(historyService, "sessionRegistry", sessionRegistry);
+        ReflectionTestUtils.setField(historyService, "mirrorService", mirrorService);
+        historyService.init();
+    }
+
+    @Test
+    void testCaptureRecordsOnlyChangedNodesAndTombstones() throws Exception {
+        // 准备
+        HistorySchedule schedule = historyService.createSchedule("1", "/", 60);
+        put("/", 1, 1000, "");
+        put("/app", 2, 1000, "app");
+        put("/app/a", 3, 1000, "a1");
+        put("/app/b", 4, 1000, "b1");
+        put("/zookeeper", 0, 0, "");
+
+        // 执行：首次全部记录；之后a被修改、b被删除；最后一次没有变化
+        HistoryRun first = historyService.runNow(schedule.getId());
+        put("/app/a", 10, 2000, "a2");
+        tree.remove("/app/b");
+        HistoryRun second = historyService.runNow(schedule.getId());
+        HistoryRun third = historyService.runNow(schedule.getId());
+
+        // 验证：按mzxid比较只记录变化的节点，系统节点不记录，删除的节点写入删除标记
+        assertEquals(4, first.getScanned());
+        assertEquals(4, first.getChanged());
+        assertEquals(1, second.getChanged());
+        assertEquals(1, second.getDeleted());
+        assertEquals(0, third.getChanged());
+        assertEquals(0, third.getDeleted());
+        List<NodeVersionInfo> versionsA = historyService.versions(schedule.getId(), null, "/app/a", 10);
+        assertEquals(List.of("a2", "a1"), versionsA.stream().map(NodeVersionInfo::getData).toList());
+        List<NodeVersionInfo> versionsB = historyService.versions(schedule.getId(), null, "/app/b", 10);
+        assertEquals(2, versionsB.size());
+        assertTrue(versionsB.get(0).isDeleted());
+        assertEquals(second.getId(), versionsB.get(0).getRunId());
+        assertEquals(1, historyService.versions(schedule.getId(), null, "/app", 10).size());
+    }
+
+    @Test
+    void testAsOfRecursiveRangeAndDeletedNodes() throws Exception {
+        // 准备：/app-x、/app0和/apps与/app共享前缀，但不是/app的子孙节点
+        HistorySchedule schedule = historyService.createSchedule("1", "/", 60);
+        put("/", 1, 1000, "");
+        put("/app", 2, 1000, "app");
+        put("/app/a", 3, 1000, "a1");
+        put("/app/b", 4, 1000, "b1");
+        put("/app/b/c", 5, 1000, "c1");
+        put("/app-x", 6, 1000, "");
+        put("/app0", 7, 1000, "");
+        put("/apps", 8, 1000, "");
+        historyService.runNow(schedule.getId());
+        put("/app/a", 10, 2000, "a2");
+        tree.remove("/app/b/c");
+        tree.remove("/app/b");
+        historyService.runNow(schedule.getId());
+
+        // 执行
+        List<NodeVersionInfo> before = historyService.asOf(null, "1", "/app", "1500", true, 0, 100);
+        List<NodeVersionInfo> now = historyService.asOf(null, "1", "/app", null, true, 0, 100);
+        List<NodeVersionInfo> single = historyService.asOf(null, "1", "/app/a", "1500", false, 0, 100);
+        List<NodeVersionInfo> page = historyService.asOf(null, "1", "/app", "1500", true, 1, 2);
+
+        // 验证：每个路径取time之前的最后一个版本，删除后的节点不再返回，范围查询不包含共享前缀的兄弟节点
+        assertEquals(List.of("/app", "/app/a", "/app/b", "/app/b/c"), paths(before));
+        assertEquals("a1", before.get(1).getData());
+        assertEquals(List.of("/app", "/app/a"), paths(now));
+        assertEquals("a2", now.get(1).getData());
+        assertEquals(List.of("/app/a"), paths(single));
+        assertEquals("a1", single.get(0).getData());
+        assertEquals(List.of("/app/a", "/app/b"), paths(page));
+        assertTrue(historyService.asOf(null, "1", "/app", "999", true, 0, 100).isEmpty());
+        assertEquals(List.of("/", "/app", "/app-x", "/app/a", "/app0", "/apps"),
+                paths(historyService.asOf(null, "1", "/", null, true, 0, 100)));
+    }
+
+    @Test
+    void testFindScheduleNormalisesCluster() throws Exception {
+        // 准备
+        HistorySchedule schedule = historyService.createSchedule("1", "/app", 60);
+        put("/app", 2, 1000, "app");
+        historyService.runNow(schedule.getId());
+
+        // 执行和验证：同一集群的不同写法都能找到计划，其他集群找不到
+        assertEquals(1, historyService.asOf(null, "01", "/app", null, false, 0, 10).size());
+        assertEquals(1, historyService.asOf(null, " 1 ", "/app", null, false, 0, 10).size());
+        assertThrows(IllegalArgumentException.class, () -> historyService.asOf(null, "2", "/app", null, false, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> historyService.asOf(null, "1", "/other", null, false, 0, 10));
+    }
+
+    private void put(String path, long mzxid, long mtime, String data) {
+        Stat stat = new Stat();
+        stat.setMzxid(mzxid);
+        stat.setMtime(mtime);
+        stat.setDataLength(data.length());
+        tree.put(path, new TreeMirror.MirrorNode(data.getBytes(StandardCharsets.UTF_8), stat));
+    }
+
+    private static List<String> paths(List<NodeVersionInfo> versions) {
+        return versions.stream().map(NodeVersionInfo::getPath).toList();
+    }
+}
@@ -0,0 +1,197 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.LatencyStats;
+import com.mytool.zktool.dto.LoadTestRequest;
+import org.HdrHistogram.Histogram;
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LoadTestServiceTest {
+
+    @Test
+    void testLatencyStats() throws Exception {
+        // 准备：1000个1ms到1000ms均匀分布的延迟（微秒）
+        Histogram histogram = new Histogram(3);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordValue(i * 1000L);
+        }
+
+        // 执行
+        LatencyStats stats = LoadTestService.toStats(histogram, true);
+
+        // 验证
+        assertEquals(1000, stats.getCount());
+        assertEquals(500, stats.getP50Ms(), 1);
+        assertEquals(990, stats.getP99Ms(), 1);
+        assertEquals(999, stats.getP999Ms(), 1);
+        assertEquals(1000, stats.getMaxMs(), 1);
+        Histogram decoded = Histogram.decodeFromCompressedByteBuffer(
+                ByteBuffer.wrap(Base64.getDecoder().decode(stats.getHistogram())), 0);
+        assertEquals(histogram.getTotalCount(), decoded.getTotalCount());
+        assertNull(LoadTestService.toStats(histogram, false).getHistogram());
+    }
+
+    @Test
+    void testRejectsInvalidRequest() {
+        // 准备
+        LoadTestService service = new LoadTestService();
+        LoadTestRequest root = new LoadTestRequest();
+        root.setCluster("1");
+        root.setSandboxPath("/");
+        LoadTestRequest unknownOp = new LoadTestRequest();
+        unknownOp.setCluster("1");
+        unknownOp.setMix(Map.of("sync", 1));
+        LoadTestRequest tooManySessions = new LoadTestRequest();
+        tooManySessions.setCluster("1");
+        tooManySessions.setSessions(1000);
+
+        // 执行与验证：参数校验在连接集群之前完成
+        assertThrows(IllegalArgumentException.class, () -> service.start(root));
+        assertThrows(IllegalArgumentException.class, () -> service.start(unknownOp));
+        assertThrows(IllegalArgumentException.class, () -> service.start(tooManySessions));
+    }
+
+    @Test
+    void testCleanupAfterCreateDeleteMix() throws Exception {
+        // 准备：内存中的节点树，按同步回调模拟ZooKeeper的异步接口，记录单次getChildren返回的最大子节点数
+        Map<String, TreeSet<String>> tree = new HashMap<>();
+        AtomicInteger maxChildren = new AtomicInteger();
+        ZooKeeper zooKeeper = fakeZooKeeper(tree, maxChildren);
+        ZkSessionRegistry registry = mock(ZkSessionRegistry.class);
+        when(registry.resolve("1")).thenReturn(new ZkSession("test", zooKeeper));
+        ZkService zkService = new ZkService();
+        ReflectionTestUtils.setField(zkService, "mirrorService", mock(TreeMirrorService.class));
+        ReflectionTestUtils.setField(zkService, "auditService", mock(AuditService.class));
+        LoadTestService service = new LoadTestService();
+        ReflectionTestUtils.setField(service, "sessionRegistry", registry);
+        ReflectionTestUtils.setField(service, "zkService", zkService);
+
+        LoadTestRequest request = new LoadTestRequest();
+        request.setCluster("1");
+        request.setKeyCount(2500);
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        mix.put("create", 3);
+        mix.put("delete", 1);
+        LoadTestService.LoadTest test = new LoadTestService.LoadTest(1, request, "127.0.0.1:2181", mix, 1500);
+        tree.put("/", new TreeSet<>(List.of("zktool-loadtest")));
+        tree.put("/zktool-loadtest", new TreeSet<>());
+        createNode(tree, test.runPath);
+
+        // 执行：预建节点后发出4000次create/delete，create超过上限后改为delete或setData，最后清理
+        service.populate(test, zooKeeper);
+        Semaphore inFlight = new Semaphore(1);
+        for (int i = 0; i < 4000; i++) {
+            inFlight.acquire();
+            service.issue(test, zooKeeper, test.pick(), System.nanoTime(), inFlight);
+        }
+        service.cleanup(test);
+
+        // 验证：所有请求成功，新建节点数不超过上限，每个目录的子节点数不超过桶大小，运行路径被完整删除
+        assertEquals(0, test.errors.values().stream().mapToLong(LongAdder::sum).sum());
+        assertTrue(test.histograms.get("create").getTotalCount() <= 1500);
+        assertTrue(test.histograms.get("setData").getTotalCount() > 0);
+        assertTrue(maxChildren.get() <= LoadTestService.BUCKET_SIZE);
+        assertTrue(test.cleanedUp);
+        assertFalse(tree.containsKey(test.runPath));
+        assertEquals(new TreeSet<>(), tree.get("/zktool-loadtest"));
+    }
+
+    private static ZooKeeper fakeZooKeeper(Map<String, TreeSet<String>> tree, AtomicInteger maxChildren)
+            throws Exception {
+        ZooKeeper zooKeeper = mock(ZooKeeper.class);
+        when(zooKeeper.getState()).thenReturn(ZooKeeper.States.CONNECTED);
+        doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            AsyncCallback.StringCallback cb = inv.getArgument(4);
+            cb.processResult(createNode(tree, path).intValue(), path, null, path);
+            return null;
+        }).when(zooKeeper).create(anyString(), any(), any(), any(), any(AsyncCallback.StringCallback.class), any());
+        doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            AsyncCallback.VoidCallback cb = inv.getArgument(2);
+            cb.processResult(deleteNode(tree, path).intValue(), path, null);
+            return null;
+        }).when(zooKeeper).delete(anyString(), anyInt(), any(AsyncCallback.VoidCallback.class), any());
+        doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            AsyncCallback.StatCallback cb = inv.getArgument(3);
+            KeeperException.Code code = tree.containsKey(path) ? KeeperException.Code.OK : KeeperException.Code.NONODE;
+            cb.processResult(code.intValue(), path, null, new Stat());
+            return null;
+        }).when(zooKeeper).setData(anyString(), any(), anyInt(), any(AsyncCallback.StatCallback.class), any());
+        doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            AsyncCallback.Children2Callback cb = inv.getArgument(2);
+            TreeSet<String> children = tree.get(path);
+            if (children == null) {
+                cb.processResult(KeeperException.Code.NONODE.intValue(), path, null, null, null);
+            } else {
+                maxChildren.accumulateAndGet(children.size(), Math::max);
+                cb.processResult(KeeperException.Code.OK.intValue(), path, null, new ArrayList<>(children), new Stat());
+            }
+            return null;
+        }).when(zooKeeper).getChildren(anyString(), eq(false), any(AsyncCallback.Children2Callback.class), any());
+        when(zooKeeper.multi(any())).thenAnswer(inv -> {
+            List<OpResult> results = new ArrayList<>();
+            for (Op op : (Iterable<Op>) inv.getArgument(0)) {
+                KeeperException.Code code = deleteNode(tree, op.getPath());
+                if (code != KeeperException.Code.OK) {
+                    throw KeeperException.create(code, op.getPath());
+                }
+                results.add(new OpResult.DeleteResult());
+            }
+            return results;
+        });
+        return zooKeeper;
+    }
+
+    private static KeeperException.Code createNode(Map<String, TreeSet<String>> tree, String path) {
+        int slash = path.lastIndexOf('/');
+        TreeSet<String> siblings = tree.get(slash == 0 ? "/" : path.substring(0, slash));
+        if (siblings == null) {
+            return KeeperException.Code.NONODE;
+        }
+        if (tree.containsKey(path)) {
+            return KeeperException.Code.NODEEXISTS;
+        }
+        siblings.add(path.substring(slash + 1));
+        tree.put(path, new TreeSet<>());
+        return KeeperException.Code.OK;
+    }
+
+    private static KeeperException.Code deleteNode(Map<String, TreeSet<String>> tree, String path) {
+        TreeSet<String> children = tree.get(path);
+        if (children == null) {
+            return KeeperException.Code.NONODE;
+        }
+        if (!children.isEmpty()) {
+            return KeeperException.Code.NOTEMPTY;
+        }
+        int slash = path.lastIndexOf('/');
+        tree.get(slash == 0 ? "/" : path.substring(0, slash)).remove(path.substring(slash + 1));
+        tree.remove(path);
+        return KeeperException.Code.OK;
+    }
+}
@@ -0,0 +1,135 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.TreeDiff;
+import org.apache.zookeeper.data.Stat;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MerkleTreeTest {
+
+    @Test
+    void testRefreshOnlyRehashesChangedNodes() throws Exception {
+        // 准备
+        FakeTree cluster = new FakeTree();
+        cluster.put("/app", "root", 1);
+        for (int i = 0; i < 100; i++) {
+            cluster.put("/app/node" + i, "value" + i, 10 + i);
+        }
+        MerkleTree tree = new MerkleTree("/app", false);
+
+        // 执行：首次刷新读取全部节点
+        assertEquals(101, tree.refresh(cluster.listing(), cluster::hash));
+        byte[] first = tree.getRootEntry().getSubtree();
+        assertEquals(101, tree.getRootEntry().getSize());
+
+        // 未变化时不读取任何节点，哈希不变
+        assertEquals(0, tree.refresh(cluster.listing(), cluster::hash));
+        assertArrayEquals(first, tree.getRootEntry().getSubtree());
+
+        // 修改一个节点后只重新读取该节点
+        cluster.put("/app/node42", "changed", 500);
+        assertEquals(1, tree.refresh(cluster.listing(), cluster::hash));
+        assertFalse(Arrays.equals(first, tree.getRootEntry().getSubtree()));
+
+        // 改回原内容后哈希与最初一致
+        cluster.put("/app/node42", "value42", 501);
+        assertEquals(1, tree.refresh(cluster.listing(), cluster::hash));
+        assertArrayEquals(first, tree.getRootEntry().getSubtree());
+    }
+
+    @Test
+    void testDiffReportsOnlyDifferentBranches() throws Exception {
+        // 准备：两棵内容基本相同的子树，根路径不同
+        FakeTree left = new FakeTree();
+        FakeTree right = new FakeTree();
+        left.put("/a", "root", 1);
+        right.put("/b", "root", 2);
+        for (int i = 0; i < 10; i++) {
+            left.put("/a/group" + i, "", 3);
+            right.put("/b/group" + i, "", 4);
+            for (int j = 0; j < 10; j++) {
+                left.put("/a/group" + i + "/item" + j, "v" + j, 5);
+                right.put("/b/group" + i + "/item" + j, "v" + j, 6);
+            }
+        }
+        right.put("/b/group3/item7", "other", 7);
+        left.remove("/a/group5/item1");
+        left.put("/a/group8/extra", "x", 8);
+        left.put("/a/group8/extra/child", "y", 9);
+
+        MerkleTree leftTree = new MerkleTree("/a", false);
+        MerkleTree rightTree = new MerkleTree("/b", false);
+        leftTree.refresh(left.listing(), left::hash);
+        rightTree.refresh(right.listing(), right::hash);
+
+        // 执行
+        List<TreeDiff> differences = new ArrayList<>();
+        boolean complete = MerkleTree.diff(leftTree, rightTree, 0, differences);
+
+        // 验证
+        assertTrue(complete);
+        Map<String, TreeDiff> byPath = new HashMap<>();
+        for (TreeDiff diff : differences) {
+            byPath.put(diff.getPath(), diff);
+        }
+        assertEquals(3, byPath.size());
+        assertEquals(TreeDiff.CHANGED, byPath.get("/group3/item7").getType());
+        assertEquals(TreeDiff.RIGHT_ONLY, byPath.get("/group5/item1").getType());
+        assertEquals(TreeDiff.LEFT_ONLY, byPath.get("/group8/extra").getType());
+        assertEquals(2, byPath.get("/group8/extra").getNodeCount());
+
+        // 差异数达到上限时结果被截断
+        List<TreeDiff> limited = new ArrayList<>();
+        assertFalse(MerkleTree.diff(leftTree, rightTree, 2, limited));
+        assertEquals(2, limited.size());
+    }
+
+    // 内存中的子树，按路径保存数据和mzxid
+    private static class FakeTree {
+        private final TreeMap<String, String> data = new TreeMap<>();
+        private final Map<String, Long> mzxids = new HashMap<>();
+
+        void put(String path, String value, long mzxid) {
+            data.put(path, value);
+            mzxids.put(path, mzxid);
+        }
+
+        void remove(String path) {
+            data.remove(path);
+            mzxids.remove(path);
+        }
+
+        List<MerkleTree.Listed> listing() {
+            List<MerkleTree.Listed> listing = new ArrayList<>();
+            for (String path : data.keySet()) {
+                List<String> children = new ArrayList<>();
+                for (String other : data.keySet()) {
+                    if (other.startsWith(path + "/") && other.indexOf('/', path.length() + 1) < 0) {
+                        children.add(other.substring(path.length() + 1));
+                    }
+                }
+                Stat stat = new Stat();
+                stat.setMzxid(mzxids.get(path));
+                listing.add(new MerkleTree.Listed(path, stat, children));
+            }
+            return listing;
+        }
+
+        Map<String, byte[]> hash(List<String> paths) {
+            Map<String, byte[]> hashes = new HashMap<>();
+            for (String path : paths) {
+                hashes.put(path, MerkleTree.ownHash(data.get(path).getBytes(StandardCharsets.UTF_8), null, false));
+            }
+            return hashes;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.BatchResult;
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Id;
+import org.apache.zookeeper.data.Stat;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class MultiBatchExecutorTest {
+
+    @Test
+    void testSplitIntoChunks() {
+        // 准备
+        MultiBatchExecutor executor = new MultiBatchExecutor(mock(ZooKeeper.class), 1024, 3);
+        List<MultiBatchExecutor.Step> steps = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            steps.add(MultiBatchExecutor.create("/n" + i, new byte[100]));
+        }
+        steps.add(MultiBatchExecutor.create("/big", new byte[2000]));
+
+        // 执行
+        List<List<MultiBatchExecutor.Step>> chunks = executor.split(steps, List.of(Op.check("/lock", 1)));
+
+        // 验证：每块最多2个操作（预留1个给check），超大操作单独成块
+        assertEquals(5, chunks.size());
+        assertEquals(2, chunks.get(0).size());
+        assertEquals(1, chunks.get(4).size());
+        assertEquals("/big", chunks.get(4).get(0).getPath());
+    }
+
+    @Test
+    void testAtomicRollbackChecksCommittedVersions() throws Exception {
+        // 准备：每块一个操作，第四块失败；/b的ACL只读
+        ZooKeeper zooKeeper = mock(ZooKeeper.class);
+        List<ACL> readOnly = List.of(new ACL(ZooDefs.Perms.READ, new Id("world", "anyone")));
+        mockReads(zooKeeper, Map.of("/a", "old-a", "/b", "old-b", "/c", "old-c"), 0, readOnly);
+        when(zooKeeper.multi(anyList()))
+                .thenReturn(List.of(new OpResult.SetDataResult(statWithVersion(5))))
+                .thenReturn(List.of(new OpResult.DeleteResult()))
+                .thenReturn(List.of(new OpResult.CreateResult("/d")))
+                .thenThrow(KeeperException.create(KeeperException.Code.BADVERSION, "/c"))
+                .thenReturn(List.of());
+        MultiBatchExecutor executor = new MultiBatchExecutor(zooKeeper, 1024, 1);
+        List<MultiBatchExecutor.Step> steps = List.of(
+                MultiBatchExecutor.update("/a", "new-a".getBytes(), -1),
+                MultiBatchExecutor.delete("/b", -1),
+                MultiBatchExecutor.create("/d", "d".getBytes()),
+                MultiBatchExecutor.update("/c", "new-c".getBytes(), 3));
+
+        // 执行
+        BatchResult result = executor.execute(steps, null, true);
+
+        // 验证：倒序补偿，新建的节点按版本0删除，删除的节点按原ACL重建，更新按提交后的版本写回
+        assertFalse(result.isSuccess());
+        assertTrue(result.isRolledBack());
+        assertEquals("/c", result.getFailedPath());
+        ArgumentCaptor<List<Op>> ops = ArgumentCaptor.forClass(List.class);
+        verify(zooKeeper, times(7)).multi(ops.capture());
+        List<List<Op>> calls = ops.getAllValues();
+        assertEquals(List.of(Op.delete("/d", 0)), calls.get(4));
+        assertEquals(List.of(Op.create("/b", "old-b".getBytes(), readOnly, CreateMode.PERSISTENT)), calls.get(5));
+        assertEquals(List.of(Op.setData("/a", "old-a".getBytes(), 5)), calls.get(6));
+        verify(zooKeeper, never()).getData(eq("/d"), anyBoolean(), any(AsyncCallback.DataCallback.class), any());
+    }
+
+    @Test
+    void testAtomicBatchRefusesToDeleteEphemeralNode() throws Exception {
+        // 准备
+        ZooKeeper zooKeeper = mock(ZooKeeper.class);
+        mockReads(zooKeeper, Map.of("/e", "e"), 0x1234L, ZooDefs.Ids.OPEN_ACL_UNSAFE);
+        MultiBatchExecutor executor = new MultiBatchExecutor(zooKeeper, 1024, 1);
+        List<MultiBatchExecutor.Step> steps = List.of(
+                MultiBatchExecutor.create("/n", new byte[0]),
+                MultiBatchExecutor.delete("/e", -1));
+
+        // 执行
+        BatchResult result = executor.execute(steps, null, true);
+
+        // 验证：无法补偿时不开始写入
+        assertFalse(result.isSuccess());
+        assertEquals("/e", result.getFailedPath());
+        verify(zooKeeper, never()).multi(anyList());
+    }
+
+    @Test
+    void testRollbackRestoresPathUpdatedTwiceOnce() throws Exception {
+        // 准备：同一路径连续更新两次，第三块失败
+        ZooKeeper zooKeeper = mock(ZooKeeper.class);
+        mockReads(zooKeeper, Map.of("/a", "old-a", "/x", "old-x"), 0, ZooDefs.Ids.OPEN_ACL_UNSAFE);
+        when(zooKeeper.multi(anyList()))
+                .thenReturn(List.of(new OpResult.SetDataResult(statWithVersion(4))))
+                .thenReturn(List.of(new OpResult.SetDataResult(statWithVersion(5))))
+                .thenThrow(KeeperException.create(KeeperException.Code.NONODE, "/x"))
+                .thenReturn(List.of());
+        MultiBatchExecutor executor = new MultiBatchExecutor(zooKeeper, 1024, 1);
+        List<MultiBatchExecutor.Step> steps = List.of(
+                MultiBatchExecutor.update("/a", "a1".getBytes(), -1),
+                MultiBatchExecutor.update("/a", "a2".getBytes(), -1),
+                MultiBatchExecutor.update("/x", "x".getBytes(), -1));
+
+        // 执行
+        BatchResult result = executor.execute(steps, null, true);
+
+        // 验证：旧值只读取一次，按最后提交的版本写回一次
+        assertTrue(result.isRolledBack());
+        ArgumentCaptor<List<Op>> ops = ArgumentCaptor.forClass(List.class);
+        verify(zooKeeper, times(4)).multi(ops.capture());
+        assertEquals(List.of(Op.setData("/a", "old-a".getBytes(), 5)), ops.getAllValues().get(3));
+        verify(zooKeeper, times(1)).getData(eq("/a"), anyBoolean(), any(AsyncCallback.DataCallback.class), any());
+    }
+
+    @Test
+    void testRollbackDeletesPathCreatedThenUpdated() throws Exception {
+        // 准备：先新建再更新同一路径，第三块失败
+        ZooKeeper zooKeeper = mock(ZooKeeper.class);
+        mockReads(zooKeeper, Map.of("/x", "old-x"), 0, ZooDefs.Ids.OPEN_ACL_UNSAFE);
+        when(zooKeeper.multi(anyList()))
+                .thenReturn(List.of(new OpResult.CreateResult("/n")))
+                .thenReturn(List.of(new OpResult.SetDataResult(statWithVersion(1))))
+                .thenThrow(KeeperException.create(KeeperException.Code.BADVERSION, "/x"))
+                .thenReturn(List.of());
+        MultiBatchExecutor executor = new MultiBatchExecutor(zooKeeper, 1024, 1);
+        List<MultiBatchExecutor.Step> steps = List.of(
+                MultiBatchExecutor.create("/n", "n0".getBytes()),
+                MultiBatchExecutor.update("/n", "n1".getBytes(), 0),
+                MultiBatchExecutor.update("/x", "x".getBytes(), 7));
+
+        // 执行
+        BatchResult result = executor.execute(steps, null, true);
+
+        // 验证：批次开始前不存在的节点不读取旧值，回滚时按最终版本删除
+        assertTrue(result.isRolledBack());
+        ArgumentCaptor<List<Op>> ops = ArgumentCaptor.forClass(List.class);
+        verify(zooKeeper, times(4)).multi(ops.capture());
+        assertEquals(List.of(Op.delete("/n", 1)), ops.getAllValues().get(3));
+        verify(zooKeeper, never()).getData(eq("/n"), anyBoolean(), any(AsyncCallback.DataCallback.class), any());
+    }
+
+    private static void mockReads(ZooKeeper zooKeeper, Map<String, String> data, long ephemeralOwner, List<ACL> acls) {
+        Stat stat = new Stat();
+        stat.setEphemeralOwner(ephemeralOwner);
+        doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            AsyncCallback.DataCallback cb = inv.getArgument(2);
+            cb.processResult(0, path, null, data.get(path).getBytes(), stat);
+            return null;
+        }).when(zooKeeper).getData(anyString(), eq(false), any(AsyncCallback.DataCallback.class), any());
+        lenient().doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            AsyncCallback.ACLCallback cb = inv.getArgument(2);
+            cb.processResult(0, path, null, acls, stat);
+            return null;
+        }).when(zooKeeper).getACL(anyString(), any(), any(AsyncCallback.ACLCallback.class), any());
+    }
+
+    private static Stat statWithVersion(int version) {
+        Stat stat = new Stat();
+        stat.setVersion(version);
+        return stat;
+    }
+}
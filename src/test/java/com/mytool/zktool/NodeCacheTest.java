@@ -0,0 +1,102 @@
+package com.mytool.zktool;
+
+import org.apache.zookeeper.data.Stat;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeCacheTest {
+
+    @Test
+    void testEvictionReportsPathsNotBeingLoaded() throws Exception {
+        // 准备：容量只够少数条目
+        Set<String> evicted = ConcurrentHashMap.newKeySet();
+        NodeCache cache = new NodeCache(2000, evicted::add);
+        load(cache, "/loading");
+        cache.beginLoad("/loading");
+
+        // 执行：放入远超容量的条目，其中/loading在淘汰时正在被重新读取
+        for (int i = 0; i < 50; i++) {
+            load(cache, "/n" + i);
+        }
+        long deadline = System.currentTimeMillis() + 2000;
+        while (evicted.size() < 40 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // 验证：被淘汰的条目都通知了，淘汰时正在读取的路径不通知
+        assertTrue(evicted.size() >= 40);
+        assertFalse(evicted.contains("/loading"));
+    }
+
+    @Test
+    void testInvalidationIsNotReportedAsEviction() throws Exception {
+        // 准备
+        Set<String> evicted = ConcurrentHashMap.newKeySet();
+        NodeCache cache = new NodeCache(NodeCache.DEFAULT_MAX_BYTES, evicted::add);
+        load(cache, "/a");
+        load(cache, "/b");
+
+        // 执行：Watch触发或本工具写入导致的失效，Watch已经触发或即将触发，无需移除
+        cache.invalidateWrite("/a");
+        cache.clear();
+        Thread.sleep(50);
+
+        // 验证
+        assertTrue(evicted.isEmpty());
+    }
+
+    @Test
+    void testInvalidationDiscardsOnlyLoadsOfTheSamePath() {
+        // 准备
+        Set<String> removed = ConcurrentHashMap.newKeySet();
+        NodeCache cache = new NodeCache(NodeCache.DEFAULT_MAX_BYTES, removed::add);
+        NodeCache.Load a = cache.beginLoad("/a");
+        NodeCache.Load b = cache.beginLoad("/b");
+        NodeCache.Load missing = cache.beginLoad("/missing");
+
+        // 执行：读取期间/b失效，/missing不存在
+        cache.invalidate("/b");
+        cache.invalidate("/other");
+
+        // 验证：其他路径的失效不影响/a；丢弃的结果和不存在的节点移除其注册的Watch
+        assertTrue(cache.complete(a, entry()));
+        assertFalse(cache.complete(b, entry()));
+        assertFalse(cache.complete(missing, null));
+        assertNotNull(cache.get("/a", true));
+        assertNull(cache.get("/b", true));
+        assertEquals(Set.of("/b", "/missing"), removed);
+    }
+
+    @Test
+    void testDiscardedLoadKeepsWatchesStillInUse() {
+        // 准备：/a有两次并发读取
+        Set<String> removed = ConcurrentHashMap.newKeySet();
+        NodeCache cache = new NodeCache(NodeCache.DEFAULT_MAX_BYTES, removed::add);
+        NodeCache.Load first = cache.beginLoad("/a");
+        NodeCache.Load second = cache.beginLoad("/a");
+        cache.clear();
+
+        // 执行和验证：清空前开始的读取都被丢弃，另一个读取仍在进行时不移除Watch
+        assertFalse(cache.complete(first, entry()));
+        assertTrue(removed.isEmpty());
+        assertFalse(cache.complete(second, entry()));
+        assertEquals(Set.of("/a"), removed);
+
+        // 执行和验证：清空之后开始的读取正常缓存
+        assertTrue(cache.complete(cache.beginLoad("/a"), entry()));
+        assertNotNull(cache.get("/a", true));
+    }
+
+    private static void load(NodeCache cache, String path) {
+        cache.complete(cache.beginLoad(path), entry());
+    }
+
+    private static NodeCache.Entry entry() {
+        return new NodeCache.Entry(new byte[100], true, new Stat(), List.of());
+    }
+}
@@ -0,0 +1,98 @@
+package com.mytool.zktool;
+
+import org.apache.zookeeper.AddWatchMode;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NodeEventServiceTest {
+
+    @Mock
+    private ZooKeeper zooKeeper;
+
+    private final NodeEventService service = new NodeEventService();
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void testStalledSubscriberExpiresWithoutBlockingFlusher() throws Exception {
+        // 准备：只有一个常驻发送线程，发送超时200ms
+        when(zooKeeper.getState()).thenReturn(ZooKeeper.States.CONNECTED);
+        ReflectionTestUtils.setField(service, "senderThreads", 1);
+        ReflectionTestUtils.setField(service, "coalesceMs", 20L);
+        ReflectionTestUtils.setField(service, "sendTimeoutMs", 200L);
+        service.init();
+        ZkSession session = new ZkSession("test", zooKeeper);
+        SseEmitter stalled = service.subscribe(session, "/app");
+        ArgumentCaptor<Watcher> watcher = ArgumentCaptor.forClass(Watcher.class);
+        verify(zooKeeper).addWatch(eq("/app"), watcher.capture(), eq(AddWatchMode.PERSISTENT_RECURSIVE));
+
+        // 执行：持有emitter的锁，发送线程阻塞在send中，如同客户端停止读取
+        synchronized (stalled) {
+            watcher.getValue().process(new WatchedEvent(Watcher.Event.EventType.NodeDataChanged,
+                    Watcher.Event.KeeperState.SyncConnected, "/app/a"));
+
+            // 验证：发送仍阻塞时订阅已被移除，ZooKeeper上的监听随之移除
+            verify(zooKeeper, timeout(2000)).removeWatches(eq("/app"), any(Watcher.class), eq(Watcher.WatcherType.Any), eq(true));
+        }
+    }
+
+    @Test
+    void testSaturatedSenderPoolDefersSending() throws Exception {
+        // 准备：最多一个发送线程、一个排队任务，三个订阅者
+        when(zooKeeper.getState()).thenReturn(ZooKeeper.States.CONNECTED);
+        ReflectionTestUtils.setField(service, "senderThreads", 1);
+        ReflectionTestUtils.setField(service, "maxSenderThreads", 1);
+        ReflectionTestUtils.setField(service, "senderQueueSize", 1);
+        ReflectionTestUtils.setField(service, "coalesceMs", 20L);
+        service.init();
+        ZkSession session = new ZkSession("test", zooKeeper);
+        SseEmitter stalled = service.subscribe(session, "/app");
+        service.subscribe(session, "/app");
+        service.subscribe(session, "/app");
+        ArgumentCaptor<Watcher> watcher = ArgumentCaptor.forClass(Watcher.class);
+        verify(zooKeeper).addWatch(eq("/app"), watcher.capture(), eq(AddWatchMode.PERSISTENT_RECURSIVE));
+        Set<NodeEventSubscriber> subscribers = subscribers("test|/app");
+
+        // 执行：第一个订阅者的发送阻塞，第二个排队，第三个被拒绝
+        synchronized (stalled) {
+            watcher.getValue().process(new WatchedEvent(Watcher.Event.EventType.NodeDataChanged,
+                    Watcher.Event.KeeperState.SyncConnected, "/app/a"));
+            Thread.sleep(200);
+            // 阻塞的订阅者已取出事件，另外两个的事件仍在缓冲区中
+            assertEquals(2, subscribers.stream().filter(NodeEventSubscriber::hasPending).count());
+        }
+
+        // 验证：线程池空闲后，被拒绝的发送在之后的轮次中完成，调度线程没有因拒绝而停止
+        long deadline = System.currentTimeMillis() + 2000;
+        while (subscribers.stream().anyMatch(NodeEventSubscriber::hasPending) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(subscribers.stream().anyMatch(NodeEventSubscriber::hasPending));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<NodeEventSubscriber> subscribers(String key) {
+        Map<String, Object> watches = (Map<String, Object>) ReflectionTestUtils.getField(service, "watches");
+        return (Set<NodeEventSubscriber>) ReflectionTestUtils.getField(watches.get(key), "subscribers");
+    }
+}
@@ -0,0 +1,59 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.NodeEventMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeEventSubscriberTest {
+
+    @Test
+    void testCoalescesEventsPerPath() {
+        NodeEventSubscriber subscriber = new NodeEventSubscriber("test|/", new SseEmitter(), 10);
+
+        subscriber.offer("/a", NodeEvent.CREATED);
+        subscriber.offer("/a", NodeEvent.UPDATED);
+        subscriber.offer("/b", NodeEvent.UPDATED);
+        subscriber.offer("/a", NodeEvent.DELETED);
+
+        List<NodeEventMessage> messages = subscriber.drain();
+        assertEquals(2, messages.size());
+        assertEquals("/a", messages.get(0).getPath());
+        assertEquals("DELETED", messages.get(0).getEvent());
+        assertEquals(3, messages.get(0).getCount());
+        assertEquals("/b", messages.get(1).getPath());
+        assertFalse(subscriber.hasPending());
+    }
+
+    @Test
+    void testDropsOldestWhenFull() {
+        NodeEventSubscriber subscriber = new NodeEventSubscriber("test|/", new SseEmitter(), 2);
+
+        subscriber.offer("/a", NodeEvent.UPDATED);
+        subscriber.offer("/b", NodeEvent.UPDATED);
+        subscriber.offer("/c", NodeEvent.UPDATED);
+
+        assertEquals(1, subscriber.drainDropped());
+        assertEquals(List.of("/b", "/c"), subscriber.drain().stream().map(NodeEventMessage::getPath).toList());
+        assertEquals(0, subscriber.drainDropped());
+    }
+
+    @Test
+    void testClosedSubscriberStopsSending() throws Exception {
+        NodeEventSubscriber subscriber = new NodeEventSubscriber("test|/", new SseEmitter(), 10);
+
+        assertTrue(subscriber.tryStartSending());
+        assertFalse(subscriber.tryStartSending());
+        Thread.sleep(20);
+        assertTrue(subscriber.isStalled(System.currentTimeMillis(), 10));
+        subscriber.finishSending();
+        assertFalse(subscriber.isStalled(System.currentTimeMillis(), 10));
+
+        assertTrue(subscriber.close());
+        assertFalse(subscriber.close());
+        assertFalse(subscriber.tryStartSending());
+    }
+}
@@ -0,0 +1,42 @@
+package com.mytool.zktool;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeValueFormatTest {
+
+    @Test
+    void testSniff() {
+        // 准备：超过识别长度的文本，截断处恰好落在中文字符中间
+        byte[] longText = new byte[NodeValueFormat.SNIFF_BYTES + 2];
+        Arrays.fill(longText, (byte) 'a');
+        byte[] chinese = "中".getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(chinese, 0, longText, NodeValueFormat.SNIFF_BYTES - 1, chinese.length);
+
+        // 执行和验证
+        assertEquals(MediaType.APPLICATION_JSON, NodeValueFormat.sniff(" \n[1, 2]".getBytes(StandardCharsets.UTF_8)));
+        MediaType text = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+        assertEquals(text, NodeValueFormat.sniff("名称=值\n".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(text, NodeValueFormat.sniff(longText));
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, NodeValueFormat.sniff(new byte[]{'{', 0, 1}));
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, NodeValueFormat.sniff(new byte[]{(byte) 0xC3, 'a'}));
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, NodeValueFormat.sniff(new byte[0]));
+    }
+
+    @Test
+    void testRender() {
+        // 准备
+        byte[] data = {0, (byte) 0xFF, 'z'};
+
+        // 执行和验证：raw不复制数组
+        assertSame(data, NodeValueFormat.render(data, NodeValueFormat.RENDER_RAW));
+        assertEquals("00ff7a", new String(NodeValueFormat.render(data, NodeValueFormat.RENDER_HEX), StandardCharsets.US_ASCII));
+        assertEquals("AP96", new String(NodeValueFormat.render(data, NodeValueFormat.RENDER_BASE64), StandardCharsets.US_ASCII));
+        assertThrows(IllegalArgumentException.class, () -> NodeValueFormat.render(data, "octal"));
+    }
+}
@@ -0,0 +1,42 @@
+package com.mytool.zktool;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryParamsTest {
+
+    @Test
+    void testParseTime() {
+        // 准备
+        long expected = LocalDateTime.of(2024, 3, 1, 12, 30, 15).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        // 执行和验证：毫秒时间戳与本地时间两种格式
+        assertEquals(1700000000000L, QueryParams.parseTime("1700000000000"));
+        assertEquals(expected, QueryParams.parseTime("2024-03-01T12:30:15"));
+        assertEquals(expected, QueryParams.parseTime("2024-03-01 12:30:15"));
+        assertThrows(IllegalArgumentException.class, () -> QueryParams.parseTime("yesterday"));
+    }
+
+    @Test
+    void testPrefixEnd() {
+        // 执行和验证：最后一个码点加一，U+FFFF进位到补充平面，跳过代理区，已是最大值的码点被截断
+        String max = new String(Character.toChars(Character.MAX_CODE_POINT));
+        assertEquals("/app0", QueryParams.prefixEnd("/app/"));
+        assertEquals("/a\uD800\uDC00", QueryParams.prefixEnd("/a\uFFFF"));
+        assertEquals("/a\uE000", QueryParams.prefixEnd("/a\uD7FF"));
+        assertEquals("/b", QueryParams.prefixEnd("/a" + max));
+        assertNull(QueryParams.prefixEnd(max));
+
+        // 验证：上界按UTF-8字节顺序大于所有以前缀开头的路径
+        String prefix = "/a\uFFFF";
+        byte[] end = QueryParams.prefixEnd(prefix).getBytes(StandardCharsets.UTF_8);
+        byte[] path = (prefix + "\uFFFF/x").getBytes(StandardCharsets.UTF_8);
+        assertTrue(Arrays.compareUnsigned(path, end) < 0);
+    }
+}
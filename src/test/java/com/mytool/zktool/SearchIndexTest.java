@@ -0,0 +1,109 @@
+package com.mytool.zktool;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    @Test
+    void testPathNameAndCompletion() {
+        // 准备
+        SearchIndex index = new SearchIndex(1024);
+        put(index, "/app", "");
+        put(index, "/app/config", "");
+        put(index, "/app/config/db", "url=jdbc:mysql://db1");
+        put(index, "/app/consumer", "");
+        put(index, "/app/consumer/config", "");
+        put(index, "/app/provider", "");
+
+        // 执行和验证：路径前缀
+        assertEquals(List.of("/app/config", "/app/config/db"), paths(index.searchPath("/", "/app/conf", 0, 10, 100)));
+        // 节点名前缀，结果按路径排序
+        assertEquals(List.of("/app/config", "/app/consumer/config"), paths(index.searchName("/", "config", 0, 10, 100)));
+        assertEquals(List.of("/app/consumer/config"), paths(index.searchName("/app/consumer", "config", 0, 10, 100)));
+        // 补全只返回直接子节点
+        assertEquals(List.of("/app/config", "/app/consumer"), index.complete("/app", "con", 10));
+        assertEquals(List.of("/app"), index.complete("/", "", 10));
+    }
+
+    @Test
+    void testDataSearchFollowsUpdates() {
+        // 准备
+        SearchIndex index = new SearchIndex(1024);
+        for (int i = 0; i < 1000; i++) {
+            put(index, String.format("/svc/node%04d", i), "host=10.0.0." + (i % 250) + ";port=" + (8000 + i));
+        }
+
+        // 执行和验证：子串查询与分页
+        SearchIndex.Page page = index.searchData("/", "port=81", false, 0, 10, 10000);
+        assertEquals(100, page.total);
+        assertTrue(page.exact);
+        assertEquals("/svc/node0100", page.hits.get(0).path);
+        assertEquals("/svc/node0110", index.searchData("/", "port=81", false, 10, 10, 10000).hits.get(0).path);
+        assertEquals(100, index.searchData("/", "PORT=81", true, 0, 10, 10000).total);
+        assertEquals(0, index.searchData("/", "PORT=81", false, 0, 10, 10000).total);
+
+        // 计数上限
+        SearchIndex.Page capped = index.searchData("/", "host=", false, 0, 10, 50);
+        assertFalse(capped.exact);
+        assertEquals(10, capped.hits.size());
+
+        // 更新和删除后索引随之变化
+        put(index, "/svc/node0100", "host=standby");
+        index.remove("/svc/node0101");
+        assertEquals(98, index.searchData("/", "port=81", false, 0, 10, 10000).total);
+        assertEquals(List.of("/svc/node0100"), paths(index.searchData("/", "standby", false, 0, 10, 10000)));
+
+        // 正则查询
+        Pattern pattern = Pattern.compile("port=80[0-9]5$");
+        assertEquals(10, index.searchRegex("/", pattern, 0, 100, 10000).total);
+    }
+
+    @Test
+    void testCompactionKeepsResults() {
+        // 准备：反复更新产生大量失效编号，删除时触发压缩
+        SearchIndex index = new SearchIndex(1024);
+        for (int round = 0; round < 30; round++) {
+            for (int i = 0; i < 1000; i++) {
+                put(index, "/n" + i, "round" + round + "-value" + i);
+            }
+        }
+        for (int i = 500; i < 1000; i++) {
+            index.remove("/n" + i);
+        }
+
+        // 验证
+        assertEquals(500, index.size());
+        assertEquals(500, index.searchData("/", "round29-", false, 0, 10, 10000).total);
+        assertEquals(0, index.searchData("/", "round28-", false, 0, 10, 10000).total);
+        assertEquals(List.of("/n42"), paths(index.searchData("/", "value42", false, 0, 10, 10000)).subList(0, 1));
+    }
+
+    @Test
+    void testRequiredLiterals() {
+        assertEquals(List.of("error", "timeout"), SearchIndex.requiredLiterals("error.*timeout"));
+        assertEquals(List.of("hos", "name"), SearchIndex.requiredLiterals("host?name"));
+        assertEquals(List.of(), SearchIndex.requiredLiterals("foo|bar"));
+        assertEquals(List.of("suffix"), SearchIndex.requiredLiterals("(optional)?suffix"));
+        assertEquals(List.of(), SearchIndex.requiredLiterals("[abcdef]+"));
+        assertEquals(List.of("abc"), SearchIndex.requiredLiterals("abcd{0,100}"));
+    }
+
+    private static void put(SearchIndex index, String path, String data) {
+        index.put(path, data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> paths(SearchIndex.Page page) {
+        List<String> paths = new ArrayList<>();
+        for (SearchIndex.Hit hit : page.hits) {
+            paths.add(hit.path);
+        }
+        return paths;
+    }
+}
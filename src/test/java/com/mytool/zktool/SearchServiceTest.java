@@ -0,0 +1,37 @@
+package com.mytool.zktool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchServiceTest {
+
+    @Mock
+    private ZkSessionRegistry sessionRegistry;
+
+    @Mock
+    private TreeMirrorService mirrorService;
+
+    @InjectMocks
+    private SearchService searchService;
+
+    @Test
+    void testSearchWithoutMirrorDoesNotEnableOne() throws Exception {
+        // 准备：没有覆盖/app的镜像
+        ZkSession session = mock(ZkSession.class);
+        when(sessionRegistry.resolve("1")).thenReturn(session);
+        when(mirrorService.find(session, "/app")).thenReturn(null);
+
+        // 执行和验证：返回错误，不会为整个集群开启镜像
+        assertThrows(IllegalStateException.class,
+                () -> searchService.search("1", SearchService.TYPE_DATA, "db", "/app", false, 0, 10));
+        verify(mirrorService, never()).enable(any(), anyString());
+    }
+}
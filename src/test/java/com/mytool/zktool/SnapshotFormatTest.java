@@ -0,0 +1,87 @@
+package com.mytool.zktool;
+
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Id;
+import org.apache.zookeeper.data.Stat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFormatTest {
+
+    private static final List<ACL> DIGEST_ACL = List.of(new ACL(ZooDefs.Perms.READ, new Id("digest", "user:abc")));
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testRoundTrip(boolean compress) throws IOException {
+        // 准备：足够多的节点以产生多个数据块，包含二进制数据、null数据和不同的ACL
+        Path file = dir.resolve("test.zks");
+        List<NodeRecord> written = new ArrayList<>();
+        written.add(new NodeRecord("/app", null, stat(1), ZooDefs.Ids.OPEN_ACL_UNSAFE));
+        for (int i = 0; i < 5000; i++) {
+            byte[] data = new byte[100];
+            for (int j = 0; j < data.length; j++) {
+                data[j] = (byte) (i + j);
+            }
+            written.add(new NodeRecord("/app/node" + i, data, stat(i + 2), i % 7 == 0 ? DIGEST_ACL : ZooDefs.Ids.OPEN_ACL_UNSAFE));
+        }
+        try (OutputStream out = Files.newOutputStream(file);
+             SnapshotWriter writer = new SnapshotWriter(out, "/app", compress)) {
+            for (NodeRecord record : written) {
+                writer.write(record);
+            }
+        }
+
+        // 执行和验证：顺序读取
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            assertEquals("/app", reader.getRoot());
+            assertEquals(written.size(), reader.getNodeCount());
+            assertEquals(compress, reader.isCompressed());
+            assertTrue(reader.getBlockCount() > 1);
+            for (NodeRecord expected : written) {
+                NodeRecord actual = reader.next();
+                assertEquals(expected.getPath(), actual.getPath());
+                assertArrayEquals(expected.getData(), actual.getData());
+                assertEquals(expected.getStat(), actual.getStat());
+                assertEquals(expected.getAcls(), actual.getAcls());
+            }
+            assertNull(reader.next());
+        }
+
+        // 按路径查询
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            List<String> paths = new ArrayList<>();
+            reader.forEach("/app/node4999", record -> paths.add(record.getPath()));
+            assertEquals(List.of("/app/node4999"), paths);
+        }
+    }
+
+    @Test
+    void testRejectsTruncatedFile() throws IOException {
+        Path file = dir.resolve("truncated.zks");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            SnapshotWriter writer = new SnapshotWriter(out, "/", true);
+            writer.write(new NodeRecord("/", new byte[0], stat(1), ZooDefs.Ids.OPEN_ACL_UNSAFE));
+            writer.abort();
+        }
+        assertThrows(IOException.class, () -> SnapshotReader.open(file));
+    }
+
+    private static Stat stat(long zxid) {
+        return new Stat(zxid, zxid + 1, 1700000000000L, 1700000000001L, 3, 0, 1, 0, 100, 2, zxid + 2);
+    }
+}
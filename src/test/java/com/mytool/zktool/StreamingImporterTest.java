@@ -0,0 +1,64 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.ImportProgress;
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StreamingImporterTest {
+
+    @Mock
+    private ZooKeeper zooKeeper;
+
+    @Test
+    void testCreatesNewNodesAndUpdatesExisting() throws Exception {
+        // 准备：/a已存在，/a/b是新节点，/a/c写入失败
+        doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            int rc = path.equals("/a") ? KeeperException.Code.NODEEXISTS.intValue()
+                    : path.equals("/a/c") ? KeeperException.Code.NOAUTH.intValue()
+                    : KeeperException.Code.OK.intValue();
+            ((AsyncCallback.StringCallback) inv.getArgument(4)).processResult(rc, path, null, path);
+            return null;
+        }).when(zooKeeper).create(anyString(), any(), any(), eq(CreateMode.PERSISTENT), any(AsyncCallback.StringCallback.class), any());
+        doAnswer(inv -> {
+            ((AsyncCallback.StatCallback) inv.getArgument(3)).processResult(0, inv.getArgument(0), null, new Stat());
+            return null;
+        }).when(zooKeeper).setData(anyString(), any(), eq(-1), any(AsyncCallback.StatCallback.class), any());
+        String input = "{\"path\":\"/a\",\"data\":\"1\"}\n{\"path\":\"/a/b\",\"data\":\"2\"}\n{\"path\":\"/a/c\",\"data\":null}\n";
+        List<String> applied = new ArrayList<>();
+        List<ImportProgress> reported = new ArrayList<>();
+
+        // 执行
+        ImportProgress result = new StreamingImporter(zooKeeper, 2, 60000, (entry, created, version, latencyMs) -> applied.add(entry.getPath()))
+                .run(new NdjsonNodeReader(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8))), reported::add);
+
+        // 验证
+        assertEquals("done", result.getStage());
+        assertEquals(3, result.getProcessed());
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getFailed());
+        assertEquals(List.of("/a", "/a/b"), applied);
+        assertEquals(1, reported.size());
+        assertEquals("/a/c", reported.get(0).getPath());
+        assertEquals("NOAUTH", reported.get(0).getError());
+        verify(zooKeeper).setData(eq("/a"), eq("1".getBytes(StandardCharsets.UTF_8)), eq(-1), any(AsyncCallback.StatCallback.class), any());
+    }
+}
@@ -0,0 +1,96 @@
+package com.mytool.zktool;
+
+import com.mytool.zktool.dto.BatchResult;
+import com.mytool.zktool.dto.SyncResult;
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SubtreeSyncTest {
+
+    @Mock
+    private ZooKeeper source;
+
+    @Mock
+    private ZooKeeper target;
+
+    @Test
+    void testSyncTransfersOnlyChanges() throws Exception {
+        // 准备：/app/a内容不同，/app/b只在源集群，/app/c只在目标集群
+        mockTree(source, Map.of("/app", "r", "/app/a", "1", "/app/b", "2"),
+                Map.of("/app", List.of("a", "b")), 100);
+        mockTree(target, Map.of("/app", "r", "/app/a", "old", "/app/c", "3"),
+                Map.of("/app", List.of("a", "c")), 200);
+        doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            AsyncCallback.StatCallback cb = inv.getArgument(2);
+            cb.processResult(0, path, null, stat("1", 200 + path.length()));
+            return null;
+        }).when(target).exists(anyString(), eq(false), any(AsyncCallback.StatCallback.class), any());
+        List<MultiBatchExecutor.Step> applied = new ArrayList<>();
+        SubtreeSync.Applier applier = steps -> {
+            applied.addAll(steps);
+            BatchResult result = new BatchResult();
+            result.setApplied(steps.size());
+            return result;
+        };
+        Map<String, long[]> verified = new HashMap<>();
+
+        // 执行
+        SyncResult first = new SubtreeSync(source, target, 10, 10).withVerified(verified).run("/app", true, false, applier);
+        SyncResult second = new SubtreeSync(source, target, 10, 10).withVerified(verified).run("/app", true, true, applier);
+
+        // 验证：长度不同的节点不读取目标数据，内容相同的节点不写入
+        assertTrue(first.isSuccess());
+        assertEquals(1, first.getUnchanged());
+        assertEquals(1, first.getCreated());
+        assertEquals(1, first.getUpdated());
+        assertEquals(1, first.getDeleted());
+        assertEquals(List.of("/app/a", "/app/b", "/app/c"), applied.stream().map(MultiBatchExecutor.Step::getPath).sorted().toList());
+        verify(target, never()).getData(eq("/app/a"), anyBoolean(), any(AsyncCallback.DataCallback.class), any());
+
+        // 第二次同步时/app和刚写入的/app/a两侧版本都未变化，不再读取数据；预演不写入
+        assertEquals(2, second.getUnchanged());
+        assertEquals(1, second.getCreated());
+        assertEquals(3, applied.size());
+        verify(source, times(1)).getData(eq("/app"), anyBoolean(), any(AsyncCallback.DataCallback.class), any());
+        verify(target, times(1)).getData(eq("/app"), anyBoolean(), any(AsyncCallback.DataCallback.class), any());
+    }
+
+    private static void mockTree(ZooKeeper zooKeeper, Map<String, String> data, Map<String, List<String>> children, long zxidBase) {
+        doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            AsyncCallback.Children2Callback cb = inv.getArgument(2);
+            cb.processResult(0, path, null, children.getOrDefault(path, List.of()), stat(data.get(path), zxidBase + path.length()));
+            return null;
+        }).when(zooKeeper).getChildren(anyString(), eq(false), any(AsyncCallback.Children2Callback.class), any());
+        doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            AsyncCallback.DataCallback cb = inv.getArgument(2);
+            cb.processResult(0, path, null, data.get(path).getBytes(StandardCharsets.UTF_8), stat(data.get(path), zxidBase + path.length()));
+            return null;
+        }).when(zooKeeper).getData(anyString(), eq(false), any(AsyncCallback.DataCallback.class), any());
+    }
+
+    private static Stat stat(String data, long mzxid) {
+        Stat stat = new Stat();
+        stat.setMzxid(mzxid);
+        stat.setDataLength(data.length());
+        return stat;
+    }
+}
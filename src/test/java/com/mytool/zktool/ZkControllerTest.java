@@ -1,6 +1,8 @@
 package com.mytool.zktool;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mytool.zktool.dto.BatchResult;
+import com.mytool.zktool.dto.NodeQuery;
 import com.mytool.zktool.dto.NodeRequest;
 import org.apache.zookeeper.CreateMode;
 import org.junit.jupiter.api.Test;
@@ -31,20 +33,29 @@ public class ZkControllerTest {
     @MockBean
     private ZkService zkService;
 
+    @MockBean
+    private ZkSessionRegistry sessionRegistry;
+
+    @MockBean
+    private NodeEventService eventService;
+
+    @MockBean
+    private ZkMetrics metrics;
+
     @Test
     void testConnect() throws Exception {
         // 准备
         String address = "localhost:2181";
-        doNothing().when(zkService).connect(address);
+        when(sessionRegistry.connect(address)).thenReturn(mock(ZkSession.class));
 
         // 执行和验证
-        mockMvc.perform(get("/api/zk/connect")
+        mockMvc.perform(get("/api/zk/connect").contextPath("/api")
                 .param("address", address))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.message").value("成功连接到 " + address));
+                .andExpect(jsonPath("$.data").value("成功连接到ZooKeeper集群: " + address));
 
-        verify(zkService).connect(address);
+        verify(sessionRegistry).connect(address);
     }
 
     @Test
@@ -55,10 +66,11 @@ public class ZkControllerTest {
         node.setPath(path);
         node.setName("test");
         node.setData("test data");
-        when(zkService.getNode(path)).thenReturn(node);
+        when(zkService.getVersionedNode(any(), eq(path), any(NodeQuery.class)))
+                .thenReturn(new ZkService.VersionedNode(node, null));
 
         // 执行和验证
-        mockMvc.perform(get("/api/zk/nodes")
+        mockMvc.perform(get("/api/zk/nodes").contextPath("/api")
                 .param("path", path))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
@@ -67,6 +79,38 @@ public class ZkControllerTest {
                 .andExpect(jsonPath("$.data.data").value("test data"));
     }
 
+    @Test
+    void testGetNodeEtagFollowsNegotiatedEncoding() throws Exception {
+        // 准备
+        String path = "/test";
+        NodeInfo node = new NodeInfo();
+        node.setPath(path);
+        node.setName("test");
+        when(zkService.getVersionedNode(any(), eq(path), any(NodeQuery.class)))
+                .thenReturn(new ZkService.VersionedNode(node, "v1"));
+
+        // 执行和验证：Accept中出现但不被接受（q=0）或优先级更低的CBOR不影响ETag
+        mockMvc.perform(get("/api/zk/nodes").contextPath("/api")
+                .param("path", path)
+                .header("Accept", "application/json, application/cbor;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"v1\""));
+        mockMvc.perform(get("/api/zk/nodes").contextPath("/api")
+                .param("path", path)
+                .header("Accept", "application/cbor;q=0.5, application/json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"v1\""));
+
+        // 执行和验证：以CBOR编码时ETag带-b后缀
+        mockMvc.perform(get("/api/zk/nodes").contextPath("/api")
+                .param("path", path)
+                .param("view", "compact")
+                .header("Accept", "application/cbor, application/json;q=0.9"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andExpect(header().string("ETag", "W/\"v1-c-b\""));
+    }
+
     @Test
     void testCreateNode() throws Exception {
         // 准备
@@ -76,13 +120,13 @@ public class ZkControllerTest {
         request.setMode("PERSISTENT");
 
         // 执行和验证
-        mockMvc.perform(post("/api/zk/nodes")
+        mockMvc.perform(post("/api/zk/nodes").contextPath("/api")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true));
 
-        verify(zkService).createNode(eq("/test"), eq("test data"), eq(CreateMode.PERSISTENT));
+        verify(zkService).createNode(any(), eq("/test"), eq("test data"), eq(CreateMode.PERSISTENT));
     }
 
     @Test
@@ -94,29 +138,31 @@ public class ZkControllerTest {
         request.setVersion(1);
 
         // 执行和验证
-        mockMvc.perform(put("/api/zk/nodes")
+        mockMvc.perform(put("/api/zk/nodes/update").contextPath("/api")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true));
 
-        verify(zkService).updateNode(eq("/test"), eq("updated data"), eq(1));
+        verify(zkService).updateNode(any(), eq("/test"), eq("updated data"), eq(1));
     }
 
     @Test
     void testDeleteNode() throws Exception {
         // 准备
-        String path = "/test";
-        int version = 1;
+        NodeRequest request = new NodeRequest();
+        request.setPath("/test");
+        request.setVersion(1);
+        when(zkService.deleteRecursive(any(), eq("/test"), eq(1), eq(false))).thenReturn(new BatchResult());
 
         // 执行和验证
-        mockMvc.perform(delete("/api/zk/nodes")
-                .param("path", path)
-                .param("version", String.valueOf(version)))
+        mockMvc.perform(delete("/api/zk/nodes/delete").contextPath("/api")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true));
 
-        verify(zkService).deleteNode(path, version);
+        verify(zkService).deleteRecursive(any(), eq("/test"), eq(1), eq(false));
     }
 
     @Test
@@ -126,10 +172,10 @@ public class ZkControllerTest {
         Map<String, String> data = new HashMap<>();
         data.put("/test", "test data");
         data.put("/test/child", "child data");
-        when(zkService.exportData(path)).thenReturn(data);
+        when(zkService.exportData(any(), eq(path))).thenReturn(data);
 
         // 执行和验证
-        mockMvc.perform(get("/api/zk/nodes/export")
+        mockMvc.perform(get("/api/zk/nodes/export").contextPath("/api")
                 .param("path", path))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
@@ -143,15 +189,16 @@ public class ZkControllerTest {
         Map<String, String> data = new HashMap<>();
         data.put("/test", "test data");
         data.put("/test/child", "child data");
+        when(zkService.importData(any(), eq(data))).thenReturn(new BatchResult());
 
         // 执行和验证
-        mockMvc.perform(post("/api/zk/nodes/import")
+        mockMvc.perform(post("/api/zk/nodes/import").contextPath("/api")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(data)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true));
 
-        verify(zkService).importData(data);
+        verify(zkService).importData(any(), eq(data));
     }
 
     @Test
@@ -162,7 +209,7 @@ public class ZkControllerTest {
         request.setData("test data");
 
         // 执行和验证
-        mockMvc.perform(post("/api/zk/nodes")
+        mockMvc.perform(post("/api/zk/nodes").contextPath("/api")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest())
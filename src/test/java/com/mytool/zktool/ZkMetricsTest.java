@@ -0,0 +1,68 @@
+package com.mytool.zktool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.zookeeper.KeeperException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZkMetricsTest {
+
+    @Test
+    void testRequestsAreCountedPerHttpRequest() {
+        // 准备
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ZkMetrics metrics = new ZkMetrics();
+        ReflectionTestUtils.setField(metrics, "registry", registry);
+        metrics.init();
+
+        // 执行：一个同步请求，一个在其他线程（模拟事件线程）回调中完成并继续发出请求的异步请求
+        AtomicInteger rpcs = metrics.beginRequest();
+        metrics.record("getData", metrics.start(false), KeeperException.Code.NONODE.intValue(), false);
+        long start = metrics.start(true);
+        AtomicInteger request = metrics.currentRequest();
+        double inFlight = registry.get("zk.client.inflight").gauge().value();
+        Thread callback = new Thread(() -> {
+            metrics.record("getChildren", start, 0, true);
+            AtomicInteger previous = metrics.switchRequest(request);
+            metrics.record("getChildren", metrics.start(false), 0, false);
+            metrics.switchRequest(previous);
+        });
+        callback.start();
+        assertDoesNotThrow(() -> callback.join());
+        metrics.endRequest(rpcs, "GET", "/zk/nodes");
+
+        // 验证
+        assertEquals(1, inFlight);
+        assertEquals(0, registry.get("zk.client.inflight").gauge().value());
+        assertEquals(1, registry.get("zk.client.requests").tag("op", "getData").tag("result", "NONODE").timer().count());
+        assertEquals(2, registry.get("zk.client.requests").tag("op", "getChildren").tag("result", "OK").timer().count());
+        assertEquals(3, registry.get("zktool.http.zk.rpcs").tag("uri", "/zk/nodes").summary().totalAmount());
+        assertNull(metrics.currentRequest());
+    }
+
+    @Test
+    void testAsyncResponseBodyIsCountedForItsRequest() throws Exception {
+        // 准备
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ZkMetrics metrics = new ZkMetrics();
+        ReflectionTestUtils.setField(metrics, "registry", registry);
+        metrics.init();
+
+        // 执行：请求线程提交流式响应后转为异步，流式响应在线程池中发出请求
+        AtomicInteger rpcs = metrics.beginRequest();
+        Runnable body = metrics.propagate(() -> metrics.record("getData", metrics.start(false), 0, false));
+        metrics.detachRequest();
+        Thread worker = new Thread(body);
+        worker.start();
+        worker.join();
+        metrics.endRequest(rpcs, "GET", "/zk/nodes/export");
+
+        // 验证
+        assertNull(metrics.currentRequest());
+        assertEquals(1, registry.get("zktool.http.zk.rpcs").tag("uri", "/zk/nodes/export").summary().totalAmount());
+    }
+}
@@ -1,15 +1,25 @@
 package com.mytool.zktool;
 
+import com.mytool.zktool.dto.BatchOperationRequest;
+import com.mytool.zktool.dto.BatchResult;
+import com.mytool.zktool.dto.NodeQuery;
 import org.apache.zookeeper.*;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.apache.zookeeper.data.Stat;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,16 +30,25 @@ public class ZkServiceTest {
     @Mock
     private ZooKeeper zooKeeper;
 
+    @Mock
+    private TreeMirrorService mirrorService;
+
+    @Mock
+    private AuditService auditService;
+
     @InjectMocks
     private ZkService zkService;
 
+    private ZkSession session;
+
     private static final String TEST_PATH = "/test";
     private static final String TEST_DATA = "test_data";
 
     @BeforeEach
     void setUp() throws Exception {
         // 模拟ZooKeeper连接
-        when(zooKeeper.getState()).thenReturn(ZooKeeper.States.CONNECTED);
+        lenient().when(zooKeeper.getState()).thenReturn(ZooKeeper.States.CONNECTED);
+        session = new ZkSession("test", zooKeeper);
     }
 
     @Test
@@ -39,7 +58,7 @@ public class ZkServiceTest {
                 .thenReturn(TEST_PATH);
 
         // 执行
-        zkService.createNode(TEST_PATH, TEST_DATA, CreateMode.PERSISTENT);
+        zkService.createNode(session, TEST_PATH, TEST_DATA, CreateMode.PERSISTENT);
 
         // 验证
         verify(zooKeeper).create(eq(TEST_PATH), 
@@ -51,21 +70,148 @@ public class ZkServiceTest {
     @Test
     void testGetNode() throws Exception {
         // 准备
-        Stat stat = new Stat();
-        when(zooKeeper.getData(eq(TEST_PATH), eq(true), any(Stat.class)))
-                .thenReturn(TEST_DATA.getBytes());
-        when(zooKeeper.getChildren(eq(TEST_PATH), eq(true)))
-                .thenReturn(Arrays.asList("child1", "child2"));
+        mockTree(true, Map.of(TEST_PATH, TEST_DATA, TEST_PATH + "/child2", "data2", TEST_PATH + "/child1", "data1"),
+                Map.of(TEST_PATH, Arrays.asList("child2", "child1")));
 
         // 执行
-        NodeInfo node = zkService.getNode(TEST_PATH);
+        NodeInfo node = zkService.getNode(session, TEST_PATH);
 
         // 验证
         assertNotNull(node);
         assertEquals(TEST_PATH, node.getPath());
         assertEquals(TEST_DATA, node.getData());
-        verify(zooKeeper).getData(eq(TEST_PATH), eq(true), any(Stat.class));
-        verify(zooKeeper).getChildren(eq(TEST_PATH), eq(true));
+        assertEquals(Arrays.asList("child1", "child2"), node.getChildren().stream().map(NodeInfo::getName).toList());
+        assertEquals("data1", node.getChildren().get(0).getData());
+        verify(zooKeeper, never()).getData(anyString(), anyBoolean(), any(Stat.class));
+    }
+
+    @Test
+    void testGetNodeWithDepthAndCursor() throws Exception {
+        // 准备
+        Stat childStat = new Stat();
+        childStat.setNumChildren(3);
+        mockWatchedReads(Map.of(TEST_PATH, TEST_DATA), Map.of(TEST_PATH, Arrays.asList("c", "a", "d", "b")), childStat);
+
+        NodeQuery query = new NodeQuery();
+        query.setAfter("a");
+        query.setLimit(2);
+
+        // 执行
+        NodeInfo node = zkService.getNode(session, TEST_PATH, query);
+
+        // 验证：只返回游标之后的一页，子节点不再展开
+        assertEquals(4, node.getNumChildren());
+        assertEquals(Arrays.asList("b", "c"), node.getChildren().stream().map(NodeInfo::getName).toList());
+        assertTrue(node.isHasMore());
+        assertEquals("c", node.getNextCursor());
+        NodeInfo child = node.getChildren().get(0);
+        assertNull(child.getData());
+        assertNull(child.getChildren());
+        assertEquals(3, child.getNumChildren());
+        assertFalse(child.getIsLeaf());
+        verify(zooKeeper, never()).getData(eq(TEST_PATH + "/b"), anyBoolean(), any(AsyncCallback.DataCallback.class), any());
+        verify(zooKeeper, never()).exists(eq(TEST_PATH + "/a"), anyBoolean(), any(AsyncCallback.StatCallback.class), any());
+    }
+
+    @Test
+    void testGetNodeWithFieldProjection() throws Exception {
+        // 准备
+        mockWatchedReads(Map.of(), Map.of(TEST_PATH, Arrays.asList("b", "a")), new Stat());
+
+        NodeQuery query = new NodeQuery();
+        query.setFields(NodeQuery.parseFields("path,stat"));
+
+        // 执行
+        NodeInfo node = zkService.getNode(session, TEST_PATH, query);
+
+        // 验证：只通过exists和getChildren取回Stat，不读取数据和ACL，也不填充派生字段
+        assertEquals(Arrays.asList("a", "b"), node.getChildren().stream().map(NodeInfo::getName).toList());
+        assertNotNull(node.getStat());
+        assertNull(node.getData());
+        assertNull(node.getCreateTime());
+        assertNull(node.getChildren().get(0).getVersion());
+        verify(zooKeeper, never()).getData(anyString(), anyBoolean(), any(AsyncCallback.DataCallback.class), any());
+        verify(zooKeeper, never()).getACL(anyString(), any(Stat.class));
+        assertThrows(IllegalArgumentException.class, () -> NodeQuery.parseFields("path,owner"));
+    }
+
+    @Test
+    void testGetNodeServedFromCacheUntilInvalidated() throws Exception {
+        // 准备
+        mockWatchedReads(Map.of(TEST_PATH, TEST_DATA, TEST_PATH + "/a", "data_a"),
+                Map.of(TEST_PATH, List.of("a")), new Stat());
+        when(zooKeeper.setData(eq(TEST_PATH + "/a"), any(), eq(-1))).thenReturn(new Stat());
+        NodeQuery query = new NodeQuery();
+        query.setDepth(1);
+        query.setFields(NodeQuery.parseFields("path,data"));
+
+        // 执行：第二次读取命中缓存；更新子节点后子节点和父节点失效，第三次重新读取
+        zkService.getNode(session, TEST_PATH, query);
+        zkService.getNode(session, TEST_PATH, query);
+        zkService.updateNode(session, TEST_PATH + "/a", "new", -1);
+        NodeInfo node = zkService.getNode(session, TEST_PATH, query);
+
+        // 验证
+        assertEquals(TEST_DATA, node.getData());
+        verify(zooKeeper, times(2)).getData(eq(TEST_PATH), eq(true), any(AsyncCallback.DataCallback.class), any());
+        verify(zooKeeper, times(2)).getChildren(eq(TEST_PATH + "/a"), eq(true), any(AsyncCallback.Children2Callback.class), any());
+    }
+
+    @Test
+    void testNodeVersionChecksOnlyRootWhenCached() throws Exception {
+        // 准备
+        mockWatchedReads(Map.of(TEST_PATH, TEST_DATA), Map.of(TEST_PATH, List.of("a")), new Stat());
+        when(zooKeeper.exists(TEST_PATH, false)).thenReturn(new Stat());
+        when(zooKeeper.setData(eq(TEST_PATH + "/a"), any(), eq(-1))).thenReturn(new Stat());
+        NodeQuery query = new NodeQuery();
+
+        // 执行：子节点更新后其Stat变化
+        String first = zkService.getNodeVersion(session, TEST_PATH, query);
+        String second = zkService.getNodeVersion(session, TEST_PATH, query);
+        Stat changed = new Stat();
+        changed.setMzxid(5);
+        mockWatchedReads(Map.of(TEST_PATH, TEST_DATA), Map.of(TEST_PATH, List.of("a")), changed);
+        zkService.updateNode(session, TEST_PATH + "/a", "new", -1);
+        when(zooKeeper.exists(TEST_PATH, false)).thenReturn(changed);
+        String third = zkService.getNodeVersion(session, TEST_PATH, query);
+
+        // 验证：缓存命中时只有一次exists，内容变化后版本变化
+        assertEquals(first, second);
+        assertNotEquals(first, third);
+        verify(zooKeeper, times(2)).getChildren(eq(TEST_PATH), eq(true), any(AsyncCallback.Children2Callback.class), any());
+        verify(zooKeeper, times(3)).exists(TEST_PATH, false);
+    }
+
+    @Test
+    void testNodeVersionFollowsChildAclChanges() throws Exception {
+        // 准备：展开两层并返回ACL，子节点的ACL版本可变
+        mockWatchedReads(Map.of(TEST_PATH, TEST_DATA), Map.of(TEST_PATH, List.of("a")), new Stat());
+        when(zooKeeper.exists(TEST_PATH, false)).thenReturn(new Stat());
+        int[] childAversion = {0};
+        doAnswer(inv -> {
+            Stat stat = inv.getArgument(1);
+            stat.setAversion(inv.getArgument(0).equals(TEST_PATH + "/a") ? childAversion[0] : 0);
+            return ZooDefs.Ids.OPEN_ACL_UNSAFE;
+        }).when(zooKeeper).getACL(anyString(), any(Stat.class));
+        doAnswer(inv -> {
+            Stat stat = new Stat();
+            stat.setAversion(childAversion[0]);
+            AsyncCallback.StatCallback cb = inv.getArgument(2);
+            cb.processResult(0, inv.getArgument(0), null, stat);
+            return null;
+        }).when(zooKeeper).exists(eq(TEST_PATH + "/a"), eq(false), any(AsyncCallback.StatCallback.class), any());
+        NodeQuery query = new NodeQuery();
+        query.setDepth(2);
+
+        // 执行：子节点的ACL变化不触发Watch，缓存中的Stat不变
+        ZkService.VersionedNode built = zkService.getVersionedNode(session, TEST_PATH, query);
+        String before = zkService.getNodeVersion(session, TEST_PATH, query);
+        childAversion[0] = 1;
+        String after = zkService.getNodeVersion(session, TEST_PATH, query);
+
+        // 验证：构建时给出的版本与单独校验的版本一致，ACL变化后版本变化
+        assertEquals(built.getVersion(), before);
+        assertNotEquals(before, after);
     }
 
     @Test
@@ -76,7 +222,7 @@ public class ZkServiceTest {
                 .thenReturn(new Stat());
 
         // 执行
-        zkService.updateNode(TEST_PATH, TEST_DATA, version);
+        zkService.updateNode(session, TEST_PATH, TEST_DATA, version);
 
         // 验证
         verify(zooKeeper).setData(eq(TEST_PATH),
@@ -84,50 +230,259 @@ public class ZkServiceTest {
                                 eq(version));
     }
 
+    @Test
+    void testMutationsAreAudited() throws Exception {
+        // 准备：更新成功，删除因版本不匹配失败
+        Stat stat = new Stat();
+        stat.setVersion(4);
+        when(zooKeeper.setData(eq(TEST_PATH), any(), eq(-1))).thenReturn(stat);
+        doThrow(new KeeperException.BadVersionException(TEST_PATH)).when(zooKeeper).delete(TEST_PATH, 2);
+
+        // 执行
+        zkService.updateNode(session, TEST_PATH, TEST_DATA, -1);
+        assertThrows(KeeperException.BadVersionException.class, () -> zkService.deleteNode(session, TEST_PATH, 2));
+
+        // 验证：未指定版本时旧版本按新版本推算
+        verify(auditService).record(eq(session), eq("UPDATE"), eq(TEST_PATH), eq(3), eq(4),
+                eq(TEST_DATA.getBytes()), anyLong(), isNull());
+        verify(auditService).record(eq(session), eq("DELETE"), eq(TEST_PATH), eq(2), isNull(),
+                isNull(), anyLong(), eq("BADVERSION"));
+    }
+
     @Test
     void testDeleteNode() throws Exception {
         // 准备
         int version = 1;
 
         // 执行
-        zkService.deleteNode(TEST_PATH, version);
+        zkService.deleteNode(session, TEST_PATH, version);
 
         // 验证
         verify(zooKeeper).delete(eq(TEST_PATH), eq(version));
     }
 
     @Test
+    @SuppressWarnings("unchecked")
     void testBatchCreate() throws Exception {
         // 准备
         List<NodeInfo> nodes = Arrays.asList(
-            createTestNode("/test1", "data1"),
-            createTestNode("/test2", "data2")
+            createTestNode("/test1/child", "data2"),
+            createTestNode("/test1", "data1")
         );
 
         // 执行
-        zkService.batchCreate(nodes);
+        BatchResult result = zkService.batchCreate(session, nodes);
+
+        // 验证：一次multi事务，父节点在前
+        ArgumentCaptor<Iterable<Op>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(zooKeeper, times(1)).multi(captor.capture());
+        List<String> paths = new ArrayList<>();
+        captor.getValue().forEach(op -> paths.add(op.getPath()));
+        assertEquals(Arrays.asList("/test1", "/test1/child"), paths);
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.getApplied());
+        verify(zooKeeper, never()).create(anyString(), any(), any(), any(CreateMode.class));
+    }
+
+    @Test
+    void testBatchUpdateFailureReportsFailedPath() throws Exception {
+        // 准备：第二个操作版本不匹配，整个事务失败
+        BatchOperationRequest.BatchNode first = batchNode("/a", "1", 3);
+        BatchOperationRequest.BatchNode second = batchNode("/b", "2", 5);
+        KeeperException failure = spy(KeeperException.create(KeeperException.Code.BADVERSION));
+        doReturn(Arrays.asList(
+                new OpResult.ErrorResult(KeeperException.Code.RUNTIMEINCONSISTENCY.intValue()),
+                new OpResult.ErrorResult(KeeperException.Code.BADVERSION.intValue())))
+                .when(failure).getResults();
+        when(zooKeeper.multi(any())).thenThrow(failure);
+
+        // 执行
+        BatchResult result = zkService.executeBatch(session, "UPDATE", Arrays.asList(first, second), null, false);
 
         // 验证
-        verify(zooKeeper, times(2))
-            .create(anyString(), any(), any(), eq(CreateMode.PERSISTENT));
+        assertFalse(result.isSuccess());
+        assertEquals("/b", result.getFailedPath());
+        assertEquals(0, result.getApplied());
+    }
+
+    @Test
+    void testDeleteRecursive() throws Exception {
+        // 准备：/test下有两层子节点
+        Map<String, List<String>> children = Map.of(TEST_PATH, List.of("a", "b"), TEST_PATH + "/a", List.of("x"));
+        doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            AsyncCallback.Children2Callback cb = inv.getArgument(2);
+            cb.processResult(0, path, null, children.getOrDefault(path, List.of()), new Stat());
+            return null;
+        }).when(zooKeeper).getChildren(anyString(), eq(false), any(AsyncCallback.Children2Callback.class), any());
+
+        // 执行：预演不删除任何节点
+        BatchResult dryRun = zkService.deleteRecursive(session, TEST_PATH, 3, true);
+        BatchResult result = zkService.deleteRecursive(session, TEST_PATH, 3, false);
+
+        // 验证：只拉取Stat，子节点先于父节点删除，根节点带版本校验
+        assertEquals(4, dryRun.getTotal());
+        ArgumentCaptor<Iterable<Op>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(zooKeeper, times(1)).multi(captor.capture());
+        List<String> paths = new ArrayList<>();
+        captor.getValue().forEach(op -> paths.add(op.getPath()));
+        assertEquals(TEST_PATH, paths.get(paths.size() - 1));
+        assertTrue(paths.indexOf(TEST_PATH + "/a/x") < paths.indexOf(TEST_PATH + "/a"));
+        assertTrue(result.isSuccess());
+        assertEquals(4, result.getApplied());
+        verify(zooKeeper, never()).getData(anyString(), anyBoolean(), any(AsyncCallback.DataCallback.class), any());
+        assertThrows(IllegalArgumentException.class, () -> zkService.deleteRecursive(session, "/", -1, false));
+    }
+
+    @Test
+    void testGetNodeServedFromMirror() throws Exception {
+        // 准备
+        TreeMirror mirror = mock(TreeMirror.class);
+        TreeMirror.MirrorNode parent = new TreeMirror.MirrorNode(TEST_DATA.getBytes(), new Stat());
+        parent.getChildren().addAll(List.of("b", "a"));
+        when(mirrorService.find(session, TEST_PATH)).thenReturn(mirror);
+        when(mirror.get(TEST_PATH)).thenReturn(parent);
+        // a在加载后新增了子节点，Stat中的numChildren仍为0
+        TreeMirror.MirrorNode childA = new TreeMirror.MirrorNode("a".getBytes(), new Stat());
+        childA.getChildren().add("x");
+        when(mirror.get(TEST_PATH + "/a")).thenReturn(childA);
+        when(mirror.get(TEST_PATH + "/b")).thenReturn(new TreeMirror.MirrorNode("b".getBytes(), new Stat()));
+        // 镜像中没有ACL，需要时读取实时ACL
+        when(zooKeeper.getACL(eq(TEST_PATH), any(Stat.class))).thenReturn(ZooDefs.Ids.READ_ACL_UNSAFE);
+
+        // 执行
+        NodeInfo node = zkService.getNode(session, TEST_PATH, new NodeQuery());
+
+        // 验证：只有展开的根节点返回ACL
+        assertEquals(TEST_DATA, node.getData());
+        assertEquals(ZooDefs.Ids.READ_ACL_UNSAFE, node.getAcls());
+        assertNull(node.getChildren().get(0).getAcls());
+        verify(zooKeeper).getACL(eq(TEST_PATH), any(Stat.class));
+        assertEquals(Arrays.asList("a", "b"), node.getChildren().stream().map(NodeInfo::getName).toList());
+        assertEquals(2, node.getNumChildren());
+        assertEquals(1, node.getChildren().get(0).getNumChildren());
+        assertFalse(node.getChildren().get(0).getIsLeaf());
+        verify(zooKeeper, never()).getChildren(anyString(), anyBoolean());
+        verify(zooKeeper, never()).getData(anyString(), anyBoolean(), any(Stat.class));
+    }
+
+    @Test
+    void testMirrorVersionFollowsAclChanges() throws Exception {
+        // 准备：ACL变化只改变aversion，不经过镜像
+        TreeMirror mirror = mock(TreeMirror.class);
+        when(mirrorService.find(session, TEST_PATH)).thenReturn(mirror);
+        when(mirror.get(TEST_PATH)).thenReturn(new TreeMirror.MirrorNode(TEST_DATA.getBytes(), new Stat()));
+        Stat aclStat = new Stat();
+        doAnswer(inv -> {
+            inv.<Stat>getArgument(1).setAversion(aclStat.getAversion());
+            return ZooDefs.Ids.OPEN_ACL_UNSAFE;
+        }).when(zooKeeper).getACL(eq(TEST_PATH), any(Stat.class));
+        doAnswer(inv -> {
+            inv.<AsyncCallback.StatCallback>getArgument(2).processResult(KeeperException.Code.OK.intValue(),
+                    TEST_PATH, null, aclStat);
+            return null;
+        }).when(zooKeeper).exists(eq(TEST_PATH), eq(false), any(AsyncCallback.StatCallback.class), any());
+        NodeQuery query = new NodeQuery();
+
+        // 执行
+        ZkService.VersionedNode before = zkService.getVersionedNode(session, TEST_PATH, query);
+        String checked = zkService.getNodeVersion(session, TEST_PATH, query);
+        aclStat.setAversion(1);
+        String changed = zkService.getNodeVersion(session, TEST_PATH, query);
+
+        // 验证：构建与单独校验得到相同版本，ACL变化后版本变化
+        assertEquals(before.getVersion(), checked);
+        assertNotEquals(checked, changed);
+        assertEquals(changed, zkService.getVersionedNode(session, TEST_PATH, query).getVersion());
     }
 
     @Test
     void testExportData() throws Exception {
         // 准备
-        when(zooKeeper.getData(eq(TEST_PATH), eq(false), isNull()))
-                .thenReturn(TEST_DATA.getBytes());
-        when(zooKeeper.getChildren(eq(TEST_PATH), eq(false)))
-                .thenReturn(Arrays.asList("child1", "child2"));
+        mockTree(false, Map.of(TEST_PATH, TEST_DATA, TEST_PATH + "/child1", "data1", TEST_PATH + "/child1/leaf", "leaf"),
+                Map.of(TEST_PATH, List.of("child1"), TEST_PATH + "/child1", List.of("leaf")));
 
         // 执行
-        var result = zkService.exportData(TEST_PATH);
+        var result = zkService.exportData(session, TEST_PATH);
 
         // 验证
         assertNotNull(result);
+        assertEquals(3, result.size());
         assertEquals(TEST_DATA, result.get(TEST_PATH));
-        verify(zooKeeper).getData(eq(TEST_PATH), eq(false), isNull());
-        verify(zooKeeper).getChildren(eq(TEST_PATH), eq(false));
+        assertEquals("leaf", result.get(TEST_PATH + "/child1/leaf"));
+    }
+
+    @Test
+    void testExportDataStream() throws Exception {
+        // 准备
+        mockTree(false, Map.of(TEST_PATH, TEST_DATA, TEST_PATH + "/child1", "data1"),
+                Map.of(TEST_PATH, List.of("child1")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // 执行
+        long count;
+        try (NdjsonNodeWriter writer = new NdjsonNodeWriter(out)) {
+            count = zkService.exportData(session, TEST_PATH, writer);
+        }
+
+        // 验证：父节点在前，每行一个节点
+        assertEquals(2, count);
+        assertEquals("{\"path\":\"/test\",\"data\":\"test_data\"}\n{\"path\":\"/test/child1\",\"data\":\"data1\"}\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    // 用内存中的树模拟异步getData/getChildren/getACL回调
+    private void mockTree(boolean withAcl, Map<String, String> data, Map<String, List<String>> children) {
+        doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            AsyncCallback.Children2Callback cb = inv.getArgument(2);
+            cb.processResult(0, path, null, children.getOrDefault(path, List.of()), new Stat());
+            return null;
+        }).when(zooKeeper).getChildren(anyString(), eq(false), any(AsyncCallback.Children2Callback.class), any());
+        doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            AsyncCallback.DataCallback cb = inv.getArgument(2);
+            cb.processResult(0, path, null, data.get(path).getBytes(), new Stat());
+            return null;
+        }).when(zooKeeper).getData(anyString(), eq(false), any(AsyncCallback.DataCallback.class), any());
+        if (withAcl) {
+            doAnswer(inv -> {
+                String path = inv.getArgument(0);
+                AsyncCallback.ACLCallback cb = inv.getArgument(2);
+                cb.processResult(0, path, null, ZooDefs.Ids.OPEN_ACL_UNSAFE, new Stat());
+                return null;
+            }).when(zooKeeper).getACL(anyString(), any(Stat.class), any(AsyncCallback.ACLCallback.class), any());
+        }
+    }
+
+    // 模拟读取节点时注册Watch的异步getData/exists/getChildren回调，所有节点使用同一个Stat
+    private void mockWatchedReads(Map<String, String> data, Map<String, List<String>> children, Stat stat) {
+        lenient().doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            AsyncCallback.DataCallback cb = inv.getArgument(2);
+            cb.processResult(0, path, null, data.getOrDefault(path, "").getBytes(), stat);
+            return null;
+        }).when(zooKeeper).getData(anyString(), eq(true), any(AsyncCallback.DataCallback.class), any());
+        lenient().doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            AsyncCallback.StatCallback cb = inv.getArgument(2);
+            cb.processResult(0, path, null, stat);
+            return null;
+        }).when(zooKeeper).exists(anyString(), eq(true), any(AsyncCallback.StatCallback.class), any());
+        doAnswer(inv -> {
+            String path = inv.getArgument(0);
+            AsyncCallback.Children2Callback cb = inv.getArgument(2);
+            cb.processResult(0, path, null, children.getOrDefault(path, List.of()), stat);
+            return null;
+        }).when(zooKeeper).getChildren(anyString(), eq(true), any(AsyncCallback.Children2Callback.class), any());
+    }
+
+    private BatchOperationRequest.BatchNode batchNode(String path, String data, Integer version) {
+        BatchOperationRequest.BatchNode node = new BatchOperationRequest.BatchNode();
+        node.setPath(path);
+        node.setData(data);
+        node.setVersion(version);
+        return node;
     }
 
     private NodeInfo createTestNode(String path, String data) {
@@ -137,6 +492,26 @@ public class ZkServiceTest {
         return node;
     }
 
+    @Test
+    void testWatchEventsReArmOnlyListenerPaths() throws Exception {
+        // 准备：/cached只有缓存注册的Watch，/watched有监听器
+        List<NodeEvent> events = new ArrayList<>();
+        session.getPathListeners().computeIfAbsent("/watched", k -> new HashSet<>())
+                .add((path, event) -> events.add(event));
+
+        // 执行
+        ReflectionTestUtils.invokeMethod(zkService, "handleWatchedEvent", session,
+                new WatchedEvent(Watcher.Event.EventType.NodeDataChanged, Watcher.Event.KeeperState.SyncConnected, "/cached"));
+        ReflectionTestUtils.invokeMethod(zkService, "handleWatchedEvent", session,
+                new WatchedEvent(Watcher.Event.EventType.NodeChildrenChanged, Watcher.Event.KeeperState.SyncConnected, "/watched"));
+
+        // 验证：缓存的Watch不重新注册，监听器路径异步重新注册，子节点变化不再报告为UNKNOWN
+        verify(zooKeeper, never()).exists(eq("/cached"), anyBoolean(), any(AsyncCallback.StatCallback.class), any());
+        verify(zooKeeper, never()).exists(anyString(), anyBoolean());
+        verify(zooKeeper).exists(eq("/watched"), eq(true), any(AsyncCallback.StatCallback.class), isNull());
+        assertEquals(List.of(NodeEvent.CHILDREN_CHANGED), events);
+    }
+
     @Test
     void testConnectionFailure() {
         // 准备
@@ -144,7 +519,7 @@ public class ZkServiceTest {
 
         // 执行和验证
         assertThrows(IllegalStateException.class, () -> 
-            zkService.getNode(TEST_PATH)
+            zkService.getNode(session, TEST_PATH)
         );
     }
 }
\ No newline at end of file